@@ -0,0 +1,131 @@
+package com.blog.analytics.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * JMH结果对比报告
+ * <p>
+ * 读取两份JMH的JSON结果，按基准名和参数配对，输出基线得分、当前得分和变化百分比。
+ * 吞吐量模式下得分越高越好，其余模式（平均时间、采样、单次）越低越好。
+ * 变差幅度超过阈值、且超出两次结果误差之和（排除测量噪声）时判定为回退。
+ * 也可单独运行：{@code BenchmarkComparator <基线> <当前结果> [阈值百分比]}，有回退时以非零状态退出。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class BenchmarkComparator {
+
+    static final double DEFAULT_THRESHOLD = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: BenchmarkComparator <基线> <当前结果> [阈值百分比]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+        int regressions = compare(new File(args[0]), new File(args[1]), threshold, System.out);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 输出对比报告
+     *
+     * @param baseline 基线结果
+     * @param current 当前结果
+     * @param threshold 回退阈值（百分比）
+     * @param out 报告输出
+     * @return 回退的基准数
+     */
+    public static int compare(File baseline, File current, double threshold, PrintStream out) throws IOException {
+        Map<String, JSONObject> base = load(baseline);
+        Map<String, JSONObject> now = load(current);
+
+        out.printf("%-72s %8s %14s %14s %9s  %s%n", "基准", "模式", "基线", "当前", "变化", "结论");
+        int regressions = 0;
+        for (Map.Entry<String, JSONObject> entry : now.entrySet()) {
+            JSONObject result = entry.getValue();
+            JSONObject metric = result.getJSONObject("primaryMetric");
+            String mode = result.getString("mode");
+            double score = metric.getDoubleValue("score");
+            String unit = metric.getString("scoreUnit");
+            JSONObject previous = base.get(entry.getKey());
+            if (previous == null) {
+                out.printf("%-72s %8s %14s %14s %9s  %s%n", entry.getKey(), mode, "-",
+                    format(score, unit), "-", "新增");
+                continue;
+            }
+            JSONObject previousMetric = previous.getJSONObject("primaryMetric");
+            double baseScore = previousMetric.getDoubleValue("score");
+            double change = baseScore == 0 ? 0 : (score - baseScore) / baseScore * 100;
+            // 吞吐量下降或耗时上升为变差
+            double worse = "thrpt".equals(mode) ? -change : change;
+            double noise = errorOf(previousMetric) + errorOf(metric);
+            String verdict;
+            if (worse > threshold && Math.abs(score - baseScore) > noise) {
+                verdict = "回退";
+                regressions++;
+            } else if (worse < -threshold && Math.abs(score - baseScore) > noise) {
+                verdict = "提升";
+            } else {
+                verdict = "持平";
+            }
+            out.printf("%-72s %8s %14s %14s %+8.1f%%  %s%n", entry.getKey(), mode,
+                format(baseScore, previousMetric.getString("scoreUnit")), format(score, unit), change, verdict);
+        }
+        for (String removed : base.keySet()) {
+            if (!now.containsKey(removed)) {
+                out.printf("%-72s %8s %14s %14s %9s  %s%n", removed, base.get(removed).getString("mode"),
+                    "-", "-", "-", "已移除");
+            }
+        }
+        out.printf("阈值%.1f%%，回退%d项%n", threshold, regressions);
+        return regressions;
+    }
+
+    /**
+     * 按“基准名:参数”索引结果
+     */
+    private static Map<String, JSONObject> load(File file) throws IOException {
+        JSONArray results = JSON.parseArray(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        Map<String, JSONObject> byKey = new LinkedHashMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            String key = result.getString("benchmark");
+            JSONObject params = result.getJSONObject("params");
+            if (params != null && !params.isEmpty()) {
+                key += ":" + new TreeMap<>(params);
+            }
+            byKey.put(key, result);
+        }
+        return byKey;
+    }
+
+    /**
+     * 得分误差，迭代次数不足时JMH输出NaN，按0处理
+     */
+    private static double errorOf(JSONObject metric) {
+        Object error = metric.get("scoreError");
+        if (!(error instanceof Number)) {
+            return 0;
+        }
+        double value = ((Number) error).doubleValue();
+        return Double.isNaN(value) ? 0 : value;
+    }
+
+    private static String format(double score, String unit) {
+        return String.format("%.3f %s", score, unit);
+    }
+}
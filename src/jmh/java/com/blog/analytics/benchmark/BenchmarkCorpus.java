@@ -0,0 +1,119 @@
+package com.blog.analytics.benchmark;
+
+import com.blog.analytics.dto.DailyStatsDTO;
+import com.blog.analytics.dto.VisitRecordDTO;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试输入语料
+ * <p>
+ * 取自线上访问日志中占比较高的形态：主流浏览器与爬虫的UserAgent、经过一到两层代理的请求头、
+ * 合法与非法的IP字符串，以及一个月的日统计。每个基准按顺序轮换使用，避免单一输入被JIT特化。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+final class BenchmarkCorpus {
+
+    static final String[] USER_AGENTS = {
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/129.0.0.0 Safari/537.36",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.6 Safari/605.1.15",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 17_6_1 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.6 Mobile/15E148 Safari/604.1",
+        "Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/129.0.6668.81 Mobile Safari/537.36",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/129.0.0.0 Safari/537.36 Edg/129.0.0.0",
+        "Mozilla/5.0 (X11; Ubuntu; Linux x86_64; rv:131.0) Gecko/20100101 Firefox/131.0",
+        "Mozilla/5.0 (iPad; CPU OS 17_6 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.6 Mobile/15E148 Safari/604.1",
+        "Mozilla/5.0 (Linux; Android 13; V2183A Build/TP1A.220624.014; wv) AppleWebKit/537.36 (KHTML, like Gecko) Version/4.0 Chrome/116.0.0.0 Mobile Safari/537.36 MicroMessenger/8.0.49.2600 WeChat/arm64",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/128.0.0.0 Safari/537.36 OPR/114.0.0.0",
+        "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+        "Mozilla/5.0 (compatible; Baiduspider/2.0; +http://www.baidu.com/search/spider.html)",
+        "Mozilla/5.0 (Windows NT 6.1; WOW64; Trident/7.0; rv:11.0) like Gecko",
+        "curl/8.5.0",
+        ""
+    };
+
+    static final String[] BROWSERS = {
+        "Chrome", "Safari", "Safari", "Chrome", "Edge", "Firefox", "Safari",
+        "Chrome", "Opera", "Chrome", "Chrome", "Internet Explorer", "Chrome", "Chrome"
+    };
+
+    static final String[] IPS = {
+        "114.247.50.2", "223.104.63.189", "10.0.12.7", "192.168.1.100", "8.8.8.8",
+        "2408:8207:2470:d450:1c9d:5f1a:b2e3:4c6d", "256.1.1.1", "unknown", "127.0.0.1", "1.2.3"
+    };
+
+    static final String[] PAGE_URLS = {
+        "/", "/archives/2026/10/spring-boot-jetty-tuning", "/tags/redis", "/about",
+        "/archives/2025/12/mybatis-plus-batch-upsert?from=rss", "/search?q=hyperloglog&page=2"
+    };
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * 代理请求：无转发头、单层X-Forwarded-For、多层X-Forwarded-For、只有X-Real-IP
+     */
+    static MockHttpServletRequest[] requests() {
+        MockHttpServletRequest direct = new MockHttpServletRequest();
+        direct.setRemoteAddr("114.247.50.2");
+
+        MockHttpServletRequest forwarded = new MockHttpServletRequest();
+        forwarded.setRemoteAddr("10.0.0.5");
+        forwarded.addHeader("X-Forwarded-For", "223.104.63.189");
+
+        MockHttpServletRequest chained = new MockHttpServletRequest();
+        chained.setRemoteAddr("10.0.0.5");
+        chained.addHeader("X-Forwarded-For", "223.104.63.189, 172.16.3.4, 10.0.0.2");
+
+        MockHttpServletRequest realIp = new MockHttpServletRequest();
+        realIp.setRemoteAddr("10.0.0.5");
+        realIp.addHeader("X-Forwarded-For", "unknown");
+        realIp.addHeader("X-Real-IP", "36.112.9.88");
+
+        return new MockHttpServletRequest[]{direct, forwarded, chained, realIp};
+    }
+
+    /**
+     * 访问上报：字段齐全，与recordVisit填充后的DTO一致
+     */
+    static VisitRecordDTO[] visits() {
+        VisitRecordDTO[] visits = new VisitRecordDTO[USER_AGENTS.length];
+        LocalDateTime time = LocalDateTime.of(2026, 10, 19, 14, 30);
+        for (int i = 0; i < visits.length; i++) {
+            VisitRecordDTO dto = new VisitRecordDTO();
+            dto.setPageUrl(PAGE_URLS[i % PAGE_URLS.length]);
+            dto.setIpAddress(IPS[i % IPS.length]);
+            dto.setUserAgent(USER_AGENTS[i]);
+            dto.setReferer(i % 3 == 0 ? null : "https://www.google.com/");
+            dto.setVisitTime(time.plusSeconds(i));
+            dto.setDateKey(20261019);
+            dto.setHourKey(2026101914);
+            visits[i] = dto;
+        }
+        return visits;
+    }
+
+    /**
+     * 一个月的日统计，对应/stats/range的典型响应
+     */
+    static List<DailyStatsDTO> month() {
+        List<DailyStatsDTO> days = new ArrayList<>(30);
+        LocalDate start = LocalDate.of(2026, 9, 20);
+        for (int i = 0; i < 30; i++) {
+            days.add(DailyStatsDTO.builder()
+                .date(start.plusDays(i))
+                .totalVisits(12000L + i * 137)
+                .uniqueIps(3100L + i * 41)
+                .pageViews(15800L + i * 173)
+                .bounceRate(0.42 + i * 0.003)
+                .avgSessionDuration(95 + i)
+                .build());
+        }
+        return days;
+    }
+}
@@ -0,0 +1,49 @@
+package com.blog.analytics.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * 运行基准并与基线对比
+ * <p>
+ * 参数依次为：基准名正则、JSON结果文件、基线文件、回退阈值（百分比）。基线文件存在时输出对比报告，
+ * 有回退时以非零状态退出；不存在时只输出结果，可把结果文件复制为基线供后续对比。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : BenchmarkRunner.class.getPackage().getName();
+        File result = new File(args.length > 1 ? args[1] : "target/jmh-result.json");
+        File baseline = args.length > 2 ? new File(args[2]) : null;
+        double threshold = args.length > 3 ? Double.parseDouble(args[3]) : BenchmarkComparator.DEFAULT_THRESHOLD;
+
+        File parent = result.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("无法创建结果目录: " + parent);
+        }
+        Options options = new OptionsBuilder()
+            .include(include)
+            .resultFormat(ResultFormatType.JSON)
+            .result(result.getPath())
+            .build();
+        new Runner(options).run();
+
+        if (baseline == null || !baseline.isFile()) {
+            System.out.println("未找到基线文件，跳过对比。结果已写入: " + result);
+            return;
+        }
+        int regressions = BenchmarkComparator.compare(baseline, result, threshold, System.out);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.blog.analytics.benchmark;
+
+import com.blog.analytics.config.RedisConfig;
+import com.blog.analytics.dto.DailyStatsDTO;
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.dto.VisitRecordDTO;
+import com.blog.analytics.entity.VisitRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 序列化与对象拷贝基准：Redis值序列化（独立IP集合成员和统计对象）、访问DTO拷贝为实体、统一响应的JSON输出
+ * <p>
+ * 响应序列化使用与Spring MVC相同配置方式构建的ObjectMapper。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    private RedisConfig.FastJsonRedisSerializer<Object> redisSerializer;
+    private ObjectMapper objectMapper;
+    private VisitRecordDTO[] visits;
+    private byte[][] serializedIps;
+    private DailyStatsDTO today;
+    private HoppinResponse<DailyStatsDTO> todayResponse;
+    private HoppinResponse<List<DailyStatsDTO>> monthResponse;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        redisSerializer = new RedisConfig.FastJsonRedisSerializer<>(Object.class);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        visits = BenchmarkCorpus.visits();
+        serializedIps = new byte[BenchmarkCorpus.IPS.length][];
+        for (int i = 0; i < serializedIps.length; i++) {
+            serializedIps[i] = redisSerializer.serialize(BenchmarkCorpus.IPS[i]);
+        }
+        List<DailyStatsDTO> month = BenchmarkCorpus.month();
+        today = month.get(month.size() - 1);
+        todayResponse = HoppinResponse.success(today);
+        monthResponse = HoppinResponse.success(month);
+    }
+
+    private int nextIndex(int length) {
+        int index = next++ % length;
+        if (next < 0) {
+            next = 0;
+        }
+        return index;
+    }
+
+    @Benchmark
+    public byte[] redisSerializeIp() {
+        return redisSerializer.serialize(BenchmarkCorpus.IPS[nextIndex(BenchmarkCorpus.IPS.length)]);
+    }
+
+    @Benchmark
+    public Object redisDeserializeIp() {
+        return redisSerializer.deserialize(serializedIps[nextIndex(serializedIps.length)]);
+    }
+
+    @Benchmark
+    public byte[] redisSerializeStats() {
+        return redisSerializer.serialize(today);
+    }
+
+    @Benchmark
+    public VisitRecord copyVisitToEntity() {
+        VisitRecord record = new VisitRecord();
+        BeanUtils.copyProperties(visits[nextIndex(visits.length)], record);
+        return record;
+    }
+
+    @Benchmark
+    public byte[] responseToday() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(todayResponse);
+    }
+
+    @Benchmark
+    public byte[] responseMonth() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(monthResponse);
+    }
+}
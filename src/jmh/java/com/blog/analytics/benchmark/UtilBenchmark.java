@@ -0,0 +1,83 @@
+package com.blog.analytics.benchmark;
+
+import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.IPUtil;
+import com.blog.analytics.utils.UserAgentUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 访问写入路径上的工具方法基准：UserAgent解析、客户端IP提取与校验、日期/小时键
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UtilBenchmark {
+
+    private MockHttpServletRequest[] requests;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        requests = BenchmarkCorpus.requests();
+    }
+
+    /**
+     * 轮换语料下标，每次调用取下一条输入
+     */
+    private int nextIndex(int length) {
+        int index = next++ % length;
+        if (next < 0) {
+            next = 0;
+        }
+        return index;
+    }
+
+    @Benchmark
+    public UserAgentUtil.UserAgentInfo parseUserAgent() {
+        return UserAgentUtil.parseUserAgent(BenchmarkCorpus.USER_AGENTS[nextIndex(BenchmarkCorpus.USER_AGENTS.length)]);
+    }
+
+    @Benchmark
+    public String extractBrowserVersion() {
+        int i = nextIndex(BenchmarkCorpus.USER_AGENTS.length);
+        return UserAgentUtil.extractBrowserVersion(BenchmarkCorpus.USER_AGENTS[i], BenchmarkCorpus.BROWSERS[i]);
+    }
+
+    @Benchmark
+    public String getClientIp() {
+        return IPUtil.getClientIp(requests[nextIndex(requests.length)]);
+    }
+
+    @Benchmark
+    public boolean isValidIp() {
+        return IPUtil.isValidIp(BenchmarkCorpus.IPS[nextIndex(BenchmarkCorpus.IPS.length)]);
+    }
+
+    @Benchmark
+    public Integer getCurrentDateKey() {
+        return DateUtil.getCurrentDateKey();
+    }
+
+    @Benchmark
+    public Integer getCurrentHourKey() {
+        return DateUtil.getCurrentHourKey();
+    }
+}
@@ -0,0 +1,109 @@
+package com.blog.analytics.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.StreamUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 压测配置：SQL计数拦截器，以及H2数据源下按schema.sql建表
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Configuration
+@Profile("loadtest")
+@Slf4j
+public class LoadTestConfig {
+
+    private static final Pattern CREATE_TABLE = Pattern.compile("^CREATE TABLE (?:IF NOT EXISTS )?`(\\w+)`",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern INDEX_NAME = Pattern.compile("\\b(INDEX|KEY) `(\\w+)`");
+
+    @Bean
+    public SqlCountingInterceptor sqlCountingInterceptor() {
+        return new SqlCountingInterceptor();
+    }
+
+    /**
+     * 只在H2上建表（schema.sql会先删表），连接本地MySQL时使用已有的表结构。
+     * 另外注册VERSION()函数，启动时的DatabaseTest会查询MySQL版本
+     */
+    @Bean
+    public InitializingBean h2SchemaInitializer(DataSource dataSource) {
+        return () -> {
+            String url;
+            try (Connection connection = dataSource.getConnection()) {
+                url = connection.getMetaData().getURL();
+            }
+            if (!url.startsWith("jdbc:h2:")) {
+                log.info("压测使用外部数据库，跳过建表: {}", url);
+                return;
+            }
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS VERSION FOR \""
+                + LoadTestConfig.class.getName() + ".h2Version\"");
+            int tables = 0;
+            for (String statement : h2Statements()) {
+                jdbcTemplate.execute(statement);
+                if (statement.regionMatches(true, 0, "CREATE TABLE", 0, 12)) {
+                    tables++;
+                }
+            }
+            log.info("H2建表完成，表数: {}", tables);
+        };
+    }
+
+    /**
+     * 把schema.sql转换为H2可执行的语句：去掉注释、建库和USE语句，以及ENGINE、CHARSET等表选项。
+     * MySQL的索引名只需在表内唯一，H2要求在模式内唯一，因此给索引名加上表名前缀
+     */
+    static String[] h2Statements() throws IOException {
+        String sql = StreamUtils.copyToString(new ClassPathResource("db/schema.sql").getInputStream(),
+            StandardCharsets.UTF_8);
+        StringBuilder cleaned = new StringBuilder(sql.length());
+        for (String line : sql.split("\n")) {
+            if (!line.trim().startsWith("--")) {
+                cleaned.append(line).append('\n');
+            }
+        }
+        return Arrays.stream(cleaned.toString().split(";\\s*\n"))
+            .map(String::trim)
+            .filter(statement -> !statement.isEmpty())
+            .filter(statement -> {
+                String upper = statement.toUpperCase(Locale.ROOT);
+                return !upper.startsWith("CREATE DATABASE") && !upper.startsWith("USE ");
+            })
+            .map(statement -> statement.replaceAll("\\)\\s*ENGINE\\s*=.*$", ")"))
+            .map(LoadTestConfig::qualifyIndexNames)
+            .toArray(String[]::new);
+    }
+
+    /**
+     * H2下VERSION()的实现
+     */
+    public static String h2Version() {
+        return org.h2.engine.Constants.FULL_VERSION;
+    }
+
+    private static String qualifyIndexNames(String statement) {
+        Matcher table = CREATE_TABLE.matcher(statement);
+        if (!table.find()) {
+            return statement;
+        }
+        return INDEX_NAME.matcher(statement).replaceAll("$1 `" + table.group(1) + "_$2`");
+    }
+}
@@ -0,0 +1,312 @@
+package com.blog.analytics.loadtest;
+
+import com.blog.analytics.BlogAnalyticsApplication;
+import com.blog.analytics.redis.RedisCommandBatcher;
+import com.blog.analytics.service.VisitAggregationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 访问写入端到端压测
+ * <p>
+ * 以loadtest配置启动应用（H2 + 内嵌Redis，可改为本地MySQL/Redis），按{@link TrafficGenerator}生成的流量
+ * 并发调用POST /api/analytics/visit，输出吞吐量、延迟分位数、每次访问的Redis命令数（INFO commandstats差值）
+ * 和SQL语句数（{@link SqlCountingInterceptor}），以及各写入阶段的平均耗时。
+ * 结束前主动刷新一次预聚合增量，使批量写出的命令计入本次压测。参数见application-loadtest.yml。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class LoadTestRunner {
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    private final ConfigurableApplicationContext context;
+    private final Environment env;
+    private final StringRedisTemplate redis;
+    private final SqlCountingInterceptor sqlCounter;
+    private final OkHttpClient client;
+    private final String url;
+    private final int concurrency;
+
+    LoadTestRunner(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.env = context.getEnvironment();
+        this.redis = context.getBean(StringRedisTemplate.class);
+        this.sqlCounter = context.getBean(SqlCountingInterceptor.class);
+        this.concurrency = env.getProperty("loadtest.concurrency", Integer.class, 32);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.url = "http://localhost:" + port + "/api/analytics/visit";
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(concurrency);
+        dispatcher.setMaxRequestsPerHost(concurrency);
+        this.client = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(new ConnectionPool(concurrency, 5, TimeUnit.MINUTES))
+            .readTimeout(30, TimeUnit.SECONDS)
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimpleCommandLinePropertySource commandLine = new SimpleCommandLinePropertySource(args);
+        boolean embeddedRedis = !"false".equals(commandLine.getProperty("loadtest.embedded-redis"));
+
+        RedisServer redisServer = null;
+        List<String> appArgs = new ArrayList<>(Arrays.asList(args));
+        if (embeddedRedis) {
+            int port = freePort();
+            redisServer = new RedisServer(port);
+            redisServer.start();
+            appArgs.add("--spring.redis.port=" + port);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BlogAnalyticsApplication.class)
+            .profiles("loadtest")
+            .run(appArgs.toArray(new String[0]));
+        int exitCode;
+        try {
+            exitCode = new LoadTestRunner(context).run();
+        } finally {
+            context.close();
+            if (redisServer != null) {
+                redisServer.stop();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    int run() throws InterruptedException {
+        TrafficGenerator traffic = new TrafficGenerator(
+            env.getProperty("loadtest.pages", Integer.class, 2000),
+            env.getProperty("loadtest.page-skew", Double.class, 1.07),
+            env.getProperty("loadtest.visitors", Integer.class, 20000),
+            env.getProperty("loadtest.visitor-skew", Double.class, 0.8),
+            env.getProperty("loadtest.seed", Long.class, 20261019L));
+        int warmup = env.getProperty("loadtest.warmup", Integer.class, 5000);
+        int requests = env.getProperty("loadtest.requests", Integer.class, 50000);
+
+        System.out.printf("预热%d次请求，并发%d%n", warmup, concurrency);
+        drive(traffic, warmup);
+        flushPending();
+
+        Map<String, Long> redisBefore = redisCommandCalls();
+        Map<String, Long> sqlBefore = sqlCounter.snapshot();
+        Map<String, double[]> phasesBefore = phaseTotals();
+        System.out.printf("压测%d次请求，并发%d，目标%s%n", requests, concurrency, url);
+        long start = System.nanoTime();
+        Result result = drive(traffic, requests);
+        long elapsed = System.nanoTime() - start;
+        flushPending();
+        Map<String, Long> redisAfter = redisCommandCalls();
+        Map<String, Long> sqlAfter = sqlCounter.snapshot();
+
+        report(result, elapsed, diff(redisBefore, redisAfter), diff(sqlBefore, sqlAfter), phasesBefore);
+        return result.errors.get() > 0 ? 1 : 0;
+    }
+
+    /**
+     * 压测结果：每个工作线程各自记录延迟，结束后合并
+     */
+    private static final class Result {
+        final long[][] latencies;
+        final int[] counts;
+        final AtomicLong errors = new AtomicLong();
+
+        Result(int workers, int capacity) {
+            latencies = new long[workers][capacity];
+            counts = new int[workers];
+        }
+
+        long[] merged() {
+            int total = 0;
+            for (int count : counts) {
+                total += count;
+            }
+            long[] all = new long[total];
+            int offset = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                System.arraycopy(latencies[i], 0, all, offset, counts[i]);
+                offset += counts[i];
+            }
+            Arrays.sort(all);
+            return all;
+        }
+    }
+
+    private Result drive(TrafficGenerator traffic, int requests) throws InterruptedException {
+        Result result = new Result(concurrency, requests / concurrency + 1);
+        AtomicInteger remaining = new AtomicInteger(requests);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            Thread thread = new Thread(() -> {
+                try {
+                    while (remaining.getAndDecrement() > 0) {
+                        TrafficGenerator.Visit visit = traffic.next();
+                        Request request = new Request.Builder()
+                            .url(url)
+                            .header("X-Forwarded-For", visit.ip)
+                            .header("User-Agent", visit.userAgent)
+                            .post(RequestBody.create(visit.body, JSON))
+                            .build();
+                        long begin = System.nanoTime();
+                        try (Response response = client.newCall(request).execute()) {
+                            String body = response.body() != null ? response.body().string() : "";
+                            if (!response.isSuccessful() || !body.contains("\"success\":true")) {
+                                result.errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            result.errors.incrementAndGet();
+                        }
+                        long latency = System.nanoTime() - begin;
+                        long[] own = result.latencies[worker];
+                        if (result.counts[worker] == own.length) {
+                            result.latencies[worker] = own = Arrays.copyOf(own, own.length * 2);
+                        }
+                        own[result.counts[worker]++] = latency;
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "loadtest-" + w);
+            thread.start();
+        }
+        done.await();
+        return result;
+    }
+
+    /**
+     * 写出预聚合增量并等待批量发送器的在途命令完成
+     */
+    private void flushPending() throws InterruptedException {
+        VisitAggregationService aggregation = context.getBean(VisitAggregationService.class);
+        aggregation.flushToRedis();
+        aggregation.flushToDatabase();
+        RedisCommandBatcher batcher = context.getBeanProvider(RedisCommandBatcher.class).getIfAvailable();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (batcher != null && batcher.inFlight() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 各Redis命令的累计调用次数（不含统计本身使用的INFO）
+     */
+    private Map<String, Long> redisCommandCalls() {
+        Properties info = redis.execute((RedisCallback<Properties>) (RedisConnection connection) ->
+            connection.serverCommands().info("commandstats"));
+        Map<String, Long> calls = new TreeMap<>();
+        if (info == null) {
+            return calls;
+        }
+        for (String name : info.stringPropertyNames()) {
+            if (!name.startsWith("cmdstat_") || "cmdstat_info".equals(name)) {
+                continue;
+            }
+            // 值形如calls=123,usec=456,usec_per_call=3.7
+            String value = info.getProperty(name);
+            int end = value.indexOf(',');
+            calls.put(name.substring("cmdstat_".length()),
+                Long.parseLong(value.substring("calls=".length(), end > 0 ? end : value.length())));
+        }
+        return calls;
+    }
+
+    /**
+     * 各写入阶段的累计次数和总耗时（纳秒）
+     */
+    private Map<String, double[]> phaseTotals() {
+        Map<String, double[]> totals = new TreeMap<>();
+        for (Timer timer : context.getBean(MeterRegistry.class).find("blog.analytics.ingest.phase").timers()) {
+            totals.put(timer.getId().getTag("phase"),
+                new double[]{timer.count(), timer.totalTime(TimeUnit.NANOSECONDS)});
+        }
+        return totals;
+    }
+
+    private static Map<String, Long> diff(Map<String, Long> before, Map<String, Long> after) {
+        Map<String, Long> diff = new TreeMap<>();
+        after.forEach((key, value) -> {
+            long delta = value - before.getOrDefault(key, 0L);
+            if (delta > 0) {
+                diff.put(key, delta);
+            }
+        });
+        return diff;
+    }
+
+    private void report(Result result, long elapsedNanos, Map<String, Long> redisCalls, Map<String, Long> sqlCalls,
+                        Map<String, double[]> phasesBefore) {
+        long[] latencies = result.merged();
+        int visits = latencies.length;
+        double seconds = elapsedNanos / 1e9;
+
+        System.out.println("========== 压测结果 ==========");
+        System.out.printf("请求数: %d，失败: %d，耗时: %.2fs，吞吐量: %.0f 次/秒%n",
+            visits, result.errors.get(), seconds, visits / seconds);
+        System.out.printf("延迟(ms) p50: %.2f  p90: %.2f  p99: %.2f  p99.9: %.2f  max: %.2f%n",
+            percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+            percentile(latencies, 0.999), visits > 0 ? latencies[visits - 1] / 1e6 : 0);
+
+        long redisTotal = redisCalls.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("Redis命令: %d，每次访问 %.3f%n", redisTotal, (double) redisTotal / visits);
+        redisCalls.forEach((command, calls) ->
+            System.out.printf("  %-16s %10d  每次访问 %.3f%n", command, calls, (double) calls / visits));
+
+        long sqlTotal = sqlCalls.values().stream().mapToLong(Long::longValue).sum();
+        System.out.printf("SQL语句: %d，每次访问 %.3f%n", sqlTotal, (double) sqlTotal / visits);
+        sqlCalls.forEach((type, calls) ->
+            System.out.printf("  %-16s %10d  每次访问 %.3f%n", type, calls, (double) calls / visits));
+
+        System.out.println("写入阶段平均耗时(us):");
+        phaseTotals().forEach((phase, now) -> {
+            double[] before = phasesBefore.getOrDefault(phase, new double[2]);
+            double count = now[0] - before[0];
+            System.out.printf("  %-16s %10.1f%n", phase, count > 0 ? (now[1] - before[1]) / count / 1000 : 0);
+        });
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.blog.analytics.loadtest;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按语句类型统计MyBatis执行的SQL数
+ * <p>
+ * 拦截StatementHandler.prepare，每条实际发往数据库的语句计一次（批量upsert、游标查询都只计一次）。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class SqlCountingInterceptor implements Interceptor {
+
+    private static final String[] TYPES = {"insert", "update", "delete", "select", "other"};
+
+    private final Map<String, LongAdder> counts = new LinkedHashMap<>();
+
+    public SqlCountingInterceptor() {
+        for (String type : TYPES) {
+            counts.put(type, new LongAdder());
+        }
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        StatementHandler handler = (StatementHandler) invocation.getTarget();
+        counts.get(typeOf(handler.getBoundSql().getSql())).increment();
+        return invocation.proceed();
+    }
+
+    /**
+     * 当前各类型的累计语句数
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        counts.forEach((type, count) -> snapshot.put(type, count.sum()));
+        return snapshot;
+    }
+
+    private static String typeOf(String sql) {
+        String trimmed = sql.trim();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        String keyword = trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+        if ("replace".equals(keyword)) {
+            return "insert";
+        }
+        return Arrays.asList(TYPES).contains(keyword) ? keyword : "other";
+    }
+}
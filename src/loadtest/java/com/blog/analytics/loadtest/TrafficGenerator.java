@@ -0,0 +1,142 @@
+package com.blog.analytics.loadtest;
+
+import com.alibaba.fastjson.JSONObject;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 合成访问流量
+ * <p>
+ * 页面按Zipf分布抽取（少数热门文章占大部分访问）；访客同样按Zipf分布抽取以模拟回访，
+ * 每个访客有固定的IP和UserAgent，UserAgent和来源按常见浏览器、爬虫和搜索引擎的占比混合。
+ * 页面、访客的属性由种子决定，同一种子生成的流量分布相同。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class TrafficGenerator {
+
+    /**
+     * UserAgent及其占比（百分比）
+     */
+    private static final String[] USER_AGENTS = {
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/129.0.0.0 Safari/537.36",
+        "Mozilla/5.0 (iPhone; CPU iPhone OS 17_6_1 like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.6 Mobile/15E148 Safari/604.1",
+        "Mozilla/5.0 (Linux; Android 14; Pixel 8) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/129.0.6668.81 Mobile Safari/537.36",
+        "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/129.0.0.0 Safari/537.36 Edg/129.0.0.0",
+        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/17.6 Safari/605.1.15",
+        "Mozilla/5.0 (Linux; Android 13; V2183A Build/TP1A.220624.014; wv) AppleWebKit/537.36 (KHTML, like Gecko) Version/4.0 Chrome/116.0.0.0 Mobile Safari/537.36 MicroMessenger/8.0.49.2600 WeChat/arm64",
+        "Mozilla/5.0 (X11; Ubuntu; Linux x86_64; rv:131.0) Gecko/20100101 Firefox/131.0",
+        "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)",
+        "Mozilla/5.0 (compatible; Baiduspider/2.0; +http://www.baidu.com/search/spider.html)",
+        "curl/8.5.0"
+    };
+    private static final int[] USER_AGENT_WEIGHTS = {38, 18, 14, 8, 6, 6, 4, 3, 2, 1};
+
+    /**
+     * 来源及其占比（百分比），null为直接访问
+     */
+    private static final String[] REFERERS = {
+        null, "https://www.google.com/", "https://www.baidu.com/", "https://cn.bing.com/",
+        "https://github.com/HOPPINZQ", "https://hoppinzq.com/"
+    };
+    private static final int[] REFERER_WEIGHTS = {45, 15, 15, 5, 5, 15};
+
+    private final String[] pageUrls;
+    private final double[] pageCdf;
+    private final String[] visitorIps;
+    private final String[] visitorUserAgents;
+    private final double[] visitorCdf;
+
+    /**
+     * @param pages 页面数
+     * @param pageSkew 页面Zipf指数
+     * @param visitors 访客数
+     * @param visitorSkew 访客Zipf指数
+     * @param seed 随机种子
+     */
+    public TrafficGenerator(int pages, double pageSkew, int visitors, double visitorSkew, long seed) {
+        Random random = new Random(seed);
+        pageUrls = new String[pages];
+        pageUrls[0] = "/";
+        for (int i = 1; i < pages; i++) {
+            int year = 2024 + random.nextInt(3);
+            int month = 1 + random.nextInt(12);
+            pageUrls[i] = String.format("/archives/%d/%02d/post-%d", year, month, i);
+        }
+        pageCdf = zipfCdf(pages, pageSkew);
+
+        visitorIps = new String[visitors];
+        visitorUserAgents = new String[visitors];
+        for (int i = 0; i < visitors; i++) {
+            // 公网地址段，避开10/127/172.16/192.168
+            visitorIps[i] = (1 + random.nextInt(9)) * 11 + "." + random.nextInt(256) + "."
+                + random.nextInt(256) + "." + (1 + random.nextInt(254));
+            visitorUserAgents[i] = USER_AGENTS[pick(USER_AGENT_WEIGHTS, random.nextInt(100))];
+        }
+        visitorCdf = zipfCdf(visitors, visitorSkew);
+    }
+
+    /**
+     * 一次访问
+     */
+    public static final class Visit {
+        final String ip;
+        final String userAgent;
+        final String body;
+
+        Visit(String ip, String userAgent, String body) {
+            this.ip = ip;
+            this.userAgent = userAgent;
+            this.body = body;
+        }
+    }
+
+    /**
+     * 生成下一次访问，线程安全
+     */
+    public Visit next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int visitor = sample(visitorCdf, random.nextDouble());
+        JSONObject body = new JSONObject(4);
+        body.put("pageUrl", pageUrls[sample(pageCdf, random.nextDouble())]);
+        body.put("userAgent", visitorUserAgents[visitor]);
+        body.put("referer", REFERERS[pick(REFERER_WEIGHTS, random.nextInt(100))]);
+        return new Visit(visitorIps[visitor], visitorUserAgents[visitor], body.toJSONString());
+    }
+
+    /**
+     * Zipf分布的累积概率：第k项（从1开始）的概率正比于1/k^s
+     */
+    static double[] zipfCdf(int n, double s) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1.0 / Math.pow(k, s);
+            cdf[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, double u) {
+        int index = Arrays.binarySearch(cdf, u);
+        index = index >= 0 ? index : -index - 1;
+        return Math.min(index, cdf.length - 1);
+    }
+
+    private static int pick(int[] weights, int percent) {
+        int cumulative = 0;
+        for (int i = 0; i < weights.length; i++) {
+            cumulative += weights[i];
+            if (percent < cumulative) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+}
@@ -0,0 +1,56 @@
+package com.blog.analytics.config;
+
+import com.alibaba.fastjson.JSON;
+import com.blog.analytics.dto.HoppinResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * 管理接口拦截器
+ * <p>
+ * 管理接口（重建、导出）须在请求头X-Admin-Token中携带与blog.analytics.admin-token一致的令牌，
+ * 未配置令牌时管理接口全部关闭。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Component
+@Slf4j
+public class AdminTokenInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER = "X-Admin-Token";
+
+    @Value("${blog.analytics.admin-token:}")
+    private String adminToken;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        String token = request.getHeader(HEADER);
+        if (adminToken != null && !adminToken.isEmpty() && token != null
+                && MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        log.warn("管理接口鉴权失败: {} {}", request.getMethod(), request.getRequestURI());
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        byte[] body = JSON.toJSONString(HoppinResponse.fail(403, "无权访问管理接口"))
+                .getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.blog.analytics.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
@@ -16,8 +17,12 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * @since 2025-12-12
  */
 @Configuration
+@RequiredArgsConstructor
 public class CorsConfig implements WebMvcConfigurer {
 
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final AdminTokenInterceptor adminTokenInterceptor;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
@@ -39,6 +44,14 @@ public class CorsConfig implements WebMvcConfigurer {
         registry.addInterceptor(logInterceptor())
                 .addPathPatterns("/**")
                 .excludePathPatterns("/error");
+
+        // 注册限流拦截器，只对访问上报、停留时长上报和代理接口生效
+        registry.addInterceptor(rateLimitInterceptor)
+                .addPathPatterns("/api/analytics/visit", "/api/analytics/duration", "/api/proxy/**");
+
+        // 注册管理接口鉴权拦截器
+        registry.addInterceptor(adminTokenInterceptor)
+                .addPathPatterns("/api/analytics/admin/**");
     }
 
     @Bean
@@ -0,0 +1,140 @@
+package com.blog.analytics.config;
+
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.dto.PreSerializedJson;
+import com.blog.analytics.proxy.ProxyPayload;
+import com.blog.analytics.proxy.RawJsonBody;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 统计、报表和代理接口的ETag处理
+ * <p>
+ * 响应信封中的timestamp每次都不同，因此ETag只按data部分计算：代理数据使用加载时按上游原始字节算好的值，
+ * 报表快照使用生成时保存的值，其余数据序列化一次后计算MD5，并以序列化结果替换data原样写出，不再重复序列化。
+ * 请求携带的If-None-Match命中时返回304且不写响应体。
+ * 同时设置Cache-Control: no-cache，让客户端每次都带ETag重新验证。直通模式的流式数据不计算ETag。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+@Slf4j
+public class ETagResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    private static final String[] PATH_PREFIXES = {"/api/analytics/stats/", "/api/analytics/reports/", "/api/proxy/"};
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(body instanceof HoppinResponse) || request.getMethod() != HttpMethod.GET || !matches(request)) {
+            return body;
+        }
+        HoppinResponse<?> hoppinResponse = (HoppinResponse<?>) body;
+        Object data = hoppinResponse.getData();
+        if (!Boolean.TRUE.equals(hoppinResponse.getSuccess()) || data instanceof RawJsonBody) {
+            return body;
+        }
+
+        String etag;
+        if (data instanceof ProxyPayload) {
+            etag = ((ProxyPayload) data).getEtag();
+        } else if (data instanceof PreSerializedJson) {
+            etag = ((PreSerializedJson) data).getEtag();
+        } else {
+            // 只有Jackson转换器能原样写出预序列化数据
+            if (!AbstractJackson2HttpMessageConverter.class.isAssignableFrom(selectedConverterType)) {
+                return body;
+            }
+            PreSerializedJson serialized = serialize(data);
+            if (serialized == null) {
+                return body;
+            }
+            etag = serialized.getEtag();
+            body = HoppinResponse.builder()
+                    .success(hoppinResponse.getSuccess())
+                    .message(hoppinResponse.getMessage())
+                    .data(serialized)
+                    .timestamp(hoppinResponse.getTimestamp())
+                    .code(hoppinResponse.getCode())
+                    .build();
+        }
+        if (etag == null) {
+            return body;
+        }
+        response.getHeaders().setETag(etag);
+        response.getHeaders().setCacheControl("no-cache");
+        if (notModified(request.getHeaders(), etag)) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return null;
+        }
+        return body;
+    }
+
+    private boolean matches(ServerHttpRequest request) {
+        String path = request.getURI().getPath();
+        for (String prefix : PATH_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private PreSerializedJson serialize(Object data) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(data);
+            return new PreSerializedJson(new String(json, StandardCharsets.UTF_8),
+                    "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            log.debug("计算ETag失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 判断If-None-Match是否命中，弱比较（忽略W/前缀），支持多个值和*
+     */
+    private static boolean notModified(HttpHeaders headers, String etag) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+        for (String candidate : ifNoneMatch) {
+            String value = candidate.trim();
+            if ("*".equals(value)) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
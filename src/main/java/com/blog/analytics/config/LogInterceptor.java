@@ -3,22 +3,33 @@ package com.blog.analytics.config;
 import com.blog.analytics.utils.MDCUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /**
  * 日志拦截器，用于为每个请求生成logId并添加到MDC
  */
-public class LogInterceptor implements HandlerInterceptor {
+public class LogInterceptor implements AsyncHandlerInterceptor {
     private static final Logger logger = LoggerFactory.getLogger(LogInterceptor.class);
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 异步请求的二次分发沿用首次分发的logId
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            Object logId = request.getAttribute(MDCUtil.LOG_ID_KEY);
+            if (logId != null) {
+                MDCUtil.setLogId(logId.toString());
+            }
+            return true;
+        }
+
         // 生成并设置logId
         String logId = MDCUtil.generateAndSetLogId();
+        request.setAttribute(MDCUtil.LOG_ID_KEY, logId);
         logger.debug("Request received: {} {}", request.getMethod(), request.getRequestURI());
         
         // 将logId添加到响应头
@@ -32,6 +43,12 @@ public class LogInterceptor implements HandlerInterceptor {
         // 处理请求完成后的操作（可选）
     }
 
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 异步处理开始后Servlet线程即被释放，此时不会回调afterCompletion，需要在这里清理
+        MDCUtil.clear();
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
         // 清除MDC中的logId，避免内存泄漏
@@ -1,5 +1,6 @@
 package com.blog.analytics.config;
 
+import com.blog.analytics.proxy.ProxyHttpClients;
 import okhttp3.OkHttpClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -23,4 +24,12 @@ public class OkHttpConfig {
                 .writeTimeout(Duration.ofSeconds(10))
                 .build();
     }
+
+    /**
+     * 第三方代理客户端，每个路由独立的调度器和连接池
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ProxyHttpClients proxyHttpClients(OkHttpClient okHttpClient, ProxyProperties proxyProperties) {
+        return ProxyHttpClients.create(okHttpClient, proxyProperties, ProxyHttpClients.newExecutor());
+    }
 }
@@ -0,0 +1,325 @@
+package com.blog.analytics.config;
+
+import com.blog.analytics.proxy.ProxyRoute;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 第三方代理配置
+ * <p>
+ * 全局默认值位于 blog.proxy.cache，单个路由可在 blog.proxy.routes.{路由标识} 下覆盖。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "blog.proxy")
+public class ProxyProperties {
+
+    /**
+     * 缓存默认配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 上游连接默认配置
+     */
+    private Http http = new Http();
+
+    /**
+     * 熔断配置
+     */
+    private Breaker breaker = new Breaker();
+
+    /**
+     * 延迟统计、自适应超时与对冲请求配置
+     */
+    private Latency latency = new Latency();
+
+    /**
+     * 按路由覆盖的配置，键为路由标识（如 weather）
+     */
+    private Map<String, Route> routes = new HashMap<>();
+
+    /**
+     * 获取路由的上游地址
+     */
+    public String urlOf(ProxyRoute route) {
+        Route config = routes.get(route.getId());
+        return config != null && config.getUrl() != null ? config.getUrl() : route.getDefaultUrl();
+    }
+
+    /**
+     * 获取路由的缓存有效期
+     */
+    public Duration ttlOf(ProxyRoute route) {
+        Route config = routes.get(route.getId());
+        return config != null && config.getTtl() != null ? config.getTtl() : cache.getTtl();
+    }
+
+    /**
+     * 获取路由过期后仍可直接返回旧值（同时后台刷新）的时长
+     */
+    public Duration staleWhileRevalidateOf(ProxyRoute route) {
+        Route config = routes.get(route.getId());
+        return config != null && config.getStaleWhileRevalidate() != null
+                ? config.getStaleWhileRevalidate() : cache.getStaleWhileRevalidate();
+    }
+
+    /**
+     * 获取路由的最大并发请求数
+     */
+    public int maxRequestsOf(ProxyRoute route) {
+        Route config = routes.get(route.getId());
+        return config != null && config.getMaxRequests() != null ? config.getMaxRequests() : http.getMaxRequests();
+    }
+
+    /**
+     * 获取路由的整体调用超时
+     */
+    public Duration callTimeoutOf(ProxyRoute route) {
+        Route config = routes.get(route.getId());
+        return config != null && config.getCallTimeout() != null ? config.getCallTimeout() : http.getCallTimeout();
+    }
+
+    /**
+     * 获取路由的并发隔离上限（含排队中的请求）
+     */
+    public int maxConcurrentOf(ProxyRoute route) {
+        Route config = routes.get(route.getId());
+        return config != null && config.getMaxConcurrent() != null ? config.getMaxConcurrent() : http.getMaxConcurrent();
+    }
+
+    /**
+     * 路由是否为直通模式
+     */
+    public boolean isPassthrough(ProxyRoute route) {
+        Route config = routes.get(route.getId());
+        return config != null && config.isPassthrough();
+    }
+
+    /**
+     * 获取路由的字段投影路径，未配置时返回null
+     */
+    public List<String> fieldsOf(ProxyRoute route) {
+        Route config = routes.get(route.getId());
+        return config != null && config.getFields() != null && !config.getFields().isEmpty() ? config.getFields() : null;
+    }
+
+    @Data
+    public static class Http {
+
+        /**
+         * 每个路由同时进行的上游请求数上限（超出的请求在调度器中排队）
+         */
+        private int maxRequests = 16;
+
+        /**
+         * 每个路由同时在途（执行中+排队中）的上游请求数上限，超出时直接拒绝，不再排队
+         */
+        private int maxConcurrent = 32;
+
+        /**
+         * 每个路由连接池保留的空闲连接数
+         */
+        private int maxIdleConnections = 4;
+
+        /**
+         * 空闲连接保活时长
+         */
+        private Duration keepAlive = Duration.ofMinutes(5);
+
+        /**
+         * 单次调用整体超时（含连接、发送和读取）
+         */
+        private Duration callTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Latency {
+
+        /**
+         * 延迟统计窗口，分位数基于最近一到两个窗口计算
+         */
+        private Duration window = Duration.ofMinutes(5);
+
+        /**
+         * 样本数达到该值后才启用自适应超时和对冲请求
+         */
+        private int minSamples = 50;
+
+        /**
+         * 是否按观测延迟自适应调整超时
+         */
+        private boolean adaptiveTimeout = true;
+
+        /**
+         * 计算超时所用的分位
+         */
+        private double timeoutPercentile = 0.99;
+
+        /**
+         * 超时 = 分位延迟 × 该倍数，并限制在 [min-timeout, 调用超时] 之间
+         */
+        private double timeoutMultiplier = 3.0;
+
+        /**
+         * 自适应超时下限
+         */
+        private Duration minTimeout = Duration.ofSeconds(1);
+
+        /**
+         * 是否启用对冲请求
+         */
+        private boolean hedge = true;
+
+        /**
+         * 首个请求超过该分位延迟仍未返回时发出对冲请求
+         */
+        private double hedgePercentile = 0.95;
+
+        /**
+         * 对冲请求延迟下限
+         */
+        private Duration minHedgeDelay = Duration.ofMillis(50);
+
+        /**
+         * 对冲请求占总请求的比例上限
+         */
+        private double maxHedgeRatio = 0.1;
+    }
+
+    @Data
+    public static class Breaker {
+
+        /**
+         * 是否启用熔断
+         */
+        private boolean enabled = true;
+
+        /**
+         * 统计窗口大小（最近的调用次数）
+         */
+        private int windowSize = 20;
+
+        /**
+         * 窗口内至少多少次调用后才开始判断
+         */
+        private int minimumCalls = 10;
+
+        /**
+         * 失败率阈值（0-1）
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 慢调用率阈值（0-1）
+         */
+        private double slowCallRateThreshold = 0.8;
+
+        /**
+         * 慢调用判定时长
+         */
+        private Duration slowCallDuration = Duration.ofSeconds(3);
+
+        /**
+         * 熔断持续时长，结束后进入半开状态
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * 半开状态放行的探测请求数
+         */
+        private int halfOpenPermits = 2;
+    }
+
+    @Data
+    public static class Cache {
+
+        /**
+         * 是否启用响应缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 默认缓存有效期
+         */
+        private Duration ttl = Duration.ofMinutes(5);
+
+        /**
+         * 默认过期后仍可返回旧值的时长，超过后同步回源
+         */
+        private Duration staleWhileRevalidate = Duration.ofMinutes(30);
+
+        /**
+         * 每个路由最多缓存的参数组合数
+         */
+        private int maxEntriesPerRoute = 200;
+
+        /**
+         * 主动刷新热门键的检查间隔（毫秒）
+         */
+        private long refreshIntervalMs = 30000;
+
+        /**
+         * 每个路由主动刷新的热门键数量
+         */
+        private int refreshTopKeys = 5;
+
+        /**
+         * 剩余有效期低于TTL的该比例时，热门键提前刷新
+         */
+        private double refreshAheadRatio = 0.2;
+    }
+
+    @Data
+    public static class Route {
+
+        /**
+         * 上游地址，不配置时使用内置地址
+         */
+        private String url;
+
+        /**
+         * 缓存有效期
+         */
+        private Duration ttl;
+
+        /**
+         * 过期后仍可返回旧值的时长
+         */
+        private Duration staleWhileRevalidate;
+
+        /**
+         * 最大并发请求数
+         */
+        private Integer maxRequests;
+
+        /**
+         * 并发隔离上限
+         */
+        private Integer maxConcurrent;
+
+        /**
+         * 单次调用整体超时
+         */
+        private Duration callTimeout;
+
+        /**
+         * 直通模式：不解析、不缓存，上游响应体以流的方式直接写入响应，适合体积较大的接口
+         */
+        private boolean passthrough;
+
+        /**
+         * 字段投影：只保留这些字段路径（点分隔，数组透明，*匹配任意字段名），不配置时返回完整数据
+         */
+        private List<String> fields;
+    }
+}
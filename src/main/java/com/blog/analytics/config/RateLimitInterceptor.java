@@ -0,0 +1,176 @@
+package com.blog.analytics.config;
+
+import com.alibaba.fastjson.JSON;
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.utils.HashUtil;
+import com.blog.analytics.utils.IPUtil;
+import com.blog.analytics.utils.StripedTokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 限流拦截器
+ * <p>
+ * 按IP和全局两级令牌桶限流：IP桶为进程内无锁分段令牌桶，IP取直连地址，仅当直连地址为可信代理时才使用转发请求头；全局桶默认为进程内令牌桶，
+ * 多节点部署时可切换为基于Redis Lua脚本的共享令牌桶。被拒绝的请求返回429和Retry-After。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    /**
+     * Redis令牌桶脚本：使用Redis服务器时间，返回0表示放行，否则为需要等待的毫秒数
+     */
+    private static final RedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1]) " +
+            "local rate = tonumber(ARGV[2]) " +
+            "local t = redis.call('TIME') " +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) " +
+            "local data = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(data[1]) or capacity " +
+            "local ts = tonumber(data[2]) or now " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate) " +
+            "local wait = 0 " +
+            "if tokens >= 1 then tokens = tokens - 1 else wait = math.ceil((1 - tokens) / rate) end " +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now)) " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + 1000) " +
+            "return wait",
+            Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${blog.analytics.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${blog.analytics.ratelimit.requests-per-minute:100}")
+    private int requestsPerMinute;
+
+    @Value("${blog.analytics.ratelimit.ip-requests-per-minute:20}")
+    private int ipRequestsPerMinute;
+
+    @Value("${blog.analytics.ratelimit.ip-slots:65536}")
+    private int ipSlots;
+
+    @Value("${blog.analytics.ratelimit.redis-global:false}")
+    private boolean redisGlobal;
+
+    @Value("${blog.analytics.ratelimit.trusted-proxies:127.0.0.1}")
+    private String[] trustedProxies;
+
+    @Value("${blog.analytics.redis-prefix:blog:analytics:}")
+    private String redisPrefix;
+
+    private StripedTokenBucket ipBuckets;
+    private StripedTokenBucket globalBucket;
+    private Set<String> trustedProxySet;
+    private List<String> globalKey;
+    private String globalCapacity;
+    private String globalRate;
+
+    private Counter ipRejected;
+    private Counter globalRejected;
+    private Counter redisErrors;
+
+    @PostConstruct
+    public void init() {
+        ipBuckets = new StripedTokenBucket(ipSlots, Math.min(ipRequestsPerMinute, 1000), ipRequestsPerMinute);
+        globalBucket = new StripedTokenBucket(1, Math.min(requestsPerMinute, 1000), requestsPerMinute);
+        trustedProxySet = new HashSet<>();
+        for (String proxy : trustedProxies) {
+            if (!proxy.trim().isEmpty()) {
+                trustedProxySet.add(proxy.trim());
+            }
+        }
+        globalKey = Collections.singletonList(redisPrefix + "ratelimit:global");
+        globalCapacity = String.valueOf(requestsPerMinute);
+        globalRate = String.valueOf(requestsPerMinute / 60000.0);
+
+        ipRejected = Counter.builder("blog.analytics.ratelimit.rejected")
+                .tag("scope", "ip")
+                .description("被IP限流拒绝的请求数")
+                .register(meterRegistry);
+        globalRejected = Counter.builder("blog.analytics.ratelimit.rejected")
+                .tag("scope", "global")
+                .description("被全局限流拒绝的请求数")
+                .register(meterRegistry);
+        redisErrors = Counter.builder("blog.analytics.ratelimit.redis.errors")
+                .description("Redis全局限流调用失败次数（失败时放行）")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        // 异步请求的二次分发已在首次分发时计数
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC
+                || "OPTIONS".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        // 只信任可信代理转发的X-Forwarded-For，否则客户端可伪造请求头为每个请求换一个IP
+        String clientIp = IPUtil.getTrustedClientIp(request, trustedProxySet);
+        long ipWait = ipBuckets.tryAcquire(HashUtil.hash64(clientIp), now);
+        if (ipWait > 0) {
+            ipRejected.increment();
+            reject(response, ipWait);
+            return false;
+        }
+
+        long globalWait = redisGlobal ? acquireGlobalFromRedis() : globalBucket.tryAcquire(1L, now);
+        if (globalWait > 0) {
+            globalRejected.increment();
+            reject(response, globalWait);
+            return false;
+        }
+        return true;
+    }
+
+    private long acquireGlobalFromRedis() {
+        try {
+            Long wait = stringRedisTemplate.execute(TOKEN_BUCKET_SCRIPT, globalKey, globalCapacity, globalRate);
+            return wait != null ? wait : 0L;
+        } catch (Exception e) {
+            // Redis不可用时放行，避免限流组件拖垮主流程
+            redisErrors.increment();
+            log.debug("Redis全局限流调用失败，放行请求", e);
+            return 0L;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitMillis) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1L, (waitMillis + 999) / 1000)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        byte[] body = JSON.toJSONString(HoppinResponse.fail(429, "请求过于频繁，请稍后再试"))
+                .getBytes(StandardCharsets.UTF_8);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
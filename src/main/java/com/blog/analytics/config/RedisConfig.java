@@ -2,9 +2,21 @@ package com.blog.analytics.config;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.blog.analytics.redis.RedisCommandBatcher;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
@@ -15,6 +27,12 @@ import java.nio.charset.StandardCharsets;
 
 /**
  * Redis 配置
+ * <p>
+ * 默认模板使用FastJson序列化。计数器使用专门的模板，值以十进制数字字符串存取（与INCR/HINCRBY的存储格式一致），
+ * 读取时直接从字节解析，不经过JSON解析和类名反射。
+ * 可选启用共享连接的命令批量发送器，热点写入路径改为异步批量发送，不再占用连接池。
+ * 配置spring.redis.cluster.nodes后连接工厂为集群模式，模板和批量发送器均按集群拓扑路由；
+ * 统计键的布局见{@link com.blog.analytics.redis.RedisKeyLayout}。
  *
  * @author hoppinzq
  * @since 2025-12-12
@@ -39,6 +57,47 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * 共享连接的Redis命令批量发送器，blog.analytics.redis-batch.enabled=true时启用
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "blog.analytics.redis-batch", name = "enabled", havingValue = "true")
+    public RedisCommandBatcher redisCommandBatcher(
+            LettuceConnectionFactory connectionFactory,
+            @Value("${blog.analytics.redis-batch.max-in-flight:10000}") int maxInFlight,
+            @Value("${blog.analytics.redis-batch.timeout-ms:2000}") long timeoutMillis,
+            @Value("${blog.analytics.redis-batch.max-batch-size:512}") int maxBatchSize) {
+        AbstractRedisClient client = connectionFactory.getRequiredNativeClient();
+        RedisCodec<String, byte[]> codec = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+        if (client instanceof RedisClusterClient) {
+            StatefulRedisClusterConnection<String, byte[]> connection = ((RedisClusterClient) client).connect(codec);
+            return new RedisCommandBatcher(connection, connection.async(), maxInFlight, timeoutMillis, maxBatchSize);
+        }
+        if (!(client instanceof RedisClient)) {
+            throw new IllegalStateException("Redis批量发送器只支持单机和集群模式");
+        }
+        StatefulRedisConnection<String, byte[]> connection = ((RedisClient) client).connect(codec);
+        if (connectionFactory.getDatabase() != 0) {
+            connection.sync().select(connectionFactory.getDatabase());
+        }
+        return new RedisCommandBatcher(connection, connection.async(), maxInFlight, timeoutMillis, maxBatchSize);
+    }
+
+    /**
+     * 计数器模板：值为十进制数字字符串
+     */
+    @Bean
+    public RedisTemplate<String, Long> counterRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        RedisTemplate<String, Long> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisConnectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setHashKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(LongRedisSerializer.INSTANCE);
+        template.setHashValueSerializer(LongRedisSerializer.INSTANCE);
+        template.afterPropertiesSet();
+        return template;
+    }
+
     /**
      * FastJson Redis序列化器
      */
@@ -74,4 +133,55 @@ public class RedisConfig {
             return JSON.parseObject(str, type);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 计数器序列化器：十进制数字字符串与Long互转，直接按字节解析
+     */
+    public static class LongRedisSerializer implements RedisSerializer<Long> {
+
+        public static final LongRedisSerializer INSTANCE = new LongRedisSerializer();
+
+        @Override
+        public byte[] serialize(Long value) throws SerializationException {
+            if (value == null) {
+                return new byte[0];
+            }
+            return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public Long deserialize(byte[] bytes) throws SerializationException {
+            if (bytes == null || bytes.length == 0) {
+                return null;
+            }
+            return parseLong(bytes);
+        }
+
+        /**
+         * 按字节解析十进制整数，不创建中间字符串
+         */
+        public static long parseLong(byte[] bytes) {
+            boolean negative = bytes[0] == '-';
+            int i = negative ? 1 : 0;
+            if (i == bytes.length || bytes.length - i > 19) {
+                throw new SerializationException("不是合法的计数值: " + new String(bytes, StandardCharsets.US_ASCII));
+            }
+            long result = 0;
+            for (; i < bytes.length; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new SerializationException("不是合法的计数值: " + new String(bytes, StandardCharsets.US_ASCII));
+                }
+                // 以负数累加，Long.MIN_VALUE也能正确解析
+                result = result * 10 - digit;
+                if (result > 0) {
+                    throw new SerializationException("计数值溢出: " + new String(bytes, StandardCharsets.US_ASCII));
+                }
+            }
+            if (!negative && result == Long.MIN_VALUE) {
+                throw new SerializationException("计数值溢出: " + new String(bytes, StandardCharsets.US_ASCII));
+            }
+            return negative ? result : -result;
+        }
+    }
+}
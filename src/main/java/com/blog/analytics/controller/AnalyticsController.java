@@ -1,7 +1,10 @@
 package com.blog.analytics.controller;
 
+import com.alibaba.fastjson.JSON;
 import com.blog.analytics.dto.*;
 import com.blog.analytics.service.AnalyticsService;
+import com.blog.analytics.service.PageDurationService;
+import com.blog.analytics.service.RollupService;
 import com.blog.analytics.utils.IPUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,12 +12,15 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
@@ -23,7 +29,9 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 
 /**
@@ -40,7 +48,10 @@ import java.util.Map;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final PageDurationService pageDurationService;
+    private final RollupService rollupService;
     private final OkHttpClient okHttpClient;
+    private final Validator validator;
 
     /**
      * 记录页面访问
@@ -66,6 +77,42 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * 上报页面停留时长（fetch/keepalive或以application/json类型Blob调用sendBeacon）
+     */
+    @PostMapping(value = "/duration", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public HoppinResponse<Void> recordDuration(@Valid @RequestBody PageDurationDTO dto) {
+        try {
+            pageDurationService.recordDuration(dto.getPageUrl(), dto.getDuration());
+            return HoppinResponse.success("停留时长记录成功");
+
+        } catch (Exception e) {
+            log.error("记录停留时长失败", e);
+            return HoppinResponse.fail("记录停留时长失败");
+        }
+    }
+
+    /**
+     * 上报页面停留时长（sendBeacon直接发送字符串时为text/plain，不触发跨域预检）
+     */
+    @PostMapping(value = "/duration", consumes = MediaType.TEXT_PLAIN_VALUE)
+    public HoppinResponse<Void> recordDurationBeacon(@RequestBody String body) {
+        PageDurationDTO dto;
+        try {
+            dto = JSON.parseObject(body, PageDurationDTO.class);
+        } catch (Exception e) {
+            return HoppinResponse.fail(400, "停留时长数据格式错误");
+        }
+        if (dto == null) {
+            return HoppinResponse.fail(400, "停留时长数据不能为空");
+        }
+        Set<ConstraintViolation<PageDurationDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return HoppinResponse.fail(400, violations.iterator().next().getMessage());
+        }
+        return recordDuration(dto);
+    }
+
     /**
      * 获取今日统计
      */
@@ -108,6 +155,35 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * 按粒度获取日期范围统计（hour/day/week/month，可指定页面）
+     */
+    @GetMapping("/stats/series")
+    public HoppinResponse<SeriesStatsDTO> getSeriesStats(
+            @RequestParam @NotNull(message = "开始日期不能为空")
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam @NotNull(message = "结束日期不能为空")
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(defaultValue = "day") String granularity,
+            @RequestParam(required = false) String pageUrl) {
+
+        RollupService.Granularity level;
+        try {
+            level = RollupService.Granularity.valueOf(granularity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return HoppinResponse.fail(400, "不支持的粒度: " + granularity);
+        }
+
+        try {
+            return HoppinResponse.success(rollupService.getSeries(startDate, endDate, level, pageUrl));
+        } catch (IllegalArgumentException e) {
+            return HoppinResponse.fail(400, e.getMessage());
+        } catch (Exception e) {
+            log.error("获取粒度统计失败", e);
+            return HoppinResponse.fail("获取粒度统计失败");
+        }
+    }
+
     /**
      * 获取热门页面排行
      */
@@ -126,6 +202,23 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * 获取趋势页面（当前流量突增的页面）
+     */
+    @GetMapping("/stats/trending")
+    public HoppinResponse<List<TrendingPageDTO>> getTrendingPages(
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit) {
+
+        try {
+            List<TrendingPageDTO> pages = analyticsService.getTrendingPages(limit);
+            return HoppinResponse.success(pages);
+
+        } catch (Exception e) {
+            log.error("获取趋势页面失败", e);
+            return HoppinResponse.fail("获取趋势页面失败");
+        }
+    }
+
     /**
      * 获取实时访问数据
      */
@@ -181,6 +274,24 @@ public class AnalyticsController {
         }
     }
 
+    /**
+     * 获取页面停留时长统计（平均值及分位数）
+     */
+    @GetMapping("/stats/page/duration")
+    public HoppinResponse<PageDurationStatsDTO> getPageDurationStats(
+            @RequestParam @NotNull(message = "页面URL不能为空") String pageUrl,
+            @RequestParam(defaultValue = "7") @Min(1) @Max(365) int days) {
+
+        try {
+            PageDurationStatsDTO stats = pageDurationService.getDurationStats(pageUrl, days);
+            return HoppinResponse.success(stats);
+
+        } catch (Exception e) {
+            log.error("获取页面停留时长统计失败", e);
+            return HoppinResponse.fail("获取页面停留时长统计失败");
+        }
+    }
+
     /**
      * 获取地域访问统计
      */
@@ -282,12 +393,16 @@ public class AnalyticsController {
 
             List<String> endpoints = new ArrayList<>();
             endpoints.add("/api/analytics/visit - 记录页面访问");
+            endpoints.add("/api/analytics/duration - 上报页面停留时长");
             endpoints.add("/api/analytics/stats/today - 获取今日统计");
             endpoints.add("/api/analytics/stats/range - 获取日期范围统计");
+            endpoints.add("/api/analytics/stats/series - 按粒度获取日期范围统计");
             endpoints.add("/api/analytics/stats/hot-pages - 获取热门页面");
+            endpoints.add("/api/analytics/stats/trending - 获取趋势页面");
             endpoints.add("/api/analytics/stats/realtime - 获取实时统计");
             endpoints.add("/api/analytics/stats/hourly - 获取小时统计");
             endpoints.add("/api/analytics/stats/page - 获取页面统计");
+            endpoints.add("/api/analytics/stats/page/duration - 获取页面停留时长统计");
             endpoints.add("/api/analytics/stats/region - 获取地域统计");
             endpoints.add("/api/analytics/stats/browser - 获取浏览器统计");
             endpoints.add("/api/analytics/stats/os - 获取操作系统统计");
@@ -0,0 +1,64 @@
+package com.blog.analytics.controller;
+
+import com.blog.analytics.dto.BackfillProgressDTO;
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.service.BackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+/**
+ * 历史统计重建控制器（管理接口，鉴权见{@link com.blog.analytics.config.AdminTokenInterceptor}）
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@RestController
+@RequestMapping("/api/analytics/admin/backfill")
+@RequiredArgsConstructor
+@Slf4j
+@Validated
+public class BackfillController {
+
+    private final BackfillService backfillService;
+
+    /**
+     * 提交重建任务
+     */
+    @PostMapping
+    public HoppinResponse<BackfillProgressDTO> start(
+            @RequestParam @NotNull(message = "开始日期不能为空")
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam @NotNull(message = "结束日期不能为空")
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean force) {
+
+        try {
+            return HoppinResponse.success("重建任务已提交", backfillService.start(startDate, endDate, force));
+        } catch (IllegalArgumentException e) {
+            return HoppinResponse.fail(400, e.getMessage());
+        } catch (IllegalStateException e) {
+            return HoppinResponse.fail(409, e.getMessage());
+        } catch (Exception e) {
+            log.error("提交重建任务失败", e);
+            return HoppinResponse.fail("提交重建任务失败");
+        }
+    }
+
+    /**
+     * 查询重建进度
+     */
+    @GetMapping
+    public HoppinResponse<BackfillProgressDTO> progress() {
+        BackfillProgressDTO progress = backfillService.getProgress();
+        if (progress == null) {
+            return HoppinResponse.fail(404, "没有重建任务");
+        }
+        return HoppinResponse.success(progress);
+    }
+}
@@ -0,0 +1,80 @@
+package com.blog.analytics.controller;
+
+import com.blog.analytics.service.VisitExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 访问记录导出控制器（管理接口，鉴权见{@link com.blog.analytics.config.AdminTokenInterceptor}）
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@RestController
+@RequestMapping("/api/analytics/admin/export")
+@RequiredArgsConstructor
+@Slf4j
+@Validated
+public class ExportController {
+
+    private final VisitExportService visitExportService;
+
+    @Value("${blog.analytics.export.max-days:366}")
+    private int maxDays;
+
+    /**
+     * 流式导出访问记录（CSV或NDJSON，可选gzip压缩为.gz文件）
+     */
+    @GetMapping("/visits")
+    public void exportVisits(
+            @RequestParam @NotNull(message = "开始日期不能为空")
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam @NotNull(message = "结束日期不能为空")
+            @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
+            @RequestParam(required = false) String pageUrl,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= maxDays) {
+            throw new IllegalArgumentException("导出范围不能超过" + maxDays + "天");
+        }
+        VisitExportService.Format exportFormat;
+        try {
+            exportFormat = VisitExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的导出格式: " + format);
+        }
+
+        String fileName = "visits-" + startDate + "-" + endDate + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+            visitExportService.export(startDate, endDate, pageUrl, exportFormat, gzipOut);
+            gzipOut.finish();
+        } else {
+            visitExportService.export(startDate, endDate, pageUrl, exportFormat, out);
+        }
+        out.flush();
+    }
+}
@@ -1,22 +1,24 @@
 package com.blog.analytics.controller;
 
 import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.proxy.ProxyRoute;
+import com.blog.analytics.proxy.RawJsonBody;
+import com.blog.analytics.service.ProxyService;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.Response;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 第三方API代理控制器
+ * <p>
+ * 接口返回DeferredResult，由Spring MVC异步处理，等待上游期间释放Servlet线程。
+ * 请求结束后（包括超时、客户端断开）释放未被写出的直通响应，避免上游连接泄漏。
  *
  * @author hoppinzq
  * @since 2025-12-17
@@ -24,203 +26,67 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/proxy")
 @RequiredArgsConstructor
-@Slf4j
 public class ProxyController {
 
-    private final OkHttpClient okHttpClient;
+    private final ProxyService proxyService;
 
     /**
      * 获取新闻热搜代理接口
      */
     @GetMapping("/news/hot-list")
-    public HoppinResponse<Object> getNewsHotList(@RequestParam(required = false) Map<String, String> params) {
-        try {
-            // 构建请求URL
-            StringBuilder urlBuilder = new StringBuilder("https://soso-b-api.cqttech.com/api/v1/hot_list");
-            if (params != null && !params.isEmpty()) {
-                urlBuilder.append("?");
-                for (Map.Entry<String, String> entry : params.entrySet()) {
-                    urlBuilder.append(entry.getKey()).append("=")
-                            .append(java.net.URLEncoder.encode(entry.getValue(), "UTF-8")).append("&");
-                }
-                urlBuilder.deleteCharAt(urlBuilder.length() - 1);
-            }
-
-            // 创建请求
-            Request request = new Request.Builder()
-                    .url(urlBuilder.toString())
-                    .addHeader("X-ZQ-Ignore", "1")
-                    .build();
-
-            // 发送请求
-            Response response = okHttpClient.newCall(request).execute();
-            if (response.isSuccessful() && response.body() != null) {
-                String responseBody = response.body().string();
-                // 直接返回响应内容
-                Object result = com.alibaba.fastjson.JSON.parse(responseBody);
-                return HoppinResponse.success(result);
-            } else {
-                return HoppinResponse.fail("获取新闻热搜失败: " + response.message());
-            }
-        } catch (IOException e) {
-            log.error("获取新闻热搜失败", e);
-            return HoppinResponse.fail("获取新闻热搜失败: " + e.getMessage());
-        }
+    public DeferredResult<HoppinResponse<Object>> getNewsHotList(@RequestParam(required = false) Map<String, String> params) {
+        return defer(proxyService.fetch(ProxyRoute.NEWS_HOT_LIST, params));
     }
 
     /**
      * 获取天气代理接口
      */
     @GetMapping("/weather")
-    public HoppinResponse<Object> getWeather(@RequestParam(required = false) Map<String, String> params) {
-        try {
-            // 构建请求URL
-            StringBuilder urlBuilder = new StringBuilder("https://userweatherapi-newtabpro.newtabpro.cn/api/GetAssistData");
-            if (params != null && !params.isEmpty()) {
-                urlBuilder.append("?");
-                for (Map.Entry<String, String> entry : params.entrySet()) {
-                    urlBuilder.append(entry.getKey()).append("=")
-                            .append(java.net.URLEncoder.encode(entry.getValue(), "UTF-8")).append("&");
-                }
-                urlBuilder.deleteCharAt(urlBuilder.length() - 1);
-            }
-
-            // 创建请求
-            Request request = new Request.Builder()
-                    .url(urlBuilder.toString())
-                    .addHeader("X-ZQ-Ignore", "1")
-                    .build();
-
-            // 发送请求
-            Response response = okHttpClient.newCall(request).execute();
-            if (response.isSuccessful() && response.body() != null) {
-                String responseBody = response.body().string();
-                // 直接返回响应内容
-                Object result = com.alibaba.fastjson.JSON.parse(responseBody);
-                return HoppinResponse.success(result);
-            } else {
-                return HoppinResponse.fail("获取天气失败: " + response.message());
-            }
-        } catch (IOException e) {
-            log.error("获取天气失败", e);
-            return HoppinResponse.fail("获取天气失败: " + e.getMessage());
-        }
+    public DeferredResult<HoppinResponse<Object>> getWeather(@RequestParam(required = false) Map<String, String> params) {
+        return defer(proxyService.fetch(ProxyRoute.WEATHER, params));
     }
 
     /**
      * 获取星座运势代理接口
      */
     @GetMapping("/horoscope")
-    public HoppinResponse<Object> getHoroscope(@RequestParam(required = false) Map<String, String> params) {
-        try {
-            // 构建请求URL
-            StringBuilder urlBuilder = new StringBuilder("https://userapi-newtabpro.newtabpro.cn/getxzinfo");
-            if (params != null && !params.isEmpty()) {
-                urlBuilder.append("?");
-                for (Map.Entry<String, String> entry : params.entrySet()) {
-                    urlBuilder.append(entry.getKey()).append("=")
-                            .append(java.net.URLEncoder.encode(entry.getValue(), "UTF-8")).append("&");
-                }
-                urlBuilder.deleteCharAt(urlBuilder.length() - 1);
-            }
-
-            // 创建请求
-            Request request = new Request.Builder()
-                    .url(urlBuilder.toString())
-                    .addHeader("X-ZQ-Ignore", "1")
-                    .build();
-
-            // 发送请求
-            Response response = okHttpClient.newCall(request).execute();
-            if (response.isSuccessful() && response.body() != null) {
-                String responseBody = response.body().string();
-                // 直接返回响应内容
-                Object result = com.alibaba.fastjson.JSON.parse(responseBody);
-                return HoppinResponse.success(result);
-            } else {
-                return HoppinResponse.fail("获取星座运势失败: " + response.message());
-            }
-        } catch (IOException e) {
-            log.error("获取星座运势失败", e);
-            return HoppinResponse.fail("获取星座运势失败: " + e.getMessage());
-        }
+    public DeferredResult<HoppinResponse<Object>> getHoroscope(@RequestParam(required = false) Map<String, String> params) {
+        return defer(proxyService.fetch(ProxyRoute.HOROSCOPE, params));
     }
 
     /**
      * 获取大模型排名代理接口
      */
     @GetMapping("/hellogithub/lm-rank")
-    public HoppinResponse<Object> getLmRank(@RequestParam(required = false) Map<String, String> params) {
-        try {
-            // 构建请求URL
-            StringBuilder urlBuilder = new StringBuilder("https://hellogithub.com/_next/data/JdGrOpd-mbD4CLgVF9Yfl/zh/report/lm-rank.json");
-            if (params != null && !params.isEmpty()) {
-                urlBuilder.append("?");
-                for (Map.Entry<String, String> entry : params.entrySet()) {
-                    urlBuilder.append(entry.getKey()).append("=")
-                            .append(java.net.URLEncoder.encode(entry.getValue(), "UTF-8")).append("&");
-                }
-                urlBuilder.deleteCharAt(urlBuilder.length() - 1);
-            }
-
-            // 创建请求
-            Request request = new Request.Builder()
-                    .url(urlBuilder.toString())
-                    .addHeader("X-ZQ-Ignore", "1")
-                    .build();
-
-            // 发送请求
-            Response response = okHttpClient.newCall(request).execute();
-            if (response.isSuccessful() && response.body() != null) {
-                String responseBody = response.body().string();
-                // 直接返回响应内容
-                Object result = com.alibaba.fastjson.JSON.parse(responseBody);
-                return HoppinResponse.success(result);
-            } else {
-                return HoppinResponse.fail("获取大模型排名失败: " + response.message());
-            }
-        } catch (IOException e) {
-            log.error("获取大模型排名失败", e);
-            return HoppinResponse.fail("获取大模型排名失败: " + e.getMessage());
-        }
+    public DeferredResult<HoppinResponse<Object>> getLmRank(@RequestParam(required = false) Map<String, String> params) {
+        return defer(proxyService.fetch(ProxyRoute.LM_RANK, params));
     }
 
     /**
      * 获取编程排名代理接口
      */
     @GetMapping("/hellogithub/tiobe")
-    public HoppinResponse<Object> getTiobeRank(@RequestParam(required = false) Map<String, String> params) {
-        try {
-            // 构建请求URL
-            StringBuilder urlBuilder = new StringBuilder("https://hellogithub.com/_next/data/JdGrOpd-mbD4CLgVF9Yfl/zh/report/tiobe.json");
-            if (params != null && !params.isEmpty()) {
-                urlBuilder.append("?");
-                for (Map.Entry<String, String> entry : params.entrySet()) {
-                    urlBuilder.append(entry.getKey()).append("=")
-                            .append(java.net.URLEncoder.encode(entry.getValue(), "UTF-8")).append("&");
-                }
-                urlBuilder.deleteCharAt(urlBuilder.length() - 1);
-            }
-
-            // 创建请求
-            Request request = new Request.Builder()
-                    .url(urlBuilder.toString())
-                    .addHeader("X-ZQ-Ignore", "1")
-                    .build();
+    public DeferredResult<HoppinResponse<Object>> getTiobeRank(@RequestParam(required = false) Map<String, String> params) {
+        return defer(proxyService.fetch(ProxyRoute.TIOBE, params));
+    }
 
-            // 发送请求
-            Response response = okHttpClient.newCall(request).execute();
-            if (response.isSuccessful() && response.body() != null) {
-                String responseBody = response.body().string();
-                // 直接返回响应内容
-                Object result = com.alibaba.fastjson.JSON.parse(responseBody);
-                return HoppinResponse.success(result);
+    private static DeferredResult<HoppinResponse<Object>> defer(CompletableFuture<HoppinResponse<Object>> future) {
+        DeferredResult<HoppinResponse<Object>> result = new DeferredResult<>();
+        future.whenComplete((response, error) -> {
+            if (error != null) {
+                result.setErrorResult(error);
             } else {
-                return HoppinResponse.fail("获取编程排名失败: " + response.message());
+                result.setResult(response);
             }
-        } catch (IOException e) {
-            log.error("获取编程排名失败", e);
-            return HoppinResponse.fail("获取编程排名失败: " + e.getMessage());
+        });
+        // 完成回调在请求结束后执行（包括超时、出错和客户端断开），上游结果届时可能尚未返回，返回后再释放
+        result.onCompletion(() -> future.thenAccept(ProxyController::release));
+        return result;
+    }
+
+    private static void release(HoppinResponse<Object> response) {
+        if (response != null && response.getData() instanceof RawJsonBody) {
+            ((RawJsonBody) response.getData()).close();
         }
     }
 }
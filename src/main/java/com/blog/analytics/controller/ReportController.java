@@ -0,0 +1,73 @@
+package com.blog.analytics.controller;
+
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.dto.PreSerializedJson;
+import com.blog.analytics.dto.ReportSnapshotDTO;
+import com.blog.analytics.service.ReportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * 报表快照控制器
+ * <p>
+ * 查看报表按主键读取预先生成的快照；重新生成为管理接口，鉴权见{@link com.blog.analytics.config.AdminTokenInterceptor}。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@Slf4j
+public class ReportController {
+
+    private final ReportService reportService;
+
+    /**
+     * 获取报表快照
+     *
+     * @param type 报表类型(daily/weekly/monthly)
+     * @param date 周期内的任一日期
+     */
+    @GetMapping("/reports/{type}/{date}")
+    public HoppinResponse<PreSerializedJson> getReport(
+            @PathVariable String type,
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+
+        PreSerializedJson snapshot = reportService.getSnapshot(parseType(type), date);
+        if (snapshot == null) {
+            return HoppinResponse.fail(404, "报表尚未生成");
+        }
+        return HoppinResponse.success(snapshot);
+    }
+
+    /**
+     * 重新生成报表快照
+     */
+    @PostMapping("/admin/reports/{type}/{date}")
+    public HoppinResponse<ReportSnapshotDTO> regenerate(
+            @PathVariable String type,
+            @PathVariable @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate date) {
+
+        ReportService.ReportType reportType = parseType(type);
+        try {
+            return HoppinResponse.success("报表已生成", reportService.generate(reportType, date));
+        } catch (Exception e) {
+            log.error("生成报表失败 - 类型: {}, 日期: {}", reportType, date, e);
+            return HoppinResponse.fail("生成报表失败");
+        }
+    }
+
+    private static ReportService.ReportType parseType(String type) {
+        try {
+            return ReportService.ReportType.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("不支持的报表类型: " + type);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.blog.analytics.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 统计重建进度DTO
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@Builder
+public class BackfillProgressDTO {
+
+    /**
+     * 任务ID（开始日期键-结束日期键，相同范围再次提交时从检查点继续）
+     */
+    private String jobId;
+
+    /**
+     * 状态（RUNNING、COMPLETED、FAILED）
+     */
+    private String status;
+
+    /**
+     * 开始日期
+     */
+    private LocalDate startDate;
+
+    /**
+     * 结束日期
+     */
+    private LocalDate endDate;
+
+    /**
+     * 总天数
+     */
+    private Integer totalDays;
+
+    /**
+     * 本次已重建天数
+     */
+    private Integer completedDays;
+
+    /**
+     * 检查点中已完成、本次跳过的天数
+     */
+    private Integer skippedDays;
+
+    /**
+     * 重建失败的日期键
+     */
+    private List<Integer> failedDays;
+
+    /**
+     * 已处理的原始记录数
+     */
+    private Long rowsProcessed;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,34 @@
+package com.blog.analytics.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * 页面停留时长上报DTO
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+public class PageDurationDTO {
+
+    /**
+     * 页面URL
+     */
+    @NotBlank(message = "页面URL不能为空")
+    @Size(max = 500, message = "页面URL长度不能超过500个字符")
+    private String pageUrl;
+
+    /**
+     * 停留时长（毫秒）
+     */
+    @NotNull(message = "停留时长不能为空")
+    @Min(value = 0, message = "停留时长不能为负数")
+    @Max(value = 14400000, message = "停留时长不能超过4小时")
+    private Long duration;
+}
@@ -0,0 +1,50 @@
+package com.blog.analytics.dto;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * 页面停留时长统计DTO
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@Builder
+public class PageDurationStatsDTO {
+
+    /**
+     * 页面URL
+     */
+    private String pageUrl;
+
+    /**
+     * 上报次数
+     */
+    private Long count;
+
+    /**
+     * 平均停留时间(秒)
+     */
+    private Integer avgDuration;
+
+    /**
+     * 中位数停留时间(秒)
+     */
+    private Integer p50;
+
+    /**
+     * 75分位停留时间(秒)
+     */
+    private Integer p75;
+
+    /**
+     * 90分位停留时间(秒)
+     */
+    private Integer p90;
+
+    /**
+     * 99分位停留时间(秒)
+     */
+    private Integer p99;
+}
@@ -0,0 +1,46 @@
+package com.blog.analytics.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+
+/**
+ * 已序列化的JSON数据
+ * <p>
+ * 作为{@code HoppinResponse.data}返回时原样写出，不再解析和重新序列化；ETag在序列化时已算好并随数据保存。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class PreSerializedJson extends JsonSerializable.Base {
+
+    private final String json;
+    private final String etag;
+
+    public PreSerializedJson(String json, String etag) {
+        this.json = json;
+        this.etag = etag;
+    }
+
+    public String getJson() {
+        return json;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        gen.writeRawValue(json);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+}
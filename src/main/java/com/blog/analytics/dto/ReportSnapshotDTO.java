@@ -0,0 +1,106 @@
+package com.blog.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 报表快照DTO
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportSnapshotDTO {
+
+    /**
+     * 报表类型(DAILY/WEEKLY/MONTHLY)
+     */
+    private String reportType;
+
+    /**
+     * 周期开始日期
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate periodStart;
+
+    /**
+     * 周期结束日期
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate periodEnd;
+
+    /**
+     * 生成时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime generatedAt;
+
+    /**
+     * 周期总计（独立IP由每天的HyperLogLog草图合并估计）
+     */
+    private StatsSummary total;
+
+    /**
+     * 会话数
+     */
+    private Long sessionCount;
+
+    /**
+     * 每日统计
+     */
+    private List<DailyStatsDTO> daily;
+
+    /**
+     * 按一天中的小时（0-23）汇总的访问次数
+     */
+    private List<Long> hourlyVisits;
+
+    /**
+     * 访问次数最多的页面
+     */
+    private List<RankItem> topPages;
+
+    /**
+     * 访问次数最多的来源域名
+     */
+    private List<RankItem> topReferers;
+
+    /**
+     * 访问次数最多的浏览器
+     */
+    private List<RankItem> topBrowsers;
+
+    /**
+     * 排行项
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RankItem {
+
+        /**
+         * 名称（页面URL、来源域名或浏览器）
+         */
+        private String name;
+
+        /**
+         * 访问次数
+         */
+        private Long visits;
+
+        /**
+         * 独立IP数（页面由每天的草图合并估计，来源和浏览器为每日独立IP之和）
+         */
+        private Long uniqueIps;
+    }
+}
@@ -0,0 +1,77 @@
+package com.blog.analytics.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 按粒度分组的时间序列统计DTO
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@Builder
+public class SeriesStatsDTO {
+
+    /**
+     * 粒度(HOUR/DAY/WEEK/MONTH)
+     */
+    private String granularity;
+
+    /**
+     * 页面URL，为null时为全站统计
+     */
+    private String pageUrl;
+
+    /**
+     * 各周期的统计，首尾周期按查询范围截断
+     */
+    private List<Point> data;
+
+    /**
+     * 总计统计（独立IP由每天的HyperLogLog草图合并估计）
+     */
+    private StatsSummary total;
+
+    /**
+     * 一个周期的统计
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+
+        /**
+         * 周期开始时间
+         */
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime start;
+
+        /**
+         * 周期结束时间（不含）
+         */
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+        private LocalDateTime end;
+
+        /**
+         * 访问次数
+         */
+        private Long visits;
+
+        /**
+         * 独立IP数
+         */
+        private Long uniqueIps;
+
+        /**
+         * 页面浏览量（页面统计时为null）
+         */
+        private Long pageViews;
+    }
+}
@@ -0,0 +1,40 @@
+package com.blog.analytics.dto;
+
+import lombok.Data;
+import lombok.Builder;
+
+/**
+ * 趋势页面DTO
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@Builder
+public class TrendingPageDTO {
+
+    /**
+     * 页面URL
+     */
+    private String url;
+
+    /**
+     * 当前访问速率(次/分钟)
+     */
+    private Double currentRate;
+
+    /**
+     * 基线访问速率(次/分钟)
+     */
+    private Double baselineRate;
+
+    /**
+     * 趋势分（当前速率高出基线的部分）
+     */
+    private Double score;
+
+    /**
+     * 估算误差上界(次/分钟)
+     */
+    private Double error;
+}
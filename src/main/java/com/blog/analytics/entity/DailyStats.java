@@ -1,5 +1,6 @@
 package com.blog.analytics.entity;
 
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -51,4 +52,25 @@ public class DailyStats extends BaseEntity {
      * 平均会话时长(秒)
      */
     private Integer avgSessionDuration;
-}
\ No newline at end of file
+
+    /**
+     * 会话数
+     */
+    private Long sessionCount;
+
+    /**
+     * 跳出会话数
+     */
+    private Long bounceSessions;
+
+    /**
+     * 会话总时长(秒)
+     */
+    private Long totalSessionDuration;
+
+    /**
+     * 独立IP的HyperLogLog草图（默认查询不读取，需要时显式select）
+     */
+    @TableField(select = false)
+    private byte[] ipSketch;
+}
@@ -0,0 +1,33 @@
+package com.blog.analytics.entity;
+
+import lombok.Data;
+
+/**
+ * 页面停留时长直方图桶
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+public class PageDurationBucket {
+
+    /**
+     * 页面URL
+     */
+    private String pageUrl;
+
+    /**
+     * 日期键(YYYYMMDD)
+     */
+    private Integer dateKey;
+
+    /**
+     * 桶序号
+     */
+    private Integer bucket;
+
+    /**
+     * 桶内计数
+     */
+    private Long bucketCount;
+}
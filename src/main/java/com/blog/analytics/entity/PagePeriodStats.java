@@ -0,0 +1,62 @@
+package com.blog.analytics.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 页面周期汇总实体类（周、月两级）
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@TableName("page_period_stats")
+public class PagePeriodStats {
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 周期类型(WEEK/MONTH)
+     */
+    private String periodType;
+
+    /**
+     * 周期开始日期键(YYYYMMDD)
+     */
+    private Integer periodKey;
+
+    /**
+     * 页面URL
+     */
+    private String pageUrl;
+
+    /**
+     * 访问次数
+     */
+    private Long visitCount;
+
+    /**
+     * 独立IP数(按天草图合并估计)
+     */
+    private Long uniqueIpCount;
+
+    /**
+     * 独立IP的HyperLogLog草图，有天缺少草图时为null（默认查询不读取，需要时显式select）
+     */
+    @TableField(select = false)
+    private byte[] ipSketch;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
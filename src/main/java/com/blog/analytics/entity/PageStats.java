@@ -1,5 +1,6 @@
 package com.blog.analytics.entity;
 
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -49,4 +50,30 @@ public class PageStats extends BaseEntity {
      * 跳出次数
      */
     private Integer bounceCount;
-}
\ No newline at end of file
+
+    /**
+     * 作为入口页的会话数
+     */
+    private Integer entryCount;
+
+    /**
+     * 作为退出页的会话数
+     */
+    private Integer exitCount;
+
+    /**
+     * 停留时长上报次数
+     */
+    private Long durationCount;
+
+    /**
+     * 停留时长总和(毫秒)
+     */
+    private Long durationSumMs;
+
+    /**
+     * 独立IP的HyperLogLog草图（默认查询不读取，需要时显式select）
+     */
+    @TableField(select = false)
+    private byte[] ipSketch;
+}
@@ -0,0 +1,79 @@
+package com.blog.analytics.entity;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 周期汇总实体类（周、月两级）
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@TableName("period_stats")
+public class PeriodStats {
+
+    /**
+     * 周期类型(WEEK/MONTH)
+     */
+    private String periodType;
+
+    /**
+     * 周期开始日期键(YYYYMMDD)
+     */
+    private Integer periodKey;
+
+    /**
+     * 周期结束日期键(YYYYMMDD)
+     */
+    private Integer periodEnd;
+
+    /**
+     * 总访问次数
+     */
+    private Long totalVisits;
+
+    /**
+     * 独立IP数(按天草图合并估计)
+     */
+    private Long uniqueIps;
+
+    /**
+     * 页面浏览量
+     */
+    private Long pageViews;
+
+    /**
+     * 会话数
+     */
+    private Long sessionCount;
+
+    /**
+     * 跳出会话数
+     */
+    private Long bounceSessions;
+
+    /**
+     * 会话总时长(秒)
+     */
+    private Long totalSessionDuration;
+
+    /**
+     * 参与汇总的天数
+     */
+    private Integer dayCount;
+
+    /**
+     * 独立IP的HyperLogLog草图，有天缺少草图时为null（默认查询不读取，需要时显式select）
+     */
+    @TableField(select = false)
+    private byte[] ipSketch;
+
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
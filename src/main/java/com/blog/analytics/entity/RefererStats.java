@@ -0,0 +1,42 @@
+package com.blog.analytics.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 访问来源统计实体
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("referer_stats")
+public class RefererStats extends BaseEntity {
+
+    /**
+     * 来源域名
+     */
+    private String refererDomain;
+
+    /**
+     * 来源URL
+     */
+    private String refererUrl;
+
+    /**
+     * 日期键(YYYYMMDD)
+     */
+    private Integer dateKey;
+
+    /**
+     * 访问次数
+     */
+    private Long visitCount;
+
+    /**
+     * 独立IP数
+     */
+    private Integer uniqueIpCount;
+}
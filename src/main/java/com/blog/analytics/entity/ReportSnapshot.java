@@ -0,0 +1,55 @@
+package com.blog.analytics.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 报表快照实体类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@TableName("report_snapshot")
+public class ReportSnapshot {
+
+    /**
+     * 报表键(类型:周期开始日期键)
+     */
+    @TableId(type = IdType.INPUT)
+    private String reportKey;
+
+    /**
+     * 报表类型(DAILY/WEEKLY/MONTHLY)
+     */
+    private String reportType;
+
+    /**
+     * 周期开始日期键(YYYYMMDD)
+     */
+    private Integer periodStart;
+
+    /**
+     * 周期结束日期键(YYYYMMDD)
+     */
+    private Integer periodEnd;
+
+    /**
+     * 报表内容(JSON)
+     */
+    private String payload;
+
+    /**
+     * 报表内容的ETag
+     */
+    private String etag;
+
+    /**
+     * 生成时间
+     */
+    private LocalDateTime generatedAt;
+}
@@ -0,0 +1,57 @@
+package com.blog.analytics.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 用户代理统计实体
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("user_agent_stats")
+public class UserAgentStats extends BaseEntity {
+
+    /**
+     * 浏览器
+     */
+    private String browser;
+
+    /**
+     * 浏览器版本
+     */
+    private String browserVersion;
+
+    /**
+     * 操作系统
+     */
+    private String os;
+
+    /**
+     * 操作系统版本
+     */
+    private String osVersion;
+
+    /**
+     * 设备类型
+     */
+    private String device;
+
+    /**
+     * 日期键(YYYYMMDD)
+     */
+    private Integer dateKey;
+
+    /**
+     * 访问次数
+     */
+    private Long visitCount;
+
+    /**
+     * 独立IP数
+     */
+    private Integer uniqueIpCount;
+}
@@ -0,0 +1,40 @@
+package com.blog.analytics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.analytics.entity.DailyStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 每日统计Mapper接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Mapper
+public interface DailyStatsMapper extends BaseMapper<DailyStats> {
+
+    /**
+     * 累加会话统计（不存在则插入），并重新计算跳出率和平均会话时长
+     *
+     * @param dateKey 日期键
+     * @param dateStr 日期字符串
+     * @param sessionCount 新增会话数
+     * @param bounceSessions 新增跳出会话数
+     * @param totalSessionDuration 新增会话总时长(秒)
+     * @return 影响行数
+     */
+    int upsertSessionStats(@Param("dateKey") Integer dateKey,
+                           @Param("dateStr") String dateStr,
+                           @Param("sessionCount") long sessionCount,
+                           @Param("bounceSessions") long bounceSessions,
+                           @Param("totalSessionDuration") long totalSessionDuration);
+
+    /**
+     * 覆盖写入访问统计（总访问次数、独立IP、浏览量），用于按原始记录重建
+     *
+     * @param stats 重建后的访问统计
+     * @return 影响行数
+     */
+    int upsertVisitStats(DailyStats stats);
+}
@@ -0,0 +1,45 @@
+package com.blog.analytics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.analytics.entity.HourlyStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Map;
+import java.util.List;
+
+/**
+ * 小时统计Mapper接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Mapper
+public interface HourlyStatsMapper extends BaseMapper<HourlyStats> {
+
+    /**
+     * 批量累加访问次数
+     *
+     * @param list 访问次数增量
+     * @return 影响行数
+     */
+    int batchUpsertVisitCounts(@Param("list") List<HourlyStats> list);
+
+    /**
+     * 批量覆盖写入访问次数和独立IP数，用于按原始记录重建
+     *
+     * @param list 重建后的小时统计
+     * @return 影响行数
+     */
+    int batchReplaceVisitStats(@Param("list") List<HourlyStats> list);
+
+    /**
+     * 按一天中的小时汇总小时键范围内的访问次数
+     *
+     * @param startHourKey 开始小时键
+     * @param endHourKey 结束小时键
+     * @return 各小时访问次数（hour、visits）
+     */
+    List<Map<String, Object>> getVisitsByHourOfDay(@Param("startHourKey") Integer startHourKey,
+                                                   @Param("endHourKey") Integer endHourKey);
+}
@@ -0,0 +1,36 @@
+package com.blog.analytics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.analytics.entity.PagePeriodStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 页面周期汇总Mapper接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Mapper
+public interface PagePeriodStatsMapper extends BaseMapper<PagePeriodStats> {
+
+    /**
+     * 删除一个周期的页面汇总
+     *
+     * @param periodType 周期类型
+     * @param periodKey 周期开始日期键
+     * @return 删除行数
+     */
+    int deletePeriod(@Param("periodType") String periodType,
+                     @Param("periodKey") Integer periodKey);
+
+    /**
+     * 批量写入页面周期汇总
+     *
+     * @param list 页面周期汇总
+     * @return 插入行数
+     */
+    int batchInsert(@Param("list") List<PagePeriodStats> list);
+}
@@ -0,0 +1,107 @@
+package com.blog.analytics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.analytics.entity.PageDurationBucket;
+import com.blog.analytics.entity.PageStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 页面统计Mapper接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Mapper
+public interface PageStatsMapper extends BaseMapper<PageStats> {
+
+    /**
+     * 批量累加页面会话统计（跳出、入口、退出次数）
+     *
+     * @param list 页面统计增量
+     * @return 影响行数
+     */
+    int batchUpsertSessionStats(@Param("list") List<PageStats> list);
+
+    /**
+     * 批量覆盖写入页面访问次数、独立IP数和独立IP草图，用于按原始记录重建
+     *
+     * @param list 重建后的页面统计
+     * @return 影响行数
+     */
+    int batchReplaceVisitStats(@Param("list") List<PageStats> list);
+
+    /**
+     * 将某天所有页面的访问次数和独立IP数清零、草图置空（重建前调用，原始记录中已没有的页面不会保留旧值）
+     *
+     * @param dateKey 日期键
+     * @return 影响行数
+     */
+    int resetVisitStats(@Param("dateKey") Integer dateKey);
+
+    /**
+     * 批量累加页面停留时长（次数、总和），并重新计算平均停留时间
+     *
+     * @param list 页面统计增量
+     * @return 影响行数
+     */
+    int batchUpsertDurationStats(@Param("list") List<PageStats> list);
+
+    /**
+     * 批量累加停留时长直方图桶
+     *
+     * @param list 直方图桶增量
+     * @return 影响行数
+     */
+    int batchUpsertDurationBuckets(@Param("list") List<PageDurationBucket> list);
+
+    /**
+     * 获取页面在日期范围内的停留时长汇总
+     *
+     * @param pageUrl 页面URL
+     * @param startDate 开始日期键
+     * @param endDate 结束日期键
+     * @return 汇总结果（durationCount、durationSumMs）
+     */
+    Map<String, Object> getDurationSummary(@Param("pageUrl") String pageUrl,
+                                           @Param("startDate") Integer startDate,
+                                           @Param("endDate") Integer endDate);
+
+    /**
+     * 获取页面在日期范围内合并后的停留时长直方图
+     *
+     * @param pageUrl 页面URL
+     * @param startDate 开始日期键
+     * @param endDate 结束日期键
+     * @return 各桶计数（bucket、bucketCount）
+     */
+    List<Map<String, Object>> getDurationBuckets(@Param("pageUrl") String pageUrl,
+                                                 @Param("startDate") Integer startDate,
+                                                 @Param("endDate") Integer endDate);
+
+    /**
+     * 获取日期范围内访问次数最多的页面
+     *
+     * @param startDate 开始日期键
+     * @param endDate 结束日期键
+     * @param limit 返回数量
+     * @return 排行（name、visits、uniqueIps）
+     */
+    List<Map<String, Object>> getTopPages(@Param("startDate") Integer startDate,
+                                          @Param("endDate") Integer endDate,
+                                          @Param("limit") int limit);
+
+    /**
+     * 按页面URL排序流式读取日期范围内的页面访问次数、独立IP数和草图（周期汇总用），需在事务内遍历并关闭
+     *
+     * @param startDate 开始日期键
+     * @param endDate 结束日期键
+     * @return 游标
+     */
+    Cursor<PageStats> streamVisitStats(@Param("startDate") Integer startDate,
+                                       @Param("endDate") Integer endDate);
+}
@@ -0,0 +1,32 @@
+package com.blog.analytics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.analytics.entity.PeriodStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 周期汇总Mapper接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Mapper
+public interface PeriodStatsMapper extends BaseMapper<PeriodStats> {
+
+    /**
+     * 按daily_stats重新汇总一个周期（不存在则插入），独立IP数和草图由调用方合并各天草图后传入
+     *
+     * @param periodType 周期类型
+     * @param periodKey 周期开始日期键
+     * @param periodEnd 周期结束日期键
+     * @param uniqueIps 独立IP数
+     * @param ipSketch 独立IP草图
+     * @return 影响行数
+     */
+    int refresh(@Param("periodType") String periodType,
+                @Param("periodKey") Integer periodKey,
+                @Param("periodEnd") Integer periodEnd,
+                @Param("uniqueIps") long uniqueIps,
+                @Param("ipSketch") byte[] ipSketch);
+}
@@ -0,0 +1,39 @@
+package com.blog.analytics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.analytics.entity.RefererStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Map;
+import java.util.List;
+
+/**
+ * 访问来源统计Mapper接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Mapper
+public interface RefererStatsMapper extends BaseMapper<RefererStats> {
+
+    /**
+     * 批量累加访问次数
+     *
+     * @param list 访问次数增量
+     * @return 影响行数
+     */
+    int batchUpsertVisitCounts(@Param("list") List<RefererStats> list);
+
+    /**
+     * 获取日期范围内访问次数最多的来源域名
+     *
+     * @param startDate 开始日期键
+     * @param endDate 结束日期键
+     * @param limit 返回数量
+     * @return 排行（name、visits、uniqueIps）
+     */
+    List<Map<String, Object>> getTopReferers(@Param("startDate") Integer startDate,
+                                             @Param("endDate") Integer endDate,
+                                             @Param("limit") int limit);
+}
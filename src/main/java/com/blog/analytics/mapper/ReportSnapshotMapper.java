@@ -0,0 +1,23 @@
+package com.blog.analytics.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.blog.analytics.entity.ReportSnapshot;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 报表快照Mapper接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Mapper
+public interface ReportSnapshotMapper extends BaseMapper<ReportSnapshot> {
+
+    /**
+     * 写入报表快照（已存在则覆盖）
+     *
+     * @param snapshot 报表快照
+     * @return 影响行数
+     */
+    int upsert(ReportSnapshot snapshot);
+}
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.blog.analytics.entity.VisitRecord;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -72,6 +73,35 @@ public interface VisitRecordMapper extends BaseMapper<VisitRecord> {
      */
     int deleteExpiredRecords(@Param("expireTime") LocalDateTime expireTime);
 
+    /**
+     * 删除某个时间段内的记录
+     *
+     * @param startTime 开始时间（含），为null时不限
+     * @param endTime 结束时间（不含）
+     * @return 删除数量
+     */
+    int deleteRecordsBetween(@Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 流式读取某天的访问记录（只含页面URL、IP、小时键），需在事务内遍历并关闭
+     *
+     * @param dateKey 日期键
+     * @return 游标
+     */
+    Cursor<VisitRecord> streamByDateKey(@Param("dateKey") Integer dateKey);
+
+    /**
+     * 流式读取日期范围内的访问记录（导出用），需在事务内遍历并关闭
+     *
+     * @param startDate 开始日期键
+     * @param endDate 结束日期键
+     * @param pageUrl 页面URL，为null时不限
+     * @return 游标
+     */
+    Cursor<VisitRecord> streamForExport(@Param("startDate") Integer startDate,
+                                        @Param("endDate") Integer endDate,
+                                        @Param("pageUrl") String pageUrl);
+
     /**
      * 获取独立IP数
      *
@@ -0,0 +1,197 @@
+package com.blog.analytics.proxy;
+
+/**
+ * 熔断器
+ * <p>
+ * 以最近N次调用组成的环形窗口统计失败率和慢调用率，任一超过阈值即打开熔断，
+ * 熔断期间直接拒绝调用；熔断时长结束后进入半开状态，只放行少量探测请求：
+ * 探测全部成功则关闭熔断，任一失败则重新打开。
+ * 每次状态切换递增代数，调用许可携带申请时的代数，旧状态下发出的调用结果不影响新状态的统计。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class CircuitBreaker {
+
+    /**
+     * 熔断器状态
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 拒绝调用时的许可值
+     */
+    public static final long REJECTED = -1L;
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallMillis;
+    private final long openMillis;
+    private final int halfOpenPermits;
+
+    /**
+     * 环形窗口：0成功，1失败，2慢调用
+     */
+    private final byte[] window;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenInFlight;
+    private int halfOpenSucceeded;
+
+    /**
+     * @param windowSize 统计窗口大小（调用次数）
+     * @param minimumCalls 窗口内至少多少次调用后才开始判断
+     * @param failureRateThreshold 失败率阈值（0-1）
+     * @param slowCallRateThreshold 慢调用率阈值（0-1）
+     * @param slowCallMillis 慢调用判定时长（毫秒）
+     * @param openMillis 熔断持续时长（毫秒）
+     * @param halfOpenPermits 半开状态放行的探测请求数
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          double slowCallRateThreshold, long slowCallMillis, long openMillis, int halfOpenPermits) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize || halfOpenPermits <= 0) {
+            throw new IllegalArgumentException("熔断器窗口配置不合法");
+        }
+        this.window = new byte[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.openMillis = openMillis;
+        this.halfOpenPermits = halfOpenPermits;
+    }
+
+    /**
+     * 申请调用许可
+     *
+     * @param now 当前时间戳（毫秒）
+     * @return 调用许可，{@link #REJECTED}表示拒绝；允许时调用结束后必须以该许可回调{@link #onSuccess}或{@link #onFailure}
+     */
+    public synchronized long tryAcquire(long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < openMillis) {
+                return REJECTED;
+            }
+            state = State.HALF_OPEN;
+            generation++;
+            halfOpenInFlight = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenInFlight + halfOpenSucceeded >= halfOpenPermits) {
+                return REJECTED;
+            }
+            halfOpenInFlight++;
+        }
+        return generation;
+    }
+
+    /**
+     * 记录一次成功调用
+     *
+     * @param permit 调用许可
+     * @param durationMillis 调用耗时（毫秒）
+     * @param now 当前时间戳（毫秒）
+     */
+    public synchronized void onSuccess(long permit, long durationMillis, long now) {
+        if (permit != generation) {
+            return;
+        }
+        boolean slow = durationMillis >= slowCallMillis;
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight--;
+            if (slow) {
+                open(now);
+            } else if (++halfOpenSucceeded >= halfOpenPermits) {
+                close();
+            }
+            return;
+        }
+        record(slow ? (byte) 2 : (byte) 0, now);
+    }
+
+    /**
+     * 记录一次失败调用
+     *
+     * @param permit 调用许可
+     * @param now 当前时间戳（毫秒）
+     */
+    public synchronized void onFailure(long permit, long now) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            halfOpenInFlight--;
+            open(now);
+            return;
+        }
+        record((byte) 1, now);
+    }
+
+    /**
+     * 归还未产生结果的许可（如调用被主动取消），不计入统计
+     *
+     * @param permit 调用许可
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            halfOpenInFlight--;
+        }
+    }
+
+    /**
+     * 当前状态
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(byte outcome, long now) {
+        if (recorded == window.length) {
+            byte evicted = window[position];
+            if (evicted == 1) {
+                failures--;
+            } else if (evicted == 2) {
+                slowCalls--;
+            }
+        } else {
+            recorded++;
+        }
+        window[position] = outcome;
+        position = (position + 1) % window.length;
+        if (outcome == 1) {
+            failures++;
+        } else if (outcome == 2) {
+            slowCalls++;
+        }
+
+        if (recorded >= minimumCalls
+                && (failures >= failureRateThreshold * recorded || slowCalls >= slowCallRateThreshold * recorded)) {
+            open(now);
+        }
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        generation++;
+        openedAt = now;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        generation++;
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
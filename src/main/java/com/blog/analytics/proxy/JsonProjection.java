@@ -0,0 +1,126 @@
+package com.blog.analytics.proxy;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON字段投影
+ * <p>
+ * 按配置的字段路径（如 {@code pageProps.data.name}）只保留需要的字段，其余字段在流式解析时直接跳过，不构建完整的对象树。
+ * 路径以点分隔，数组对路径透明（路径作用于数组中的每个元素），{@code *}匹配任意一个字段名；
+ * 路径指向对象或数组时保留其全部内容。父级只在有子字段被保留时输出，未命中任何字段的数组元素被整体丢弃。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class JsonProjection {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final String WILDCARD = "*";
+
+    private final PathFilter root = new PathFilter();
+
+    /**
+     * @param paths 需要保留的字段路径
+     */
+    public JsonProjection(List<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            throw new IllegalArgumentException("投影字段不能为空");
+        }
+        for (String path : paths) {
+            PathFilter node = root;
+            for (String name : path.trim().split("\\.")) {
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("投影字段路径不合法: " + path);
+                }
+                node = node.children.computeIfAbsent(name, key -> new PathFilter());
+            }
+            node.leaf = true;
+        }
+    }
+
+    /**
+     * 投影输入流中的JSON，返回投影后的字节（UTF-8），未命中任何字段时返回{@code null}的JSON表示
+     *
+     * @param in JSON输入流，调用方负责关闭
+     */
+    public byte[] apply(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonParser parser = JSON_FACTORY.createParser(in);
+             JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            if (copy(parser, gen) == 0) {
+                gen.writeNull();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 将投影后的JSON逐个事件写入生成器
+     *
+     * @return 写出的事件数
+     */
+    public int copy(JsonParser parser, JsonGenerator gen) throws IOException {
+        JsonParser filtered = new FilteringParserDelegate(parser, root, TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true);
+        int events = 0;
+        while (filtered.nextToken() != null) {
+            gen.copyCurrentEvent(filtered);
+            events++;
+        }
+        return events;
+    }
+
+    /**
+     * 创建读取输入流的解析器
+     */
+    public static JsonParser createParser(InputStream in) throws IOException {
+        return JSON_FACTORY.createParser(in);
+    }
+
+    /**
+     * 字段路径树的节点，同时作为该层级的过滤器
+     */
+    private static final class PathFilter extends TokenFilter {
+
+        private final Map<String, PathFilter> children = new HashMap<>();
+        private boolean leaf;
+
+        @Override
+        public TokenFilter includeProperty(String name) {
+            PathFilter child = children.get(name);
+            if (child == null) {
+                child = children.get(WILDCARD);
+            }
+            if (child == null) {
+                return null;
+            }
+            return child.leaf ? TokenFilter.INCLUDE_ALL : child;
+        }
+
+        @Override
+        public TokenFilter includeElement(int index) {
+            return this;
+        }
+
+        @Override
+        public TokenFilter includeRootValue(int index) {
+            return leaf ? TokenFilter.INCLUDE_ALL : this;
+        }
+
+        @Override
+        protected boolean _includeScalar() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.blog.analytics.proxy;
+
+import com.blog.analytics.config.ProxyProperties;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按路由隔离的OkHttp客户端
+ * <p>
+ * 每个路由使用独立的{@link Dispatcher}和{@link ConnectionPool}，并发上限和连接复用互不影响：
+ * 某个上游变慢时只会占满它自己的并发额度，不会拖住其他路由，也不会占用Servlet线程。
+ * 各客户端由同一个基础客户端派生，共享超时、拦截器等其余配置。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class ProxyHttpClients {
+
+    private final Map<ProxyRoute, OkHttpClient> clients;
+    private final ExecutorService executor;
+
+    private ProxyHttpClients(Map<ProxyRoute, OkHttpClient> clients, ExecutorService executor) {
+        this.clients = clients;
+        this.executor = executor;
+    }
+
+    /**
+     * 按配置为每个路由派生客户端
+     *
+     * @param base 基础客户端
+     * @param properties 代理配置
+     * @param executor 执行异步调用的线程池（各路由调度器共享，并发由调度器各自限制）
+     */
+    public static ProxyHttpClients create(OkHttpClient base, ProxyProperties properties, ExecutorService executor) {
+        ProxyProperties.Http http = properties.getHttp();
+        Map<ProxyRoute, OkHttpClient> clients = new EnumMap<>(ProxyRoute.class);
+        for (ProxyRoute route : ProxyRoute.values()) {
+            int maxRequests = properties.maxRequestsOf(route);
+            Dispatcher dispatcher = new Dispatcher(executor);
+            dispatcher.setMaxRequests(maxRequests);
+            // 每个路由只访问一个主机，单主机上限与路由上限一致
+            dispatcher.setMaxRequestsPerHost(maxRequests);
+            clients.put(route, base.newBuilder()
+                    .dispatcher(dispatcher)
+                    .connectionPool(new ConnectionPool(http.getMaxIdleConnections(),
+                            http.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                    .callTimeout(properties.callTimeoutOf(route))
+                    .build());
+        }
+        return new ProxyHttpClients(clients, executor);
+    }
+
+    /**
+     * 所有路由共用同一个客户端（测试或不需要隔离时使用）
+     *
+     * @param client 客户端
+     */
+    public static ProxyHttpClients shared(OkHttpClient client) {
+        Map<ProxyRoute, OkHttpClient> clients = new EnumMap<>(ProxyRoute.class);
+        for (ProxyRoute route : ProxyRoute.values()) {
+            clients.put(route, client);
+        }
+        return new ProxyHttpClients(clients, null);
+    }
+
+    /**
+     * 创建异步调用线程池：线程按需创建、空闲回收，数量由各路由调度器的并发上限约束
+     */
+    public static ExecutorService newExecutor() {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("proxy-http-"));
+    }
+
+    /**
+     * 获取路由对应的客户端
+     */
+    public OkHttpClient get(ProxyRoute route) {
+        return clients.get(route);
+    }
+
+    /**
+     * 关闭连接池和线程池
+     */
+    public void shutdown() {
+        if (executor == null) {
+            return;
+        }
+        for (OkHttpClient client : clients.values()) {
+            client.dispatcher().cancelAll();
+            client.connectionPool().evictAll();
+        }
+        executor.shutdown();
+    }
+}
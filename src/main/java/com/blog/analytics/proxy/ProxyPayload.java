@@ -0,0 +1,65 @@
+package com.blog.analytics.proxy;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+
+/**
+ * 代理响应数据
+ * <p>
+ * 保存解析后的上游数据，以及按上游原始字节计算的ETag（用于响应客户端的条件请求）
+ * 和上游返回的ETag/Last-Modified（用于向上游发起条件请求）。序列化时只输出解析后的数据。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class ProxyPayload extends JsonSerializable.Base {
+
+    private final Object data;
+    private final String etag;
+    private final String upstreamEtag;
+    private final String upstreamLastModified;
+
+    public ProxyPayload(Object data, byte[] raw, String upstreamEtag, String upstreamLastModified) {
+        this.data = data;
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(raw) + "\"";
+        this.upstreamEtag = upstreamEtag;
+        this.upstreamLastModified = upstreamLastModified;
+    }
+
+    public Object getData() {
+        return data;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getUpstreamEtag() {
+        return upstreamEtag;
+    }
+
+    public String getUpstreamLastModified() {
+        return upstreamLastModified;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        serializers.defaultSerializeValue(data, gen);
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(data);
+    }
+}
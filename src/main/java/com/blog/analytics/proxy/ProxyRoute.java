@@ -0,0 +1,68 @@
+package com.blog.analytics.proxy;
+
+/**
+ * 第三方代理路由
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public enum ProxyRoute {
+
+    /**
+     * 新闻热搜
+     */
+    NEWS_HOT_LIST("news-hot-list", "https://soso-b-api.cqttech.com/api/v1/hot_list", "获取新闻热搜"),
+
+    /**
+     * 天气
+     */
+    WEATHER("weather", "https://userweatherapi-newtabpro.newtabpro.cn/api/GetAssistData", "获取天气"),
+
+    /**
+     * 星座运势
+     */
+    HOROSCOPE("horoscope", "https://userapi-newtabpro.newtabpro.cn/getxzinfo", "获取星座运势"),
+
+    /**
+     * 大模型排名
+     */
+    LM_RANK("lm-rank", "https://hellogithub.com/_next/data/JdGrOpd-mbD4CLgVF9Yfl/zh/report/lm-rank.json", "获取大模型排名"),
+
+    /**
+     * 编程语言排名
+     */
+    TIOBE("tiobe", "https://hellogithub.com/_next/data/JdGrOpd-mbD4CLgVF9Yfl/zh/report/tiobe.json", "获取编程排名");
+
+    /**
+     * 路由标识，对应配置 blog.proxy.routes.{id}
+     */
+    private final String id;
+
+    /**
+     * 默认上游地址
+     */
+    private final String defaultUrl;
+
+    /**
+     * 错误提示前缀
+     */
+    private final String label;
+
+    ProxyRoute(String id, String defaultUrl, String label) {
+        this.id = id;
+        this.defaultUrl = defaultUrl;
+        this.label = label;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getDefaultUrl() {
+        return defaultUrl;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,111 @@
+package com.blog.analytics.proxy;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 直通模式的上游响应体
+ * <p>
+ * 作为{@code HoppinResponse.data}返回，Jackson序列化到该字段时不解析内容，
+ * 而是将上游响应的字节按固定大小的缓冲区直接拷贝到输出流，外层信封仍由Jackson正常写出。
+ * 内存占用与响应体大小无关。拷贝完成后关闭上游响应。上游内容须为合法JSON。
+ * 异步请求超时、客户端断开等情况下不会被序列化，须由调用方在请求结束后{@link #close()}释放连接。
+ * 配置了字段投影时改为边解析边写出投影后的字段，同样不构建完整的对象树。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class RawJsonBody extends JsonSerializable.Base implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Response response;
+    private final JsonProjection projection;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    /**
+     * @param response 上游响应
+     * @param projection 字段投影，为null时原样拷贝
+     */
+    public RawJsonBody(Response response, JsonProjection projection) {
+        this.response = response;
+        this.projection = projection;
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        try {
+            ResponseBody body = response.body();
+            if (body == null) {
+                gen.writeNull();
+                return;
+            }
+            if (projection != null) {
+                try (JsonParser parser = JsonProjection.createParser(body.byteStream())) {
+                    if (projection.copy(parser, gen) == 0) {
+                        gen.writeNull();
+                    }
+                }
+                return;
+            }
+            // 写一个空的原始值，让生成器输出字段分隔符并记录该字段已写入，随后绕过生成器直接拷贝字节
+            gen.writeRawValue(new char[0], 0, 0);
+            gen.flush();
+            Object target = gen.getOutputTarget();
+            if (target instanceof OutputStream) {
+                copy(body.byteStream(), (OutputStream) target);
+            } else if (target instanceof Writer) {
+                copy(body.charStream(), (Writer) target);
+            } else {
+                gen.writeRaw(body.string());
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 关闭上游响应，可重复调用
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            response.close();
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    private static void copy(Reader in, Writer out) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+}
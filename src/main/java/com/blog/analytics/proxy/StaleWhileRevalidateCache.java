@@ -0,0 +1,230 @@
+package com.blog.analytics.proxy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 过期可用（stale-while-revalidate）缓存
+ * <p>
+ * TTL内直接返回缓存值；过期但仍在容忍窗口内时返回旧值，并在后台发起一次刷新（同一个键同时只刷新一次）；
+ * 超出容忍窗口或未命中时同步加载。加载失败时只要有旧值就继续返回旧值。
+ * 每个条目记录最近的访问次数，{@link #refreshPopular}会在热门键过期前主动刷新，使其始终命中。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Slf4j
+public class StaleWhileRevalidateCache<T> {
+
+    private final ConcurrentHashMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final int maxEntries;
+    private final Executor refreshExecutor;
+
+    /**
+     * @param ttlMillis 有效期（毫秒）
+     * @param staleMillis 过期后仍可返回旧值的时长（毫秒）
+     * @param maxEntries 最大条目数，超出时淘汰最久未访问的条目
+     * @param refreshExecutor 后台刷新执行器
+     */
+    public StaleWhileRevalidateCache(long ttlMillis, long staleMillis, int maxEntries, Executor refreshExecutor) {
+        this.ttlMillis = ttlMillis;
+        this.staleMillis = staleMillis;
+        this.maxEntries = maxEntries;
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    /**
+     * 获取缓存值
+     *
+     * @param key 缓存键
+     * @param loader 回源加载器，参数为当前缓存的旧值（没有时为null），可据此向上游发起条件请求
+     * @return 缓存值
+     */
+    public CompletableFuture<T> get(String key, Function<T, CompletableFuture<T>> loader) {
+        long now = System.currentTimeMillis();
+        Entry<T> entry = entries.get(key);
+        if (entry != null) {
+            entry.touch(now);
+            long age = now - entry.loadedAt;
+            if (age < ttlMillis) {
+                return CompletableFuture.completedFuture(entry.value);
+            }
+            if (age < ttlMillis + staleMillis) {
+                refresh(key, entry);
+                return CompletableFuture.completedFuture(entry.value);
+            }
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        load(loader, entry != null ? entry.value : null).whenComplete((value, error) -> {
+            if (error == null) {
+                store(key, value, loader, now);
+                result.complete(value);
+                return;
+            }
+            // 上游失败时兜底返回最近一次成功的值
+            Entry<T> last = entries.get(key);
+            if (last != null) {
+                log.warn("回源失败，返回旧缓存: key={}, error={}", key, error.getMessage());
+                result.complete(last.value);
+            } else {
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 主动刷新即将过期的热门键
+     *
+     * @param topKeys 刷新的热门键数量
+     * @param aheadRatio 剩余有效期低于TTL的该比例时刷新
+     * @return 本次触发刷新的键数
+     */
+    public int refreshPopular(int topKeys, double aheadRatio) {
+        long now = System.currentTimeMillis();
+        // 取出上一周期的访问次数并减半，使热度随时间衰减；排序基于快照，避免并发修改影响比较
+        List<Candidate<T>> candidates = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry<T>> e : entries.entrySet()) {
+            long hits = e.getValue().hits.get();
+            e.getValue().hits.addAndGet(-((hits + 1) >> 1));
+            if (hits > 0) {
+                candidates.add(new Candidate<>(e.getKey(), e.getValue(), hits));
+            }
+        }
+        candidates.sort(Comparator.comparingLong((Candidate<T> c) -> c.rank).reversed());
+        int refreshed = 0;
+        for (int i = 0; i < candidates.size() && i < topKeys; i++) {
+            Candidate<T> candidate = candidates.get(i);
+            long remaining = ttlMillis - (now - candidate.entry.loadedAt);
+            if (remaining <= ttlMillis * aheadRatio && refresh(candidate.key, candidate.entry)) {
+                refreshed++;
+            }
+        }
+        return refreshed;
+    }
+
+    /**
+     * 当前条目数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean refresh(String key, Entry<T> entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return false;
+        }
+        long startedAt = System.currentTimeMillis();
+        try {
+            refreshExecutor.execute(() -> {
+                load(entry.loader, entry.value).whenComplete((value, error) -> {
+                    if (error == null) {
+                        store(key, value, entry.loader, startedAt);
+                    } else {
+                        log.warn("后台刷新失败，继续使用旧缓存: key={}, error={}", key, error.getMessage());
+                    }
+                    entry.refreshing.set(false);
+                });
+            });
+        } catch (RuntimeException e) {
+            // 刷新队列已满时放弃本次刷新，下次访问再尝试
+            entry.refreshing.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    private static <T> CompletableFuture<T> load(Function<T, CompletableFuture<T>> loader, T previous) {
+        try {
+            return loader.apply(previous);
+        } catch (RuntimeException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    private void store(String key, T value, Function<T, CompletableFuture<T>> loader, long loadedAt) {
+        entries.compute(key, (k, existing) -> {
+            if (existing == null) {
+                return new Entry<>(value, loader, loadedAt);
+            }
+            // 并发加载时保留较新的结果
+            if (loadedAt >= existing.loadedAt) {
+                existing.value = value;
+                existing.loader = loader;
+                existing.loadedAt = loadedAt;
+            }
+            return existing;
+        });
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    /**
+     * 淘汰最久未访问的条目，直到容量回落到上限的90%
+     */
+    private synchronized void evict() {
+        int excess = entries.size() - maxEntries * 9 / 10;
+        if (excess <= 0) {
+            return;
+        }
+        List<Candidate<T>> candidates = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry<T>> e : entries.entrySet()) {
+            candidates.add(new Candidate<>(e.getKey(), e.getValue(), e.getValue().lastAccess));
+        }
+        candidates.sort(Comparator.comparingLong(c -> c.rank));
+        for (int i = 0; i < excess && i < candidates.size(); i++) {
+            entries.remove(candidates.get(i).key, candidates.get(i).entry);
+        }
+    }
+
+    private static class Candidate<T> {
+
+        private final String key;
+        private final Entry<T> entry;
+        private final long rank;
+
+        private Candidate(String key, Entry<T> entry, long rank) {
+            this.key = key;
+            this.entry = entry;
+            this.rank = rank;
+        }
+    }
+
+    private static class Entry<T> {
+
+        private volatile T value;
+        private volatile Function<T, CompletableFuture<T>> loader;
+        private volatile long loadedAt;
+        private volatile long lastAccess;
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(T value, Function<T, CompletableFuture<T>> loader, long loadedAt) {
+            this.value = value;
+            this.loader = loader;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+
+        private void touch(long now) {
+            lastAccess = now;
+            hits.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.blog.analytics.proxy;
+
+/**
+ * 上游接口调用失败异常
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class UpstreamException extends RuntimeException {
+
+    public UpstreamException(String message) {
+        super(message);
+    }
+
+    public UpstreamException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
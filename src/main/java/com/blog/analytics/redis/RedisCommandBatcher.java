@@ -0,0 +1,207 @@
+package com.blog.analytics.redis;
+
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Redis命令自动批量发送器
+ * <p>
+ * 所有请求共用一条多路复用的Lettuce连接，并关闭该连接的自动刷新（autoFlushCommands）：命令先进入队列，
+ * 由单个刷新线程取出后写入连接缓冲区，一次flush发送；并发请求提交的命令因此自动合并为一批，
+ * 不再每条命令一次系统调用，也不需要连接池。集群模式下连接按槽位把命令分发到各节点，flush时一并发送。
+ * 在途命令数（已提交、尚未收到响应）有上限，超出时直接失败而不是排队等待；每条命令有独立的超时。
+ * 作为{@link MeterBinder}注册为Bean后自动发布队列深度、在途命令数和每次flush的命令数。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Slf4j
+public class RedisCommandBatcher implements AutoCloseable, MeterBinder {
+
+    private final StatefulConnection<String, byte[]> connection;
+    private final RedisClusterAsyncCommands<String, byte[]> commands;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final long timeoutMillis;
+    private final int maxBatchSize;
+
+    private final ConcurrentLinkedQueue<Pending<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ExecutorService flusher;
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * 每次flush的命令数，绑定指标前为null
+     */
+    private volatile DistributionSummary batchSizes;
+
+    /**
+     * @param connection 专用连接（单机或集群），由发送器接管并在关闭时关闭
+     * @param commands 该连接的异步命令接口
+     * @param maxInFlight 在途命令上限
+     * @param timeoutMillis 单条命令超时（毫秒）
+     * @param maxBatchSize 单次flush的最大命令数
+     */
+    public RedisCommandBatcher(StatefulConnection<String, byte[]> connection,
+                               RedisClusterAsyncCommands<String, byte[]> commands,
+                               int maxInFlight, long timeoutMillis, int maxBatchSize) {
+        this.connection = connection;
+        this.connection.setAutoFlushCommands(false);
+        this.commands = commands;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.timeoutMillis = timeoutMillis;
+        this.maxBatchSize = maxBatchSize;
+
+        CustomizableThreadFactory flusherFactory = new CustomizableThreadFactory("redis-batch-");
+        flusherFactory.setDaemon(true);
+        this.flusher = Executors.newSingleThreadExecutor(flusherFactory);
+        CustomizableThreadFactory timerFactory = new CustomizableThreadFactory("redis-batch-timeout-");
+        timerFactory.setDaemon(true);
+        this.timer = new ScheduledThreadPoolExecutor(1, timerFactory);
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 提交一条命令
+     *
+     * @param command 在异步命令接口上发出命令的函数，只会在刷新线程中调用
+     * @return 命令结果；在途命令过多时以{@link RejectedExecutionException}失败，超时以{@link TimeoutException}失败
+     */
+    public <T> CompletableFuture<T> submit(Function<RedisClusterAsyncCommands<String, byte[]>, RedisFuture<T>> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!inFlight.tryAcquire()) {
+            result.completeExceptionally(new RejectedExecutionException("Redis在途命令过多"));
+            return result;
+        }
+        queue.add(new Pending<>(command, result));
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // 已关闭，队列中的命令由close统一失败
+                flushScheduled.set(false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 当前在途命令数
+     */
+    public int inFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // 队列长度只在采集时计算，提交路径上没有额外开销
+        Gauge.builder("blog.analytics.redis.batch.queued", queue, ConcurrentLinkedQueue::size)
+                .description("Redis批量发送器中等待刷新的命令数")
+                .register(registry);
+        Gauge.builder("blog.analytics.redis.batch.in-flight", this, RedisCommandBatcher::inFlight)
+                .description("Redis批量发送器在途命令数（已提交、尚未收到响应）")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("blog.analytics.redis.batch.size")
+                .description("Redis批量发送器每次flush发送的命令数")
+                .register(registry);
+    }
+
+    private void flush() {
+        // 先清除标记再取队列，期间新提交的命令会触发下一次刷新，不会遗漏
+        flushScheduled.set(false);
+        int batch = 0;
+        Pending<?> pending;
+        while ((pending = queue.poll()) != null) {
+            dispatch(pending);
+            if (++batch >= maxBatchSize) {
+                flushCommands(batch);
+                batch = 0;
+            }
+        }
+        if (batch > 0) {
+            flushCommands(batch);
+        }
+    }
+
+    private void flushCommands(int batch) {
+        connection.flushCommands();
+        DistributionSummary summary = batchSizes;
+        if (summary != null) {
+            summary.record(batch);
+        }
+    }
+
+    private <T> void dispatch(Pending<T> pending) {
+        RedisFuture<T> future;
+        try {
+            future = pending.command.apply(commands);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            pending.result.completeExceptionally(e);
+            return;
+        }
+        ScheduledFuture<?> timeout = timer.schedule(() -> pending.result.completeExceptionally(
+                new TimeoutException("Redis命令超时: " + timeoutMillis + "ms")), timeoutMillis, TimeUnit.MILLISECONDS);
+        // 许可在Redis实际响应后才归还，超时的命令仍计入在途数
+        future.whenComplete((value, error) -> {
+            inFlight.release();
+            timeout.cancel(false);
+            if (error == null) {
+                pending.result.complete(value);
+            } else {
+                pending.result.completeExceptionally(error);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending<?> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new RejectedExecutionException("Redis批量发送器已关闭"));
+        }
+        timer.shutdownNow();
+        connection.close();
+        log.info("Redis批量发送器已关闭");
+    }
+
+    private static final class Pending<T> {
+
+        private final Function<RedisClusterAsyncCommands<String, byte[]>, RedisFuture<T>> command;
+        private final CompletableFuture<T> result;
+
+        private Pending(Function<RedisClusterAsyncCommands<String, byte[]>, RedisFuture<T>> command, CompletableFuture<T> result) {
+            this.command = command;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.blog.analytics.redis;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Locale;
+
+/**
+ * 统计数据的Redis键布局
+ * <p>
+ * 旧布局每类数据一个键前缀，日期在末尾（如 {@code visit:count:20261019}、{@code page:visit:/a:20261019}），
+ * 同一天的键分散在集群的不同槽位，页面计数也只能靠KEYS扫描。
+ * 新布局以 {@code {日期}} 作为哈希标签放在键的开头，同一天的访问计数、独立IP集合、页面计数和实时统计落在同一个槽位，
+ * 多键操作和流水线不会跨槽；页面计数改为一个Hash（字段为页面URL），读取时一次HGETALL，不再扫描键空间。
+ * <p>
+ * 迁移分四个阶段（blog.analytics.redis-keys.phase）：
+ * legacy只读写旧键；dual-write同时写新旧键、仍读旧键；read-tagged同时写、改读新键；tagged只读写新键。
+ * 统计键保留7天，双写运行超过一个完整自然日后即可切换读取，再过7天旧键自然过期后切换为tagged。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Component
+public class RedisKeyLayout {
+
+    /**
+     * 迁移阶段
+     */
+    public enum Phase {
+        LEGACY, DUAL_WRITE, READ_TAGGED, TAGGED
+    }
+
+    private static final String VISIT_COUNT = "visit:count";
+    private static final String UNIQUE_IP = "unique:ip";
+    private static final String PAGE_VISIT = "page:visit";
+    private static final String REALTIME = "realtime";
+    private static final String ONLINE_USERS = "online:users";
+    private static final String JOB_LOCK = "job:lock";
+    private static final String BACKFILL = "backfill";
+
+    @Value("${blog.analytics.redis-prefix:blog:analytics:}")
+    private String prefix;
+
+    @Value("${blog.analytics.redis-keys.phase:legacy}")
+    private String phaseName;
+
+    private Phase phase;
+
+    public RedisKeyLayout() {
+    }
+
+    public RedisKeyLayout(String prefix, Phase phase) {
+        this.prefix = prefix;
+        this.phase = phase;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (phase == null) {
+            phase = Phase.valueOf(phaseName.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * 是否写旧布局的键
+     */
+    public boolean writeLegacy() {
+        return phase != Phase.TAGGED;
+    }
+
+    /**
+     * 是否写新布局的键
+     */
+    public boolean writeTagged() {
+        return phase != Phase.LEGACY;
+    }
+
+    /**
+     * 是否从新布局读取
+     */
+    public boolean readTagged() {
+        return phase == Phase.READ_TAGGED || phase == Phase.TAGGED;
+    }
+
+    // ---------- 新布局（哈希标签） ----------
+
+    /**
+     * 当日访问计数（String，INCR）
+     */
+    public String visitCount(Object dateKey) {
+        return tagged(dateKey, VISIT_COUNT);
+    }
+
+    /**
+     * 当日独立IP集合（Set）
+     */
+    public String uniqueIp(Object dateKey) {
+        return tagged(dateKey, UNIQUE_IP);
+    }
+
+    /**
+     * 当日页面访问计数（Hash，字段为页面URL，HINCRBY）
+     */
+    public String pageVisits(Object dateKey) {
+        return tagged(dateKey, PAGE_VISIT);
+    }
+
+    /**
+     * 当日实时统计（Hash）
+     */
+    public String realtime(Object dateKey) {
+        return tagged(dateKey, REALTIME);
+    }
+
+    private String tagged(Object dateKey, String name) {
+        return prefix + "{" + dateKey + "}:" + name;
+    }
+
+    // ---------- 旧布局 ----------
+
+    public String legacyVisitCount(Object dateKey) {
+        return prefix + VISIT_COUNT + ":" + dateKey;
+    }
+
+    public String legacyUniqueIp(Object dateKey) {
+        return prefix + UNIQUE_IP + ":" + dateKey;
+    }
+
+    public String legacyPageVisit(String pageUrl, Object dateKey) {
+        return prefix + PAGE_VISIT + ":" + pageUrl + ":" + dateKey;
+    }
+
+    /**
+     * 匹配某天所有旧布局页面计数键的模式
+     */
+    public String legacyPageVisitPattern(Object dateKey) {
+        return prefix + PAGE_VISIT + ":*:" + dateKey;
+    }
+
+    /**
+     * 从旧布局页面计数键中取出页面URL（URL本身可能包含冒号）
+     */
+    public String legacyPageUrlOf(String key, Object dateKey) {
+        String head = prefix + PAGE_VISIT + ":";
+        String tail = ":" + dateKey;
+        if (!key.startsWith(head) || !key.endsWith(tail) || key.length() < head.length() + tail.length()) {
+            return null;
+        }
+        return key.substring(head.length(), key.length() - tail.length());
+    }
+
+    public String legacyVisitCountPattern() {
+        return prefix + VISIT_COUNT + ":*";
+    }
+
+    public String legacyRealtime(Object dateKey) {
+        return prefix + REALTIME + ":" + dateKey;
+    }
+
+    // ---------- 不按日期划分的键（两种布局相同） ----------
+
+    /**
+     * 在线用户标记，每个IP一个键，按TTL过期
+     */
+    public String onlineUser(String ip) {
+        return prefix + ONLINE_USERS + ":" + ip;
+    }
+
+    public String onlineUserPattern() {
+        return prefix + ONLINE_USERS + ":*";
+    }
+
+    /**
+     * 统计重建任务的检查点（Set，成员为已完成的日期键）
+     */
+    public String backfillCheckpoint(String jobId) {
+        return prefix + BACKFILL + ":" + jobId + ":done";
+    }
+
+    // ---------- 定时任务租约（以任务名为哈希标签，同一任务的锁、栅栏计数和完成标记位于同一槽位） ----------
+
+    /**
+     * 任务某次运行（或某个分片）的租约锁
+     */
+    public String jobLock(String job, String resource) {
+        return prefix + JOB_LOCK + ":{" + job + "}:" + resource;
+    }
+
+    /**
+     * 任务的栅栏令牌计数器，每次获取租约递增
+     */
+    public String jobFence(String job) {
+        return prefix + JOB_LOCK + ":{" + job + "}:fence";
+    }
+
+    /**
+     * 任务某次运行（或某个分片）的完成标记
+     */
+    public String jobDone(String job, String resource) {
+        return prefix + JOB_LOCK + ":{" + job + "}:" + resource + ":done";
+    }
+}
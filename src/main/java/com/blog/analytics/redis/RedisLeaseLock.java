@@ -0,0 +1,240 @@
+package com.blog.analytics.redis;
+
+import com.blog.analytics.config.RedisConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis的租约锁
+ * <p>
+ * 获取租约时以SET NX PX写入本次持有者标识，并在同一脚本中递增任务的栅栏令牌（fencing token）：
+ * 令牌单调递增，后获得租约的持有者令牌一定更大，用于日志和完成标记中区分各次持有。
+ * 下游存储不校验令牌，有副作用的步骤执行前需调用{@link Lease#checkHeld()}；完成标记只在锁仍由本次持有者持有时写入。
+ * checkHeld只缩小而不能消除旧持有者的写入窗口（检查之后仍可能停顿），被保护的写入应能安全重复执行。
+ * 持有期间每隔租期的1/3续约一次，续约和释放都先比对持有者标识，不会误续、误删他人的租约。
+ * 本地按“发出获取/续约命令前的时间 + 租期”计算截止时间，超过截止时间即视为已失去租约，
+ * 与Redis之间的网络延迟只会让本地更早放弃，不会更晚。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Component
+@Slf4j
+public class RedisLeaseLock {
+
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('set', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then " +
+            "return redis.call('incr', KEYS[2]) end " +
+            "return 0", Long.class);
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('pexpire', KEYS[1], ARGV[2]) end " +
+            "return 0", Long.class);
+
+    private static final RedisScript<Long> MARK_DONE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "redis.call('set', KEYS[2], ARGV[2], 'PX', ARGV[3]) return 1 end " +
+            "return 0", Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then " +
+            "return redis.call('del', KEYS[1]) end " +
+            "return 0", Long.class);
+
+    private final RedisTemplate<String, Long> counterRedisTemplate;
+    private final RedisKeyLayout redisKeyLayout;
+    private final String instanceId;
+    private final ScheduledThreadPoolExecutor renewer;
+
+    public RedisLeaseLock(RedisTemplate<String, Long> counterRedisTemplate, RedisKeyLayout redisKeyLayout) {
+        this.counterRedisTemplate = counterRedisTemplate;
+        this.redisKeyLayout = redisKeyLayout;
+        // 进程名形如 pid@hostname
+        this.instanceId = ManagementFactory.getRuntimeMXBean().getName();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("lease-renew-");
+        threadFactory.setDaemon(true);
+        this.renewer = new ScheduledThreadPoolExecutor(1, threadFactory);
+        this.renewer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * 当前实例标识
+     */
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * 尝试获取租约，获取成功后自动续约直到释放
+     *
+     * @param job 任务名
+     * @param resource 任务内的资源（运行批次、分片）
+     * @param ttlMillis 租期（毫秒）
+     * @return 租约；已被其他实例持有时返回null
+     */
+    public Lease tryAcquire(String job, String resource, long ttlMillis) {
+        String owner = instanceId + ":" + UUID.randomUUID();
+        long start = System.nanoTime();
+        Long token = execute(ACQUIRE_SCRIPT,
+            Arrays.asList(redisKeyLayout.jobLock(job, resource), redisKeyLayout.jobFence(job)),
+            owner, String.valueOf(ttlMillis));
+        if (token == null || token == 0) {
+            return null;
+        }
+        Lease lease = new Lease(job, resource, owner, token, ttlMillis, start + TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+        long period = Math.max(ttlMillis / 3, 1);
+        lease.renewal = renewer.scheduleWithFixedDelay(() -> renew(lease), period, period, TimeUnit.MILLISECONDS);
+        log.debug("获取租约成功 - 任务: {}, 资源: {}, 令牌: {}", job, resource, token);
+        return lease;
+    }
+
+    /**
+     * 释放租约（只删除自己持有的锁）
+     */
+    public void release(Lease lease) {
+        lease.released = true;
+        if (lease.renewal != null) {
+            lease.renewal.cancel(false);
+        }
+        try {
+            execute(RELEASE_SCRIPT, Collections.singletonList(redisKeyLayout.jobLock(lease.job, lease.resource)), lease.owner);
+        } catch (Exception e) {
+            // 释放失败时锁在租期后自然过期
+            log.warn("释放租约失败 - 任务: {}, 资源: {}", lease.job, lease.resource, e);
+        }
+    }
+
+    /**
+     * 资源是否已由某个实例完成
+     */
+    public boolean isDone(String job, String resource) {
+        return Boolean.TRUE.equals(counterRedisTemplate.hasKey(redisKeyLayout.jobDone(job, resource)));
+    }
+
+    /**
+     * 标记资源已完成，标记值为完成时持有的栅栏令牌；与锁的持有者比对在同一脚本中执行
+     *
+     * @return 是否写入了标记，锁已被其他持有者取得或已过期时返回false
+     */
+    public boolean markDone(Lease lease, long ttlMillis) {
+        Long marked = execute(MARK_DONE_SCRIPT,
+            Arrays.asList(redisKeyLayout.jobLock(lease.job, lease.resource), redisKeyLayout.jobDone(lease.job, lease.resource)),
+            lease.owner, String.valueOf(lease.token), String.valueOf(ttlMillis));
+        return marked != null && marked == 1;
+    }
+
+    private void renew(Lease lease) {
+        if (lease.released || lease.lost) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Long renewed = execute(RENEW_SCRIPT, Collections.singletonList(redisKeyLayout.jobLock(lease.job, lease.resource)),
+                lease.owner, String.valueOf(lease.ttlMillis));
+            if (renewed != null && renewed == 1) {
+                lease.deadlineNanos = start + TimeUnit.MILLISECONDS.toNanos(lease.ttlMillis);
+            } else {
+                lease.lost = true;
+                lease.renewal.cancel(false);
+                log.warn("租约已被其他实例取得 - 任务: {}, 资源: {}, 令牌: {}", lease.job, lease.resource, lease.token);
+            }
+        } catch (Exception e) {
+            // 续约失败不延长截止时间，连续失败到截止时间后租约自然失效
+            log.warn("续约失败 - 任务: {}, 资源: {}", lease.job, lease.resource, e);
+        }
+    }
+
+    private Long execute(RedisScript<Long> script, List<String> keys, Object... args) {
+        return counterRedisTemplate.execute(script, RedisSerializer.string(),
+            RedisConfig.LongRedisSerializer.INSTANCE, keys, args);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewer.shutdownNow();
+    }
+
+    /**
+     * 租约
+     */
+    public static final class Lease {
+
+        private final String job;
+        private final String resource;
+        private final String owner;
+        private final long token;
+        private final long ttlMillis;
+        private volatile long deadlineNanos;
+        private volatile boolean lost;
+        private volatile boolean released;
+        private volatile ScheduledFuture<?> renewal;
+
+        private Lease(String job, String resource, String owner, long token, long ttlMillis, long deadlineNanos) {
+            this.job = job;
+            this.resource = resource;
+            this.owner = owner;
+            this.token = token;
+            this.ttlMillis = ttlMillis;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * 不经过Redis的本地租约（未开启分布式调度时使用），令牌为0且永不过期
+         */
+        public static Lease local(String job, String resource) {
+            return new Lease(job, resource, null, 0, 0, Long.MAX_VALUE);
+        }
+
+        public String getJob() {
+            return job;
+        }
+
+        public String getResource() {
+            return resource;
+        }
+
+        /**
+         * 栅栏令牌，同一任务内单调递增
+         */
+        public long getToken() {
+            return token;
+        }
+
+        /**
+         * 是否仍持有租约
+         */
+        public boolean isHeld() {
+            if (lost || released) {
+                return false;
+            }
+            return deadlineNanos == Long.MAX_VALUE || System.nanoTime() - deadlineNanos < 0;
+        }
+
+        /**
+         * 确认仍持有租约，在执行有副作用的步骤前调用
+         *
+         * @throws IllegalStateException 租约已失效
+         */
+        public void checkHeld() {
+            if (!isHeld()) {
+                throw new IllegalStateException("租约已失效: " + job + "/" + resource + ", 令牌: " + token);
+            }
+        }
+    }
+}
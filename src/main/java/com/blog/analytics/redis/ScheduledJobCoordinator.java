@@ -0,0 +1,141 @@
+package com.blog.analytics.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 多实例定时任务协调器
+ * <p>
+ * 多个实例的@Scheduled任务同时触发时，每次运行（以运行批次标识区分，如日期键、小时键）只由一个实例执行：
+ * 先查完成标记，再用{@link RedisLeaseLock}取得该批次的租约，执行完成后写入完成标记，
+ * 其他实例或时钟稍慢、稍后才触发的实例看到完成标记直接跳过。
+ * 可分片的任务把一次运行拆成若干分片，每个分片独立加锁、独立标记完成，各实例从不同的分片开始依次认领，
+ * 工作量自然分摊到所有实例。执行中的实例宕机时，该分片的租约到期释放，由下一次运行兜底。
+ * 关闭分布式调度（单实例部署）时直接在本地执行全部分片。
+ * 某个分片失败时不影响其余分片，全部分片处理完后抛出异常，由调用方按失败处理；失败的分片不写完成标记，可被重新执行。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Component
+@Slf4j
+public class ScheduledJobCoordinator {
+
+    private final RedisLeaseLock redisLeaseLock;
+
+    @Value("${blog.analytics.scheduler.distributed:true}")
+    private boolean distributed;
+
+    @Value("${blog.analytics.scheduler.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${blog.analytics.scheduler.done-ttl-hours:48}")
+    private long doneTtlHours;
+
+    @Autowired
+    public ScheduledJobCoordinator(RedisLeaseLock redisLeaseLock) {
+        this.redisLeaseLock = redisLeaseLock;
+    }
+
+    public ScheduledJobCoordinator(RedisLeaseLock redisLeaseLock, boolean distributed, long leaseMillis, long doneTtlHours) {
+        this.redisLeaseLock = redisLeaseLock;
+        this.distributed = distributed;
+        this.leaseMillis = leaseMillis;
+        this.doneTtlHours = doneTtlHours;
+    }
+
+    /**
+     * 在所有实例中只执行一次
+     *
+     * @param job 任务名
+     * @param runId 运行批次标识
+     * @param task 任务，参数为本次持有的租约
+     * @return 本实例是否执行了任务
+     * @throws IllegalStateException 任务执行失败或执行期间失去租约
+     */
+    public boolean runExclusive(String job, String runId, Consumer<RedisLeaseLock.Lease> task) {
+        return runPartitioned(job, runId, 1, (partition, lease) -> task.accept(lease)) > 0;
+    }
+
+    /**
+     * 把一次运行拆成多个分片，由所有实例分摊执行
+     *
+     * @param job 任务名
+     * @param runId 运行批次标识
+     * @param partitions 分片数
+     * @param task 分片任务，参数为分片序号（从0开始）和该分片的租约
+     * @return 本实例执行完成的分片数
+     * @throws IllegalStateException 有分片执行失败或执行期间失去租约，其余分片仍会执行；首个失败原因为cause
+     */
+    public int runPartitioned(String job, String runId, int partitions,
+                              BiConsumer<Integer, RedisLeaseLock.Lease> task) {
+        // 各实例从不同的分片开始认领，减少争抢同一分片
+        int offset = distributed ? Math.floorMod(redisLeaseLock.getInstanceId().hashCode(), partitions) : 0;
+        int completed = 0;
+        IllegalStateException failure = null;
+        for (int i = 0; i < partitions; i++) {
+            int partition = (offset + i) % partitions;
+            String resource = resourceOf(runId, partition, partitions);
+            try {
+                if (!distributed) {
+                    task.accept(partition, RedisLeaseLock.Lease.local(job, resource));
+                    completed++;
+                } else if (runPartition(job, resource, partition, task)) {
+                    completed++;
+                }
+            } catch (Exception e) {
+                log.error("定时任务分片执行失败 - 任务: {}, 分片: {}", job, resource, e);
+                if (failure == null) {
+                    failure = new IllegalStateException("定时任务分片执行失败 - 任务: " + job + ", 批次: " + runId, e);
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (completed > 0) {
+            log.info("定时任务在本实例执行完成 - 任务: {}, 批次: {}, 分片: {}/{}", job, runId, completed, partitions);
+        } else {
+            log.info("定时任务已由其他实例执行 - 任务: {}, 批次: {}", job, runId);
+        }
+        return completed;
+    }
+
+    private boolean runPartition(String job, String resource, int partition,
+                                 BiConsumer<Integer, RedisLeaseLock.Lease> task) {
+        if (redisLeaseLock.isDone(job, resource)) {
+            return false;
+        }
+        RedisLeaseLock.Lease lease = redisLeaseLock.tryAcquire(job, resource, leaseMillis);
+        if (lease == null) {
+            return false;
+        }
+        try {
+            // 获取租约前可能刚有其他实例完成并释放
+            if (redisLeaseLock.isDone(job, resource)) {
+                return false;
+            }
+            task.accept(partition, lease);
+            lease.checkHeld();
+            if (!redisLeaseLock.markDone(lease, TimeUnit.HOURS.toMillis(doneTtlHours))) {
+                throw new IllegalStateException("租约已被其他实例取得，未写入完成标记: " + job + "/" + resource
+                    + ", 令牌: " + lease.getToken());
+            }
+            return true;
+        } finally {
+            redisLeaseLock.release(lease);
+        }
+    }
+
+    private static String resourceOf(String runId, int partition, int partitions) {
+        return partitions == 1 ? runId : runId + ":" + partition;
+    }
+}
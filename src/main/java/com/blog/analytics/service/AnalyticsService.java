@@ -4,6 +4,7 @@ import com.blog.analytics.dto.*;
 import com.blog.analytics.dto.VisitRecordDTO;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -46,6 +47,14 @@ public interface AnalyticsService {
      */
     List<PageStatsDTO> getHotPages(int days, int limit);
 
+    /**
+     * 获取趋势页面（当前流量突增的页面）
+     *
+     * @param limit 返回数量
+     * @return 趋势页面列表
+     */
+    List<TrendingPageDTO> getTrendingPages(int limit);
+
     /**
      * 获取实时统计
      *
@@ -113,4 +122,13 @@ public interface AnalyticsService {
      * 清理过期数据
      */
     void cleanExpiredData();
+
+    /**
+     * 清理某个时间段内的访问记录
+     *
+     * @param startTime 开始时间（含），为null时不限
+     * @param endTime 结束时间（不含）
+     * @return 删除记录数
+     */
+    int cleanExpiredData(LocalDateTime startTime, LocalDateTime endTime);
 }
\ No newline at end of file
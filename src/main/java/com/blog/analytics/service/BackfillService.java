@@ -0,0 +1,49 @@
+package com.blog.analytics.service;
+
+import com.blog.analytics.dto.BackfillProgressDTO;
+
+import java.time.LocalDate;
+
+/**
+ * 历史统计重建服务接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public interface BackfillService {
+
+    /**
+     * 提交重建任务（异步执行），按原始访问记录重建日期范围内的每日、页面、小时统计
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期（须早于今天）
+     * @param force 是否忽略检查点，重建所有日期
+     * @return 任务进度
+     * @throws IllegalStateException 已有重建任务在执行
+     */
+    BackfillProgressDTO start(LocalDate startDate, LocalDate endDate, boolean force);
+
+    /**
+     * 获取当前（或最近一次）重建任务的进度
+     *
+     * @return 任务进度，从未执行过时为null
+     */
+    BackfillProgressDTO getProgress();
+
+    /**
+     * 重建某一天的统计
+     *
+     * @param dateKey 日期键
+     * @return 处理的原始记录数
+     */
+    long rebuildDay(Integer dateKey);
+
+    /**
+     * 重建某一天的统计，在事务内写入前和提交前调用守卫
+     *
+     * @param dateKey 日期键
+     * @param guard 守卫，如确认仍持有租约；抛出异常时事务回滚，不写入任何统计
+     * @return 处理的原始记录数
+     */
+    long rebuildDay(Integer dateKey, Runnable guard);
+}
@@ -0,0 +1,34 @@
+package com.blog.analytics.service;
+
+import com.blog.analytics.dto.PageDurationStatsDTO;
+
+/**
+ * 页面停留时长服务接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public interface PageDurationService {
+
+    /**
+     * 记录一次页面停留时长
+     *
+     * @param pageUrl 页面URL
+     * @param durationMs 停留时长（毫秒）
+     */
+    void recordDuration(String pageUrl, long durationMs);
+
+    /**
+     * 将内存中的停留时长汇总写入统计表
+     */
+    void flushDurationStats();
+
+    /**
+     * 获取页面停留时长统计（只读取汇总表）
+     *
+     * @param pageUrl 页面URL
+     * @param days 统计天数
+     * @return 停留时长统计
+     */
+    PageDurationStatsDTO getDurationStats(String pageUrl, int days);
+}
@@ -0,0 +1,30 @@
+package com.blog.analytics.service;
+
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.proxy.ProxyRoute;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 第三方API代理服务接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public interface ProxyService {
+
+    /**
+     * 异步代理请求上游接口
+     *
+     * @param route 代理路由
+     * @param params 查询参数
+     * @return 上游响应数据，失败时为失败响应（不会异常完成）
+     */
+    CompletableFuture<HoppinResponse<Object>> fetch(ProxyRoute route, Map<String, String> params);
+
+    /**
+     * 主动刷新各路由即将过期的热门缓存
+     */
+    void refreshPopularEntries();
+}
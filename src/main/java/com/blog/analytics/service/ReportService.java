@@ -0,0 +1,80 @@
+package com.blog.analytics.service;
+
+import com.blog.analytics.dto.PreSerializedJson;
+import com.blog.analytics.dto.ReportSnapshotDTO;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * 报表快照服务接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public interface ReportService {
+
+    /**
+     * 报表类型
+     */
+    enum ReportType {
+        /**
+         * 日报
+         */
+        DAILY,
+        /**
+         * 周报，周一至周日
+         */
+        WEEKLY,
+        /**
+         * 月报，自然月
+         */
+        MONTHLY;
+
+        /**
+         * 获取日期所在周期的开始日期
+         */
+        public LocalDate periodStart(LocalDate date) {
+            switch (this) {
+                case WEEKLY:
+                    return date.with(DayOfWeek.MONDAY);
+                case MONTHLY:
+                    return date.withDayOfMonth(1);
+                default:
+                    return date;
+            }
+        }
+
+        /**
+         * 获取日期所在周期的结束日期
+         */
+        public LocalDate periodEnd(LocalDate date) {
+            switch (this) {
+                case WEEKLY:
+                    return periodStart(date).plusDays(6);
+                case MONTHLY:
+                    return date.withDayOfMonth(date.lengthOfMonth());
+                default:
+                    return date;
+            }
+        }
+    }
+
+    /**
+     * 根据汇总表生成日期所在周期的报表快照并保存，已存在时覆盖
+     *
+     * @param type 报表类型
+     * @param date 周期内的任一日期
+     * @return 报表内容
+     */
+    ReportSnapshotDTO generate(ReportType type, LocalDate date);
+
+    /**
+     * 获取日期所在周期的报表快照
+     *
+     * @param type 报表类型
+     * @param date 周期内的任一日期
+     * @return 已序列化的报表内容，未生成时返回null
+     */
+    PreSerializedJson getSnapshot(ReportType type, LocalDate date);
+}
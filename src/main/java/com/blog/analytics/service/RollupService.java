@@ -0,0 +1,96 @@
+package com.blog.analytics.service;
+
+import com.blog.analytics.dto.SeriesStatsDTO;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * 多粒度汇总服务接口
+ * <p>
+ * 在小时、每日汇总之上维护周、月两级汇总，长范围查询按粒度分组时优先读取最粗的完整周期。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public interface RollupService {
+
+    /**
+     * 统计粒度，从细到粗排列
+     */
+    enum Granularity {
+        /**
+         * 小时，读取hourly_stats
+         */
+        HOUR,
+        /**
+         * 天，读取daily_stats/page_stats
+         */
+        DAY,
+        /**
+         * 周，周一至周日
+         */
+        WEEK,
+        /**
+         * 月，自然月
+         */
+        MONTH;
+
+        /**
+         * 获取日期所在周期的开始日期（小时和天均为当天）
+         */
+        public LocalDate periodStart(LocalDate date) {
+            switch (this) {
+                case WEEK:
+                    return date.with(DayOfWeek.MONDAY);
+                case MONTH:
+                    return date.withDayOfMonth(1);
+                default:
+                    return date;
+            }
+        }
+
+        /**
+         * 获取日期所在周期的结束日期（含）
+         */
+        public LocalDate periodEnd(LocalDate date) {
+            switch (this) {
+                case WEEK:
+                    return periodStart(date).plusDays(6);
+                case MONTH:
+                    return date.withDayOfMonth(date.lengthOfMonth());
+                default:
+                    return date;
+            }
+        }
+    }
+
+    /**
+     * 按粒度查询日期范围的统计
+     * <p>
+     * 每个周期内的日期依次用已结束的完整月、完整周的汇总覆盖，剩余的首尾零散日期读取每日统计拼接。
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @param granularity 粒度
+     * @param pageUrl 页面URL，为null时查询全站
+     * @return 时间序列统计
+     */
+    SeriesStatsDTO getSeries(LocalDate startDate, LocalDate endDate, Granularity granularity, String pageUrl);
+
+    /**
+     * 重新汇总日期所在的周和月（每日统计写入或重建后调用）
+     *
+     * @param date 日期
+     */
+    void refresh(LocalDate date);
+
+    /**
+     * 重新汇总与日期范围有交集的所有周和月
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 汇总的周期数
+     */
+    int refreshRange(LocalDate startDate, LocalDate endDate);
+}
@@ -0,0 +1,29 @@
+package com.blog.analytics.service;
+
+import com.blog.analytics.dto.VisitRecordDTO;
+
+/**
+ * 会话统计服务接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public interface SessionService {
+
+    /**
+     * 将一次访问计入访客会话
+     *
+     * @param dto 访问记录DTO（需已填充IP和访问时间）
+     */
+    void onVisit(VisitRecordDTO dto);
+
+    /**
+     * 关闭已超时的会话
+     */
+    void expireSessions();
+
+    /**
+     * 将已关闭会话的汇总结果写入统计表
+     */
+    void flushSessionStats();
+}
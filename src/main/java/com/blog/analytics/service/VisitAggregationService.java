@@ -0,0 +1,31 @@
+package com.blog.analytics.service;
+
+import com.blog.analytics.dto.VisitRecordDTO;
+import com.blog.analytics.utils.UserAgentUtil;
+
+/**
+ * 访问计数本地预聚合服务接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public interface VisitAggregationService {
+
+    /**
+     * 在本地累加一次访问（不访问Redis和数据库）
+     *
+     * @param dto 访问记录（已设置日期键和小时键）
+     * @param userAgentInfo 解析后的UserAgent信息，可为null
+     */
+    void record(VisitRecordDTO dto, UserAgentUtil.UserAgentInfo userAgentInfo);
+
+    /**
+     * 将访问计数、页面计数、独立IP和在线用户的增量写入Redis
+     */
+    void flushToRedis();
+
+    /**
+     * 将小时、来源、UserAgent计数的增量累加写入统计表
+     */
+    void flushToDatabase();
+}
@@ -0,0 +1,57 @@
+package com.blog.analytics.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * 访问记录导出服务接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public interface VisitExportService {
+
+    /**
+     * 导出格式
+     */
+    enum Format {
+        /**
+         * 逗号分隔，首行为列名
+         */
+        CSV("text/csv", "csv"),
+        /**
+         * 每行一个JSON对象
+         */
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    /**
+     * 流式导出访问记录
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @param pageUrl 页面URL，为null时导出所有页面
+     * @param format 导出格式
+     * @param out 输出流（调用方负责关闭）
+     * @return 导出的记录数
+     * @throws IOException 写出失败（如客户端断开）
+     */
+    long export(LocalDate startDate, LocalDate endDate, String pageUrl, Format format, OutputStream out) throws IOException;
+}
@@ -1,26 +1,44 @@
 package com.blog.analytics.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.blog.analytics.config.RedisConfig;
 import com.blog.analytics.dto.*;
+import com.blog.analytics.entity.DailyStats;
+import com.blog.analytics.entity.PageStats;
 import com.blog.analytics.entity.VisitRecord;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
 import com.blog.analytics.mapper.VisitRecordMapper;
+import com.blog.analytics.redis.RedisCommandBatcher;
+import com.blog.analytics.redis.RedisKeyLayout;
 import com.blog.analytics.service.AnalyticsService;
+import com.blog.analytics.service.SessionService;
+import com.blog.analytics.service.VisitAggregationService;
 import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.DecayingTopK;
 import com.blog.analytics.utils.IPUtil;
+import com.blog.analytics.utils.UniqueEstimator;
 import com.blog.analytics.utils.UserAgentUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -36,21 +54,83 @@ import java.util.stream.Collectors;
 public class AnalyticsServiceImpl implements AnalyticsService {
 
     private final VisitRecordMapper visitRecordMapper;
+    private final DailyStatsMapper dailyStatsMapper;
+    private final PageStatsMapper pageStatsMapper;
+    private final SessionService sessionService;
     private final RedisTemplate<String, Object> redisTemplate;
-
-    @Value("${blog.analytics.redis-prefix:blog:analytics:}")
-    private String redisPrefix;
+    private final RedisTemplate<String, Long> counterRedisTemplate;
+    private final ObjectProvider<RedisCommandBatcher> redisCommandBatcherProvider;
+    private final RedisKeyLayout redisKeyLayout;
+    private final VisitAggregationService visitAggregationService;
+    private final MeterRegistry meterRegistry;
 
     @Value("${blog.analytics.realtime-expire-hours:2}")
     private int realtimeExpireHours;
 
+    @Value("${blog.analytics.aggregation.enabled:true}")
+    private boolean aggregationEnabled;
+
+    @Value("${blog.analytics.trending.capacity:500}")
+    private int trendingCapacity;
+
+    @Value("${blog.analytics.trending.half-life-minutes:10}")
+    private int trendingHalfLifeMinutes;
+
+    @Value("${blog.analytics.trending.baseline-half-life-minutes:360}")
+    private int trendingBaselineHalfLifeMinutes;
+
+    /**
+     * 趋势页面统计（内存中的衰减Top-K，读路径不访问数据库）
+     */
+    private DecayingTopK trendingPages;
+
+    /**
+     * 共享连接的Redis命令批量发送器，未启用时为null，走同步模板
+     */
+    private RedisCommandBatcher redisCommandBatcher;
+
     /**
-     * Redis键前缀常量
+     * 访问写入各阶段的耗时与丢弃计数，启动时注册，写入路径上不再查找或创建指标
      */
-    private static final String VISIT_COUNT = "visit:count:";
-    private static final String UNIQUE_IP = "unique:ip:";
-    private static final String PAGE_VISIT = "page:visit:";
-    private static final String ONLINE_USERS = "online:users";
+    private Timer userAgentParseTimer;
+    private Timer redisWriteTimer;
+    private Timer mysqlWriteTimer;
+    private Counter redisDropped;
+    private Counter redisCommandFailed;
+    private Counter mysqlDropped;
+
+    @PostConstruct
+    public void initTrending() {
+        trendingPages = new DecayingTopK(trendingCapacity,
+            TimeUnit.MINUTES.toMillis(trendingHalfLifeMinutes),
+            TimeUnit.MINUTES.toMillis(trendingBaselineHalfLifeMinutes));
+        redisCommandBatcher = redisCommandBatcherProvider.getIfAvailable();
+
+        userAgentParseTimer = Timer.builder("blog.analytics.ingest.phase")
+            .tag("phase", "ua-parse")
+            .description("访问写入中解析UserAgent的耗时")
+            .register(meterRegistry);
+        redisWriteTimer = Timer.builder("blog.analytics.ingest.phase")
+            .tag("phase", "redis")
+            .description("访问写入中Redis阶段的耗时（预聚合或批量发送时为入队耗时）")
+            .register(meterRegistry);
+        mysqlWriteTimer = Timer.builder("blog.analytics.ingest.phase")
+            .tag("phase", "mysql")
+            .description("访问写入中插入访问记录的耗时")
+            .register(meterRegistry);
+        redisDropped = Counter.builder("blog.analytics.ingest.dropped")
+            .tag("target", "redis")
+            .description("Redis写入失败而丢弃的访问数")
+            .register(meterRegistry);
+        redisCommandFailed = Counter.builder("blog.analytics.ingest.dropped")
+            .tag("target", "redis-command")
+            .description("批量发送失败（拒绝、超时或报错）的Redis命令数")
+            .register(meterRegistry);
+        mysqlDropped = Counter.builder("blog.analytics.ingest.dropped")
+            .tag("target", "mysql")
+            .description("插入失败而丢弃的访问记录数")
+            .register(meterRegistry);
+    }
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -63,52 +143,153 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         dto.setHourKey(DateUtil.getCurrentHourKey());
 
         // 解析UserAgent信息
+        UserAgentUtil.UserAgentInfo userAgentInfo = null;
+        long start = System.nanoTime();
         if (dto.getUserAgent() != null) {
-            UserAgentUtil.UserAgentInfo userAgentInfo = UserAgentUtil.parseUserAgent(dto.getUserAgent());
-            // 可以将解析结果存储到其他统计表中
+            userAgentInfo = UserAgentUtil.parseUserAgent(dto.getUserAgent());
         }
-
-        // 1. 立即写入Redis
-        writeToRedis(dto);
+        long parsed = System.nanoTime();
+        userAgentParseTimer.record(parsed - start, TimeUnit.NANOSECONDS);
+
+        // 1. 写入Redis：开启本地预聚合时只在本地累加，由定时任务批量写出增量
+        if (aggregationEnabled) {
+            visitAggregationService.record(dto, userAgentInfo);
+        } else {
+            writeToRedis(dto);
+        }
+        long written = System.nanoTime();
+        redisWriteTimer.record(written - parsed, TimeUnit.NANOSECONDS);
 
         // 2. 异步写入MySQL
         saveVisitRecordAsync(dto);
+        mysqlWriteTimer.record(System.nanoTime() - written, TimeUnit.NANOSECONDS);
+
+        // 3. 更新实时统计（预聚合时随增量一起写出）
+        if (!aggregationEnabled) {
+            updateRealtimeStats(dto);
+        }
+
+        // 4. 更新趋势统计
+        trendingPages.offer(dto.getPageUrl(), System.currentTimeMillis());
 
-        // 3. 更新实时统计
-        updateRealtimeStats(dto);
+        // 5. 会话切分（跳出率、会话时长）
+        sessionService.onVisit(dto);
     }
 
     /**
-     * 写入Redis缓存
+     * 写入Redis缓存，按键布局的迁移阶段写旧键、新键或两者
      */
     private void writeToRedis(VisitRecordDTO dto) {
+        if (redisCommandBatcher != null) {
+            writeToRedisBatched(dto);
+            return;
+        }
         try {
-            String dateKey = dto.getDateKey().toString();
+            Integer dateKey = dto.getDateKey();
+
+            if (redisKeyLayout.writeLegacy()) {
+                // 记录今日访问计数
+                String visitCountKey = redisKeyLayout.legacyVisitCount(dateKey);
+                counterRedisTemplate.opsForValue().increment(visitCountKey);
+                counterRedisTemplate.expire(visitCountKey, 7, TimeUnit.DAYS);
+
+                // 记录独立IP
+                String ipSetKey = redisKeyLayout.legacyUniqueIp(dateKey);
+                redisTemplate.opsForSet().add(ipSetKey, dto.getIpAddress());
+                redisTemplate.expire(ipSetKey, 7, TimeUnit.DAYS);
+
+                // 记录页面访问
+                String pageVisitKey = redisKeyLayout.legacyPageVisit(dto.getPageUrl(), dateKey);
+                counterRedisTemplate.opsForValue().increment(pageVisitKey);
+                counterRedisTemplate.expire(pageVisitKey, 7, TimeUnit.DAYS);
+            }
 
-            // 记录今日访问计数
-            String visitCountKey = redisPrefix + VISIT_COUNT + dateKey;
-            redisTemplate.opsForValue().increment(visitCountKey);
-            redisTemplate.expire(visitCountKey, 7, TimeUnit.DAYS);
+            if (redisKeyLayout.writeTagged()) {
+                // 同一天的键共用哈希标签，位于同一槽位
+                String visitCountKey = redisKeyLayout.visitCount(dateKey);
+                counterRedisTemplate.opsForValue().increment(visitCountKey);
+                counterRedisTemplate.expire(visitCountKey, 7, TimeUnit.DAYS);
 
-            // 记录独立IP
-            String ipSetKey = redisPrefix + UNIQUE_IP + dateKey;
-            redisTemplate.opsForSet().add(ipSetKey, dto.getIpAddress());
-            redisTemplate.expire(ipSetKey, 7, TimeUnit.DAYS);
+                String ipSetKey = redisKeyLayout.uniqueIp(dateKey);
+                redisTemplate.opsForSet().add(ipSetKey, dto.getIpAddress());
+                redisTemplate.expire(ipSetKey, 7, TimeUnit.DAYS);
 
-            // 记录页面访问
-            String pageVisitKey = redisPrefix + PAGE_VISIT + dto.getPageUrl() + ":" + dateKey;
-            redisTemplate.opsForValue().increment(pageVisitKey);
-            redisTemplate.expire(pageVisitKey, 7, TimeUnit.DAYS);
+                String pageVisitsKey = redisKeyLayout.pageVisits(dateKey);
+                counterRedisTemplate.opsForHash().increment(pageVisitsKey, dto.getPageUrl(), 1);
+                counterRedisTemplate.expire(pageVisitsKey, 7, TimeUnit.DAYS);
+            }
 
             // 记录在线用户
-            String onlineUserKey = redisPrefix + ONLINE_USERS + ":" + dto.getIpAddress();
-            redisTemplate.opsForValue().set(onlineUserKey, System.currentTimeMillis(), realtimeExpireHours, TimeUnit.HOURS);
+            String onlineUserKey = redisKeyLayout.onlineUser(dto.getIpAddress());
+            counterRedisTemplate.opsForValue().set(onlineUserKey, System.currentTimeMillis(), realtimeExpireHours, TimeUnit.HOURS);
 
         } catch (Exception e) {
+            redisDropped.increment();
             log.error("Redis写入失败", e);
         }
     }
 
+    /**
+     * 通过批量发送器写入Redis，命令不等待结果，与其他请求的命令合并发送
+     */
+    private void writeToRedisBatched(VisitRecordDTO dto) {
+        try {
+            Integer dateKey = dto.getDateKey();
+            long weekSeconds = TimeUnit.DAYS.toSeconds(7);
+            long realtimeSeconds = TimeUnit.HOURS.toSeconds(realtimeExpireHours);
+            String pageUrl = dto.getPageUrl();
+            // 独立IP集合与同步模式共用默认模板的编码
+            @SuppressWarnings("unchecked")
+            byte[] ipMember = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(dto.getIpAddress());
+            byte[] now = RedisConfig.LongRedisSerializer.INSTANCE.serialize(System.currentTimeMillis());
+
+            if (redisKeyLayout.writeLegacy()) {
+                String visitCountKey = redisKeyLayout.legacyVisitCount(dateKey);
+                String ipSetKey = redisKeyLayout.legacyUniqueIp(dateKey);
+                String pageVisitKey = redisKeyLayout.legacyPageVisit(pageUrl, dateKey);
+                String realtimeKey = redisKeyLayout.legacyRealtime(dateKey);
+                logBatchFailure(redisCommandBatcher.submit(c -> c.incr(visitCountKey)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.expire(visitCountKey, weekSeconds)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.sadd(ipSetKey, ipMember)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.expire(ipSetKey, weekSeconds)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.incr(pageVisitKey)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.expire(pageVisitKey, weekSeconds)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.hincrby(realtimeKey, "todayVisits", 1)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.expire(realtimeKey, realtimeSeconds)));
+            }
+
+            if (redisKeyLayout.writeTagged()) {
+                String visitCountKey = redisKeyLayout.visitCount(dateKey);
+                String ipSetKey = redisKeyLayout.uniqueIp(dateKey);
+                String pageVisitsKey = redisKeyLayout.pageVisits(dateKey);
+                String realtimeKey = redisKeyLayout.realtime(dateKey);
+                logBatchFailure(redisCommandBatcher.submit(c -> c.incr(visitCountKey)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.expire(visitCountKey, weekSeconds)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.sadd(ipSetKey, ipMember)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.expire(ipSetKey, weekSeconds)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.hincrby(pageVisitsKey, pageUrl, 1)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.expire(pageVisitsKey, weekSeconds)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.hincrby(realtimeKey, "todayVisits", 1)));
+                logBatchFailure(redisCommandBatcher.submit(c -> c.expire(realtimeKey, realtimeSeconds)));
+            }
+
+            String onlineUserKey = redisKeyLayout.onlineUser(dto.getIpAddress());
+            logBatchFailure(redisCommandBatcher.submit(c -> c.setex(onlineUserKey, realtimeSeconds, now)));
+        } catch (Exception e) {
+            redisDropped.increment();
+            log.error("Redis写入失败", e);
+        }
+    }
+
+    private void logBatchFailure(CompletableFuture<?> future) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                redisCommandFailed.increment();
+                log.error("Redis批量写入失败: {}", error.toString());
+            }
+        });
+    }
+
     /**
      * 异步保存访问记录到数据库
      */
@@ -120,6 +301,7 @@ public class AnalyticsServiceImpl implements AnalyticsService {
             BeanUtils.copyProperties(dto, record);
             visitRecordMapper.insert(record);
         } catch (Exception e) {
+            mysqlDropped.increment();
             log.error("保存访问记录失败", e);
         }
     }
@@ -128,11 +310,22 @@ public class AnalyticsServiceImpl implements AnalyticsService {
      * 更新实时统计
      */
     private void updateRealtimeStats(VisitRecordDTO dto) {
+        if (redisCommandBatcher != null) {
+            // 已随writeToRedisBatched一起发送
+            return;
+        }
         try {
             // 可以在这里更新实时统计相关的Redis键
-            String realtimeKey = redisPrefix + "realtime:" + dto.getDateKey();
-            redisTemplate.opsForHash().increment(realtimeKey, "todayVisits", 1);
-            redisTemplate.expire(realtimeKey, realtimeExpireHours, TimeUnit.HOURS);
+            if (redisKeyLayout.writeLegacy()) {
+                String realtimeKey = redisKeyLayout.legacyRealtime(dto.getDateKey());
+                counterRedisTemplate.opsForHash().increment(realtimeKey, "todayVisits", 1);
+                counterRedisTemplate.expire(realtimeKey, realtimeExpireHours, TimeUnit.HOURS);
+            }
+            if (redisKeyLayout.writeTagged()) {
+                String realtimeKey = redisKeyLayout.realtime(dto.getDateKey());
+                counterRedisTemplate.opsForHash().increment(realtimeKey, "todayVisits", 1);
+                counterRedisTemplate.expire(realtimeKey, realtimeExpireHours, TimeUnit.HOURS);
+            }
         } catch (Exception e) {
             log.error("更新实时统计失败", e);
         }
@@ -144,17 +337,36 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
         try {
             // 从Redis获取
-            String visitCountKey = redisPrefix + VISIT_COUNT + dateKey;
-            String ipSetKey = redisPrefix + UNIQUE_IP + dateKey;
-
-            Long totalVisits = redisTemplate.opsForValue().get(visitCountKey) != null ?
-                Long.valueOf(redisTemplate.opsForValue().get(visitCountKey).toString()) : 0L;
-            Long uniqueIps = redisTemplate.opsForSet().size(ipSetKey);
+            String visitCountKey = redisKeyLayout.readTagged() ?
+                redisKeyLayout.visitCount(dateKey) : redisKeyLayout.legacyVisitCount(dateKey);
+            String ipSetKey = redisKeyLayout.readTagged() ?
+                redisKeyLayout.uniqueIp(dateKey) : redisKeyLayout.legacyUniqueIp(dateKey);
+
+            Long totalVisits;
+            Long uniqueIps;
+            if (redisCommandBatcher != null) {
+                // 两条命令合并在同一批发送
+                CompletableFuture<byte[]> visits = redisCommandBatcher.submit(c -> c.get(visitCountKey));
+                CompletableFuture<Long> ips = redisCommandBatcher.submit(c -> c.scard(ipSetKey));
+                byte[] visitBytes = visits.get();
+                totalVisits = visitBytes != null ? RedisConfig.LongRedisSerializer.parseLong(visitBytes) : null;
+                uniqueIps = ips.get();
+            } else {
+                totalVisits = counterRedisTemplate.opsForValue().get(visitCountKey);
+                uniqueIps = redisTemplate.opsForSet().size(ipSetKey);
+            }
+            if (totalVisits == null) {
+                totalVisits = 0L;
+            }
+            DailyStats sessionStats = getDailySessionStats(Integer.valueOf(dateKey));
 
             return DailyStatsDTO.builder()
                 .date(LocalDate.now())
                 .totalVisits(totalVisits)
                 .uniqueIps(uniqueIps != null ? uniqueIps : 0L)
+                .bounceRate(sessionStats != null && sessionStats.getBounceRate() != null ?
+                    sessionStats.getBounceRate().doubleValue() : null)
+                .avgSessionDuration(sessionStats != null ? sessionStats.getAvgSessionDuration() : null)
                 .build();
 
         } catch (Exception e) {
@@ -164,6 +376,21 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         }
     }
 
+    /**
+     * 获取指定日期已汇总的会话统计（跳出率、平均会话时长）
+     */
+    private DailyStats getDailySessionStats(Integer dateKey) {
+        try {
+            return dailyStatsMapper.selectOne(new QueryWrapper<DailyStats>()
+                .select("date_key", "bounce_rate", "avg_session_duration", "session_count",
+                    "bounce_sessions", "total_session_duration")
+                .eq("date_key", dateKey));
+        } catch (Exception e) {
+            log.error("获取会话统计失败，日期: {}", dateKey, e);
+            return null;
+        }
+    }
+
     /**
      * 从数据库获取今日统计
      */
@@ -191,21 +418,47 @@ public class AnalyticsServiceImpl implements AnalyticsService {
             DateUtil.getDateKey(endDate)
         );
 
+        // ip_sketch标注了select=false，需显式查询
+        Map<Integer, DailyStats> sessionStats = dailyStatsMapper.selectList(new QueryWrapper<DailyStats>()
+                .select("date_key", "bounce_rate", "avg_session_duration", "session_count",
+                    "bounce_sessions", "total_session_duration", "ip_sketch")
+                .between("date_key", DateUtil.getDateKey(startDate), DateUtil.getDateKey(endDate)))
+            .stream()
+            .collect(Collectors.toMap(DailyStats::getDateKey, s -> s, (a, b) -> a));
+
         List<DailyStatsDTO> dailyStats = statsData.stream()
             .map(stat -> {
                 Integer dateKey = (Integer) stat.get("dateKey");
+                DailyStats session = sessionStats.get(dateKey);
                 return DailyStatsDTO.builder()
                     .date(DateUtil.dateKeyToLocalDate(dateKey))
                     .totalVisits(((Number) stat.getOrDefault("totalVisits", 0)).longValue())
                     .uniqueIps(((Number) stat.getOrDefault("uniqueIps", 0)).longValue())
+                    .bounceRate(session != null && session.getBounceRate() != null ?
+                        session.getBounceRate().doubleValue() : null)
+                    .avgSessionDuration(session != null ? session.getAvgSessionDuration() : null)
                     .build();
             })
             .collect(Collectors.toList());
 
+        // 会话指标按会话数加权汇总
+        long sessions = sessionStats.values().stream().mapToLong(s -> nvl(s.getSessionCount())).sum();
+        long bounces = sessionStats.values().stream().mapToLong(s -> nvl(s.getBounceSessions())).sum();
+        long duration = sessionStats.values().stream().mapToLong(s -> nvl(s.getTotalSessionDuration())).sum();
+
+        // 独立IP不能逐天相加：有草图的天合并草图，没有草图的天（如今天）累加当天的独立IP数
+        UniqueEstimator uniqueIps = new UniqueEstimator();
+        for (DailyStatsDTO day : dailyStats) {
+            DailyStats stored = sessionStats.get(DateUtil.getDateKey(day.getDate()));
+            uniqueIps.add(stored != null ? stored.getIpSketch() : null, day.getUniqueIps());
+        }
+
         // 计算总计
         StatsSummary summary = StatsSummary.builder()
             .visits(dailyStats.stream().mapToLong(DailyStatsDTO::getTotalVisits).sum())
-            .uniqueIps(dailyStats.stream().mapToLong(DailyStatsDTO::getUniqueIps).sum())
+            .uniqueIps(uniqueIps.estimate())
+            .avgBounceRate(sessions > 0 ? Math.round(bounces * 10000.0 / sessions) / 100.0 : null)
+            .avgSessionDuration(sessions > 0 ? (int) (duration / sessions) : null)
             .build();
 
         return RangeStatsDTO.builder()
@@ -214,6 +467,10 @@ public class AnalyticsServiceImpl implements AnalyticsService {
             .build();
     }
 
+    private static long nvl(Long value) {
+        return value != null ? value : 0L;
+    }
+
     @Override
     public List<PageStatsDTO> getHotPages(int days, int limit) {
         Integer endDate = DateUtil.getCurrentDateKey();
@@ -231,6 +488,20 @@ public class AnalyticsServiceImpl implements AnalyticsService {
             .collect(Collectors.toList());
     }
 
+    @Override
+    public List<TrendingPageDTO> getTrendingPages(int limit) {
+        return trendingPages.top(limit, System.currentTimeMillis())
+            .stream()
+            .map(item -> TrendingPageDTO.builder()
+                .url(item.getKey())
+                .currentRate(item.getCurrentRate())
+                .baselineRate(item.getBaselineRate())
+                .score(item.getScore())
+                .error(item.getErrorRate())
+                .build())
+            .collect(Collectors.toList());
+    }
+
     @Override
     public RealtimeStatsDTO getRealtimeStats() {
         String dateKey = DateUtil.getCurrentDateKey().toString();
@@ -240,7 +511,7 @@ public class AnalyticsServiceImpl implements AnalyticsService {
             DailyStatsDTO todayStats = getTodayStats();
 
             // 获取当前在线数
-            String onlinePattern = redisPrefix + ONLINE_USERS + ":*";
+            String onlinePattern = redisKeyLayout.onlineUserPattern();
             Set<String> onlineKeys = redisTemplate.keys(onlinePattern);
             Long currentOnline = onlineKeys != null ? (long) onlineKeys.size() : 0L;
 
@@ -280,31 +551,22 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         List<HotPageDTO> result = new ArrayList<>();
 
         try {
-            String dateKey = DateUtil.getCurrentDateKey().toString();
-            String pagePattern = redisPrefix + PAGE_VISIT + "*:" + dateKey;
-            Set<String> pageKeys = redisTemplate.keys(pagePattern);
-
-            if (pageKeys != null) {
-                List<HotPageDTO> pages = pageKeys.stream()
-                    .map(key -> {
-                        String[] parts = key.split(":");
-                        if (parts.length >= 3) {
-                            String pageUrl = parts[2];
-                            Long visits = Long.valueOf(redisTemplate.opsForValue().get(key).toString());
-                            return HotPageDTO.builder()
-                                .url(pageUrl)
-                                .visits(visits)
-                                .build();
-                        }
-                        return null;
-                    })
-                    .filter(Objects::nonNull)
-                    .sorted((a, b) -> Long.compare(b.getVisits(), a.getVisits()))
-                    .limit(limit)
-                    .collect(Collectors.toList());
-
-                result.addAll(pages);
+            Integer dateKey = DateUtil.getCurrentDateKey();
+            Map<String, Long> visitsByPage = redisKeyLayout.readTagged() ?
+                counterRedisTemplate.<String, Long>opsForHash().entries(redisKeyLayout.pageVisits(dateKey)) :
+                getLegacyPageVisits(dateKey);
+
+            List<HotPageDTO> pages = new ArrayList<>(visitsByPage.size());
+            for (Map.Entry<String, Long> entry : visitsByPage.entrySet()) {
+                if (entry.getValue() != null) {
+                    pages.add(HotPageDTO.builder()
+                        .url(entry.getKey())
+                        .visits(entry.getValue())
+                        .build());
+                }
             }
+            pages.sort((a, b) -> Long.compare(b.getVisits(), a.getVisits()));
+            result.addAll(pages.size() > limit ? pages.subList(0, limit) : pages);
         } catch (Exception e) {
             log.error("从Redis获取热门页面失败", e);
         }
@@ -312,6 +574,26 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         return result;
     }
 
+    /**
+     * 从旧布局读取某天的页面计数：KEYS扫描后一次MGET取回
+     */
+    private Map<String, Long> getLegacyPageVisits(Integer dateKey) {
+        Set<String> pageKeys = redisTemplate.keys(redisKeyLayout.legacyPageVisitPattern(dateKey));
+        if (pageKeys == null || pageKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> keys = new ArrayList<>(pageKeys);
+        List<Long> counts = counterRedisTemplate.opsForValue().multiGet(keys);
+        Map<String, Long> result = new HashMap<>(keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++) {
+            String pageUrl = redisKeyLayout.legacyPageUrlOf(keys.get(i), dateKey);
+            if (pageUrl != null && counts != null) {
+                result.put(pageUrl, counts.get(i));
+            }
+        }
+        return result;
+    }
+
     @Override
     public List<Integer> getHourlyStats(LocalDate date) {
         Integer dateKey = DateUtil.getDateKey(date);
@@ -338,12 +620,27 @@ public class AnalyticsServiceImpl implements AnalyticsService {
 
         List<Map<String, Object>> pageData = visitRecordMapper.getDailyPageStats(pageUrl, startDate, endDate);
 
+        // 停留时长和跳出数据来自page_stats汇总表
+        Map<Integer, PageStats> rollups = pageStatsMapper.selectList(new QueryWrapper<PageStats>()
+                .select("date_key", "avg_duration", "bounce_count", "entry_count")
+                .eq("page_url", pageUrl)
+                .between("date_key", startDate, endDate))
+            .stream()
+            .collect(Collectors.toMap(PageStats::getDateKey, p -> p, (a, b) -> a));
+
         return pageData.stream()
-            .map(data -> PageStatsDTO.builder()
-                .pageUrl(pageUrl)
-                .visitCount(((Number) data.getOrDefault("visitCount", 0)).intValue())
-                .uniqueIpCount(((Number) data.getOrDefault("uniqueIpCount", 0)).intValue())
-                .build())
+            .map(data -> {
+                PageStats rollup = rollups.get((Integer) data.get("dateKey"));
+                return PageStatsDTO.builder()
+                    .pageUrl(pageUrl)
+                    .visitCount(((Number) data.getOrDefault("visitCount", 0)).intValue())
+                    .uniqueIpCount(((Number) data.getOrDefault("uniqueIpCount", 0)).intValue())
+                    .avgDuration(rollup != null ? rollup.getAvgDuration() : null)
+                    .bounceRate(rollup != null && rollup.getEntryCount() != null && rollup.getEntryCount() > 0
+                        && rollup.getBounceCount() != null ?
+                        Math.round(rollup.getBounceCount() * 10000.0 / rollup.getEntryCount()) / 100.0 : null)
+                    .build();
+            })
             .collect(Collectors.toList());
     }
 
@@ -399,4 +696,11 @@ public class AnalyticsServiceImpl implements AnalyticsService {
         int deletedCount = visitRecordMapper.deleteExpiredRecords(expireDate);
         log.info("清理过期数据完成，删除记录数: {}", deletedCount);
     }
+
+    @Override
+    public int cleanExpiredData(LocalDateTime startTime, LocalDateTime endTime) {
+        int deletedCount = visitRecordMapper.deleteRecordsBetween(startTime, endTime);
+        log.info("清理过期数据完成，时间段: {} - {}，删除记录数: {}", startTime, endTime, deletedCount);
+        return deletedCount;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,372 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.dto.BackfillProgressDTO;
+import com.blog.analytics.entity.DailyStats;
+import com.blog.analytics.entity.HourlyStats;
+import com.blog.analytics.entity.PageStats;
+import com.blog.analytics.entity.VisitRecord;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.HourlyStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.mapper.VisitRecordMapper;
+import com.blog.analytics.redis.RedisKeyLayout;
+import com.blog.analytics.service.BackfillService;
+import com.blog.analytics.service.RollupService;
+import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.HyperLogLog;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 历史统计重建服务实现类
+ * <p>
+ * 日期范围被拆成按天的任务，在并行度受限的ForkJoinPool上执行（每个并行任务占用一个数据库连接）。
+ * 每天的原始访问记录通过MyBatis游标逐行读取并在内存中汇总，不载入完整列表；汇总结果在同一事务内
+ * 覆盖写入每日、小时、页面统计（访问次数、独立IP数，每日和页面另写入独立IP的HyperLogLog草图），
+ * 会话和停留时长等其他列保持不变。
+ * 每完成一天即写入Redis检查点，任务中断后以相同日期范围再次提交会跳过已完成的日期。
+ * 全部日期结束后重新汇总范围内的周、月统计。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BackfillServiceImpl implements BackfillService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final VisitRecordMapper visitRecordMapper;
+    private final DailyStatsMapper dailyStatsMapper;
+    private final PageStatsMapper pageStatsMapper;
+    private final HourlyStatsMapper hourlyStatsMapper;
+    private final RedisTemplate<String, Long> counterRedisTemplate;
+    private final RedisKeyLayout redisKeyLayout;
+    private final PlatformTransactionManager transactionManager;
+    private final RollupService rollupService;
+
+    @Value("${blog.analytics.backfill.parallelism:4}")
+    private int parallelism;
+
+    @Value("${blog.analytics.backfill.max-days:366}")
+    private int maxDays;
+
+    @Value("${blog.analytics.backfill.checkpoint-ttl-days:7}")
+    private int checkpointTtlDays;
+
+    private final AtomicReference<Job> currentJob = new AtomicReference<>();
+
+    @Override
+    public BackfillProgressDTO start(LocalDate startDate, LocalDate endDate, boolean force) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        if (!endDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("只能重建今天之前的日期");
+        }
+        List<Integer> dateKeys = DateUtil.getDateKeyRange(startDate, endDate);
+        if (dateKeys.size() > maxDays) {
+            throw new IllegalArgumentException("重建范围不能超过" + maxDays + "天");
+        }
+
+        Job previous = currentJob.get();
+        if (previous != null && previous.isRunning()) {
+            throw new IllegalStateException("已有重建任务在执行: " + previous.jobId);
+        }
+
+        String jobId = dateKeys.get(0) + "-" + dateKeys.get(dateKeys.size() - 1);
+        String checkpointKey = redisKeyLayout.backfillCheckpoint(jobId);
+        Set<Long> done;
+        if (force) {
+            counterRedisTemplate.delete(checkpointKey);
+            done = Collections.emptySet();
+        } else {
+            Set<Long> members = counterRedisTemplate.opsForSet().members(checkpointKey);
+            done = members != null ? members : Collections.emptySet();
+        }
+
+        Job job = new Job(jobId, startDate, endDate, dateKeys, done, checkpointKey);
+        if (!currentJob.compareAndSet(previous, job)) {
+            throw new IllegalStateException("已有重建任务在执行");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        pool.execute(new RootTask(job, pool));
+        log.info("开始重建统计 - 任务: {}, 天数: {}, 检查点已完成: {}, 并行度: {}",
+            jobId, dateKeys.size(), done.size(), parallelism);
+        return job.toProgress();
+    }
+
+    @Override
+    public BackfillProgressDTO getProgress() {
+        Job job = currentJob.get();
+        return job != null ? job.toProgress() : null;
+    }
+
+    @Override
+    public long rebuildDay(Integer dateKey) {
+        return rebuildDay(dateKey, () -> {
+        });
+    }
+
+    @Override
+    public long rebuildDay(Integer dateKey, Runnable guard) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Long rows = transactionTemplate.execute(status -> {
+            DayAggregate aggregate = new DayAggregate(dateKey);
+            try (Cursor<VisitRecord> cursor = visitRecordMapper.streamByDateKey(dateKey)) {
+                for (VisitRecord record : cursor) {
+                    aggregate.add(record);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // 游标关闭后才能在同一连接上执行写入
+            guard.run();
+            writeAggregate(aggregate);
+            guard.run();
+            return aggregate.totalVisits;
+        });
+        return rows != null ? rows : 0;
+    }
+
+    private void writeAggregate(DayAggregate aggregate) {
+        DailyStats daily = new DailyStats();
+        daily.setDateKey(aggregate.dateKey);
+        daily.setDateStr(DateUtil.dateKeyToString(aggregate.dateKey));
+        daily.setTotalVisits(aggregate.totalVisits);
+        daily.setUniqueIps((long) aggregate.ips.size());
+        daily.setPageViews(aggregate.totalVisits);
+        daily.setIpSketch(sketchOf(aggregate.ips));
+        dailyStatsMapper.upsertVisitStats(daily);
+
+        // 写入全部24小时，没有记录的小时清零
+        List<HourlyStats> hours = new ArrayList<>(24);
+        for (int hour = 0; hour < 24; hour++) {
+            int hourKey = aggregate.dateKey * 100 + hour;
+            Counter counter = aggregate.hours.get(hourKey);
+            HourlyStats stats = new HourlyStats();
+            stats.setHourKey(hourKey);
+            stats.setHourStr(DateUtil.hourKeyToString(hourKey).substring(0, 13));
+            stats.setVisitCount(counter != null ? (int) counter.visits : 0);
+            stats.setUniqueIpCount(counter != null ? counter.ips.size() : 0);
+            hours.add(stats);
+        }
+        hourlyStatsMapper.batchReplaceVisitStats(hours);
+
+        pageStatsMapper.resetVisitStats(aggregate.dateKey);
+        List<PageStats> batch = new ArrayList<>(BATCH_SIZE);
+        for (Map.Entry<String, Counter> entry : aggregate.pages.entrySet()) {
+            PageStats stats = new PageStats();
+            stats.setPageUrl(entry.getKey());
+            stats.setDateKey(aggregate.dateKey);
+            stats.setVisitCount((int) entry.getValue().visits);
+            stats.setUniqueIpCount(entry.getValue().ips.size());
+            stats.setIpSketch(sketchOf(entry.getValue().ips));
+            batch.add(stats);
+            if (batch.size() >= BATCH_SIZE) {
+                pageStatsMapper.batchReplaceVisitStats(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            pageStatsMapper.batchReplaceVisitStats(batch);
+        }
+    }
+
+    /**
+     * 由当天的精确IP集合生成草图，用于任意日期范围的独立IP合并估计
+     */
+    private static byte[] sketchOf(Set<String> ips) {
+        HyperLogLog sketch = new HyperLogLog();
+        for (String ip : ips) {
+            sketch.offer(ip);
+        }
+        return sketch.toBytes();
+    }
+
+    private void rebuildWithCheckpoint(Job job, Integer dateKey) {
+        if (job.done.contains(dateKey.longValue())) {
+            job.skipped.incrementAndGet();
+            return;
+        }
+        try {
+            long rows = rebuildDay(dateKey);
+            counterRedisTemplate.opsForSet().add(job.checkpointKey, dateKey.longValue());
+            counterRedisTemplate.expire(job.checkpointKey, checkpointTtlDays, TimeUnit.DAYS);
+            job.rows.addAndGet(rows);
+            job.completed.incrementAndGet();
+            log.debug("重建统计完成 - 日期: {}, 记录数: {}", dateKey, rows);
+        } catch (Exception e) {
+            job.failed.add(dateKey);
+            log.error("重建统计失败 - 日期: {}", dateKey, e);
+        }
+    }
+
+    /**
+     * 根任务：执行全部日期后记录结果并关闭线程池
+     */
+    private final class RootTask extends RecursiveAction {
+
+        private final Job job;
+        private final ForkJoinPool pool;
+
+        private RootTask(Job job, ForkJoinPool pool) {
+            this.job = job;
+            this.pool = pool;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                new DayRangeTask(job, 0, job.dateKeys.size()).invoke();
+                if (job.completed.get() > 0) {
+                    rollupService.refreshRange(job.startDate, job.endDate);
+                }
+            } catch (Exception e) {
+                log.error("重新汇总周期统计失败 - 任务: {}", job.jobId, e);
+            } finally {
+                job.finishedAt = LocalDateTime.now();
+                job.status = job.failed.isEmpty() ? "COMPLETED" : "FAILED";
+                log.info("重建统计结束 - 任务: {}, 状态: {}, 重建: {}天, 跳过: {}天, 失败: {}天, 记录数: {}",
+                    job.jobId, job.status, job.completed.get(), job.skipped.get(), job.failed.size(), job.rows.get());
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 按日期二分拆分的任务，拆到单天后执行重建
+     */
+    private final class DayRangeTask extends RecursiveAction {
+
+        private final Job job;
+        private final int from;
+        private final int to;
+
+        private DayRangeTask(Job job, int from, int to) {
+            this.job = job;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                rebuildWithCheckpoint(job, job.dateKeys.get(from));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DayRangeTask(job, from, mid), new DayRangeTask(job, mid, to));
+        }
+    }
+
+    /**
+     * 一天的汇总结果
+     */
+    private static final class DayAggregate {
+        private final int dateKey;
+        private long totalVisits;
+        private final Set<String> ips = new HashSet<>();
+        private final Map<String, Counter> pages = new HashMap<>();
+        private final Map<Integer, Counter> hours = new HashMap<>();
+
+        private DayAggregate(int dateKey) {
+            this.dateKey = dateKey;
+        }
+
+        private void add(VisitRecord record) {
+            totalVisits++;
+            ips.add(record.getIpAddress());
+            pages.computeIfAbsent(record.getPageUrl(), k -> new Counter()).add(record.getIpAddress());
+            hours.computeIfAbsent(record.getHourKey(), k -> new Counter()).add(record.getIpAddress());
+        }
+    }
+
+    private static final class Counter {
+        private long visits;
+        private final Set<String> ips = new HashSet<>();
+
+        private void add(String ip) {
+            visits++;
+            ips.add(ip);
+        }
+    }
+
+    /**
+     * 重建任务状态
+     */
+    private static final class Job {
+        private final String jobId;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final List<Integer> dateKeys;
+        private final Set<Long> done;
+        private final String checkpointKey;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicLong rows = new AtomicLong();
+        private final ConcurrentLinkedQueue<Integer> failed = new ConcurrentLinkedQueue<>();
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String jobId, LocalDate startDate, LocalDate endDate, List<Integer> dateKeys,
+                    Set<Long> done, String checkpointKey) {
+            this.jobId = jobId;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.dateKeys = dateKeys;
+            this.done = done;
+            this.checkpointKey = checkpointKey;
+        }
+
+        private boolean isRunning() {
+            return "RUNNING".equals(status);
+        }
+
+        private BackfillProgressDTO toProgress() {
+            List<Integer> failedDays = new ArrayList<>(failed);
+            Collections.sort(failedDays);
+            return BackfillProgressDTO.builder()
+                .jobId(jobId)
+                .status(status)
+                .startDate(startDate)
+                .endDate(endDate)
+                .totalDays(dateKeys.size())
+                .completedDays(completed.get())
+                .skippedDays(skipped.get())
+                .failedDays(failedDays)
+                .rowsProcessed(rows.get())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .build();
+        }
+    }
+}
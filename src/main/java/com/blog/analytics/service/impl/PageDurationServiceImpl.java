@@ -0,0 +1,221 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.dto.PageDurationStatsDTO;
+import com.blog.analytics.entity.PageDurationBucket;
+import com.blog.analytics.entity.PageStats;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.service.PageDurationService;
+import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.DurationHistogram;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 页面停留时长服务实现类
+ * <p>
+ * 按页面和日期在内存中累加次数、总和与对数直方图，定期批量累加写入page_stats和
+ * page_duration_bucket，查询时只读取汇总表，不扫描访问明细。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PageDurationServiceImpl implements PageDurationService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final PageStatsMapper pageStatsMapper;
+
+    /**
+     * 当前写入的汇总表，刷新时整体替换
+     */
+    private volatile ConcurrentHashMap<DurationKey, Accumulator> accumulators = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordDuration(String pageUrl, long durationMs) {
+        int bucket = DurationHistogram.bucketOf(durationMs);
+        accumulate(new DurationKey(DateUtil.getCurrentDateKey(), pageUrl), accumulator -> {
+            accumulator.count++;
+            accumulator.sumMs += durationMs;
+            accumulator.buckets[bucket]++;
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${blog.analytics.duration.flush-interval-ms:60000}")
+    public void flushDurationStats() {
+        ConcurrentHashMap<DurationKey, Accumulator> pending = accumulators;
+        if (pending.isEmpty()) {
+            return;
+        }
+        accumulators = new ConcurrentHashMap<>();
+
+        List<PageStats> statsBatch = new ArrayList<>();
+        List<PageDurationBucket> bucketBatch = new ArrayList<>();
+        for (Map.Entry<DurationKey, Accumulator> entry : pending.entrySet()) {
+            DurationKey key = entry.getKey();
+            Accumulator accumulator = entry.getValue();
+            synchronized (accumulator) {
+                accumulator.sealed = true;
+            }
+            if (accumulator.count == 0) {
+                continue;
+            }
+
+            PageStats stats = new PageStats();
+            stats.setPageUrl(key.pageUrl);
+            stats.setDateKey(key.dateKey);
+            stats.setDurationCount(accumulator.count);
+            stats.setDurationSumMs(accumulator.sumMs);
+            statsBatch.add(stats);
+
+            for (int i = 0; i < DurationHistogram.BUCKETS; i++) {
+                if (accumulator.buckets[i] > 0) {
+                    PageDurationBucket bucket = new PageDurationBucket();
+                    bucket.setPageUrl(key.pageUrl);
+                    bucket.setDateKey(key.dateKey);
+                    bucket.setBucket(i);
+                    bucket.setBucketCount(accumulator.buckets[i]);
+                    bucketBatch.add(bucket);
+                }
+            }
+        }
+
+        // 已成功写入的批次不再回填，失败批次及其后的数据合并回当前累加表，下次刷新重试
+        int statsWritten = 0;
+        int bucketsWritten = 0;
+        try {
+            for (; statsWritten < statsBatch.size(); statsWritten += BATCH_SIZE) {
+                pageStatsMapper.batchUpsertDurationStats(
+                    statsBatch.subList(statsWritten, Math.min(statsWritten + BATCH_SIZE, statsBatch.size())));
+            }
+            statsWritten = statsBatch.size();
+            for (; bucketsWritten < bucketBatch.size(); bucketsWritten += BATCH_SIZE) {
+                pageStatsMapper.batchUpsertDurationBuckets(
+                    bucketBatch.subList(bucketsWritten, Math.min(bucketsWritten + BATCH_SIZE, bucketBatch.size())));
+            }
+            log.debug("写入页面停留时长统计，页面数: {}, 直方图桶数: {}", statsBatch.size(), bucketBatch.size());
+        } catch (Exception e) {
+            log.error("写入页面停留时长统计失败，页面数: {}，将在下次重试", statsBatch.size(), e);
+            for (PageStats stats : statsBatch.subList(statsWritten, statsBatch.size())) {
+                accumulate(new DurationKey(stats.getDateKey(), stats.getPageUrl()), accumulator -> {
+                    accumulator.count += stats.getDurationCount();
+                    accumulator.sumMs += stats.getDurationSumMs();
+                });
+            }
+            for (PageDurationBucket bucket : bucketBatch.subList(bucketsWritten, bucketBatch.size())) {
+                accumulate(new DurationKey(bucket.getDateKey(), bucket.getPageUrl()),
+                    accumulator -> accumulator.buckets[bucket.getBucket()] += bucket.getBucketCount());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDurationStats();
+    }
+
+    /**
+     * 累加到当前汇总表（上报与失败回填共用）
+     */
+    private void accumulate(DurationKey key, Consumer<Accumulator> update) {
+        while (true) {
+            ConcurrentHashMap<DurationKey, Accumulator> current = accumulators;
+            Accumulator accumulator = current.computeIfAbsent(key, k -> new Accumulator());
+            synchronized (accumulator) {
+                // 表已被替换或累加器已被刷新线程封存时不再写入，重新从新表获取
+                if (!accumulator.sealed && current == accumulators) {
+                    update.accept(accumulator);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public PageDurationStatsDTO getDurationStats(String pageUrl, int days) {
+        Integer endDate = DateUtil.getCurrentDateKey();
+        Integer startDate = DateUtil.getDateKey(LocalDate.now().minusDays(days - 1));
+
+        Map<String, Object> summary = pageStatsMapper.getDurationSummary(pageUrl, startDate, endDate);
+        long count = summary != null ? ((Number) summary.getOrDefault("durationCount", 0)).longValue() : 0L;
+        long sumMs = summary != null ? ((Number) summary.getOrDefault("durationSumMs", 0)).longValue() : 0L;
+
+        long[] counts = new long[DurationHistogram.BUCKETS];
+        for (Map<String, Object> row : pageStatsMapper.getDurationBuckets(pageUrl, startDate, endDate)) {
+            int bucket = ((Number) row.get("bucket")).intValue();
+            if (bucket >= 0 && bucket < counts.length) {
+                counts[bucket] = ((Number) row.getOrDefault("bucketCount", 0)).longValue();
+            }
+        }
+
+        return PageDurationStatsDTO.builder()
+            .pageUrl(pageUrl)
+            .count(count)
+            .avgDuration(count > 0 ? (int) (sumMs / count / 1000) : 0)
+            .p50(toSeconds(DurationHistogram.quantileMs(counts, 0.50)))
+            .p75(toSeconds(DurationHistogram.quantileMs(counts, 0.75)))
+            .p90(toSeconds(DurationHistogram.quantileMs(counts, 0.90)))
+            .p99(toSeconds(DurationHistogram.quantileMs(counts, 0.99)))
+            .build();
+    }
+
+    private static int toSeconds(long millis) {
+        return (int) (millis / 1000);
+    }
+
+    /**
+     * 页面+日期键
+     */
+    private static final class DurationKey {
+        private final int dateKey;
+        private final String pageUrl;
+        private final int hash;
+
+        private DurationKey(int dateKey, String pageUrl) {
+            this.dateKey = dateKey;
+            this.pageUrl = pageUrl;
+            this.hash = 31 * dateKey + pageUrl.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DurationKey)) {
+                return false;
+            }
+            DurationKey other = (DurationKey) o;
+            return dateKey == other.dateKey && Objects.equals(pageUrl, other.pageUrl);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 停留时长累加器
+     */
+    private static final class Accumulator {
+        private long count;
+        private long sumMs;
+        private final long[] buckets = new long[DurationHistogram.BUCKETS];
+        private boolean sealed;
+    }
+}
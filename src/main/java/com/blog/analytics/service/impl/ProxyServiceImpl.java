@@ -0,0 +1,530 @@
+package com.blog.analytics.service.impl;
+
+import com.alibaba.fastjson.JSON;
+import com.blog.analytics.config.ProxyProperties;
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.proxy.CircuitBreaker;
+import com.blog.analytics.proxy.JsonProjection;
+import com.blog.analytics.proxy.ProxyHttpClients;
+import com.blog.analytics.proxy.ProxyPayload;
+import com.blog.analytics.proxy.ProxyRoute;
+import com.blog.analytics.proxy.RawJsonBody;
+import com.blog.analytics.proxy.StaleWhileRevalidateCache;
+import com.blog.analytics.proxy.UpstreamException;
+import com.blog.analytics.service.ProxyService;
+import com.blog.analytics.utils.LatencyHistogram;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 第三方API代理服务实现类
+ * <p>
+ * 上游请求通过OkHttp异步发出，结果以CompletableFuture返回，等待期间不占用Servlet线程。
+ * 直通模式的路由不解析、不缓存，响应体由{@link RawJsonBody}在序列化时流式拷贝。
+ * 配置了字段投影的路由在读取上游响应时流式裁剪，缓存和返回的都只是投影后的数据。
+ * 每个路由有独立的熔断器和并发隔离（信号量）：上游故障或变慢时快速失败，缓存中有旧值则返回旧值。
+ * 每个路由一个过期可用缓存，缓存键为排序后的查询参数。TTL内直接命中；过期后先返回旧值并在后台刷新；
+ * 上游失败时继续返回最近一次成功的值。热门键由定时任务在过期前主动刷新。
+ * 刷新时携带上游的ETag/Last-Modified发起条件请求，数据未变化时上游返回304，不再传输响应体。
+ * 每个路由统计延迟直方图：超时按高分位延迟自适应收紧，首个请求超过P95仍未返回时发出对冲请求，
+ * 先返回者胜出，另一个被取消。相同路由和参数的在途请求合并为一次上游调用。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProxyServiceImpl implements ProxyService {
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private final ProxyHttpClients proxyHttpClients;
+    private final ProxyProperties proxyProperties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<ProxyRoute, RouteState> states = new EnumMap<>(ProxyRoute.class);
+    private ScheduledThreadPoolExecutor hedgeTimer;
+
+    @PostConstruct
+    public void init() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("proxy-hedge-");
+        threadFactory.setDaemon(true);
+        hedgeTimer = new ScheduledThreadPoolExecutor(1, threadFactory);
+        hedgeTimer.setRemoveOnCancelPolicy(true);
+        for (ProxyRoute route : ProxyRoute.values()) {
+            states.put(route, new RouteState(route));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hedgeTimer != null) {
+            hedgeTimer.shutdownNow();
+        }
+    }
+
+    @Override
+    public CompletableFuture<HoppinResponse<Object>> fetch(ProxyRoute route, Map<String, String> params) {
+        String query;
+        try {
+            query = normalizeQuery(params);
+        } catch (UnsupportedEncodingException e) {
+            return CompletableFuture.completedFuture(HoppinResponse.fail(route.getLabel() + "失败: " + e.getMessage()));
+        }
+        CompletableFuture<?> result;
+        if (proxyProperties.isPassthrough(route)) {
+            result = stream(route, query);
+        } else if (proxyProperties.getCache().isEnabled()) {
+            result = states.get(route).cache.get(query, previous -> load(route, query, previous));
+        } else {
+            result = load(route, query, null);
+        }
+        return result.handle((data, error) -> {
+            if (error == null) {
+                return HoppinResponse.success(data);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof UpstreamException)) {
+                log.error(route.getLabel() + "失败", cause);
+            }
+            return HoppinResponse.fail(route.getLabel() + "失败: " + cause.getMessage());
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${blog.proxy.cache.refresh-interval-ms:30000}")
+    public void refreshPopularEntries() {
+        ProxyProperties.Cache cache = proxyProperties.getCache();
+        if (!cache.isEnabled()) {
+            return;
+        }
+        for (RouteState state : states.values()) {
+            int refreshed = state.cache.refreshPopular(cache.getRefreshTopKeys(), cache.getRefreshAheadRatio());
+            if (refreshed > 0) {
+                log.debug("主动刷新代理缓存: route={}, keys={}", state.route.getId(), refreshed);
+            }
+        }
+    }
+
+    /**
+     * 异步请求上游并解析响应；相同路由和参数的在途请求合并为一次上游调用，结果由所有等待方共享。
+     * 有旧值时向上游发起条件请求，上游返回304则沿用旧值，不传输响应体
+     */
+    private CompletableFuture<ProxyPayload> load(ProxyRoute route, String query, ProxyPayload previous) {
+        RouteState state = states.get(route);
+        CompletableFuture<ProxyPayload> shared = new CompletableFuture<>();
+        CompletableFuture<ProxyPayload> inFlight = state.inFlight.putIfAbsent(query, shared);
+        if (inFlight != null) {
+            state.coalesced.increment();
+            return inFlight;
+        }
+        CompletableFuture<ProxyPayload> future = new CompletableFuture<>();
+        // 先移出在途表再通知等待方，保证之后的请求不会拿到已完成的旧结果
+        future.whenComplete((payload, error) -> {
+            state.inFlight.remove(query, shared);
+            if (error == null) {
+                shared.complete(payload);
+            } else {
+                shared.completeExceptionally(error);
+            }
+        });
+
+        Request.Builder request = newRequest(route, query);
+        if (previous != null) {
+            if (previous.getUpstreamEtag() != null) {
+                request.header("If-None-Match", previous.getUpstreamEtag());
+            }
+            if (previous.getUpstreamLastModified() != null) {
+                request.header("If-Modified-Since", previous.getUpstreamLastModified());
+            }
+        }
+        execute(route, request.build(), future, response -> {
+            try (Response closeable = response) {
+                if (closeable.code() == HTTP_NOT_MODIFIED) {
+                    future.complete(previous);
+                    return;
+                }
+                JsonProjection projection = states.get(route).projection;
+                byte[] raw = projection == null ? closeable.body().bytes() : projection.apply(closeable.body().byteStream());
+                future.complete(new ProxyPayload(JSON.parse(raw), raw,
+                        closeable.header("ETag"), closeable.header("Last-Modified")));
+            }
+        });
+        return shared;
+    }
+
+    /**
+     * 异步请求上游，响应头到达后即返回，响应体在序列化时流式写出（响应体只能消费一次，不做请求合并）
+     */
+    private CompletableFuture<RawJsonBody> stream(ProxyRoute route, String query) {
+        CompletableFuture<RawJsonBody> future = new CompletableFuture<>();
+        execute(route, newRequest(route, query).build(), future,
+                response -> future.complete(new RawJsonBody(response, states.get(route).projection)));
+        return future;
+    }
+
+    private Request.Builder newRequest(ProxyRoute route, String query) {
+        String url = proxyProperties.urlOf(route);
+        return new Request.Builder()
+                .url(query.isEmpty() ? url : url + "?" + query)
+                .addHeader("X-ZQ-Ignore", "1");
+    }
+
+    private void execute(ProxyRoute route, Request request, CompletableFuture<?> future, ResponseHandler handler) {
+        RouteState state = states.get(route);
+        long now = System.currentTimeMillis();
+        Exchange exchange = new Exchange(state, request, future, handler, state.timeoutMillis(now));
+        UpstreamException rejected = exchange.attempt(false);
+        if (rejected != null) {
+            future.completeExceptionally(rejected);
+            return;
+        }
+        long hedgeDelay = state.hedgeDelayMillis(now);
+        if (hedgeDelay > 0) {
+            hedgeTimer.schedule(exchange::hedge, hedgeDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 按参数名排序并编码，相同参数组合得到相同的缓存键和上游URL
+     */
+    private static String normalizeQuery(Map<String, String> params) throws UnsupportedEncodingException {
+        if (params == null || params.isEmpty()) {
+            return "";
+        }
+        StringBuilder query = new StringBuilder();
+        for (Map.Entry<String, String> entry : new TreeMap<>(params).entrySet()) {
+            if (query.length() > 0) {
+                query.append('&');
+            }
+            query.append(URLEncoder.encode(entry.getKey(), "UTF-8")).append('=')
+                    .append(URLEncoder.encode(entry.getValue() == null ? "" : entry.getValue(), "UTF-8"));
+        }
+        return query.toString();
+    }
+
+    /**
+     * 上游成功响应处理器
+     */
+    private interface ResponseHandler {
+
+        void handle(Response response) throws IOException;
+    }
+
+    /**
+     * 单个路由的缓存、在途请求、熔断、并发隔离、延迟统计和指标
+     */
+    private final class RouteState {
+
+        private final ProxyRoute route;
+        private final StaleWhileRevalidateCache<ProxyPayload> cache;
+        private final CircuitBreaker breaker;
+        private final Semaphore bulkhead;
+        private final LatencyHistogram latency;
+        private final JsonProjection projection;
+        private final ConcurrentHashMap<String, CompletableFuture<ProxyPayload>> inFlight = new ConcurrentHashMap<>();
+        private final Counter coalesced;
+        private final Counter breakerRejected;
+        private final Counter bulkheadRejected;
+        private final Counter hedged;
+        private final Counter hedgeWins;
+        private long exchanges;
+        private long hedges;
+
+        private RouteState(ProxyRoute route) {
+            this.route = route;
+            this.cache = new StaleWhileRevalidateCache<>(
+                    proxyProperties.ttlOf(route).toMillis(),
+                    proxyProperties.staleWhileRevalidateOf(route).toMillis(),
+                    proxyProperties.getCache().getMaxEntriesPerRoute(),
+                    // 回源本身是异步的，后台刷新直接在调用线程发起即可
+                    Runnable::run);
+            ProxyProperties.Breaker config = proxyProperties.getBreaker();
+            this.breaker = new CircuitBreaker(config.getWindowSize(), config.getMinimumCalls(),
+                    config.getFailureRateThreshold(), config.getSlowCallRateThreshold(),
+                    config.getSlowCallDuration().toMillis(), config.getOpenDuration().toMillis(),
+                    config.getHalfOpenPermits());
+            this.bulkhead = new Semaphore(proxyProperties.maxConcurrentOf(route));
+            this.latency = new LatencyHistogram(proxyProperties.getLatency().getWindow().toMillis());
+            List<String> fields = proxyProperties.fieldsOf(route);
+            this.projection = fields == null ? null : new JsonProjection(fields);
+
+            Gauge.builder("blog.proxy.circuit.state", breaker, b -> b.getState().ordinal())
+                    .tag("route", route.getId())
+                    .description("代理熔断器状态（0关闭，1打开，2半开）")
+                    .register(meterRegistry);
+            Gauge.builder("blog.proxy.latency.p95", latency,
+                            h -> h.quantile(0.95, 1, System.currentTimeMillis()))
+                    .tag("route", route.getId())
+                    .description("代理上游最近延迟P95（毫秒，无样本时为-1）")
+                    .register(meterRegistry);
+            this.coalesced = Counter.builder("blog.proxy.coalesced")
+                    .tag("route", route.getId())
+                    .description("与在途请求合并、未单独调用上游的代理请求数")
+                    .register(meterRegistry);
+            this.breakerRejected = Counter.builder("blog.proxy.rejected")
+                    .tag("route", route.getId())
+                    .tag("reason", "circuit-open")
+                    .description("被熔断拒绝的代理请求数")
+                    .register(meterRegistry);
+            this.bulkheadRejected = Counter.builder("blog.proxy.rejected")
+                    .tag("route", route.getId())
+                    .tag("reason", "bulkhead")
+                    .description("超出并发隔离上限被拒绝的代理请求数")
+                    .register(meterRegistry);
+            this.hedged = Counter.builder("blog.proxy.hedged")
+                    .tag("route", route.getId())
+                    .description("发出的对冲请求数")
+                    .register(meterRegistry);
+            this.hedgeWins = Counter.builder("blog.proxy.hedge.wins")
+                    .tag("route", route.getId())
+                    .description("对冲请求先于首个请求返回的次数")
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 本次调用的超时：高分位延迟乘以倍数，限制在下限与配置的调用超时之间；样本不足时返回0（沿用客户端超时）
+         */
+        private long timeoutMillis(long now) {
+            ProxyProperties.Latency config = proxyProperties.getLatency();
+            if (!config.isAdaptiveTimeout()) {
+                return 0;
+            }
+            long percentile = latency.quantile(config.getTimeoutPercentile(), config.getMinSamples(), now);
+            if (percentile < 0) {
+                return 0;
+            }
+            long timeout = (long) (percentile * config.getTimeoutMultiplier());
+            return Math.min(proxyProperties.callTimeoutOf(route).toMillis(),
+                    Math.max(config.getMinTimeout().toMillis(), timeout));
+        }
+
+        /**
+         * 对冲延迟：P95延迟，样本不足或未启用时返回0（不对冲）
+         */
+        private long hedgeDelayMillis(long now) {
+            ProxyProperties.Latency config = proxyProperties.getLatency();
+            if (!config.isHedge()) {
+                return 0;
+            }
+            long percentile = latency.quantile(config.getHedgePercentile(), config.getMinSamples(), now);
+            return percentile < 0 ? 0 : Math.max(config.getMinHedgeDelay().toMillis(), percentile);
+        }
+
+        private synchronized void onExchange() {
+            // 定期减半，使对冲比例反映近期情况
+            if (++exchanges > 10000) {
+                exchanges >>= 1;
+                hedges >>= 1;
+            }
+        }
+
+        /**
+         * 对冲预算：对冲请求不超过总请求的固定比例，避免上游整体变慢时请求量翻倍
+         */
+        private synchronized boolean tryAcquireHedge() {
+            if (hedges + 1 > exchanges * proxyProperties.getLatency().getMaxHedgeRatio()) {
+                return false;
+            }
+            hedges++;
+            return true;
+        }
+    }
+
+    /**
+     * 一次代理请求：包含首个请求和可能的对冲请求，先成功返回的结果生效
+     */
+    private final class Exchange {
+
+        private final RouteState state;
+        private final Request request;
+        private final CompletableFuture<?> future;
+        private final ResponseHandler handler;
+        private final long timeoutMillis;
+        private final boolean conditional;
+        private final List<Call> calls = new ArrayList<>(2);
+        private int pending;
+        private boolean done;
+
+        private Exchange(RouteState state, Request request, CompletableFuture<?> future,
+                         ResponseHandler handler, long timeoutMillis) {
+            this.state = state;
+            this.request = request;
+            this.future = future;
+            this.handler = handler;
+            this.timeoutMillis = timeoutMillis;
+            this.conditional = request.header("If-None-Match") != null || request.header("If-Modified-Since") != null;
+            state.onExchange();
+        }
+
+        /**
+         * 发起一次上游请求
+         *
+         * @param hedge 是否为对冲请求
+         * @return 被熔断或并发隔离拒绝时返回拒绝原因，否则返回null
+         */
+        private UpstreamException attempt(boolean hedge) {
+            if (!state.bulkhead.tryAcquire()) {
+                state.bulkheadRejected.increment();
+                return new UpstreamException("上游请求过多，请稍后再试");
+            }
+            boolean breakerEnabled = proxyProperties.getBreaker().isEnabled();
+            long permit = breakerEnabled ? state.breaker.tryAcquire(System.currentTimeMillis()) : 0L;
+            if (permit == CircuitBreaker.REJECTED) {
+                state.bulkhead.release();
+                state.breakerRejected.increment();
+                return new UpstreamException("上游服务暂不可用，请稍后再试");
+            }
+
+            Call call = proxyHttpClients.get(state.route).newCall(request);
+            if (timeoutMillis > 0) {
+                call.timeout().timeout(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+            synchronized (this) {
+                calls.add(call);
+                pending++;
+            }
+            if (hedge) {
+                state.hedged.increment();
+            }
+            call.enqueue(new AttemptCallback(permit, breakerEnabled, hedge));
+            return null;
+        }
+
+        /**
+         * 首个请求超过对冲延迟仍未返回时发出对冲请求
+         */
+        private void hedge() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+            }
+            if (state.tryAcquireHedge()) {
+                // 被熔断或隔离拒绝时放弃对冲，继续等待首个请求
+                attempt(true);
+            }
+        }
+
+        private void onSuccess(Call call, Response response, boolean hedge) {
+            List<Call> losers;
+            synchronized (this) {
+                pending--;
+                if (done) {
+                    response.close();
+                    return;
+                }
+                done = true;
+                losers = new ArrayList<>(calls);
+                losers.remove(call);
+            }
+            for (Call loser : losers) {
+                loser.cancel();
+            }
+            if (hedge) {
+                state.hedgeWins.increment();
+            }
+            try {
+                handler.handle(response);
+            } catch (IOException | RuntimeException e) {
+                response.close();
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void onError(Throwable error) {
+            synchronized (this) {
+                pending--;
+                // 还有请求在途时等待其结果
+                if (done || pending > 0) {
+                    return;
+                }
+                done = true;
+            }
+            future.completeExceptionally(error);
+        }
+
+        private final class AttemptCallback implements Callback {
+
+            private final long permit;
+            private final boolean breakerEnabled;
+            private final boolean hedge;
+            private final long startedAt = System.currentTimeMillis();
+
+            private AttemptCallback(long permit, boolean breakerEnabled, boolean hedge) {
+                this.permit = permit;
+                this.breakerEnabled = breakerEnabled;
+                this.hedge = hedge;
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                state.bulkhead.release();
+                long now = System.currentTimeMillis();
+                if (call.isCanceled()) {
+                    // 对冲落败被取消，不计入延迟和熔断统计
+                    if (breakerEnabled) {
+                        state.breaker.release(permit);
+                    }
+                } else {
+                    // 超时的耗时同样计入，避免超时越收越紧
+                    state.latency.record(now - startedAt, now);
+                    if (breakerEnabled) {
+                        state.breaker.onFailure(permit, now);
+                    }
+                }
+                onError(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                state.bulkhead.release();
+                long now = System.currentTimeMillis();
+                state.latency.record(now - startedAt, now);
+                if (breakerEnabled) {
+                    // 4xx视为调用方参数问题，不计入上游故障
+                    if (response.code() >= 500) {
+                        state.breaker.onFailure(permit, now);
+                    } else {
+                        state.breaker.onSuccess(permit, now - startedAt, now);
+                    }
+                }
+                boolean notModified = conditional && response.code() == HTTP_NOT_MODIFIED;
+                if (!notModified && (!response.isSuccessful() || response.body() == null)) {
+                    response.close();
+                    onError(new UpstreamException(response.message()));
+                    return;
+                }
+                onSuccess(call, response, hedge);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.blog.analytics.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.blog.analytics.dto.DailyStatsDTO;
+import com.blog.analytics.dto.PreSerializedJson;
+import com.blog.analytics.dto.ReportSnapshotDTO;
+import com.blog.analytics.dto.StatsSummary;
+import com.blog.analytics.entity.DailyStats;
+import com.blog.analytics.entity.PageStats;
+import com.blog.analytics.entity.ReportSnapshot;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.HourlyStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.mapper.RefererStatsMapper;
+import com.blog.analytics.mapper.ReportSnapshotMapper;
+import com.blog.analytics.mapper.UserAgentStatsMapper;
+import com.blog.analytics.service.ReportService;
+import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.UniqueEstimator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 报表快照服务实现类
+ * <p>
+ * 报表只从汇总表（每日、每小时、页面、来源、浏览器统计）计算，不扫描访问记录，总独立IP和热门页面的独立IP
+ * 由每天的HyperLogLog草图合并估计。计算结果序列化为JSON后连同ETag整行写入report_snapshot，
+ * 查看报表时按主键读取一行原样返回，不再做任何聚合或序列化。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReportServiceImpl implements ReportService {
+
+    private final DailyStatsMapper dailyStatsMapper;
+    private final HourlyStatsMapper hourlyStatsMapper;
+    private final PageStatsMapper pageStatsMapper;
+    private final RefererStatsMapper refererStatsMapper;
+    private final UserAgentStatsMapper userAgentStatsMapper;
+    private final ReportSnapshotMapper reportSnapshotMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${blog.analytics.report.top-n:20}")
+    private int topN;
+
+    @Override
+    public ReportSnapshotDTO generate(ReportType type, LocalDate date) {
+        long start = System.currentTimeMillis();
+        LocalDate periodStart = type.periodStart(date);
+        LocalDate periodEnd = type.periodEnd(date);
+        Integer startKey = DateUtil.getDateKey(periodStart);
+        Integer endKey = DateUtil.getDateKey(periodEnd);
+
+        List<DailyStats> days = dailyStatsMapper.selectList(new QueryWrapper<DailyStats>()
+            .select("date_key", "total_visits", "unique_ips", "page_views", "bounce_rate", "avg_session_duration",
+                "session_count", "bounce_sessions", "total_session_duration", "ip_sketch")
+            .between("date_key", startKey, endKey)
+            .orderByAsc("date_key"));
+
+        List<DailyStatsDTO> daily = days.stream()
+            .map(day -> DailyStatsDTO.builder()
+                .date(DateUtil.dateKeyToLocalDate(day.getDateKey()))
+                .totalVisits(nvl(day.getTotalVisits()))
+                .uniqueIps(nvl(day.getUniqueIps()))
+                .bounceRate(day.getBounceRate() != null ? day.getBounceRate().doubleValue() : null)
+                .avgSessionDuration(day.getAvgSessionDuration())
+                .build())
+            .collect(Collectors.toList());
+
+        // 会话指标按会话数加权汇总，与日期范围统计接口一致
+        long sessions = days.stream().mapToLong(d -> nvl(d.getSessionCount())).sum();
+        long bounces = days.stream().mapToLong(d -> nvl(d.getBounceSessions())).sum();
+        long duration = days.stream().mapToLong(d -> nvl(d.getTotalSessionDuration())).sum();
+        UniqueEstimator uniqueIps = new UniqueEstimator();
+        days.forEach(d -> uniqueIps.add(d.getIpSketch(), d.getUniqueIps()));
+        StatsSummary total = StatsSummary.builder()
+            .visits(days.stream().mapToLong(d -> nvl(d.getTotalVisits())).sum())
+            .uniqueIps(uniqueIps.estimate())
+            .pageViews(days.stream().mapToLong(d -> nvl(d.getPageViews())).sum())
+            .avgBounceRate(sessions > 0 ? Math.round(bounces * 10000.0 / sessions) / 100.0 : null)
+            .avgSessionDuration(sessions > 0 ? (int) (duration / sessions) : null)
+            .build();
+
+        ReportSnapshotDTO report = ReportSnapshotDTO.builder()
+            .reportType(type.name())
+            .periodStart(periodStart)
+            .periodEnd(periodEnd)
+            .generatedAt(LocalDateTime.now())
+            .total(total)
+            .sessionCount(sessions)
+            .daily(daily)
+            .hourlyVisits(hourlyVisits(startKey * 100, endKey * 100 + 23))
+            .topPages(mergePageUniques(toRankItems(pageStatsMapper.getTopPages(startKey, endKey, topN)), startKey, endKey))
+            .topReferers(toRankItems(refererStatsMapper.getTopReferers(startKey, endKey, topN)))
+            .topBrowsers(toRankItems(userAgentStatsMapper.getTopBrowsers(startKey, endKey, topN)))
+            .build();
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(report);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化报表失败", e);
+        }
+
+        ReportSnapshot snapshot = new ReportSnapshot();
+        snapshot.setReportKey(reportKey(type, periodStart));
+        snapshot.setReportType(type.name());
+        snapshot.setPeriodStart(startKey);
+        snapshot.setPeriodEnd(endKey);
+        snapshot.setPayload(json);
+        snapshot.setEtag("\"" + DigestUtils.md5DigestAsHex(json.getBytes(StandardCharsets.UTF_8)) + "\"");
+        snapshot.setGeneratedAt(report.getGeneratedAt());
+        reportSnapshotMapper.upsert(snapshot);
+
+        log.info("生成报表快照完成 - 类型: {}, 日期范围: {} - {}, 访问次数: {}, 大小: {}字节, 耗时: {}ms",
+            type, periodStart, periodEnd, total.getVisits(), json.length(), System.currentTimeMillis() - start);
+        return report;
+    }
+
+    @Override
+    public PreSerializedJson getSnapshot(ReportType type, LocalDate date) {
+        ReportSnapshot snapshot = reportSnapshotMapper.selectById(reportKey(type, type.periodStart(date)));
+        if (snapshot == null) {
+            return null;
+        }
+        return new PreSerializedJson(snapshot.getPayload(), snapshot.getEtag());
+    }
+
+    /**
+     * 报表主键：类型:周期开始日期键
+     */
+    static String reportKey(ReportType type, LocalDate periodStart) {
+        return type.name() + ":" + DateUtil.getDateKey(periodStart);
+    }
+
+    private List<Long> hourlyVisits(Integer startHourKey, Integer endHourKey) {
+        Long[] hours = new Long[24];
+        Arrays.fill(hours, 0L);
+        for (Map<String, Object> row : hourlyStatsMapper.getVisitsByHourOfDay(startHourKey, endHourKey)) {
+            int hour = ((Number) row.get("hour")).intValue();
+            if (hour >= 0 && hour < 24) {
+                hours[hour] = ((Number) row.getOrDefault("visits", 0)).longValue();
+            }
+        }
+        return Arrays.asList(hours);
+    }
+
+    /**
+     * 热门页面的独立IP改为合并各页面每天的草图（只读取排行中的页面）
+     */
+    private List<ReportSnapshotDTO.RankItem> mergePageUniques(List<ReportSnapshotDTO.RankItem> pages,
+                                                              Integer startKey, Integer endKey) {
+        if (pages.isEmpty()) {
+            return pages;
+        }
+        Map<String, UniqueEstimator> uniques = new HashMap<>();
+        for (PageStats stats : pageStatsMapper.selectList(new QueryWrapper<PageStats>()
+                .select("page_url", "unique_ip_count", "ip_sketch")
+                .in("page_url", pages.stream().map(ReportSnapshotDTO.RankItem::getName).collect(Collectors.toList()))
+                .between("date_key", startKey, endKey))) {
+            uniques.computeIfAbsent(stats.getPageUrl(), k -> new UniqueEstimator())
+                .add(stats.getIpSketch(), stats.getUniqueIpCount() != null ? stats.getUniqueIpCount().longValue() : null);
+        }
+        for (ReportSnapshotDTO.RankItem page : pages) {
+            UniqueEstimator estimator = uniques.get(page.getName());
+            if (estimator != null) {
+                page.setUniqueIps(estimator.estimate());
+            }
+        }
+        return pages;
+    }
+
+    private static List<ReportSnapshotDTO.RankItem> toRankItems(List<Map<String, Object>> rows) {
+        List<ReportSnapshotDTO.RankItem> items = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            items.add(new ReportSnapshotDTO.RankItem(
+                (String) row.get("name"),
+                ((Number) row.getOrDefault("visits", 0)).longValue(),
+                ((Number) row.getOrDefault("uniqueIps", 0)).longValue()));
+        }
+        return items;
+    }
+
+    private static long nvl(Long value) {
+        return value != null ? value : 0L;
+    }
+}
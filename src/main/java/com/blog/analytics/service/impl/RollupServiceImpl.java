@@ -0,0 +1,469 @@
+package com.blog.analytics.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.blog.analytics.dto.SeriesStatsDTO;
+import com.blog.analytics.dto.StatsSummary;
+import com.blog.analytics.entity.DailyStats;
+import com.blog.analytics.entity.HourlyStats;
+import com.blog.analytics.entity.PagePeriodStats;
+import com.blog.analytics.entity.PageStats;
+import com.blog.analytics.entity.PeriodStats;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.HourlyStatsMapper;
+import com.blog.analytics.mapper.PagePeriodStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.mapper.PeriodStatsMapper;
+import com.blog.analytics.service.RollupService;
+import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.UniqueEstimator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 多粒度汇总服务实现类
+ * <p>
+ * 周、月汇总在某天的每日统计写入或重建后，按该天所在的周期从daily_stats/page_stats重新汇总（每个周期最多31行），
+ * 不扫描访问记录。查询时先把每个分组周期拆成若干段：已结束的完整月、完整周读取对应汇总，
+ * 首尾零散的日期、缺失汇总或汇总在周期结束前刷新的周期读取每日统计；未结束的周期总是按天拼接。
+ * 整个查询最多三次按主键或日期键的读取，一年按周查询只读取约52行汇总。
+ * <p>
+ * 独立IP数不能相加（同一IP在多天访问会重复计数），每天、每个周期都保存独立IP的HyperLogLog草图，
+ * 任意范围的独立IP由所用各段的草图合并估计，代价为段数×最多12KB；没有草图的天退化为累加其独立IP数。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RollupServiceImpl implements RollupService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final DailyStatsMapper dailyStatsMapper;
+    private final HourlyStatsMapper hourlyStatsMapper;
+    private final PageStatsMapper pageStatsMapper;
+    private final PeriodStatsMapper periodStatsMapper;
+    private final PagePeriodStatsMapper pagePeriodStatsMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${blog.analytics.rollup.max-points:1000}")
+    private int maxPoints;
+
+    @Override
+    public SeriesStatsDTO getSeries(LocalDate startDate, LocalDate endDate, Granularity granularity, String pageUrl) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        if (granularity == Granularity.HOUR) {
+            if (pageUrl != null) {
+                throw new IllegalArgumentException("页面统计不支持按小时查询");
+            }
+            return getHourlySeries(startDate, endDate);
+        }
+
+        List<Bucket> buckets = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (LocalDate from = startDate; !from.isAfter(endDate); ) {
+            LocalDate to = granularity.periodEnd(from);
+            if (to.isAfter(endDate)) {
+                to = endDate;
+            }
+            buckets.add(new Bucket(from, to, plan(from, to, granularity, today)));
+            from = to.plusDays(1);
+        }
+        checkPoints(buckets.size());
+
+        // 先读取周、月汇总，缺失的周期展开为天
+        Map<Segment, Totals> coarse = loadCoarse(buckets, pageUrl);
+        Set<Integer> dateKeys = new LinkedHashSet<>();
+        for (Bucket bucket : buckets) {
+            for (Segment segment : bucket.segments) {
+                if (segment.level == Granularity.DAY || !coarse.containsKey(segment)) {
+                    for (LocalDate d = segment.start; !d.isAfter(segment.end); d = d.plusDays(1)) {
+                        dateKeys.add(DateUtil.getDateKey(d));
+                    }
+                }
+            }
+        }
+        Map<Integer, Totals> daily = loadDaily(dateKeys, pageUrl);
+
+        List<SeriesStatsDTO.Point> points = new ArrayList<>(buckets.size());
+        Totals sum = new Totals();
+        for (Bucket bucket : buckets) {
+            Totals totals = new Totals();
+            for (Segment segment : bucket.segments) {
+                Totals rollup = segment.level == Granularity.DAY ? null : coarse.get(segment);
+                if (rollup != null) {
+                    totals.add(rollup);
+                    continue;
+                }
+                for (LocalDate d = segment.start; !d.isAfter(segment.end); d = d.plusDays(1)) {
+                    totals.add(daily.get(DateUtil.getDateKey(d)));
+                }
+            }
+            sum.add(totals);
+            points.add(new SeriesStatsDTO.Point(bucket.start.atStartOfDay(), bucket.end.plusDays(1).atStartOfDay(),
+                totals.visits, totals.uniqueIps.estimate(), pageUrl == null ? totals.pageViews : null));
+        }
+
+        return SeriesStatsDTO.builder()
+            .granularity(granularity.name())
+            .pageUrl(pageUrl)
+            .data(points)
+            .total(sum.toSummary(pageUrl == null))
+            .build();
+    }
+
+    @Override
+    public void refresh(LocalDate date) {
+        refreshPeriod(Granularity.WEEK, date);
+        refreshPeriod(Granularity.MONTH, date);
+    }
+
+    @Override
+    public int refreshRange(LocalDate startDate, LocalDate endDate) {
+        int periods = 0;
+        for (Granularity level : new Granularity[]{Granularity.WEEK, Granularity.MONTH}) {
+            for (LocalDate d = level.periodStart(startDate); !d.isAfter(endDate); d = level.periodEnd(d).plusDays(1)) {
+                refreshPeriod(level, d);
+                periods++;
+            }
+        }
+        log.info("重新汇总周期统计完成 - 日期范围: {} - {}, 周期数: {}", startDate, endDate, periods);
+        return periods;
+    }
+
+    private void refreshPeriod(Granularity level, LocalDate date) {
+        Integer periodKey = DateUtil.getDateKey(level.periodStart(date));
+        Integer periodEnd = DateUtil.getDateKey(level.periodEnd(date));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            UniqueEstimator uniques = new UniqueEstimator();
+            for (DailyStats stats : dailyStatsMapper.selectList(new QueryWrapper<DailyStats>()
+                    .select("date_key", "unique_ips", "ip_sketch")
+                    .between("date_key", periodKey, periodEnd))) {
+                uniques.add(stats.getIpSketch(), stats.getUniqueIps());
+            }
+            periodStatsMapper.refresh(level.name(), periodKey, periodEnd, uniques.estimate(), uniques.toBytes());
+
+            List<PagePeriodStats> pages = aggregatePages(level, periodKey, periodEnd);
+            pagePeriodStatsMapper.deletePeriod(level.name(), periodKey);
+            for (int i = 0; i < pages.size(); i += BATCH_SIZE) {
+                pagePeriodStatsMapper.batchInsert(pages.subList(i, Math.min(i + BATCH_SIZE, pages.size())));
+            }
+        });
+        log.debug("重新汇总周期统计 - 类型: {}, 周期: {} - {}", level, periodKey, periodEnd);
+    }
+
+    /**
+     * 按页面URL顺序遍历周期内的页面统计，逐个页面合并草图，同一时刻只保留一个页面的草图
+     */
+    private List<PagePeriodStats> aggregatePages(Granularity level, Integer periodKey, Integer periodEnd) {
+        List<PagePeriodStats> pages = new ArrayList<>();
+        try (Cursor<PageStats> cursor = pageStatsMapper.streamVisitStats(periodKey, periodEnd)) {
+            PagePeriodStats current = null;
+            UniqueEstimator uniques = null;
+            for (PageStats stats : cursor) {
+                if (current == null || !current.getPageUrl().equals(stats.getPageUrl())) {
+                    finishPage(current, uniques, pages);
+                    current = new PagePeriodStats();
+                    current.setPeriodType(level.name());
+                    current.setPeriodKey(periodKey);
+                    current.setPageUrl(stats.getPageUrl());
+                    current.setVisitCount(0L);
+                    uniques = new UniqueEstimator();
+                }
+                current.setVisitCount(current.getVisitCount() + (stats.getVisitCount() != null ? stats.getVisitCount() : 0));
+                uniques.add(stats.getIpSketch(), stats.getUniqueIpCount() != null ? stats.getUniqueIpCount().longValue() : null);
+            }
+            finishPage(current, uniques, pages);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // 游标关闭后才能在同一连接上执行写入
+        return pages;
+    }
+
+    private static void finishPage(PagePeriodStats page, UniqueEstimator uniques, List<PagePeriodStats> pages) {
+        if (page != null) {
+            page.setUniqueIpCount(uniques.estimate());
+            page.setIpSketch(uniques.toBytes());
+            pages.add(page);
+        }
+    }
+
+    /**
+     * 把一个分组周期拆成尽量粗的段：已结束的完整月，其次已结束的完整周，其余为天
+     */
+    static List<Segment> plan(LocalDate start, LocalDate end, Granularity maxLevel, LocalDate today) {
+        List<Segment> segments = new ArrayList<>();
+        LocalDate d = start;
+        while (!d.isAfter(end)) {
+            Granularity level = Granularity.DAY;
+            for (Granularity candidate : new Granularity[]{Granularity.MONTH, Granularity.WEEK}) {
+                LocalDate periodEnd = candidate.periodEnd(d);
+                if (candidate.compareTo(maxLevel) <= 0 && candidate.periodStart(d).equals(d)
+                        && !periodEnd.isAfter(end) && periodEnd.isBefore(today)) {
+                    level = candidate;
+                    break;
+                }
+            }
+            LocalDate segmentEnd = level.periodEnd(d);
+            segments.add(new Segment(level, d, segmentEnd));
+            d = segmentEnd.plusDays(1);
+        }
+        return segments;
+    }
+
+    private Map<Segment, Totals> loadCoarse(List<Bucket> buckets, String pageUrl) {
+        Map<Segment, Totals> result = new HashMap<>();
+        for (Granularity level : new Granularity[]{Granularity.WEEK, Granularity.MONTH}) {
+            Map<Integer, Segment> byKey = new HashMap<>();
+            for (Bucket bucket : buckets) {
+                for (Segment segment : bucket.segments) {
+                    if (segment.level == level) {
+                        byKey.put(DateUtil.getDateKey(segment.start), segment);
+                    }
+                }
+            }
+            if (byKey.isEmpty()) {
+                continue;
+            }
+            if (pageUrl == null) {
+                for (PeriodStats stats : periodStatsMapper.selectList(new QueryWrapper<PeriodStats>()
+                        .select("period_key", "total_visits", "unique_ips", "page_views", "session_count",
+                            "bounce_sessions", "total_session_duration", "ip_sketch", "updated_at")
+                        .eq("period_type", level.name())
+                        .in("period_key", byKey.keySet()))) {
+                    Segment segment = byKey.get(stats.getPeriodKey());
+                    if (isFinal(segment, stats.getUpdatedAt())) {
+                        result.put(segment, Totals.of(stats));
+                    }
+                }
+            } else {
+                for (PagePeriodStats stats : pagePeriodStatsMapper.selectList(new QueryWrapper<PagePeriodStats>()
+                        .select("period_key", "visit_count", "unique_ip_count", "ip_sketch", "updated_at")
+                        .eq("page_url", pageUrl)
+                        .eq("period_type", level.name())
+                        .in("period_key", byKey.keySet()))) {
+                    Segment segment = byKey.get(stats.getPeriodKey());
+                    if (isFinal(segment, stats.getUpdatedAt())) {
+                        result.put(segment, Totals.of(stats.getVisitCount(), stats.getUniqueIpCount(), stats.getIpSketch()));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 周期结束前刷新的汇总可能缺少最后几天，此时按天拼接
+     */
+    private static boolean isFinal(Segment segment, LocalDateTime updatedAt) {
+        return updatedAt == null || !updatedAt.isBefore(segment.end.plusDays(1).atStartOfDay());
+    }
+
+    private Map<Integer, Totals> loadDaily(Set<Integer> dateKeys, String pageUrl) {
+        Map<Integer, Totals> result = new HashMap<>();
+        if (dateKeys.isEmpty()) {
+            return result;
+        }
+        if (pageUrl == null) {
+            for (DailyStats stats : dailyStatsMapper.selectList(new QueryWrapper<DailyStats>()
+                    .select("date_key", "total_visits", "unique_ips", "page_views", "session_count",
+                        "bounce_sessions", "total_session_duration", "ip_sketch")
+                    .in("date_key", dateKeys))) {
+                result.put(stats.getDateKey(), Totals.of(stats));
+            }
+        } else {
+            for (PageStats stats : pageStatsMapper.selectList(new QueryWrapper<PageStats>()
+                    .select("date_key", "visit_count", "unique_ip_count", "ip_sketch")
+                    .eq("page_url", pageUrl)
+                    .in("date_key", dateKeys))) {
+                result.put(stats.getDateKey(), Totals.of(
+                    stats.getVisitCount() != null ? stats.getVisitCount().longValue() : null,
+                    stats.getUniqueIpCount() != null ? stats.getUniqueIpCount().longValue() : null,
+                    stats.getIpSketch()));
+            }
+        }
+        return result;
+    }
+
+    private SeriesStatsDTO getHourlySeries(LocalDate startDate, LocalDate endDate) {
+        long hours = (ChronoUnit.DAYS.between(startDate, endDate) + 1) * 24;
+        checkPoints(hours);
+        Map<Integer, HourlyStats> byHour = new HashMap<>();
+        for (HourlyStats stats : hourlyStatsMapper.selectList(new QueryWrapper<HourlyStats>()
+                .between("hour_key", DateUtil.getDateKey(startDate) * 100, DateUtil.getDateKey(endDate) * 100 + 23))) {
+            byHour.put(stats.getHourKey(), stats);
+        }
+
+        List<SeriesStatsDTO.Point> points = new ArrayList<>((int) hours);
+        Totals sum = new Totals();
+        Map<Integer, Long> hourlyUniquesByDay = new HashMap<>();
+        for (LocalDateTime hour = startDate.atStartOfDay(); hour.isBefore(endDate.plusDays(1).atStartOfDay());
+             hour = hour.plusHours(1)) {
+            HourlyStats stats = byHour.get(DateUtil.getHourKey(hour));
+            long visits = stats != null && stats.getVisitCount() != null ? stats.getVisitCount() : 0;
+            long uniqueIps = stats != null && stats.getUniqueIpCount() != null ? stats.getUniqueIpCount() : 0;
+            sum.add(Totals.of(visits, null, null));
+            hourlyUniquesByDay.merge(DateUtil.getDateKey(hour.toLocalDate()), uniqueIps, Long::sum);
+            points.add(new SeriesStatsDTO.Point(hour, hour.plusHours(1), visits, uniqueIps, null));
+        }
+
+        // 总独立IP按天合并草图，没有草图的天只能累加各小时的独立IP
+        Map<Integer, byte[]> sketches = new HashMap<>();
+        for (DailyStats stats : dailyStatsMapper.selectList(new QueryWrapper<DailyStats>()
+                .select("date_key", "ip_sketch")
+                .between("date_key", DateUtil.getDateKey(startDate), DateUtil.getDateKey(endDate)))) {
+            sketches.put(stats.getDateKey(), stats.getIpSketch());
+        }
+        for (Map.Entry<Integer, Long> day : hourlyUniquesByDay.entrySet()) {
+            sum.uniqueIps.add(sketches.get(day.getKey()), day.getValue());
+        }
+        return SeriesStatsDTO.builder()
+            .granularity(Granularity.HOUR.name())
+            .data(points)
+            .total(sum.toSummary(false))
+            .build();
+    }
+
+    private void checkPoints(long points) {
+        if (points > maxPoints) {
+            throw new IllegalArgumentException("查询结果不能超过" + maxPoints + "个周期，请使用更粗的粒度");
+        }
+    }
+
+    /**
+     * 分组周期（按查询范围截断）及其拆分结果
+     */
+    private static final class Bucket {
+
+        private final LocalDate start;
+        private final LocalDate end;
+        private final List<Segment> segments;
+
+        private Bucket(LocalDate start, LocalDate end, List<Segment> segments) {
+            this.start = start;
+            this.end = end;
+            this.segments = segments;
+        }
+    }
+
+    /**
+     * 读取同一级汇总的一段连续日期
+     */
+    static final class Segment {
+
+        final Granularity level;
+        final LocalDate start;
+        final LocalDate end;
+
+        Segment(Granularity level, LocalDate start, LocalDate end) {
+            this.level = level;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Segment)) {
+                return false;
+            }
+            Segment other = (Segment) o;
+            return level == other.level && start.equals(other.start);
+        }
+
+        @Override
+        public int hashCode() {
+            return level.hashCode() * 31 + start.hashCode();
+        }
+    }
+
+    /**
+     * 可累加的统计值，独立IP数按草图合并
+     */
+    private static final class Totals {
+
+        private long visits;
+        private final UniqueEstimator uniqueIps = new UniqueEstimator();
+        private long pageViews;
+        private long sessions;
+        private long bounces;
+        private long duration;
+
+        static Totals of(Long visits, Long uniqueIps, byte[] ipSketch) {
+            Totals totals = new Totals();
+            totals.visits = nvl(visits);
+            totals.uniqueIps.add(ipSketch, uniqueIps);
+            return totals;
+        }
+
+        static Totals of(DailyStats stats) {
+            Totals totals = of(stats.getTotalVisits(), stats.getUniqueIps(), stats.getIpSketch());
+            totals.pageViews = nvl(stats.getPageViews());
+            totals.sessions = nvl(stats.getSessionCount());
+            totals.bounces = nvl(stats.getBounceSessions());
+            totals.duration = nvl(stats.getTotalSessionDuration());
+            return totals;
+        }
+
+        static Totals of(PeriodStats stats) {
+            Totals totals = of(stats.getTotalVisits(), stats.getUniqueIps(), stats.getIpSketch());
+            totals.pageViews = nvl(stats.getPageViews());
+            totals.sessions = nvl(stats.getSessionCount());
+            totals.bounces = nvl(stats.getBounceSessions());
+            totals.duration = nvl(stats.getTotalSessionDuration());
+            return totals;
+        }
+
+        void add(Totals other) {
+            if (other == null) {
+                return;
+            }
+            visits += other.visits;
+            uniqueIps.add(other.uniqueIps);
+            pageViews += other.pageViews;
+            sessions += other.sessions;
+            bounces += other.bounces;
+            duration += other.duration;
+        }
+
+        /**
+         * 会话指标按会话数加权汇总，与日期范围统计接口一致
+         */
+        StatsSummary toSummary(boolean withPageViews) {
+            return StatsSummary.builder()
+                .visits(visits)
+                .uniqueIps(uniqueIps.estimate())
+                .pageViews(withPageViews ? pageViews : null)
+                .avgBounceRate(sessions > 0 ? Math.round(bounces * 10000.0 / sessions) / 100.0 : null)
+                .avgSessionDuration(sessions > 0 ? (int) (duration / sessions) : null)
+                .build();
+        }
+
+        private static long nvl(Long value) {
+            return value != null ? value : 0L;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package com.blog.analytics.service.impl;
 
+import com.blog.analytics.redis.RedisKeyLayout;
+import com.blog.analytics.redis.RedisLeaseLock;
+import com.blog.analytics.redis.ScheduledJobCoordinator;
 import com.blog.analytics.service.AnalyticsService;
+import com.blog.analytics.service.BackfillService;
+import com.blog.analytics.service.ReportService;
+import com.blog.analytics.service.RollupService;
 import com.blog.analytics.service.ScheduledService;
 import com.blog.analytics.utils.DateUtil;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +18,9 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,6 +28,9 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * 定时任务服务实现类
+ * <p>
+ * 多实例部署时每个任务的每次运行只由一个实例执行（见{@link ScheduledJobCoordinator}），
+ * 过期访问记录的清理按日期分片，由各实例分摊。
  *
  * @author hoppinzq
  * @since 2025-12-12
@@ -30,9 +42,18 @@ public class ScheduledServiceImpl implements ScheduledService {
 
     private final AnalyticsService analyticsService;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, Long> counterRedisTemplate;
+    private final RedisKeyLayout redisKeyLayout;
+    private final ScheduledJobCoordinator scheduledJobCoordinator;
+    private final ReportService reportService;
+    private final RollupService rollupService;
+    private final BackfillService backfillService;
 
-    @Value("${blog.analytics.redis-prefix:blog:analytics:}")
-    private String redisPrefix;
+    @Value("${blog.analytics.record-expire-days:90}")
+    private int recordExpireDays;
+
+    @Value("${blog.analytics.scheduler.cleanup-partitions:7}")
+    private int cleanupPartitions;
 
     /**
      * 每小时同步Redis数据到MySQL
@@ -43,7 +64,8 @@ public class ScheduledServiceImpl implements ScheduledService {
     public void syncRedisToMySQLHourly() {
         log.info("开始执行每小时数据同步任务");
         try {
-            analyticsService.syncRedisToMySQL();
+            scheduledJobCoordinator.runExclusive("sync-hourly", String.valueOf(DateUtil.getCurrentHourKey()),
+                    lease -> analyticsService.syncRedisToMySQL());
             log.info("每小时数据同步任务执行完成");
         } catch (Exception e) {
             log.error("每小时数据同步任务执行失败", e);
@@ -63,8 +85,15 @@ public class ScheduledServiceImpl implements ScheduledService {
             LocalDate yesterday = LocalDate.now().minusDays(1);
             Integer yesterdayKey = DateUtil.getDateKey(yesterday);
 
-            // 将Redis中的统计数据同步到MySQL
-            syncRedisStatsToMySQL(yesterdayKey);
+            // 将Redis中的统计数据同步到MySQL，按原始记录写入昨天的精确统计和独立IP草图，再重新汇总昨天所在的周和月
+            // 覆盖写入前确认仍持有租约，重建在事务内写入前和提交前各确认一次，失去租约时回滚
+            scheduledJobCoordinator.runExclusive("daily-stats-sync", String.valueOf(yesterdayKey), lease -> {
+                syncRedisStatsToMySQL(yesterdayKey);
+                long rows = backfillService.rebuildDay(yesterdayKey, lease::checkHeld);
+                log.info("昨日统计和独立IP草图已写入 - 日期: {}, 记录数: {}", yesterdayKey, rows);
+                lease.checkHeld();
+                rollupService.refresh(yesterday);
+            });
 
             log.info("每日统计同步任务执行完成");
         } catch (Exception e) {
@@ -81,10 +110,14 @@ public class ScheduledServiceImpl implements ScheduledService {
     public void cleanExpiredData() {
         log.info("开始执行数据清理任务");
         try {
-            analyticsService.cleanExpiredData();
+            // 按日期分片删除过期访问记录，各实例分摊
+            String runId = String.valueOf(DateUtil.getCurrentDateKey());
+            LocalDateTime expireTime = LocalDate.now().minusDays(recordExpireDays).atStartOfDay();
+            scheduledJobCoordinator.runPartitioned("clean-visit-records", runId, cleanupPartitions,
+                    (partition, lease) -> cleanVisitRecordPartition(partition, expireTime, lease));
 
             // 清理Redis中的过期键
-            cleanExpiredRedisKeys();
+            scheduledJobCoordinator.runExclusive("clean-redis-keys", runId, this::cleanExpiredRedisKeys);
 
             log.info("数据清理任务执行完成");
         } catch (Exception e) {
@@ -102,8 +135,10 @@ public class ScheduledServiceImpl implements ScheduledService {
         log.info("开始生成日报统计");
         try {
             LocalDate yesterday = LocalDate.now().minusDays(1);
-            // 这里可以实现生成日报的逻辑，比如发送邮件报告等
-            log.info("日报统计生成完成，日期: {}", yesterday);
+            scheduledJobCoordinator.runExclusive("daily-report", yesterday.toString(), lease -> {
+                reportService.generate(ReportService.ReportType.DAILY, yesterday);
+                log.info("日报统计生成完成，日期: {}", yesterday);
+            });
         } catch (Exception e) {
             log.error("生成日报统计失败", e);
         }
@@ -120,7 +155,10 @@ public class ScheduledServiceImpl implements ScheduledService {
         try {
             LocalDate weekStart = LocalDate.now().minusWeeks(1).with(java.time.DayOfWeek.MONDAY);
             LocalDate weekEnd = weekStart.plusDays(6);
-            log.info("周报统计生成完成，日期范围: {} - {}", weekStart, weekEnd);
+            scheduledJobCoordinator.runExclusive("weekly-report", weekStart.toString(), lease -> {
+                reportService.generate(ReportService.ReportType.WEEKLY, weekStart);
+                log.info("周报统计生成完成，日期范围: {} - {}", weekStart, weekEnd);
+            });
         } catch (Exception e) {
             log.error("生成周报统计失败", e);
         }
@@ -138,24 +176,44 @@ public class ScheduledServiceImpl implements ScheduledService {
             LocalDate lastMonth = LocalDate.now().minusMonths(1);
             LocalDate monthStart = lastMonth.withDayOfMonth(1);
             LocalDate monthEnd = lastMonth.withDayOfMonth(lastMonth.lengthOfMonth());
-            log.info("月报统计生成完成，日期范围: {} - {}", monthStart, monthEnd);
+            scheduledJobCoordinator.runExclusive("monthly-report", monthStart.toString(), lease -> {
+                reportService.generate(ReportService.ReportType.MONTHLY, monthStart);
+                log.info("月报统计生成完成，日期范围: {} - {}", monthStart, monthEnd);
+            });
         } catch (Exception e) {
             log.error("生成月报统计失败", e);
         }
     }
 
+    /**
+     * 删除一个分片的过期访问记录
+     * 分片0删除窗口之前的全部记录（正常情况下已为空），其余分片各删除窗口内的一天，窗口为过期时间之前的若干天。
+     * 删除前确认仍持有该分片的租约
+     */
+    private void cleanVisitRecordPartition(int partition, LocalDateTime expireTime, RedisLeaseLock.Lease lease) {
+        int days = cleanupPartitions - 1;
+        LocalDateTime startTime = partition == 0 ? null : expireTime.minusDays(days - partition + 1);
+        LocalDateTime endTime = expireTime.minusDays(partition == 0 ? days : days - partition);
+        lease.checkHeld();
+        analyticsService.cleanExpiredData(startTime, endTime);
+    }
+
     /**
      * 同步Redis统计数据到MySQL
      */
     private void syncRedisStatsToMySQL(Integer dateKey) {
         try {
             // 同步访问次数统计
-            String visitCountKey = redisPrefix + "visit:count:" + dateKey;
-            Long visitCount = redisTemplate.opsForValue().get(visitCountKey) != null ?
-                Long.valueOf(redisTemplate.opsForValue().get(visitCountKey).toString()) : 0L;
+            String visitCountKey = redisKeyLayout.readTagged() ?
+                    redisKeyLayout.visitCount(dateKey) : redisKeyLayout.legacyVisitCount(dateKey);
+            Long visitCount = counterRedisTemplate.opsForValue().get(visitCountKey);
+            if (visitCount == null) {
+                visitCount = 0L;
+            }
 
             // 同步独立IP统计
-            String ipSetKey = redisPrefix + "unique:ip:" + dateKey;
+            String ipSetKey = redisKeyLayout.readTagged() ?
+                    redisKeyLayout.uniqueIp(dateKey) : redisKeyLayout.legacyUniqueIp(dateKey);
             Long uniqueIpCount = redisTemplate.opsForSet().size(ipSetKey);
 
             if (visitCount > 0 || uniqueIpCount != null && uniqueIpCount > 0) {
@@ -181,25 +239,16 @@ public class ScheduledServiceImpl implements ScheduledService {
      */
     private void syncPageStatsToMySQL(Integer dateKey) {
         try {
-            String pagePattern = redisPrefix + "page:visit:*:" + dateKey;
-            Set<String> pageKeys = redisTemplate.keys(pagePattern);
-
-            if (pageKeys != null && !pageKeys.isEmpty()) {
-                log.info("开始同步页面统计数据，页面数量: {}", pageKeys.size());
+            Map<String, Long> visitsByPage = redisKeyLayout.readTagged() ?
+                    counterRedisTemplate.<String, Long>opsForHash().entries(redisKeyLayout.pageVisits(dateKey)) :
+                    getLegacyPageVisits(dateKey);
 
-                for (String pageKey : pageKeys) {
-                    try {
-                        String[] parts = pageKey.split(":");
-                        if (parts.length >= 4) {
-                            String pageUrl = parts[2];
-                            Long visitCount = Long.valueOf(redisTemplate.opsForValue().get(pageKey).toString());
+            if (!visitsByPage.isEmpty()) {
+                log.info("开始同步页面统计数据，页面数量: {}", visitsByPage.size());
 
-                            // 这里可以将页面统计数据插入到page_stats表
-                            log.debug("同步页面统计 - URL: {}, 访问次数: {}", pageUrl, visitCount);
-                        }
-                    } catch (Exception e) {
-                        log.error("同步单个页面统计失败，键: {}", pageKey, e);
-                    }
+                for (Map.Entry<String, Long> entry : visitsByPage.entrySet()) {
+                    // 这里可以将页面统计数据插入到page_stats表
+                    log.debug("同步页面统计 - URL: {}, 访问次数: {}", entry.getKey(), entry.getValue());
                 }
             }
 
@@ -208,13 +257,33 @@ public class ScheduledServiceImpl implements ScheduledService {
         }
     }
 
+    /**
+     * 从旧布局读取某天的页面计数：KEYS扫描后一次MGET取回
+     */
+    private Map<String, Long> getLegacyPageVisits(Integer dateKey) {
+        Set<String> pageKeys = redisTemplate.keys(redisKeyLayout.legacyPageVisitPattern(dateKey));
+        if (pageKeys == null || pageKeys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> keys = new ArrayList<>(pageKeys);
+        List<Long> counts = counterRedisTemplate.opsForValue().multiGet(keys);
+        Map<String, Long> result = new HashMap<>(keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++) {
+            String pageUrl = redisKeyLayout.legacyPageUrlOf(keys.get(i), dateKey);
+            if (pageUrl != null && counts != null) {
+                result.put(pageUrl, counts.get(i));
+            }
+        }
+        return result;
+    }
+
     /**
      * 清理Redis中的过期键
      */
-    private void cleanExpiredRedisKeys() {
+    private void cleanExpiredRedisKeys(RedisLeaseLock.Lease lease) {
         try {
             // 清理超过7天的访问统计键
-            String visitPattern = redisPrefix + "visit:count:*";
+            String visitPattern = redisKeyLayout.legacyVisitCountPattern();
             Set<String> visitKeys = redisTemplate.keys(visitPattern);
 
             if (visitKeys != null) {
@@ -222,10 +291,14 @@ public class ScheduledServiceImpl implements ScheduledService {
                 LocalDate expireDate = LocalDate.now().minusDays(7);
 
                 for (String key : visitKeys) {
+                    if (!lease.isHeld()) {
+                        log.warn("租约已失效，停止清理访问统计键，令牌: {}", lease.getToken());
+                        return;
+                    }
                     try {
                         String[] parts = key.split(":");
                         if (parts.length >= 3) {
-                            Integer dateKey = Integer.parseInt(parts[2]);
+                            Integer dateKey = Integer.parseInt(parts[parts.length - 1]);
                             LocalDate keyDate = DateUtil.dateKeyToLocalDate(dateKey);
 
                             if (keyDate != null && keyDate.isBefore(expireDate)) {
@@ -242,7 +315,7 @@ public class ScheduledServiceImpl implements ScheduledService {
             }
 
             // 清理在线用户键（超过2小时的）
-            String onlinePattern = redisPrefix + "online:users:*";
+            String onlinePattern = redisKeyLayout.onlineUserPattern();
             Set<String> onlineKeys = redisTemplate.keys(onlinePattern);
 
             if (onlineKeys != null) {
@@ -0,0 +1,217 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.dto.VisitRecordDTO;
+import com.blog.analytics.entity.PageStats;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.service.SessionService;
+import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.HashUtil;
+import com.blog.analytics.utils.Sessionizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 会话统计服务实现类
+ * <p>
+ * 访问到达时在内存中增量切分会话，会话关闭时把跳出、时长、入口页、退出页累加到按天的汇总中，
+ * 定期批量累加写入daily_stats/page_stats，避免对visit_record做自连接计算。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SessionServiceImpl implements SessionService {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final DailyStatsMapper dailyStatsMapper;
+    private final PageStatsMapper pageStatsMapper;
+
+    @Value("${blog.analytics.session.timeout-minutes:30}")
+    private int timeoutMinutes;
+
+    @Value("${blog.analytics.session.tick-ms:10000}")
+    private long tickMillis;
+
+    @Value("${blog.analytics.session.max-sessions:200000}")
+    private int maxSessions;
+
+    private Sessionizer sessionizer;
+
+    /**
+     * 待写入的按天汇总，由rollupLock保护
+     */
+    private final Object rollupLock = new Object();
+    private Map<Integer, DayRollup> rollups = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        sessionizer = new Sessionizer(
+            TimeUnit.MINUTES.toMillis(timeoutMinutes),
+            tickMillis,
+            1024,
+            maxSessions,
+            this::onSessionClosed);
+    }
+
+    @Override
+    public void onVisit(VisitRecordDTO dto) {
+        long visitorKey = HashUtil.hash64(dto.getIpAddress(), dto.getUserAgent());
+        sessionizer.onVisit(visitorKey, dto.getPageUrl(), System.currentTimeMillis());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${blog.analytics.session.tick-ms:10000}")
+    public void expireSessions() {
+        int closed = sessionizer.advance(System.currentTimeMillis());
+        if (closed > 0) {
+            log.debug("关闭超时会话: {}, 活跃会话: {}", closed, sessionizer.activeSessions());
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${blog.analytics.session.flush-interval-ms:60000}")
+    public void flushSessionStats() {
+        Map<Integer, DayRollup> pending;
+        synchronized (rollupLock) {
+            if (rollups.isEmpty()) {
+                return;
+            }
+            pending = rollups;
+            rollups = new HashMap<>();
+        }
+
+        for (Map.Entry<Integer, DayRollup> entry : pending.entrySet()) {
+            Integer dateKey = entry.getKey();
+            DayRollup day = entry.getValue();
+            try {
+                if (day.sessions > 0) {
+                    dailyStatsMapper.upsertSessionStats(dateKey, DateUtil.dateKeyToString(dateKey),
+                        day.sessions, day.bounces, day.durationSeconds);
+                }
+            } catch (Exception e) {
+                log.error("写入每日会话统计失败，日期: {}，将在下次重试", dateKey, e);
+                mergeBack(dateKey, day);
+                continue;
+            }
+            flushPageStats(dateKey, day.pages);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        int closed = sessionizer.closeAll();
+        log.info("停机关闭活跃会话: {}", closed);
+        flushSessionStats();
+    }
+
+    /**
+     * 会话关闭回调（在Sessionizer锁内执行）
+     */
+    private void onSessionClosed(long startTime, long lastSeenTime, int pageViews, String entryPage, String exitPage) {
+        Integer dateKey = DateUtil.getDateKey(
+            Instant.ofEpochMilli(startTime).atZone(ZoneId.systemDefault()).toLocalDate());
+        boolean bounce = pageViews <= 1;
+        long durationSeconds = (lastSeenTime - startTime) / 1000;
+
+        synchronized (rollupLock) {
+            DayRollup day = rollups.computeIfAbsent(dateKey, k -> new DayRollup());
+            day.sessions++;
+            day.durationSeconds += durationSeconds;
+            if (bounce) {
+                day.bounces++;
+            }
+            PageRollup entry = day.page(entryPage);
+            entry.entries++;
+            if (bounce) {
+                entry.bounces++;
+            }
+            day.page(exitPage).exits++;
+        }
+    }
+
+    /**
+     * 分批累加写入页面会话统计。每批独立提交，失败时只合并回尚未写入的页面，已写入的批次不会重复累加
+     */
+    private void flushPageStats(Integer dateKey, Map<String, PageRollup> pages) {
+        List<PageStats> batch = new ArrayList<>(pages.size());
+        for (Map.Entry<String, PageRollup> entry : pages.entrySet()) {
+            PageStats stats = new PageStats();
+            stats.setPageUrl(entry.getKey());
+            stats.setDateKey(dateKey);
+            stats.setBounceCount(entry.getValue().bounces);
+            stats.setEntryCount(entry.getValue().entries);
+            stats.setExitCount(entry.getValue().exits);
+            batch.add(stats);
+        }
+        int written = 0;
+        try {
+            for (; written < batch.size(); written += BATCH_SIZE) {
+                pageStatsMapper.batchUpsertSessionStats(
+                    batch.subList(written, Math.min(written + BATCH_SIZE, batch.size())));
+            }
+        } catch (Exception e) {
+            log.error("写入页面会话统计失败，日期: {}，已写入: {}, 待重试: {}",
+                dateKey, written, batch.size() - written, e);
+            DayRollup unwritten = new DayRollup();
+            for (PageStats stats : batch.subList(written, batch.size())) {
+                unwritten.pages.put(stats.getPageUrl(), pages.get(stats.getPageUrl()));
+            }
+            mergeBack(dateKey, unwritten);
+        }
+    }
+
+    private void mergeBack(Integer dateKey, DayRollup failed) {
+        synchronized (rollupLock) {
+            DayRollup day = rollups.computeIfAbsent(dateKey, k -> new DayRollup());
+            day.sessions += failed.sessions;
+            day.bounces += failed.bounces;
+            day.durationSeconds += failed.durationSeconds;
+            for (Map.Entry<String, PageRollup> entry : failed.pages.entrySet()) {
+                PageRollup page = day.page(entry.getKey());
+                page.bounces += entry.getValue().bounces;
+                page.entries += entry.getValue().entries;
+                page.exits += entry.getValue().exits;
+            }
+        }
+    }
+
+    /**
+     * 单日会话汇总
+     */
+    private static class DayRollup {
+        private long sessions;
+        private long bounces;
+        private long durationSeconds;
+        private Map<String, PageRollup> pages = new HashMap<>();
+
+        private PageRollup page(String pageUrl) {
+            return pages.computeIfAbsent(pageUrl, k -> new PageRollup());
+        }
+    }
+
+    /**
+     * 单页面会话汇总
+     */
+    private static class PageRollup {
+        private int bounces;
+        private int entries;
+        private int exits;
+    }
+}
@@ -0,0 +1,678 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.config.RedisConfig;
+import com.blog.analytics.dto.VisitRecordDTO;
+import com.blog.analytics.entity.HourlyStats;
+import com.blog.analytics.entity.RefererStats;
+import com.blog.analytics.entity.UserAgentStats;
+import com.blog.analytics.mapper.HourlyStatsMapper;
+import com.blog.analytics.mapper.RefererStatsMapper;
+import com.blog.analytics.mapper.UserAgentStatsMapper;
+import com.blog.analytics.redis.RedisCommandBatcher;
+import com.blog.analytics.redis.RedisKeyLayout;
+import com.blog.analytics.service.VisitAggregationService;
+import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.DeltaCounter;
+import com.blog.analytics.utils.UserAgentUtil;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 访问计数本地预聚合服务实现类
+ * <p>
+ * 每次访问只在本地累加：日访问数、页面访问数、小时访问数、来源和UserAgent计数使用{@link DeltaCounter}，
+ * 独立IP和在线用户在本地去重。定时任务每隔几百毫秒把增量以INCRBY/HINCRBY/SADD一次性流水线写入Redis，
+ * 每隔几秒把小时、来源、UserAgent增量累加写入统计表。增量可交换、可累加，多个实例各自写入即可合并，
+ * Redis和数据库的写入次数只取决于刷新频率和键的数量，与访问量无关。
+ * 写入Redis时只重发响应失败的命令，已成功的INCRBY/HINCRBY不会重复累加；写入统计表时只归还尚未写入的批次。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VisitAggregationServiceImpl implements VisitAggregationService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final long WEEK_SECONDS = TimeUnit.DAYS.toSeconds(7);
+    private static final String DIRECT = "Direct";
+    private static final String UNKNOWN = "Unknown";
+    private static final String TODAY_VISITS = "todayVisits";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisTemplate<String, Long> counterRedisTemplate;
+    private final ObjectProvider<RedisCommandBatcher> redisCommandBatcherProvider;
+    private final RedisKeyLayout redisKeyLayout;
+    private final HourlyStatsMapper hourlyStatsMapper;
+    private final RefererStatsMapper refererStatsMapper;
+    private final UserAgentStatsMapper userAgentStatsMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${blog.analytics.realtime-expire-hours:2}")
+    private int realtimeExpireHours;
+
+    @Value("${blog.analytics.aggregation.redis-timeout-ms:5000}")
+    private long redisTimeoutMillis;
+
+    private final DeltaCounter<Integer> dailyVisits = new DeltaCounter<>();
+    private final DeltaCounter<DimensionKey> pageVisits = new DeltaCounter<>();
+    private final DeltaCounter<Integer> hourlyVisits = new DeltaCounter<>();
+    private final DeltaCounter<DimensionKey> refererVisits = new DeltaCounter<>();
+    private final DeltaCounter<DimensionKey> userAgentVisits = new DeltaCounter<>();
+
+    /**
+     * 待写入的独立IP（按日期），刷新时逐个移出
+     */
+    private final ConcurrentHashMap<Integer, Set<String>> pendingIps = new ConcurrentHashMap<>();
+
+    /**
+     * 待刷新的在线用户及最近访问时间
+     */
+    private final ConcurrentHashMap<String, Long> pendingOnline = new ConcurrentHashMap<>();
+
+    /**
+     * 响应失败、等待下次刷新重发的INCRBY增量（键 → 增量）
+     */
+    private final ConcurrentHashMap<String, Long> retryIncr = new ConcurrentHashMap<>();
+
+    /**
+     * 响应失败、等待下次刷新重发的HINCRBY增量
+     */
+    private final ConcurrentHashMap<HashField, Long> retryHashIncr = new ConcurrentHashMap<>();
+
+    /**
+     * 响应失败、等待下次刷新重发的EXPIRE（键 → 秒数）
+     */
+    private final ConcurrentHashMap<String, Long> retryExpire = new ConcurrentHashMap<>();
+
+    private RedisCommandBatcher redisCommandBatcher;
+
+    private Timer redisFlushTimer;
+    private Timer databaseFlushTimer;
+    private DistributionSummary redisFlushSize;
+    private DistributionSummary databaseFlushSize;
+
+    @PostConstruct
+    public void init() {
+        redisCommandBatcher = redisCommandBatcherProvider.getIfAvailable();
+
+        redisFlushTimer = Timer.builder("blog.analytics.aggregation.flush")
+            .tag("target", "redis")
+            .description("预聚合增量写入Redis的耗时")
+            .register(meterRegistry);
+        databaseFlushTimer = Timer.builder("blog.analytics.aggregation.flush")
+            .tag("target", "mysql")
+            .description("预聚合增量写入统计表的耗时")
+            .register(meterRegistry);
+        redisFlushSize = DistributionSummary.builder("blog.analytics.aggregation.flush.size")
+            .tag("target", "redis")
+            .description("每次写入Redis的增量键数（日期、页面、IP、在线用户）")
+            .register(meterRegistry);
+        databaseFlushSize = DistributionSummary.builder("blog.analytics.aggregation.flush.size")
+            .tag("target", "mysql")
+            .description("每次写入统计表的行数（小时、来源、UserAgent）")
+            .register(meterRegistry);
+        Gauge.builder("blog.analytics.aggregation.pending", pendingOnline, Map::size)
+            .tag("kind", "online")
+            .description("等待写入Redis的在线用户数")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void record(VisitRecordDTO dto, UserAgentUtil.UserAgentInfo userAgentInfo) {
+        Integer dateKey = dto.getDateKey();
+        dailyVisits.add(dateKey, 1);
+        pageVisits.add(new DimensionKey(dateKey, dto.getPageUrl()), 1);
+        hourlyVisits.add(dto.getHourKey(), 1);
+        refererVisits.add(new DimensionKey(dateKey, refererDomainOf(dto.getReferer())), 1);
+        if (userAgentInfo != null) {
+            userAgentVisits.add(new DimensionKey(dateKey, valueOrUnknown(userAgentInfo.getBrowser()),
+                valueOrUnknown(userAgentInfo.getOs()), valueOrUnknown(userAgentInfo.getDevice())), 1);
+        }
+        if (dto.getIpAddress() != null) {
+            pendingIps.computeIfAbsent(dateKey, k -> ConcurrentHashMap.newKeySet()).add(dto.getIpAddress());
+            pendingOnline.put(dto.getIpAddress(), System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${blog.analytics.aggregation.flush-interval-ms:500}")
+    public void flushToRedis() {
+        int today = DateUtil.getCurrentDateKey();
+        Map<String, Long> incrRetries = drainRetries(retryIncr);
+        Map<HashField, Long> hashIncrRetries = drainRetries(retryHashIncr);
+        Map<String, Long> expireRetries = drainRetries(retryExpire);
+        Map<Integer, Long> daily = dailyVisits.drain(date -> date < today);
+        Map<DimensionKey, Long> pages = pageVisits.drain(key -> key.dateKey < today);
+        Map<Integer, List<String>> ips = drainIps(today);
+        Map<String, Long> online = drainOnline();
+        int retries = incrRetries.size() + hashIncrRetries.size() + expireRetries.size();
+        if (retries == 0 && daily.isEmpty() && pages.isEmpty() && ips.isEmpty() && online.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        int ipCount = ips.values().stream().mapToInt(List::size).sum();
+        redisFlushSize.record(retries + daily.size() + pages.size() + ipCount + online.size());
+        RedisSink sink = redisCommandBatcher != null ? new BatcherSink() : new TemplateSink();
+        try {
+            sink.execute(s -> {
+                writeRetries(s, incrRetries, hashIncrRetries, expireRetries);
+                writeDeltas(s, daily, pages, ips, online);
+            });
+            if (sink.failed > 0) {
+                log.warn("写入访问计数增量部分失败，失败命令数: {}/{}，将在下次刷新重发",
+                    sink.failed, sink.replies.size(), sink.firstError);
+            } else {
+                log.debug("写入访问计数增量，重发数: {}, 日期数: {}, 页面数: {}, IP数: {}, 在线用户数: {}",
+                    retries, daily.size(), pages.size(), ipCount, online.size());
+            }
+        } catch (Exception e) {
+            if (!sink.replies.isEmpty()) {
+                // 命令已发出，失败的命令已在等待响应时归还
+                log.error("写入访问计数增量后释放连接失败", e);
+                return;
+            }
+            log.error("写入访问计数增量失败，将在下次刷新重试", e);
+            incrRetries.forEach((key, delta) -> retryIncr.merge(key, delta, Long::sum));
+            hashIncrRetries.forEach((field, delta) -> retryHashIncr.merge(field, delta, Long::sum));
+            retryExpire.putAll(expireRetries);
+            dailyVisits.rollback(daily);
+            pageVisits.rollback(pages);
+            ips.forEach(this::requeueIps);
+            online.forEach(this::requeueOnline);
+        } finally {
+            redisFlushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${blog.analytics.aggregation.db-flush-interval-ms:10000}")
+    public void flushToDatabase() {
+        int today = DateUtil.getCurrentDateKey();
+        int currentHour = DateUtil.getCurrentHourKey();
+        Map<Integer, Long> hours = hourlyVisits.drain(hour -> hour < currentHour);
+        Map<DimensionKey, Long> referers = refererVisits.drain(key -> key.dateKey < today);
+        Map<DimensionKey, Long> userAgents = userAgentVisits.drain(key -> key.dateKey < today);
+        if (hours.isEmpty() && referers.isEmpty() && userAgents.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        databaseFlushSize.record(hours.size() + referers.size() + userAgents.size());
+        upsertDeltas(hours, hourlyVisits, (hourKey, delta) -> {
+            HourlyStats stats = new HourlyStats();
+            stats.setHourKey(hourKey);
+            stats.setHourStr(DateUtil.hourKeyToString(hourKey).substring(0, 13));
+            stats.setVisitCount(delta.intValue());
+            return stats;
+        }, hourlyStatsMapper::batchUpsertVisitCounts, "小时访问统计");
+        upsertDeltas(referers, refererVisits, (key, delta) -> {
+            RefererStats stats = new RefererStats();
+            stats.setRefererDomain(key.value);
+            stats.setDateKey(key.dateKey);
+            stats.setVisitCount(delta);
+            return stats;
+        }, refererStatsMapper::batchUpsertVisitCounts, "来源统计");
+        upsertDeltas(userAgents, userAgentVisits, (key, delta) -> {
+            UserAgentStats stats = new UserAgentStats();
+            stats.setBrowser(key.value);
+            stats.setOs(key.os);
+            stats.setDevice(key.device);
+            stats.setDateKey(key.dateKey);
+            stats.setVisitCount(delta);
+            return stats;
+        }, userAgentStatsMapper::batchUpsertVisitCounts, "UserAgent统计");
+        databaseFlushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 分批累加写入统计表。每批是一条独立提交的upsert，失败时只归还尚未写入的批次，
+     * 已写入批次的增量不会在下次刷新时重复累加
+     */
+    private <K, T> void upsertDeltas(Map<K, Long> deltas, DeltaCounter<K> counter, BiFunction<K, Long, T> toRow,
+                                     Consumer<List<T>> upsert, String target) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(deltas.keySet());
+        List<T> batch = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            batch.add(toRow.apply(key, deltas.get(key)));
+        }
+        int written = 0;
+        try {
+            for (; written < batch.size(); written += BATCH_SIZE) {
+                upsert.accept(batch.subList(written, Math.min(written + BATCH_SIZE, batch.size())));
+            }
+        } catch (Exception e) {
+            log.error("写入{}失败，已写入: {}, 待重试: {}", target, written, batch.size() - written, e);
+            Map<K, Long> unwritten = new HashMap<>();
+            for (K key : keys.subList(written, keys.size())) {
+                unwritten.put(key, deltas.get(key));
+            }
+            counter.rollback(unwritten);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushToRedis();
+        flushToDatabase();
+    }
+
+    /**
+     * 重发上次响应失败的命令
+     */
+    private void writeRetries(RedisSink sink, Map<String, Long> incr, Map<HashField, Long> hashIncr,
+                              Map<String, Long> expire) {
+        incr.forEach(sink::incrBy);
+        hashIncr.forEach((field, delta) -> sink.hIncrBy(field.key, field.field, delta));
+        expire.forEach(sink::expire);
+    }
+
+    /**
+     * 按键布局的迁移阶段写出增量
+     */
+    private void writeDeltas(RedisSink sink, Map<Integer, Long> daily, Map<DimensionKey, Long> pages,
+                             Map<Integer, List<String>> ips, Map<String, Long> online) {
+        long realtimeSeconds = TimeUnit.HOURS.toSeconds(realtimeExpireHours);
+
+        daily.forEach((dateKey, delta) -> {
+            if (redisKeyLayout.writeLegacy()) {
+                sink.incrBy(redisKeyLayout.legacyVisitCount(dateKey), delta);
+                sink.expire(redisKeyLayout.legacyVisitCount(dateKey), WEEK_SECONDS);
+                sink.hIncrBy(redisKeyLayout.legacyRealtime(dateKey), TODAY_VISITS, delta);
+                sink.expire(redisKeyLayout.legacyRealtime(dateKey), realtimeSeconds);
+            }
+            if (redisKeyLayout.writeTagged()) {
+                sink.incrBy(redisKeyLayout.visitCount(dateKey), delta);
+                sink.expire(redisKeyLayout.visitCount(dateKey), WEEK_SECONDS);
+                sink.hIncrBy(redisKeyLayout.realtime(dateKey), TODAY_VISITS, delta);
+                sink.expire(redisKeyLayout.realtime(dateKey), realtimeSeconds);
+            }
+        });
+
+        Set<Integer> pageDates = new TreeSet<>();
+        pages.forEach((key, delta) -> {
+            if (redisKeyLayout.writeLegacy()) {
+                String pageVisitKey = redisKeyLayout.legacyPageVisit(key.value, key.dateKey);
+                sink.incrBy(pageVisitKey, delta);
+                sink.expire(pageVisitKey, WEEK_SECONDS);
+            }
+            if (redisKeyLayout.writeTagged()) {
+                sink.hIncrBy(redisKeyLayout.pageVisits(key.dateKey), key.value, delta);
+                pageDates.add(key.dateKey);
+            }
+        });
+        for (Integer dateKey : pageDates) {
+            sink.expire(redisKeyLayout.pageVisits(dateKey), WEEK_SECONDS);
+        }
+
+        // 独立IP集合与同步写入共用默认模板的编码
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> memberSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        ips.forEach((dateKey, members) -> {
+            byte[][] encoded = new byte[members.size()][];
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = memberSerializer.serialize(members.get(i));
+            }
+            if (redisKeyLayout.writeLegacy()) {
+                sink.sAdd(redisKeyLayout.legacyUniqueIp(dateKey), encoded, () -> requeueIps(dateKey, members));
+                sink.expire(redisKeyLayout.legacyUniqueIp(dateKey), WEEK_SECONDS);
+            }
+            if (redisKeyLayout.writeTagged()) {
+                sink.sAdd(redisKeyLayout.uniqueIp(dateKey), encoded, () -> requeueIps(dateKey, members));
+                sink.expire(redisKeyLayout.uniqueIp(dateKey), WEEK_SECONDS);
+            }
+        });
+
+        online.forEach((ip, lastSeen) -> sink.setEx(redisKeyLayout.onlineUser(ip), realtimeSeconds,
+            RedisConfig.LongRedisSerializer.INSTANCE.serialize(lastSeen), () -> requeueOnline(ip, lastSeen)));
+    }
+
+    /**
+     * 取出待写入的独立IP；前天及更早的空集合会被移除
+     */
+    private Map<Integer, List<String>> drainIps(int today) {
+        Map<Integer, List<String>> result = new HashMap<>();
+        for (Map.Entry<Integer, Set<String>> entry : pendingIps.entrySet()) {
+            List<String> members = new ArrayList<>();
+            Iterator<String> iterator = entry.getValue().iterator();
+            while (iterator.hasNext()) {
+                members.add(iterator.next());
+                iterator.remove();
+            }
+            if (!members.isEmpty()) {
+                result.put(entry.getKey(), members);
+            } else if (entry.getKey() < DateUtil.getDateKey(DateUtil.dateKeyToLocalDate(today).minusDays(1))) {
+                pendingIps.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static <K> Map<K, Long> drainRetries(ConcurrentHashMap<K, Long> retries) {
+        Map<K, Long> result = new HashMap<>();
+        for (K key : retries.keySet()) {
+            Long value = retries.remove(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    private void requeueIps(Integer dateKey, List<String> members) {
+        pendingIps.computeIfAbsent(dateKey, k -> ConcurrentHashMap.newKeySet()).addAll(members);
+    }
+
+    private void requeueOnline(String ip, Long lastSeen) {
+        pendingOnline.merge(ip, lastSeen, Math::max);
+    }
+
+    private Map<String, Long> drainOnline() {
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, Long> entry : pendingOnline.entrySet()) {
+            // 只移除取出时的值，期间被更新的时间戳留到下次刷新
+            if (pendingOnline.remove(entry.getKey(), entry.getValue())) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 提取来源域名，无来源时为Direct
+     */
+    static String refererDomainOf(String referer) {
+        if (referer == null || referer.trim().isEmpty()) {
+            return DIRECT;
+        }
+        try {
+            String host = URI.create(referer.trim()).getHost();
+            return host != null ? host.toLowerCase() : UNKNOWN;
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+
+    private static String valueOrUnknown(String value) {
+        return value != null ? value : UNKNOWN;
+    }
+
+    /**
+     * Redis增量写出目标
+     * <p>
+     * 每条命令记录响应和失败时的归还方式，等待全部响应后只归还失败（或超时）的命令：
+     * INCRBY/HINCRBY不是幂等的，按键归还失败的那一条增量；SADD、SETEX、EXPIRE重复执行无副作用，按原数据重新排队。
+     * 已成功的命令因此不会在下次刷新时重复累加
+     */
+    private abstract class RedisSink {
+
+        private final List<CompletableFuture<?>> replies = new ArrayList<>();
+        private final List<Runnable> requeues = new ArrayList<>();
+        private int failed;
+        private Throwable firstError;
+
+        void incrBy(String key, long delta) {
+            send(() -> sendIncrBy(key, delta), () -> retryIncr.merge(key, delta, Long::sum));
+        }
+
+        void hIncrBy(String key, String field, long delta) {
+            send(() -> sendHIncrBy(key, field, delta),
+                () -> retryHashIncr.merge(new HashField(key, field), delta, Long::sum));
+        }
+
+        void expire(String key, long seconds) {
+            send(() -> sendExpire(key, seconds), () -> retryExpire.put(key, seconds));
+        }
+
+        void sAdd(String key, byte[][] members, Runnable requeue) {
+            send(() -> sendSAdd(key, members), requeue);
+        }
+
+        void setEx(String key, long seconds, byte[] value, Runnable requeue) {
+            send(() -> sendSetEx(key, seconds, value), requeue);
+        }
+
+        /**
+         * 发出全部命令并等待响应
+         */
+        void execute(Consumer<RedisSink> writes) {
+            writes.accept(this);
+            awaitReplies();
+        }
+
+        abstract CompletableFuture<?> sendIncrBy(String key, long delta);
+
+        abstract CompletableFuture<?> sendHIncrBy(String key, String field, long delta);
+
+        abstract CompletableFuture<?> sendSAdd(String key, byte[][] members);
+
+        abstract CompletableFuture<?> sendExpire(String key, long seconds);
+
+        abstract CompletableFuture<?> sendSetEx(String key, long seconds, byte[] value);
+
+        private void send(Supplier<CompletableFuture<?>> command, Runnable requeue) {
+            CompletableFuture<?> reply;
+            try {
+                reply = command.get();
+            } catch (RuntimeException e) {
+                reply = new CompletableFuture<>();
+                reply.completeExceptionally(e);
+            }
+            replies.add(reply);
+            requeues.add(requeue);
+        }
+
+        /**
+         * 等待全部响应（总时长不超过redisTimeoutMillis），归还失败和超时的命令
+         */
+        void awaitReplies() {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(redisTimeoutMillis);
+            for (int i = 0; i < replies.size(); i++) {
+                try {
+                    replies.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(i, e);
+                } catch (ExecutionException e) {
+                    fail(i, e.getCause());
+                } catch (TimeoutException e) {
+                    fail(i, e);
+                }
+            }
+        }
+
+        private void fail(int index, Throwable error) {
+            requeues.get(index).run();
+            if (failed++ == 0) {
+                firstError = error;
+            }
+        }
+    }
+
+    /**
+     * 通过模板借出的连接写出：在Lettuce原生异步接口上逐条发出命令，每条命令有独立的响应
+     */
+    private final class TemplateSink extends RedisSink {
+
+        private RedisClusterAsyncCommands<byte[], byte[]> commands;
+
+        private byte[] bytes(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void execute(Consumer<RedisSink> writes) {
+            counterRedisTemplate.execute((RedisCallback<Object>) connection -> {
+                commands = (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+                super.execute(writes);
+                return null;
+            });
+        }
+
+        @Override
+        CompletableFuture<?> sendIncrBy(String key, long delta) {
+            return commands.incrby(bytes(key), delta).toCompletableFuture();
+        }
+
+        @Override
+        CompletableFuture<?> sendHIncrBy(String key, String field, long delta) {
+            return commands.hincrby(bytes(key), bytes(field), delta).toCompletableFuture();
+        }
+
+        @Override
+        CompletableFuture<?> sendSAdd(String key, byte[][] members) {
+            return commands.sadd(bytes(key), members).toCompletableFuture();
+        }
+
+        @Override
+        CompletableFuture<?> sendExpire(String key, long seconds) {
+            return commands.expire(bytes(key), seconds).toCompletableFuture();
+        }
+
+        @Override
+        CompletableFuture<?> sendSetEx(String key, long seconds, byte[] value) {
+            return commands.setex(bytes(key), seconds, value).toCompletableFuture();
+        }
+    }
+
+    /**
+     * 通过共享连接的批量发送器写出
+     */
+    private final class BatcherSink extends RedisSink {
+
+        @Override
+        CompletableFuture<?> sendIncrBy(String key, long delta) {
+            return redisCommandBatcher.submit(c -> c.incrby(key, delta));
+        }
+
+        @Override
+        CompletableFuture<?> sendHIncrBy(String key, String field, long delta) {
+            return redisCommandBatcher.submit(c -> c.hincrby(key, field, delta));
+        }
+
+        @Override
+        CompletableFuture<?> sendSAdd(String key, byte[][] members) {
+            return redisCommandBatcher.submit(c -> c.sadd(key, members));
+        }
+
+        @Override
+        CompletableFuture<?> sendExpire(String key, long seconds) {
+            return redisCommandBatcher.submit(c -> c.expire(key, seconds));
+        }
+
+        @Override
+        CompletableFuture<?> sendSetEx(String key, long seconds, byte[] value) {
+            return redisCommandBatcher.submit(c -> c.setex(key, seconds, value));
+        }
+    }
+
+    /**
+     * 哈希键+字段，用于按字段归还失败的HINCRBY增量
+     */
+    private static final class HashField {
+        private final String key;
+        private final String field;
+
+        private HashField(String key, String field) {
+            this.key = key;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof HashField)) {
+                return false;
+            }
+            HashField other = (HashField) o;
+            return key.equals(other.key) && field.equals(other.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + field.hashCode();
+        }
+    }
+
+    /**
+     * 日期+维度值键（页面URL、来源域名，或浏览器+操作系统+设备）
+     */
+    private static final class DimensionKey {
+        private final int dateKey;
+        private final String value;
+        private final String os;
+        private final String device;
+        private final int hash;
+
+        private DimensionKey(int dateKey, String value) {
+            this(dateKey, value, null, null);
+        }
+
+        private DimensionKey(int dateKey, String value, String os, String device) {
+            this.dateKey = dateKey;
+            this.value = value;
+            this.os = os;
+            this.device = device;
+            this.hash = Objects.hash(dateKey, value, os, device);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DimensionKey)) {
+                return false;
+            }
+            DimensionKey other = (DimensionKey) o;
+            return dateKey == other.dateKey && Objects.equals(value, other.value)
+                && Objects.equals(os, other.os) && Objects.equals(device, other.device);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.entity.VisitRecord;
+import com.blog.analytics.mapper.VisitRecordMapper;
+import com.blog.analytics.service.VisitExportService;
+import com.blog.analytics.utils.DateUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * 访问记录导出服务实现类
+ * <p>
+ * 通过MyBatis游标（MySQL流式读取）逐行读取，每行直接编码写入固定大小的缓冲区，缓冲区满即写入响应流，
+ * 内存占用与导出行数无关。游标在只读事务内遍历，导出结束或客户端断开时关闭。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VisitExportServiceImpl implements VisitExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 顶层对象之间不加默认的空格分隔，每行后自行写换行
+     */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+    private static final String[] COLUMNS = {
+        "id", "visit_time", "date_key", "hour_key", "page_url", "ip_address", "referer", "user_agent"
+    };
+
+    private final VisitRecordMapper visitRecordMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public long export(LocalDate startDate, LocalDate endDate, String pageUrl, Format format, OutputStream out) throws IOException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        long start = System.currentTimeMillis();
+        try {
+            Long rows = transactionTemplate.execute(status -> {
+                try (Cursor<VisitRecord> cursor = visitRecordMapper.streamForExport(
+                        DateUtil.getDateKey(startDate), DateUtil.getDateKey(endDate), pageUrl)) {
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+                    long count = format == Format.CSV ? writeCsv(cursor, writer) : writeNdjson(cursor, writer);
+                    writer.flush();
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            log.info("导出访问记录完成 - 日期: {} - {}, 页面: {}, 格式: {}, 记录数: {}, 耗时: {}ms",
+                startDate, endDate, pageUrl, format, rows, System.currentTimeMillis() - start);
+            return rows != null ? rows : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long writeCsv(Cursor<VisitRecord> cursor, Writer writer) throws IOException {
+        writer.write(String.join(",", COLUMNS));
+        writer.write('\n');
+        long count = 0;
+        for (VisitRecord record : cursor) {
+            writer.write(String.valueOf(record.getId()));
+            writer.write(',');
+            writer.write(record.getVisitTime() != null ? DateUtil.formatDateTime(record.getVisitTime()) : "");
+            writer.write(',');
+            writer.write(String.valueOf(record.getDateKey()));
+            writer.write(',');
+            writer.write(String.valueOf(record.getHourKey()));
+            writer.write(',');
+            writeCsvField(writer, record.getPageUrl());
+            writer.write(',');
+            writeCsvField(writer, record.getIpAddress());
+            writer.write(',');
+            writeCsvField(writer, record.getReferer());
+            writer.write(',');
+            writeCsvField(writer, record.getUserAgent());
+            writer.write('\n');
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 按RFC 4180写出字段：含逗号、引号或换行时加引号，引号转义为两个引号
+     */
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private long writeNdjson(Cursor<VisitRecord> cursor, Writer writer) throws IOException {
+        long count = 0;
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            for (VisitRecord record : cursor) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", record.getId());
+                generator.writeStringField("visitTime",
+                    record.getVisitTime() != null ? DateUtil.formatDateTime(record.getVisitTime()) : null);
+                generator.writeNumberField("dateKey", record.getDateKey());
+                generator.writeNumberField("hourKey", record.getHourKey());
+                generator.writeStringField("pageUrl", record.getPageUrl());
+                generator.writeStringField("ipAddress", record.getIpAddress());
+                generator.writeStringField("referer", record.getReferer());
+                generator.writeStringField("userAgent", record.getUserAgent());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                count++;
+            }
+        }
+        return count;
+    }
+}
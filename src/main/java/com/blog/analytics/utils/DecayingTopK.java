@@ -0,0 +1,251 @@
+package com.blog.analytics.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 带指数时间衰减的流式Top-K统计（Space-Saving算法）
+ * <p>
+ * 每个元素同时维护快、慢两种半衰期的衰减计数：快计数反映"当前"流量，慢计数作为基线。
+ * 计数采用前向衰减（forward decay）：以landmark时间为基准，新到达的访问权重按
+ * exp(λ(t-landmark))放大，查询时再统一乘以exp(-λ(now-landmark))，避免每次写入都遍历衰减。
+ * 容量固定，超出时淘汰快计数最小的元素，内存占用与URL基数无关。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class DecayingTopK {
+
+    /**
+     * 指数超过该值时重置landmark，防止double溢出
+     */
+    private static final double RENORMALIZE_EXPONENT = 50.0;
+
+    private static final double LN2 = Math.log(2);
+
+    private final int capacity;
+    private final double fastLambda;
+    private final double slowLambda;
+    private final double fastHalfLifeMinutes;
+    private final double slowHalfLifeMinutes;
+
+    /**
+     * 按快计数排序的小顶堆
+     */
+    private final Entry[] heap;
+    private final Map<String, Entry> index;
+    private int size;
+    private long landmark;
+
+    /**
+     * @param capacity 最多跟踪的元素数
+     * @param fastHalfLifeMillis 快计数半衰期（毫秒）
+     * @param slowHalfLifeMillis 慢计数（基线）半衰期（毫秒）
+     */
+    public DecayingTopK(int capacity, long fastHalfLifeMillis, long slowHalfLifeMillis) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity必须大于0");
+        }
+        if (fastHalfLifeMillis <= 0 || slowHalfLifeMillis < fastHalfLifeMillis) {
+            throw new IllegalArgumentException("半衰期配置不合法");
+        }
+        this.capacity = capacity;
+        this.fastLambda = LN2 / fastHalfLifeMillis;
+        this.slowLambda = LN2 / slowHalfLifeMillis;
+        this.fastHalfLifeMinutes = fastHalfLifeMillis / 60000.0;
+        this.slowHalfLifeMinutes = slowHalfLifeMillis / 60000.0;
+        this.heap = new Entry[capacity];
+        this.index = new HashMap<>(capacity * 2);
+        this.landmark = System.currentTimeMillis();
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key 元素（页面URL）
+     * @param timestamp 访问时间戳（毫秒）
+     */
+    public synchronized void offer(String key, long timestamp) {
+        if (key == null) {
+            return;
+        }
+        if (timestamp < landmark) {
+            timestamp = landmark;
+        }
+        if (fastLambda * (timestamp - landmark) > RENORMALIZE_EXPONENT) {
+            renormalize(timestamp);
+        }
+
+        double fastWeight = Math.exp(fastLambda * (timestamp - landmark));
+        double slowWeight = Math.exp(slowLambda * (timestamp - landmark));
+
+        Entry entry = index.get(key);
+        if (entry != null) {
+            entry.fast += fastWeight;
+            entry.slow += slowWeight;
+            siftDown(entry.heapIndex);
+            return;
+        }
+
+        if (size < capacity) {
+            entry = new Entry(key);
+            entry.fast = fastWeight;
+            entry.slow = slowWeight;
+            entry.heapIndex = size;
+            heap[size++] = entry;
+            index.put(key, entry);
+            siftUp(entry.heapIndex);
+            return;
+        }
+
+        // 淘汰堆顶（快计数最小）：按Space-Saving新元素继承其快计数，继承部分记为误差上界；
+        // 基线只计新元素自己的访问，不继承被淘汰元素的历史流量，以免压低新元素的趋势分
+        Entry min = heap[0];
+        index.remove(min.key);
+        min.key = key;
+        min.error = min.fast;
+        min.fast += fastWeight;
+        min.slow = slowWeight;
+        index.put(key, min);
+        siftDown(0);
+    }
+
+    /**
+     * 获取当前趋势最强的元素
+     * <p>
+     * 趋势分 = 当前速率 - 基线速率（次/分钟），稳定的高流量页面得分接近0，突增页面得分为正。
+     *
+     * @param limit 返回数量
+     * @param now 当前时间戳（毫秒）
+     * @return 按趋势分降序的结果
+     */
+    public synchronized List<Item> top(int limit, long now) {
+        if (now < landmark) {
+            now = landmark;
+        }
+        double fastScale = Math.exp(-fastLambda * (now - landmark));
+        double slowScale = Math.exp(-slowLambda * (now - landmark));
+        // 衰减计数 ≈ 速率 × 半衰期 / ln2
+        double fastToRate = LN2 / fastHalfLifeMinutes;
+        double slowToRate = LN2 / slowHalfLifeMinutes;
+
+        List<Item> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Entry entry = heap[i];
+            double currentRate = entry.fast * fastScale * fastToRate;
+            double baselineRate = entry.slow * slowScale * slowToRate;
+            double errorRate = entry.error * fastScale * fastToRate;
+            items.add(new Item(entry.key, currentRate, baselineRate, currentRate - baselineRate, errorRate));
+        }
+        items.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        return items.size() > limit ? new ArrayList<>(items.subList(0, limit)) : items;
+    }
+
+    /**
+     * 当前跟踪的元素数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void renormalize(long newLandmark) {
+        double fastScale = Math.exp(-fastLambda * (newLandmark - landmark));
+        double slowScale = Math.exp(-slowLambda * (newLandmark - landmark));
+        for (int i = 0; i < size; i++) {
+            Entry entry = heap[i];
+            entry.fast *= fastScale;
+            entry.slow *= slowScale;
+            entry.error *= fastScale;
+        }
+        landmark = newLandmark;
+    }
+
+    private void siftUp(int i) {
+        Entry entry = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent].fast <= entry.fast) {
+                break;
+            }
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(entry, i);
+    }
+
+    private void siftDown(int i) {
+        Entry entry = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right].fast < heap[child].fast) {
+                child = right;
+            }
+            if (entry.fast <= heap[child].fast) {
+                break;
+            }
+            place(heap[child], i);
+            i = child;
+        }
+        place(entry, i);
+    }
+
+    private void place(Entry entry, int i) {
+        heap[i] = entry;
+        entry.heapIndex = i;
+    }
+
+    private static final class Entry {
+        private String key;
+        private double fast;
+        private double slow;
+        private double error;
+        private int heapIndex;
+
+        private Entry(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 趋势统计结果
+     */
+    public static class Item {
+        private final String key;
+        private final double currentRate;
+        private final double baselineRate;
+        private final double score;
+        private final double errorRate;
+
+        public Item(String key, double currentRate, double baselineRate, double score, double errorRate) {
+            this.key = key;
+            this.currentRate = currentRate;
+            this.baselineRate = baselineRate;
+            this.score = score;
+            this.errorRate = errorRate;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public double getCurrentRate() {
+            return currentRate;
+        }
+
+        public double getBaselineRate() {
+            return baselineRate;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.blog.analytics.utils;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 按键累加的增量计数器
+ * <p>
+ * 写入只对键对应的LongAdder做无锁累加（LongAdder内部按线程分散到多个单元，高并发下不争用同一缓存行）。
+ * 刷新线程通过{@link #drain}取出自上次刷新以来每个键的增量：计数器本身从不清零，
+ * 只记录上次刷新时的累计值，因此与并发写入之间不会丢失计数。增量可交换、可累加，
+ * 多个实例各自刷新的增量按INCRBY/累加写入即可合并。
+ * 已退役（如日期已过）且连续一个刷新周期没有新增量的键会被移除，避免内存无限增长。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class DeltaCounter<K> {
+
+    private final ConcurrentHashMap<K, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 上次刷新时各键的累计值，只在drain/rollback中访问
+     */
+    private final Map<K, Long> flushed = new HashMap<>();
+
+    /**
+     * 累加计数
+     */
+    public void add(K key, long delta) {
+        LongAdder adder = counters.get(key);
+        if (adder == null) {
+            adder = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.add(delta);
+    }
+
+    /**
+     * 取出自上次刷新以来的增量
+     *
+     * @param retired 判断键是否已退役，退役且没有新增量的键会被移除
+     * @return 有增量的键及其增量
+     */
+    public synchronized Map<K, Long> drain(Predicate<K> retired) {
+        Map<K, Long> deltas = new HashMap<>();
+        Iterator<Map.Entry<K, LongAdder>> iterator = counters.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, LongAdder> entry = iterator.next();
+            K key = entry.getKey();
+            long sum = entry.getValue().sum();
+            long last = flushed.getOrDefault(key, 0L);
+            if (sum != last) {
+                deltas.put(key, sum - last);
+                flushed.put(key, sum);
+            } else if (retired.test(key)) {
+                iterator.remove();
+                flushed.remove(key);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 写出失败时归还增量，下次刷新重新取出
+     */
+    public synchronized void rollback(Map<K, Long> deltas) {
+        for (Map.Entry<K, Long> entry : deltas.entrySet()) {
+            flushed.computeIfPresent(entry.getKey(), (key, last) -> last - entry.getValue());
+        }
+    }
+
+    /**
+     * 当前跟踪的键数
+     */
+    public int size() {
+        return counters.size();
+    }
+}
@@ -0,0 +1,73 @@
+package com.blog.analytics.utils;
+
+/**
+ * 停留时长对数直方图
+ * <p>
+ * 桶0为1秒以内；桶1-24按√2倍递增，覆盖1秒到约68分钟；桶25为溢出桶。
+ * 每个页面每天只需26个计数，可累加合并，用于估算分位数。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class DurationHistogram {
+
+    /**
+     * 桶数量
+     */
+    public static final int BUCKETS = 26;
+
+    private static final double LN2 = Math.log(2);
+
+    /**
+     * 计算时长所在的桶
+     *
+     * @param durationMs 停留时长（毫秒）
+     * @return 桶序号
+     */
+    public static int bucketOf(long durationMs) {
+        if (durationMs < 1000) {
+            return 0;
+        }
+        int bucket = 1 + (int) (2 * Math.log(durationMs / 1000.0) / LN2);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /**
+     * 桶的上界（毫秒）
+     *
+     * @param bucket 桶序号
+     * @return 上界
+     */
+    public static long upperBoundMs(int bucket) {
+        if (bucket <= 0) {
+            return 1000L;
+        }
+        return (long) (1000 * Math.pow(2, bucket / 2.0));
+    }
+
+    /**
+     * 根据桶计数估算分位数
+     *
+     * @param counts 各桶计数
+     * @param quantile 分位（0-1）
+     * @return 分位数对应的时长上界（毫秒），无数据时返回0
+     */
+    public static long quantileMs(long[] counts, double quantile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return upperBoundMs(i);
+            }
+        }
+        return upperBoundMs(counts.length - 1);
+    }
+}
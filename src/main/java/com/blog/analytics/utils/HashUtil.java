@@ -0,0 +1,64 @@
+package com.blog.analytics.utils;
+
+/**
+ * 非加密哈希工具类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class HashUtil {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * 计算字符串的64位哈希（FNV-1a + 混淆），不产生中间对象
+     *
+     * @param value 字符串
+     * @return 64位哈希值
+     */
+    public static long hash64(String value) {
+        return mix64(fnv1a(FNV_OFFSET_BASIS, value));
+    }
+
+    /**
+     * 计算两个字符串组合的64位哈希，用于IP+UA等复合键
+     *
+     * @param first 第一个字符串
+     * @param second 第二个字符串
+     * @return 64位哈希值
+     */
+    public static long hash64(String first, String second) {
+        long hash = fnv1a(FNV_OFFSET_BASIS, first);
+        // 分隔符，避免 "ab"+"c" 与 "a"+"bc" 冲突
+        hash ^= 0xff;
+        hash *= FNV_PRIME;
+        return mix64(fnv1a(hash, second));
+    }
+
+    /**
+     * 64位混淆函数（SplitMix64终结步骤），使低位同样分布均匀
+     *
+     * @param z 输入值
+     * @return 混淆后的值
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long fnv1a(long hash, String value) {
+        if (value == null) {
+            return hash;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash ^= c & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
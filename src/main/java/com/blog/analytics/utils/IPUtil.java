@@ -3,6 +3,7 @@ package com.blog.analytics.utils;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Set;
 
 /**
  * IP地址工具类
@@ -58,6 +59,47 @@ public class IPUtil {
         return StringUtils.isBlank(ip) ? LOCALHOST_IPV4 : ip;
     }
 
+    /**
+     * 获取不可伪造的客户端IP，用于限流等安全相关场景
+     * <p>
+     * 只有直连地址是可信代理时才解析X-Forwarded-For：从右向左跳过可信代理，取第一个不可信地址；
+     * 直连地址不是可信代理时忽略所有转发请求头，避免客户端伪造请求头绕过限制。
+     *
+     * @param request HTTP请求对象
+     * @param trustedProxies 可信代理地址
+     * @return 客户端IP地址
+     */
+    public static String getTrustedClientIp(HttpServletRequest request, Set<String> trustedProxies) {
+        String remoteAddr = normalize(request.getRemoteAddr());
+        if (!trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (StringUtils.isNotBlank(forwarded)) {
+            String[] hops = forwarded.split(IP_SEPARATOR);
+            for (int i = hops.length - 1; i >= 0; i--) {
+                String hop = hops[i].trim();
+                if (StringUtils.isNotBlank(hop) && !UNKNOWN.equalsIgnoreCase(hop)
+                        && !trustedProxies.contains(normalize(hop))) {
+                    return normalize(hop);
+                }
+            }
+        }
+        String realIp = request.getHeader("X-Real-IP");
+        if (StringUtils.isNotBlank(realIp) && !UNKNOWN.equalsIgnoreCase(realIp)) {
+            return normalize(realIp.trim());
+        }
+        return remoteAddr;
+    }
+
+    private static String normalize(String ip) {
+        if (StringUtils.isBlank(ip)) {
+            return LOCALHOST_IPV4;
+        }
+        return LOCALHOST_IPV6.equals(ip) || "::1".equals(ip) ? LOCALHOST_IPV4 : ip;
+    }
+
     /**
      * 检查是否为内网IP
      *
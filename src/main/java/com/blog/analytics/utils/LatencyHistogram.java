@@ -0,0 +1,121 @@
+package com.blog.analytics.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 滑动窗口延迟直方图
+ * <p>
+ * 桶按2的幂分段、每段再均分4份（相对误差约25%以内），覆盖0ms到约8分钟，超出的计入最后一个桶。
+ * 计数使用AtomicLongArray，记录无锁。数据分为当前窗口和上一窗口，窗口到期时整体轮换，
+ * 分位数基于两个窗口合并计算，使结果反映最近一到两个窗口的延迟分布。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKET_COUNT = 72;
+
+    private final long windowMillis;
+    private final AtomicReference<Window> current;
+    private volatile AtomicLongArray previous = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * @param windowMillis 窗口时长（毫秒）
+     */
+    public LatencyHistogram(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.current = new AtomicReference<>(new Window(System.currentTimeMillis()));
+    }
+
+    /**
+     * 记录一次延迟
+     *
+     * @param latencyMillis 延迟（毫秒）
+     * @param now 当前时间戳（毫秒）
+     */
+    public void record(long latencyMillis, long now) {
+        window(now).counts.incrementAndGet(bucketOf(latencyMillis));
+    }
+
+    /**
+     * 计算分位数
+     *
+     * @param quantile 分位（0-1）
+     * @param minSamples 最少样本数
+     * @param now 当前时间戳（毫秒）
+     * @return 分位数对应的延迟上界（毫秒），样本不足时返回-1
+     */
+    public long quantile(double quantile, long minSamples, long now) {
+        AtomicLongArray latest = window(now).counts;
+        AtomicLongArray older = previous;
+        long[] merged = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            merged[i] = latest.get(i) + older.get(i);
+            total += merged[i];
+        }
+        if (total == 0 || total < minSamples) {
+            return -1;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += merged[i];
+            if (cumulative >= rank) {
+                return upperBoundMs(i);
+            }
+        }
+        return upperBoundMs(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 计算延迟所在的桶
+     */
+    static int bucketOf(long latencyMillis) {
+        if (latencyMillis < SUB_BUCKETS) {
+            return (int) Math.max(0, latencyMillis);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(latencyMillis);
+        int sub = (int) (latencyMillis >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKET_COUNT - 1, (exponent - 1) * SUB_BUCKETS + sub);
+    }
+
+    /**
+     * 桶的延迟上界（毫秒，不含）
+     */
+    static long upperBoundMs(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub + 1) << (exponent - 2);
+    }
+
+    private Window window(long now) {
+        Window window = current.get();
+        if (now - window.startedAt < windowMillis) {
+            return window;
+        }
+        Window next = new Window(now);
+        if (current.compareAndSet(window, next)) {
+            // 窗口轮换期间少量落入旧窗口的记录会随旧窗口一起保留或丢弃，不影响分位数估计
+            previous = now - window.startedAt < windowMillis * 2 ? window.counts : new AtomicLongArray(BUCKET_COUNT);
+            return next;
+        }
+        return current.get();
+    }
+
+    private static class Window {
+
+        private final long startedAt;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+        private Window(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.blog.analytics.utils;
+
+import java.util.Arrays;
+
+/**
+ * long键到int值的开放寻址哈希表（线性探测），避免装箱和Entry对象
+ * <p>
+ * 删除采用后移（backward shift）方式，不留墓碑。非线程安全，由调用方加锁。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class LongIntHashMap {
+
+    /**
+     * 未找到时的返回值
+     */
+    public static final int NO_VALUE = -1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int get(long key) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    public void put(long key, int value) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public int remove(long key) {
+        int slot = slot(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                int value = values[slot];
+                shiftKeys(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NO_VALUE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * 删除后将同一探测链上的后续元素前移，保证查找不中断
+     */
+    private void shiftKeys(int pos) {
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            while (true) {
+                if (!used[pos]) {
+                    used[last] = false;
+                    return;
+                }
+                int ideal = slot(keys[pos]);
+                // ideal不在(last, pos]区间内时才能前移
+                if (last <= pos ? (last >= ideal || ideal > pos) : (last >= ideal && ideal > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = keys[pos];
+            values[last] = values[pos];
+        }
+    }
+
+    private int slot(long key) {
+        return (int) HashUtil.mix64(key) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
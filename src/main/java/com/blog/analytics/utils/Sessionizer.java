@@ -0,0 +1,254 @@
+package com.blog.analytics.utils;
+
+import java.util.Arrays;
+
+/**
+ * 增量会话切分器
+ * <p>
+ * 按访客键（IP+UA哈希）聚合访问，超过不活跃超时即关闭会话并回调监听器。
+ * 会话数据以并行数组存储，访客键通过{@link LongIntHashMap}定位槽位；
+ * 超时检测使用时间轮：每个会话挂在其截止时间所在的槽上，时间轮转到该槽时若会话
+ * 期间又有访问则按新截止时间重新挂载（惰性重排），否则关闭。访问路径为O(1)，不做链表移动。
+ * 非线程安全的内部状态由对象锁保护，监听器在锁内回调。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class Sessionizer {
+
+    private static final int NIL = -1;
+
+    private final long timeoutMillis;
+    private final long tickMillis;
+    private final int maxSessions;
+    private final SessionListener listener;
+
+    private final int[] wheel;
+    private final LongIntHashMap index;
+
+    private long[] visitorKeys;
+    private long[] startTimes;
+    private long[] lastSeenTimes;
+    private int[] pageViews;
+    private String[] entryPages;
+    private String[] exitPages;
+    /**
+     * 时间轮链表指针，空闲槽位复用为空闲链表指针
+     */
+    private int[] next;
+
+    private int freeHead = NIL;
+    private int allocated;
+    private int active;
+    private long currentTick;
+    private long rejected;
+
+    /**
+     * @param timeoutMillis 不活跃超时（毫秒）
+     * @param tickMillis 时间轮刻度（毫秒）
+     * @param initialCapacity 初始会话容量
+     * @param maxSessions 最大同时活跃会话数，超出后新访客不再切分会话
+     * @param listener 会话关闭回调
+     */
+    public Sessionizer(long timeoutMillis, long tickMillis, int initialCapacity, int maxSessions,
+                       SessionListener listener) {
+        if (timeoutMillis <= 0 || tickMillis <= 0 || tickMillis > timeoutMillis) {
+            throw new IllegalArgumentException("会话超时或时间轮刻度配置不合法");
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.tickMillis = tickMillis;
+        this.maxSessions = maxSessions;
+        this.listener = listener;
+        this.wheel = new int[(int) (timeoutMillis / tickMillis) + 2];
+        Arrays.fill(wheel, NIL);
+        this.index = new LongIntHashMap(initialCapacity);
+        allocate(Math.min(maxSessions, Math.max(16, initialCapacity)));
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param visitorKey 访客键
+     * @param pageUrl 页面URL
+     * @param timestamp 访问时间戳（毫秒）
+     */
+    public synchronized void onVisit(long visitorKey, String pageUrl, long timestamp) {
+        int slot = index.get(visitorKey);
+        if (slot != LongIntHashMap.NO_VALUE) {
+            if (timestamp - lastSeenTimes[slot] < timeoutMillis) {
+                if (timestamp > lastSeenTimes[slot]) {
+                    lastSeenTimes[slot] = timestamp;
+                }
+                pageViews[slot]++;
+                exitPages[slot] = pageUrl;
+                return;
+            }
+            // 时间轮尚未推进到该会话，但已超时：结算旧会话并原地开启新会话，槽位仍留在时间轮中
+            listener.onSessionClosed(startTimes[slot], lastSeenTimes[slot], pageViews[slot],
+                    entryPages[slot], exitPages[slot]);
+            startTimes[slot] = timestamp;
+            lastSeenTimes[slot] = timestamp;
+            pageViews[slot] = 1;
+            entryPages[slot] = pageUrl;
+            exitPages[slot] = pageUrl;
+            return;
+        }
+
+        slot = acquireSlot();
+        if (slot == NIL) {
+            rejected++;
+            return;
+        }
+        visitorKeys[slot] = visitorKey;
+        startTimes[slot] = timestamp;
+        lastSeenTimes[slot] = timestamp;
+        pageViews[slot] = 1;
+        entryPages[slot] = pageUrl;
+        exitPages[slot] = pageUrl;
+        index.put(visitorKey, slot);
+        schedule(slot);
+        active++;
+    }
+
+    /**
+     * 推进时间轮，关闭所有已超时会话
+     *
+     * @param now 当前时间戳（毫秒）
+     * @return 本次关闭的会话数
+     */
+    public synchronized int advance(long now) {
+        long targetTick = now / tickMillis;
+        if (targetTick <= currentTick) {
+            return 0;
+        }
+        // 停顿超过一圈时每个槽只需处理一次
+        long fromTick = Math.max(currentTick + 1, targetTick - wheel.length + 1);
+        int closed = 0;
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            // 先推进当前刻度，保证重新挂载的会话不会落回正在处理的槽
+            currentTick = tick;
+            int bucket = (int) (tick % wheel.length);
+            int slot = wheel[bucket];
+            wheel[bucket] = NIL;
+            while (slot != NIL) {
+                int following = next[slot];
+                if (now - lastSeenTimes[slot] >= timeoutMillis) {
+                    close(slot);
+                    closed++;
+                } else {
+                    schedule(slot);
+                }
+                slot = following;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * 关闭所有活跃会话（停机时调用）
+     *
+     * @return 关闭的会话数
+     */
+    public synchronized int closeAll() {
+        int closed = 0;
+        for (int bucket = 0; bucket < wheel.length; bucket++) {
+            int slot = wheel[bucket];
+            wheel[bucket] = NIL;
+            while (slot != NIL) {
+                int following = next[slot];
+                close(slot);
+                closed++;
+                slot = following;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * 当前活跃会话数
+     */
+    public synchronized int activeSessions() {
+        return active;
+    }
+
+    /**
+     * 因容量已满被拒绝切分的访问数
+     */
+    public synchronized long rejectedVisits() {
+        return rejected;
+    }
+
+    private void schedule(int slot) {
+        long deadlineTick = (lastSeenTimes[slot] + timeoutMillis) / tickMillis;
+        if (deadlineTick <= currentTick) {
+            deadlineTick = currentTick + 1;
+        }
+        int bucket = (int) (deadlineTick % wheel.length);
+        next[slot] = wheel[bucket];
+        wheel[bucket] = slot;
+    }
+
+    private void close(int slot) {
+        index.remove(visitorKeys[slot]);
+        active--;
+        listener.onSessionClosed(startTimes[slot], lastSeenTimes[slot], pageViews[slot],
+                entryPages[slot], exitPages[slot]);
+        entryPages[slot] = null;
+        exitPages[slot] = null;
+        next[slot] = freeHead;
+        freeHead = slot;
+    }
+
+    private int acquireSlot() {
+        if (freeHead != NIL) {
+            int slot = freeHead;
+            freeHead = next[slot];
+            return slot;
+        }
+        if (allocated == visitorKeys.length) {
+            if (allocated >= maxSessions) {
+                return NIL;
+            }
+            grow(Math.min(maxSessions, allocated << 1));
+        }
+        return allocated++;
+    }
+
+    private void allocate(int capacity) {
+        visitorKeys = new long[capacity];
+        startTimes = new long[capacity];
+        lastSeenTimes = new long[capacity];
+        pageViews = new int[capacity];
+        entryPages = new String[capacity];
+        exitPages = new String[capacity];
+        next = new int[capacity];
+    }
+
+    private void grow(int capacity) {
+        visitorKeys = Arrays.copyOf(visitorKeys, capacity);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        lastSeenTimes = Arrays.copyOf(lastSeenTimes, capacity);
+        pageViews = Arrays.copyOf(pageViews, capacity);
+        entryPages = Arrays.copyOf(entryPages, capacity);
+        exitPages = Arrays.copyOf(exitPages, capacity);
+        next = Arrays.copyOf(next, capacity);
+    }
+
+    /**
+     * 会话关闭监听器
+     */
+    public interface SessionListener {
+
+        /**
+         * 会话关闭回调
+         *
+         * @param startTime 会话开始时间戳
+         * @param lastSeenTime 最后一次访问时间戳
+         * @param pageViews 会话内浏览页数
+         * @param entryPage 入口页面
+         * @param exitPage 退出页面
+         */
+        void onSessionClosed(long startTime, long lastSeenTime, int pageViews, String entryPage, String exitPage);
+    }
+}
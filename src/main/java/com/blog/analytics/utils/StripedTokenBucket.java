@@ -0,0 +1,108 @@
+package com.blog.analytics.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁分段令牌桶
+ * <p>
+ * 固定数量的槽位组成有界表，每个槽位用一个long打包保存"上次补充时间"和"剩余令牌（千分之一精度）"，
+ * 通过CAS更新，无需加锁。键（如IP哈希）按哈希定位槽位并线性探测少量位置：
+ * 命中自己的槽位直接使用，遇到空槽或已完全回满（即空闲）的槽位则抢占。
+ * 所有探测位置都被活跃键占用时，与首选槽位的键共享同一个桶（偏严格，不会放过超额请求）。
+ * 内存占用固定，与键的数量无关。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class StripedTokenBucket {
+
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000L;
+    private static final int MAX_PROBES = 4;
+
+    private final AtomicLongArray owners;
+    private final AtomicLongArray states;
+    private final int mask;
+    private final long capacityMilli;
+    /**
+     * 每毫秒补充的令牌数（千分之一精度）
+     */
+    private final double refillPerMilli;
+    private final long fullRefillMillis;
+    private final long baseTime;
+
+    /**
+     * @param slots 槽位数（向上取整为2的幂）
+     * @param capacity 桶容量（允许的突发请求数，最大1000）
+     * @param permitsPerMinute 每分钟补充的令牌数
+     */
+    public StripedTokenBucket(int slots, int capacity, int permitsPerMinute) {
+        if (capacity <= 0 || capacity > 1000 || permitsPerMinute <= 0) {
+            throw new IllegalArgumentException("令牌桶容量必须在1-1000之间，补充速率必须大于0");
+        }
+        int size = Integer.highestOneBit(Math.max(1, slots - 1)) << 1;
+        this.owners = new AtomicLongArray(size);
+        this.states = new AtomicLongArray(size);
+        this.mask = size - 1;
+        this.capacityMilli = capacity * MILLI;
+        this.refillPerMilli = permitsPerMinute * MILLI / 60000.0;
+        this.fullRefillMillis = (long) Math.ceil(capacityMilli / refillPerMilli);
+        this.baseTime = System.currentTimeMillis() - fullRefillMillis;
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param keyHash 键的哈希值
+     * @param now 当前时间戳（毫秒）
+     * @return 0表示获取成功，否则为距离下一个令牌可用的毫秒数
+     */
+    public long tryAcquire(long keyHash, long now) {
+        long owner = keyHash == 0 ? 1 : keyHash;
+        long time = Math.max(0, now - baseTime);
+        return acquire(slotFor(owner, time), time);
+    }
+
+    private int slotFor(long owner, long time) {
+        int home = (int) HashUtil.mix64(owner) & mask;
+        for (int i = 0; i < MAX_PROBES; i++) {
+            int slot = (home + i) & mask;
+            long current = owners.get(slot);
+            if (current == owner) {
+                return slot;
+            }
+            if ((current == 0 || isIdle(slot, time)) && owners.compareAndSet(slot, current, owner)) {
+                // 新占用的槽位从满桶开始
+                states.set(slot, pack(time, capacityMilli));
+                return slot;
+            }
+        }
+        return home;
+    }
+
+    private boolean isIdle(int slot, long time) {
+        long state = states.get(slot);
+        return time - (state >>> TOKEN_BITS) >= fullRefillMillis;
+    }
+
+    private long acquire(int slot, long time) {
+        while (true) {
+            long state = states.get(slot);
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+            long elapsed = Math.max(0, time - last);
+            long refilled = Math.min(capacityMilli, tokens + (long) (elapsed * refillPerMilli));
+            if (refilled < MILLI) {
+                return (long) Math.ceil((MILLI - refilled) / refillPerMilli);
+            }
+            if (states.compareAndSet(slot, state, pack(Math.max(time, last), refilled - MILLI))) {
+                return 0L;
+            }
+        }
+    }
+
+    private static long pack(long time, long tokens) {
+        return (time << TOKEN_BITS) | tokens;
+    }
+}
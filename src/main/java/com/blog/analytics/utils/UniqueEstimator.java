@@ -0,0 +1,60 @@
+package com.blog.analytics.utils;
+
+/**
+ * 多段独立数的合并估计
+ * <p>
+ * 有草图的段合并到同一个{@link HyperLogLog}（重复的IP只计一次），没有草图的段（如未重建过的历史日期、今天）
+ * 只能累加其独立数，结果为草图估计值与这些独立数之和，没有草图时退化为原来的逐天相加。
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+public class UniqueEstimator {
+
+    private HyperLogLog sketch;
+    private long uncovered;
+
+    /**
+     * 加入一段的独立数
+     *
+     * @param bytes 该段序列化的草图，为null时使用count
+     * @param count 该段的独立数
+     */
+    public void add(byte[] bytes, Long count) {
+        if (bytes != null && bytes.length > 0) {
+            if (sketch == null) {
+                sketch = new HyperLogLog();
+            }
+            sketch.merge(bytes);
+        } else if (count != null) {
+            uncovered += count;
+        }
+    }
+
+    /**
+     * 合并另一个估计
+     */
+    public void add(UniqueEstimator other) {
+        if (other.sketch != null) {
+            if (sketch == null) {
+                sketch = new HyperLogLog();
+            }
+            sketch.merge(other.sketch);
+        }
+        uncovered += other.uncovered;
+    }
+
+    /**
+     * 估计独立数
+     */
+    public long estimate() {
+        return (sketch != null ? sketch.cardinality() : 0) + uncovered;
+    }
+
+    /**
+     * 合并后的草图，只有所有段都有草图时才可用，否则返回null
+     */
+    public byte[] toBytes() {
+        return sketch != null && uncovered == 0 ? sketch.toBytes() : null;
+    }
+}
@@ -39,6 +39,10 @@ CREATE TABLE `daily_stats` (
   `page_views` bigint NOT NULL DEFAULT 0 COMMENT '页面浏览量',
   `bounce_rate` decimal(5,2) DEFAULT 0.00 COMMENT '跳出率(%)',
   `avg_session_duration` int DEFAULT 0 COMMENT '平均会话时长(秒)',
+  `session_count` bigint NOT NULL DEFAULT 0 COMMENT '会话数',
+  `bounce_sessions` bigint NOT NULL DEFAULT 0 COMMENT '跳出会话数',
+  `total_session_duration` bigint NOT NULL DEFAULT 0 COMMENT '会话总时长(秒)',
+  `ip_sketch` blob COMMENT '独立IP的HyperLogLog草图(按原始记录重建时写入)',
   `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `deleted` tinyint NOT NULL DEFAULT 0 COMMENT '逻辑删除(0:未删除,1:已删除)',
@@ -61,6 +65,11 @@ CREATE TABLE `page_stats` (
   `unique_ip_count` int NOT NULL DEFAULT 1 COMMENT '独立IP数',
   `avg_duration` int DEFAULT 0 COMMENT '平均停留时间(秒)',
   `bounce_count` int DEFAULT 0 COMMENT '跳出次数',
+  `entry_count` int NOT NULL DEFAULT 0 COMMENT '作为入口页的会话数',
+  `exit_count` int NOT NULL DEFAULT 0 COMMENT '作为退出页的会话数',
+  `duration_count` bigint NOT NULL DEFAULT 0 COMMENT '停留时长上报次数',
+  `duration_sum_ms` bigint NOT NULL DEFAULT 0 COMMENT '停留时长总和(毫秒)',
+  `ip_sketch` blob COMMENT '独立IP的HyperLogLog草图(按原始记录重建时写入)',
   `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `deleted` tinyint NOT NULL DEFAULT 0 COMMENT '逻辑删除(0:未删除,1:已删除)',
@@ -73,6 +82,17 @@ CREATE TABLE `page_stats` (
   INDEX `idx_deleted` (`deleted`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='页面访问统计表';
 
+-- 页面停留时长直方图表
+DROP TABLE IF EXISTS `page_duration_bucket`;
+CREATE TABLE `page_duration_bucket` (
+  `page_url` varchar(500) NOT NULL COMMENT '页面URL',
+  `date_key` int NOT NULL COMMENT '日期键(YYYYMMDD)',
+  `bucket` tinyint NOT NULL COMMENT '桶序号(0:<1秒,1-24:按√2倍递增,25:溢出)',
+  `bucket_count` bigint NOT NULL DEFAULT 0 COMMENT '桶内计数',
+  PRIMARY KEY (`page_url`, `date_key`, `bucket`),
+  INDEX `idx_date_key` (`date_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='页面停留时长直方图表';
+
 -- 小时统计表
 DROP TABLE IF EXISTS `hourly_stats`;
 CREATE TABLE `hourly_stats` (
@@ -164,6 +184,53 @@ CREATE TABLE `user_agent_stats` (
   INDEX `idx_deleted` (`deleted`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户代理统计表';
 
+-- 周期汇总表（周、月两级，由daily_stats按周期增量汇总）
+DROP TABLE IF EXISTS `period_stats`;
+CREATE TABLE `period_stats` (
+  `period_type` varchar(8) NOT NULL COMMENT '周期类型(WEEK/MONTH)',
+  `period_key` int NOT NULL COMMENT '周期开始日期键(YYYYMMDD，周为周一，月为1号)',
+  `period_end` int NOT NULL COMMENT '周期结束日期键(YYYYMMDD)',
+  `total_visits` bigint NOT NULL DEFAULT 0 COMMENT '总访问次数',
+  `unique_ips` bigint NOT NULL DEFAULT 0 COMMENT '独立IP数(按天草图合并估计)',
+  `page_views` bigint NOT NULL DEFAULT 0 COMMENT '页面浏览量',
+  `session_count` bigint NOT NULL DEFAULT 0 COMMENT '会话数',
+  `bounce_sessions` bigint NOT NULL DEFAULT 0 COMMENT '跳出会话数',
+  `total_session_duration` bigint NOT NULL DEFAULT 0 COMMENT '会话总时长(秒)',
+  `day_count` int NOT NULL DEFAULT 0 COMMENT '参与汇总的天数',
+  `ip_sketch` blob COMMENT '独立IP的HyperLogLog草图(有天缺少草图时为空)',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`period_type`, `period_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='周期汇总表';
+
+-- 页面周期汇总表（周、月两级，由page_stats按周期增量汇总）
+DROP TABLE IF EXISTS `page_period_stats`;
+CREATE TABLE `page_period_stats` (
+  `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `period_type` varchar(8) NOT NULL COMMENT '周期类型(WEEK/MONTH)',
+  `period_key` int NOT NULL COMMENT '周期开始日期键(YYYYMMDD)',
+  `page_url` varchar(500) NOT NULL COMMENT '页面URL',
+  `visit_count` bigint NOT NULL DEFAULT 0 COMMENT '访问次数',
+  `unique_ip_count` bigint NOT NULL DEFAULT 0 COMMENT '独立IP数(按天草图合并估计)',
+  `ip_sketch` blob COMMENT '独立IP的HyperLogLog草图(有天缺少草图时为空)',
+  `updated_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_period_page` (`period_type`, `period_key`, `page_url`),
+  INDEX `idx_page_period` (`page_url`, `period_type`, `period_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='页面周期汇总表';
+
+-- 报表快照表（日报/周报/月报预先序列化为JSON，查看时按主键读取一行）
+DROP TABLE IF EXISTS `report_snapshot`;
+CREATE TABLE `report_snapshot` (
+  `report_key` varchar(32) NOT NULL COMMENT '报表键(类型:周期开始日期键，如DAILY:20261018)',
+  `report_type` varchar(16) NOT NULL COMMENT '报表类型(DAILY/WEEKLY/MONTHLY)',
+  `period_start` int NOT NULL COMMENT '周期开始日期键(YYYYMMDD)',
+  `period_end` int NOT NULL COMMENT '周期结束日期键(YYYYMMDD)',
+  `payload` mediumtext NOT NULL COMMENT '报表内容(JSON)',
+  `etag` char(34) NOT NULL COMMENT '报表内容的ETag',
+  `generated_at` datetime NOT NULL COMMENT '生成时间',
+  PRIMARY KEY (`report_key`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='报表快照表';
+
 -- 添加外键约束（可选，根据性能需求决定是否启用）
 -- ALTER TABLE `page_stats` ADD CONSTRAINT `fk_page_stats_date` FOREIGN KEY (`date_key`) REFERENCES `daily_stats` (`date_key`);
 -- ALTER TABLE `hourly_stats` ADD CONSTRAINT `fk_hourly_stats_date` FOREIGN KEY (`hour_key`) REFERENCES `daily_stats` (`date_key`);
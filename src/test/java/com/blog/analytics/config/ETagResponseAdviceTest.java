@@ -0,0 +1,118 @@
+package com.blog.analytics.config;
+
+import com.blog.analytics.dto.DailyStatsDTO;
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.dto.PreSerializedJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ETagResponseAdvice测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class ETagResponseAdviceTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ETagResponseAdvice advice = new ETagResponseAdvice(objectMapper);
+
+    private static DailyStatsDTO stats() {
+        return DailyStatsDTO.builder()
+                .date(LocalDate.of(2026, 10, 19))
+                .totalVisits(120L)
+                .uniqueIps(31L)
+                .pageViews(158L)
+                .build();
+    }
+
+    private Object write(Object body, String ifNoneMatch, MockHttpServletResponse servletResponse) throws IOException {
+        return write(body, ifNoneMatch, servletResponse, MappingJackson2HttpMessageConverter.class);
+    }
+
+    private Object write(Object body, String ifNoneMatch, MockHttpServletResponse servletResponse,
+                         Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/analytics/stats/today");
+        if (ifNoneMatch != null) {
+            servletRequest.addHeader("If-None-Match", ifNoneMatch);
+        }
+        ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+        Object result = advice.beforeBodyWrite(body, null, MediaType.APPLICATION_JSON,
+                converterType, new ServletServerHttpRequest(servletRequest), response);
+        response.flush();
+        return result;
+    }
+
+    /**
+     * 测试ETag计算与序列化结果复用
+     * 预期结果：data只序列化一次，ETag为序列化字节的MD5，data替换为相同字节的预序列化数据，信封字段不变
+     */
+    @Test
+    void testSerializesDataOnce() throws Exception {
+        HoppinResponse<DailyStatsDTO> body = HoppinResponse.success(stats());
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        Object result = write(body, null, servletResponse);
+
+        byte[] expected = objectMapper.writeValueAsBytes(stats());
+        String etag = "\"" + DigestUtils.md5DigestAsHex(expected) + "\"";
+        assertEquals(etag, servletResponse.getHeader("ETag"));
+        assertEquals("no-cache", servletResponse.getHeader("Cache-Control"));
+
+        HoppinResponse<?> written = (HoppinResponse<?>) result;
+        assertTrue(written.getData() instanceof PreSerializedJson);
+        assertEquals(new String(expected, "UTF-8"), ((PreSerializedJson) written.getData()).getJson());
+        assertEquals(body.getTimestamp(), written.getTimestamp());
+        assertEquals(body.getCode(), written.getCode());
+        assertEquals(objectMapper.readTree(objectMapper.writeValueAsString(body)),
+                objectMapper.readTree(objectMapper.writeValueAsString(written)));
+        // 原响应对象不被修改
+        assertTrue(body.getData() instanceof DailyStatsDTO);
+    }
+
+    /**
+     * 测试条件请求
+     * 预期结果：If-None-Match命中（含弱校验前缀）时返回304且不写响应体
+     */
+    @Test
+    void testNotModified() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        write(HoppinResponse.success(stats()), null, first);
+        String etag = first.getHeader("ETag");
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        assertNull(write(HoppinResponse.success(stats()), "W/" + etag, second));
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), second.getStatus());
+    }
+
+    /**
+     * 测试非Jackson转换器
+     * 预期结果：无法原样写出预序列化数据，响应保持原样且不设置ETag
+     */
+    @Test
+    void testNonJacksonConverterIsSkipped() throws Exception {
+        HoppinResponse<DailyStatsDTO> body = HoppinResponse.success(stats());
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        Object result = write(body, null, servletResponse, StringHttpMessageConverter.class);
+
+        assertSame(body, result);
+        assertNull(servletResponse.getHeader("ETag"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.blog.analytics.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * RateLimitInterceptor测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class RateLimitInterceptorTest {
+
+    private RateLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new RateLimitInterceptor(mock(StringRedisTemplate.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(interceptor, "enabled", true);
+        ReflectionTestUtils.setField(interceptor, "requestsPerMinute", 1000);
+        ReflectionTestUtils.setField(interceptor, "ipRequestsPerMinute", 2);
+        ReflectionTestUtils.setField(interceptor, "ipSlots", 1024);
+        ReflectionTestUtils.setField(interceptor, "redisGlobal", false);
+        ReflectionTestUtils.setField(interceptor, "trustedProxies", new String[]{"10.0.0.5"});
+        ReflectionTestUtils.setField(interceptor, "redisPrefix", "blog:analytics:");
+        interceptor.init();
+    }
+
+    private boolean send(String remoteAddr, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/analytics/visit");
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader("X-Forwarded-For", forwardedFor);
+        }
+        return interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+    }
+
+    /**
+     * 测试伪造X-Forwarded-For
+     * 预期结果：直连地址不是可信代理时忽略转发请求头，每次换一个伪造IP仍按直连地址限流
+     */
+    @Test
+    void testSpoofedForwardedForIsIgnored() throws Exception {
+        assertTrue(send("203.0.113.7", "1.1.1.1"));
+        assertTrue(send("203.0.113.7", "2.2.2.2"));
+        assertFalse(send("203.0.113.7", "3.3.3.3"));
+    }
+
+    /**
+     * 测试可信代理转发
+     * 预期结果：来自可信代理的请求按X-Forwarded-For中最右侧的不可信地址限流，不同客户端互不影响
+     */
+    @Test
+    void testTrustedProxyUsesForwardedClient() throws Exception {
+        assertTrue(send("10.0.0.5", "1.1.1.1"));
+        assertTrue(send("10.0.0.5", "9.9.9.9, 1.1.1.1"));
+        assertFalse(send("10.0.0.5", "8.8.8.8, 1.1.1.1, 10.0.0.5"));
+        assertTrue(send("10.0.0.5", "2.2.2.2"));
+    }
+}
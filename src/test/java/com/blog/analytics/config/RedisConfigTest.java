@@ -0,0 +1,35 @@
+package com.blog.analytics.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis序列化器测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class RedisConfigTest {
+
+    /**
+     * 测试计数器序列化器与INCR写入的数字字符串互通
+     * 预期结果：边界值往返一致，非数字内容抛出异常
+     */
+    @Test
+    void testLongSerializer() {
+        RedisConfig.LongRedisSerializer serializer = RedisConfig.LongRedisSerializer.INSTANCE;
+        for (long value : new long[]{0, 1, -1, 42, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        }
+        assertEquals(12345L, serializer.deserialize("12345".getBytes(StandardCharsets.US_ASCII)));
+        assertNull(serializer.deserialize(new byte[0]));
+        assertThrows(SerializationException.class,
+                () -> serializer.deserialize("\"12\"".getBytes(StandardCharsets.US_ASCII)));
+        assertThrows(SerializationException.class,
+                () -> serializer.deserialize("9223372036854775808".getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -1,25 +1,39 @@
 package com.blog.analytics.controller;
 
+import com.blog.analytics.config.ProxyProperties;
 import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.proxy.ProxyHttpClients;
+import com.blog.analytics.service.impl.ProxyServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import okio.Buffer;
+import okio.BufferedSource;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.io.IOException;
 import java.io.ByteArrayInputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
@@ -37,7 +51,6 @@ class ProxyControllerTest {
     @Mock
     private Call mockCall;
 
-    @InjectMocks
     private ProxyController proxyController;
 
     private MockMvc mockMvc;
@@ -45,6 +58,10 @@ class ProxyControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ProxyServiceImpl proxyService = new ProxyServiceImpl(ProxyHttpClients.shared(okHttpClient), new ProxyProperties(),
+                new SimpleMeterRegistry());
+        proxyService.init();
+        proxyController = new ProxyController(proxyService);
         mockMvc = MockMvcBuilders.standaloneSetup(proxyController).build();
     }
 
@@ -69,11 +86,14 @@ class ProxyControllerTest {
 
         // 模拟OkHttpClient行为
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenReturn(response);
+        mockEnqueue(response);
 
         // 执行测试
-        mockMvc.perform(get("/api/proxy/news/hot-list")
+        MvcResult mvcResult = mockMvc.perform(get("/api/proxy/news/hot-list")
                 .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.code").value(200))
@@ -101,13 +121,16 @@ class ProxyControllerTest {
 
         // 模拟OkHttpClient行为
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenReturn(response);
+        mockEnqueue(response);
 
         // 执行测试（带参数）
-        mockMvc.perform(get("/api/proxy/news/hot-list")
+        MvcResult mvcResult = mockMvc.perform(get("/api/proxy/news/hot-list")
                 .param("date", "2025-12-18")
                 .param("limit", "10")
                 .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.code").value(200))
@@ -132,11 +155,14 @@ class ProxyControllerTest {
 
         // 模拟OkHttpClient行为
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenReturn(response);
+        mockEnqueue(response);
 
         // 执行测试
-        mockMvc.perform(get("/api/proxy/news/hot-list")
+        MvcResult mvcResult = mockMvc.perform(get("/api/proxy/news/hot-list")
                 .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.code").value(500))
@@ -152,14 +178,176 @@ class ProxyControllerTest {
     void testGetNewsHotListNetworkException() throws Exception {
         // 模拟OkHttpClient行为 - 网络异常
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenThrow(new IOException("Network Error"));
+        mockEnqueueFailure(new IOException("Network Error"));
 
         // 执行测试
-        mockMvc.perform(get("/api/proxy/news/hot-list")
+        MvcResult mvcResult = mockMvc.perform(get("/api/proxy/news/hot-list")
                 .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.code").value(500))
                 .andExpect(jsonPath("$.message").isString());
     }
+
+    /**
+     * 测试直通模式请求/api/proxy/news/hot-list接口
+     * 预期结果：上游响应体原样写入data字段，信封字段正常
+     * @throws Exception
+     */
+    @Test
+    void testGetNewsHotListPassthrough() throws Exception {
+        ProxyProperties properties = new ProxyProperties();
+        ProxyProperties.Route route = new ProxyProperties.Route();
+        route.setPassthrough(true);
+        properties.getRoutes().put("news-hot-list", route);
+        ProxyServiceImpl proxyService = new ProxyServiceImpl(ProxyHttpClients.shared(okHttpClient), properties,
+                new SimpleMeterRegistry());
+        proxyService.init();
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProxyController(proxyService)).build();
+
+        String mockNewsData = "{\"code\":200,\"data\":[{\"title\":\"news-3\",\"url\":\"http://test.com/3\"}]}";
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("https://soso-b-api.cqttech.com/api/v1/hot_list").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(mockNewsData.getBytes(), okhttp3.MediaType.parse("application/json")))
+                .build();
+
+        when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
+        mockEnqueue(response);
+
+        MvcResult mvcResult = mockMvc.perform(get("/api/proxy/news/hot-list")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.code").value(200))
+                .andExpect(jsonPath("$.data.data[0].title").value("news-3"))
+                .andExpect(jsonPath("$.timestamp").isNumber());
+    }
+
+    /**
+     * 测试直通模式下异步请求先于上游结束
+     * 预期结果：请求超时或客户端断开后上游才返回，未被写出的响应体仍被关闭，不泄漏连接
+     * @throws Exception
+     */
+    @Test
+    void testPassthroughResponseReleasedWhenRequestEndsFirst() throws Exception {
+        AtomicReference<Callback> pending = passthroughWithPendingCall();
+        MvcResult mvcResult = mockMvc.perform(get("/api/proxy/news/hot-list"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        ((MockAsyncContext) mvcResult.getRequest().getAsyncContext()).complete();
+
+        AtomicBoolean closed = new AtomicBoolean();
+        pending.get().onResponse(mockCall, trackedResponse(closed));
+
+        assertTrue(closed.get());
+    }
+
+    /**
+     * 测试直通模式下结果已就绪但未写出
+     * 预期结果：上游已返回、异步请求未分发写出就结束时，请求结束后关闭响应体
+     * @throws Exception
+     */
+    @Test
+    void testPassthroughResponseReleasedWhenResultNotWritten() throws Exception {
+        AtomicReference<Callback> pending = passthroughWithPendingCall();
+        MvcResult mvcResult = mockMvc.perform(get("/api/proxy/news/hot-list"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        AtomicBoolean closed = new AtomicBoolean();
+        pending.get().onResponse(mockCall, trackedResponse(closed));
+        assertFalse(closed.get());
+
+        ((MockAsyncContext) mvcResult.getRequest().getAsyncContext()).complete();
+        assertTrue(closed.get());
+    }
+
+    /**
+     * 新闻热搜路由改为直通模式，上游调用挂起直到测试手动回调
+     */
+    private AtomicReference<Callback> passthroughWithPendingCall() {
+        ProxyProperties properties = new ProxyProperties();
+        ProxyProperties.Route route = new ProxyProperties.Route();
+        route.setPassthrough(true);
+        properties.getRoutes().put("news-hot-list", route);
+        ProxyServiceImpl proxyService = new ProxyServiceImpl(ProxyHttpClients.shared(okHttpClient), properties,
+                new SimpleMeterRegistry());
+        proxyService.init();
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProxyController(proxyService)).build();
+
+        AtomicReference<Callback> pending = new AtomicReference<>();
+        when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
+        doAnswer(invocation -> {
+            pending.set(invocation.getArgument(0));
+            return null;
+        }).when(mockCall).enqueue(any(Callback.class));
+        return pending;
+    }
+
+    /**
+     * 关闭时记录标志的上游响应
+     */
+    private static Response trackedResponse(AtomicBoolean closed) {
+        ResponseBody body = new ResponseBody() {
+            private final Buffer source = new Buffer().writeUtf8("{\"data\":[]}");
+
+            @Override
+            public okhttp3.MediaType contentType() {
+                return okhttp3.MediaType.parse("application/json");
+            }
+
+            @Override
+            public long contentLength() {
+                return source.size();
+            }
+
+            @Override
+            public BufferedSource source() {
+                return source;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        return new Response.Builder()
+                .request(new Request.Builder().url("https://soso-b-api.cqttech.com/api/v1/hot_list").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(body)
+                .build();
+    }
+
+    /**
+     * 模拟异步调用成功返回
+     */
+    private void mockEnqueue(Response response) {
+        doAnswer(invocation -> {
+            Callback callback = invocation.getArgument(0);
+            callback.onResponse(mockCall, response);
+            return null;
+        }).when(mockCall).enqueue(any(Callback.class));
+    }
+
+    /**
+     * 模拟异步调用网络异常
+     */
+    private void mockEnqueueFailure(IOException e) {
+        doAnswer(invocation -> {
+            Callback callback = invocation.getArgument(0);
+            callback.onFailure(mockCall, e);
+            return null;
+        }).when(mockCall).enqueue(any(Callback.class));
+    }
 }
@@ -1,19 +1,27 @@
 package com.blog.analytics.controller;
 
+import com.blog.analytics.config.ProxyProperties;
 import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.proxy.ProxyHttpClients;
+import com.blog.analytics.service.impl.ProxyServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 /**
@@ -31,12 +39,15 @@ class ProxyControllerUnitTest {
     @Mock
     private Call mockCall;
 
-    @InjectMocks
     private ProxyController proxyController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ProxyServiceImpl proxyService = new ProxyServiceImpl(ProxyHttpClients.shared(okHttpClient), new ProxyProperties(),
+                new SimpleMeterRegistry());
+        proxyService.init();
+        proxyController = new ProxyController(proxyService);
     }
 
     /**
@@ -60,10 +71,10 @@ class ProxyControllerUnitTest {
 
         // 模拟OkHttpClient行为
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenReturn(mockResponse);
+        mockEnqueue(mockResponse);
 
         // 执行方法调用
-        HoppinResponse<Object> response = proxyController.getNewsHotList(null);
+        HoppinResponse<Object> response = resultOf(proxyController.getNewsHotList(null));
 
         // 验证结果
         assertNotNull(response);
@@ -98,10 +109,10 @@ class ProxyControllerUnitTest {
 
         // 模拟OkHttpClient行为
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenReturn(mockResponse);
+        mockEnqueue(mockResponse);
 
         // 执行方法调用
-        HoppinResponse<Object> response = proxyController.getNewsHotList(params);
+        HoppinResponse<Object> response = resultOf(proxyController.getNewsHotList(params));
 
         // 验证结果
         assertNotNull(response);
@@ -128,10 +139,10 @@ class ProxyControllerUnitTest {
 
         // 模拟OkHttpClient行为
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenReturn(mockResponse);
+        mockEnqueue(mockResponse);
 
         // 执行方法调用
-        HoppinResponse<Object> response = proxyController.getNewsHotList(null);
+        HoppinResponse<Object> response = resultOf(proxyController.getNewsHotList(null));
 
         // 验证结果
         assertNotNull(response);
@@ -149,10 +160,10 @@ class ProxyControllerUnitTest {
     void testGetNewsHotListMethodIOException() throws Exception {
         // 模拟OkHttpClient行为 - 抛出IOException
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenThrow(new IOException("Connection timeout"));
+        mockEnqueueFailure(new IOException("Connection timeout"));
 
         // 执行方法调用
-        HoppinResponse<Object> response = proxyController.getNewsHotList(null);
+        HoppinResponse<Object> response = resultOf(proxyController.getNewsHotList(null));
 
         // 验证结果
         assertNotNull(response);
@@ -180,10 +191,10 @@ class ProxyControllerUnitTest {
 
         // 模拟OkHttpClient行为
         when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
-        when(mockCall.execute()).thenReturn(mockResponse);
+        mockEnqueue(mockResponse);
 
         // 执行方法调用
-        HoppinResponse<Object> response = proxyController.getNewsHotList(null);
+        HoppinResponse<Object> response = resultOf(proxyController.getNewsHotList(null));
 
         // 验证结果
         assertNotNull(response);
@@ -191,4 +202,73 @@ class ProxyControllerUnitTest {
         assertEquals(500, response.getCode());
         assertTrue(response.getMessage().contains("获取新闻热搜失败"));
     }
+
+    /**
+     * 测试上游失败时返回最近一次成功的缓存数据
+     * 预期结果：缓存过期后回源失败，仍返回成功响应和旧数据
+     * @throws Exception
+     */
+    @Test
+    void testGetNewsHotListServesLastGoodValueOnFailure() throws Exception {
+        // 缓存立即过期，每次请求都会回源
+        ProxyProperties properties = new ProxyProperties();
+        properties.getCache().setTtl(Duration.ZERO);
+        properties.getCache().setStaleWhileRevalidate(Duration.ZERO);
+        ProxyServiceImpl proxyService = new ProxyServiceImpl(ProxyHttpClients.shared(okHttpClient), properties,
+                new SimpleMeterRegistry());
+        proxyService.init();
+        proxyController = new ProxyController(proxyService);
+
+        String mockNewsData = "{\"code\":200,\"data\":[{\"title\":\"测试新闻1\"}]}";
+        Response mockResponse = new Response.Builder()
+                .request(new Request.Builder().url("https://soso-b-api.cqttech.com/api/v1/hot_list").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(mockNewsData.getBytes(), okhttp3.MediaType.parse("application/json")))
+                .build();
+
+        when(okHttpClient.newCall(any(Request.class))).thenReturn(mockCall);
+        mockEnqueue(mockResponse);
+        HoppinResponse<Object> first = resultOf(proxyController.getNewsHotList(null));
+
+        mockEnqueueFailure(new IOException("Connection timeout"));
+        HoppinResponse<Object> second = resultOf(proxyController.getNewsHotList(null));
+
+        assertTrue(first.getSuccess());
+        assertTrue(second.getSuccess());
+        assertEquals(first.getData(), second.getData());
+        verify(mockCall, times(2)).enqueue(any(Callback.class));
+    }
+
+    /**
+     * 模拟异步调用成功返回
+     */
+    private void mockEnqueue(Response response) {
+        doAnswer(invocation -> {
+            Callback callback = invocation.getArgument(0);
+            callback.onResponse(mockCall, response);
+            return null;
+        }).when(mockCall).enqueue(any(Callback.class));
+    }
+
+    /**
+     * 取出已完成的异步结果（模拟的上游调用同步回调）
+     */
+    @SuppressWarnings("unchecked")
+    private static HoppinResponse<Object> resultOf(DeferredResult<HoppinResponse<Object>> deferred) {
+        assertTrue(deferred.hasResult());
+        return (HoppinResponse<Object>) deferred.getResult();
+    }
+
+    /**
+     * 模拟异步调用网络异常
+     */
+    private void mockEnqueueFailure(IOException e) {
+        doAnswer(invocation -> {
+            Callback callback = invocation.getArgument(0);
+            callback.onFailure(mockCall, e);
+            return null;
+        }).when(mockCall).enqueue(any(Callback.class));
+    }
 }
@@ -0,0 +1,137 @@
+package com.blog.analytics.redis;
+
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.protocol.AsyncCommand;
+import io.lettuce.core.protocol.Command;
+import io.lettuce.core.protocol.CommandType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RedisCommandBatcher测试类
+ * 使用Mock连接，命令结果由测试手动完成
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class RedisCommandBatcherTest {
+
+    private StatefulRedisConnection<String, byte[]> connection;
+    private RedisAsyncCommands<String, byte[]> commands;
+    private RedisCommandBatcher batcher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        connection = mock(StatefulRedisConnection.class);
+        commands = mock(RedisAsyncCommands.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    private static AsyncCommand<String, byte[], Long> pendingCommand() {
+        return new AsyncCommand<>(new Command<>(CommandType.INCR, null));
+    }
+
+    /**
+     * 测试命令结果回传，且连接关闭了自动刷新、由发送器显式flush
+     * 预期结果：结果与Redis响应一致，在途数归零
+     * @throws Exception
+     */
+    @Test
+    void testSubmitCompletesWithResponse() throws Exception {
+        batcher = new RedisCommandBatcher(connection, commands, 10, 1000, 100);
+        verify(connection).setAutoFlushCommands(false);
+
+        AsyncCommand<String, byte[], Long> command = pendingCommand();
+        CompletableFuture<Long> result = batcher.submit(c -> command);
+        verify(connection, timeout(1000)).flushCommands();
+        assertEquals(1, batcher.inFlight());
+
+        command.complete(42L);
+        assertEquals(42L, result.get(1, TimeUnit.SECONDS));
+        assertEquals(0, batcher.inFlight());
+    }
+
+    /**
+     * 测试绑定指标
+     * 预期结果：在途数指标与inFlight一致，每次flush记录一次批大小
+     * @throws Exception
+     */
+    @Test
+    void testMetrics() throws Exception {
+        batcher = new RedisCommandBatcher(connection, commands, 10, 1000, 100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        batcher.bindTo(registry);
+
+        AsyncCommand<String, byte[], Long> command = pendingCommand();
+        batcher.submit(c -> command);
+        DistributionSummary batchSize = registry.get("blog.analytics.redis.batch.size").summary();
+        long deadline = System.currentTimeMillis() + 1000;
+        while (batchSize.count() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, batchSize.count());
+        assertEquals(1.0, batchSize.totalAmount());
+        assertEquals(1.0, registry.get("blog.analytics.redis.batch.in-flight").gauge().value());
+        assertEquals(0.0, registry.get("blog.analytics.redis.batch.queued").gauge().value());
+        command.complete(1L);
+    }
+
+    /**
+     * 测试在途命令达到上限后新的命令直接失败
+     * 预期结果：第三条命令以RejectedExecutionException失败，前面的命令完成后可以继续提交
+     * @throws Exception
+     */
+    @Test
+    void testInFlightLimit() throws Exception {
+        batcher = new RedisCommandBatcher(connection, commands, 2, 1000, 100);
+        AsyncCommand<String, byte[], Long> first = pendingCommand();
+        AsyncCommand<String, byte[], Long> second = pendingCommand();
+        batcher.submit(c -> first);
+        batcher.submit(c -> second);
+
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> batcher.submit(c -> pendingCommand()).get(1, TimeUnit.SECONDS));
+        assertTrue(rejected.getCause() instanceof RejectedExecutionException);
+
+        verify(connection, timeout(1000).atLeastOnce()).flushCommands();
+        first.complete(1L);
+        AsyncCommand<String, byte[], Long> third = pendingCommand();
+        CompletableFuture<Long> result = batcher.submit(c -> third);
+        third.complete(3L);
+        assertEquals(3L, result.get(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 测试Redis未响应时命令超时
+     * 预期结果：以TimeoutException失败，超时的命令仍计入在途数
+     */
+    @Test
+    void testCommandTimeout() {
+        batcher = new RedisCommandBatcher(connection, commands, 10, 50, 100);
+        CompletableFuture<Long> result = batcher.submit(c -> pendingCommand());
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof TimeoutException);
+        assertEquals(1, batcher.inFlight());
+    }
+}
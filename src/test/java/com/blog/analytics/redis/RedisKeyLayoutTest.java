@@ -0,0 +1,62 @@
+package com.blog.analytics.redis;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RedisKeyLayout测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class RedisKeyLayoutTest {
+
+    private static final String PREFIX = "blog:analytics:";
+
+    /**
+     * 测试新布局同一天的键位于同一集群槽位
+     * 预期结果：访问计数、独立IP、页面计数、实时统计的槽位相同，不同日期的键使用各自的哈希标签
+     */
+    @Test
+    void testTaggedKeysShareSlot() {
+        RedisKeyLayout layout = new RedisKeyLayout(PREFIX, RedisKeyLayout.Phase.TAGGED);
+        int slot = SlotHash.getSlot(layout.visitCount(20261019));
+        assertEquals(slot, SlotHash.getSlot(layout.uniqueIp(20261019)));
+        assertEquals(slot, SlotHash.getSlot(layout.pageVisits(20261019)));
+        assertEquals(slot, SlotHash.getSlot(layout.realtime("20261019")));
+        assertEquals("blog:analytics:{20261020}:visit:count", layout.visitCount(20261020));
+    }
+
+    /**
+     * 测试各迁移阶段的读写开关
+     * 预期结果：双写阶段同时写新旧键，读取在read-tagged阶段切换到新键
+     */
+    @Test
+    void testMigrationPhases() {
+        RedisKeyLayout legacy = new RedisKeyLayout(PREFIX, RedisKeyLayout.Phase.LEGACY);
+        assertTrue(legacy.writeLegacy() && !legacy.writeTagged() && !legacy.readTagged());
+
+        RedisKeyLayout dualWrite = new RedisKeyLayout(PREFIX, RedisKeyLayout.Phase.DUAL_WRITE);
+        assertTrue(dualWrite.writeLegacy() && dualWrite.writeTagged() && !dualWrite.readTagged());
+
+        RedisKeyLayout readTagged = new RedisKeyLayout(PREFIX, RedisKeyLayout.Phase.READ_TAGGED);
+        assertTrue(readTagged.writeLegacy() && readTagged.writeTagged() && readTagged.readTagged());
+
+        RedisKeyLayout tagged = new RedisKeyLayout(PREFIX, RedisKeyLayout.Phase.TAGGED);
+        assertTrue(!tagged.writeLegacy() && tagged.writeTagged() && tagged.readTagged());
+    }
+
+    /**
+     * 测试从旧布局页面计数键中解析页面URL
+     * 预期结果：URL中的冒号被保留，日期不匹配时返回null
+     */
+    @Test
+    void testLegacyPageUrl() {
+        RedisKeyLayout layout = new RedisKeyLayout(PREFIX, RedisKeyLayout.Phase.LEGACY);
+        String key = layout.legacyPageVisit("https://hoppinzq.com/a", 20261019);
+        assertEquals("https://hoppinzq.com/a", layout.legacyPageUrlOf(key, 20261019));
+        assertNull(layout.legacyPageUrlOf(key, 20261020));
+    }
+}
@@ -0,0 +1,128 @@
+package com.blog.analytics.redis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ScheduledJobCoordinator测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class ScheduledJobCoordinatorTest {
+
+    /**
+     * 测试分片认领
+     * 预期结果：已完成和被其他实例持有的分片跳过，其余分片执行后写入完成标记并释放租约
+     */
+    @Test
+    void testPartitionsSkipDoneAndHeld() {
+        RedisLeaseLock lock = mock(RedisLeaseLock.class);
+        when(lock.getInstanceId()).thenReturn("node-a");
+        when(lock.isDone(eq("clean"), anyString())).thenReturn(false);
+        when(lock.isDone("clean", "20261019:1")).thenReturn(true);
+        when(lock.tryAcquire(eq("clean"), anyString(), anyLong()))
+            .thenAnswer(invocation -> RedisLeaseLock.Lease.local("clean", invocation.getArgument(1)));
+        when(lock.tryAcquire(eq("clean"), eq("20261019:2"), anyLong())).thenReturn(null);
+        when(lock.markDone(any(), anyLong())).thenReturn(true);
+
+        ScheduledJobCoordinator coordinator = new ScheduledJobCoordinator(lock, true, 60000, 48);
+        List<Integer> executed = new ArrayList<>();
+        int completed = coordinator.runPartitioned("clean", "20261019", 4, (partition, lease) -> executed.add(partition));
+
+        assertEquals(2, completed);
+        executed.sort(Integer::compare);
+        assertEquals(Arrays.asList(0, 3), executed);
+        verify(lock, times(2)).markDone(any(), anyLong());
+        verify(lock, times(2)).release(any());
+    }
+
+    /**
+     * 测试任务执行期间失去租约
+     * 预期结果：向调用方抛出异常，不写入完成标记，租约仍被释放，下一次运行可重新执行
+     */
+    @Test
+    void testLostLeaseIsNotMarkedDone() {
+        RedisLeaseLock lock = mock(RedisLeaseLock.class);
+        when(lock.getInstanceId()).thenReturn("node-a");
+        RedisLeaseLock.Lease lease = RedisLeaseLock.Lease.local("sync", "2026101910");
+        when(lock.tryAcquire(eq("sync"), eq("2026101910"), anyLong())).thenReturn(lease);
+        doCallRealMethod().when(lock).release(any());
+
+        ScheduledJobCoordinator coordinator = new ScheduledJobCoordinator(lock, true, 60000, 48);
+        // 模拟任务执行期间租约被释放（失效）
+        assertThrows(IllegalStateException.class,
+            () -> coordinator.runExclusive("sync", "2026101910", held -> lock.release(held)));
+
+        verify(lock, never()).markDone(any(), anyLong());
+    }
+
+    /**
+     * 测试写入完成标记时锁已被其他实例取得
+     * 预期结果：完成标记未写入，向调用方抛出异常，租约仍被释放
+     */
+    @Test
+    void testMarkDoneRejectedIsReported() {
+        RedisLeaseLock lock = mock(RedisLeaseLock.class);
+        when(lock.getInstanceId()).thenReturn("node-a");
+        when(lock.tryAcquire(eq("sync"), eq("2026101910"), anyLong()))
+            .thenReturn(RedisLeaseLock.Lease.local("sync", "2026101910"));
+        when(lock.markDone(any(), anyLong())).thenReturn(false);
+
+        ScheduledJobCoordinator coordinator = new ScheduledJobCoordinator(lock, true, 60000, 48);
+        assertThrows(IllegalStateException.class, () -> coordinator.runExclusive("sync", "2026101910", lease -> { }));
+
+        verify(lock).markDone(any(), anyLong());
+        verify(lock).release(any());
+    }
+
+    /**
+     * 测试分片任务失败
+     * 预期结果：失败分片不影响其余分片执行；全部处理完后抛出异常，失败分片不写完成标记，首个失败原因为cause
+     */
+    @Test
+    void testPartitionFailureIsReported() {
+        RedisLeaseLock lock = mock(RedisLeaseLock.class);
+        when(lock.getInstanceId()).thenReturn("node-a");
+        when(lock.tryAcquire(eq("clean"), anyString(), anyLong()))
+            .thenAnswer(invocation -> RedisLeaseLock.Lease.local("clean", invocation.getArgument(1)));
+        when(lock.markDone(any(), anyLong())).thenReturn(true);
+
+        ScheduledJobCoordinator coordinator = new ScheduledJobCoordinator(lock, true, 60000, 48);
+        List<Integer> executed = new ArrayList<>();
+        RuntimeException dbDown = new RuntimeException("db down");
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+            () -> coordinator.runPartitioned("clean", "20261019", 3, (partition, lease) -> {
+                executed.add(partition);
+                if (partition == 1) {
+                    throw dbDown;
+                }
+            }));
+
+        assertSame(dbDown, error.getCause());
+        assertEquals(3, executed.size());
+        verify(lock, times(2)).markDone(any(), anyLong());
+        verify(lock, times(3)).release(any());
+    }
+
+    /**
+     * 测试单实例模式下任务失败
+     * 预期结果：异常同样抛给调用方
+     */
+    @Test
+    void testLocalFailureIsReported() {
+        ScheduledJobCoordinator coordinator = new ScheduledJobCoordinator(mock(RedisLeaseLock.class), false, 60000, 48);
+
+        assertThrows(IllegalStateException.class, () -> coordinator.runExclusive("sync", "2026101910", lease -> {
+            throw new RuntimeException("redis down");
+        }));
+        assertTrue(coordinator.runExclusive("sync", "2026101910", lease -> { }));
+    }
+}
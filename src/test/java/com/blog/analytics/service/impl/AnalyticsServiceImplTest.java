@@ -0,0 +1,101 @@
+package com.blog.analytics.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.blog.analytics.dto.RangeStatsDTO;
+import com.blog.analytics.entity.DailyStats;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.VisitRecordMapper;
+import com.blog.analytics.utils.HyperLogLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AnalyticsServiceImpl测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class AnalyticsServiceImplTest {
+
+    private VisitRecordMapper visitRecordMapper;
+    private DailyStatsMapper dailyStatsMapper;
+    private AnalyticsServiceImpl analyticsService;
+
+    @BeforeEach
+    void setUp() {
+        visitRecordMapper = mock(VisitRecordMapper.class);
+        dailyStatsMapper = mock(DailyStatsMapper.class);
+        analyticsService = new AnalyticsServiceImpl(visitRecordMapper, dailyStatsMapper, null, null,
+            null, null, null, null, null, new SimpleMeterRegistry());
+    }
+
+    private static Map<String, Object> rangeRow(int dateKey, long visits, long uniqueIps) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("dateKey", dateKey);
+        row.put("totalVisits", visits);
+        row.put("uniqueIps", uniqueIps);
+        return row;
+    }
+
+    private static DailyStats day(int dateKey, byte[] ipSketch) {
+        DailyStats stats = new DailyStats();
+        stats.setDateKey(dateKey);
+        stats.setSessionCount(10L);
+        stats.setBounceSessions(4L);
+        stats.setTotalSessionDuration(600L);
+        stats.setIpSketch(ipSketch);
+        return stats;
+    }
+
+    /**
+     * 测试区间独立IP汇总
+     * 预期结果：ip_sketch（select=false）被显式查询；两天有大量重复IP时按草图并集估计，小于逐天独立IP数之和
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRangeUniquesMergeDailySketches() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            monday.offer("10.0." + (i / 256) + "." + (i % 256));
+            // 周二有800个IP与周一相同
+            tuesday.offer("10.0." + ((i + 200) / 256) + "." + ((i + 200) % 256));
+        }
+        when(visitRecordMapper.getRangeStats(20261012, 20261013)).thenReturn(Arrays.asList(
+            rangeRow(20261012, 3000, 1000), rangeRow(20261013, 2800, 1000)));
+        List<DailyStats> stored = Arrays.asList(day(20261012, monday.toBytes()), day(20261013, tuesday.toBytes()));
+        // 模拟数据库：未在select中列出的ip_sketch不会返回
+        when(dailyStatsMapper.selectList(any())).thenAnswer(invocation -> {
+            QueryWrapper<DailyStats> wrapper = invocation.getArgument(0);
+            boolean withSketch = Arrays.asList(wrapper.getSqlSelect().split(",")).contains("ip_sketch");
+            List<DailyStats> rows = new ArrayList<>();
+            for (DailyStats row : stored) {
+                rows.add(day(row.getDateKey(), withSketch ? row.getIpSketch() : null));
+            }
+            return rows;
+        });
+
+        RangeStatsDTO range = analyticsService.getRangeStats(LocalDate.of(2026, 10, 12), LocalDate.of(2026, 10, 13));
+
+        assertEquals(2, range.getData().size());
+        assertEquals(5800L, range.getTotal().getVisits());
+        long dailySum = range.getData().stream().mapToLong(d -> d.getUniqueIps()).sum();
+        assertEquals(2000L, dailySum);
+        assertTrue(range.getTotal().getUniqueIps() < dailySum);
+        assertEquals(1200L, range.getTotal().getUniqueIps(), 1200 * 0.05);
+        assertEquals(40.0, range.getTotal().getAvgBounceRate());
+        assertEquals(60, range.getTotal().getAvgSessionDuration());
+    }
+}
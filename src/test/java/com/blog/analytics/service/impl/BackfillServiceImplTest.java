@@ -0,0 +1,192 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.dto.BackfillProgressDTO;
+import com.blog.analytics.entity.DailyStats;
+import com.blog.analytics.entity.HourlyStats;
+import com.blog.analytics.entity.PageStats;
+import com.blog.analytics.entity.VisitRecord;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.HourlyStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.mapper.VisitRecordMapper;
+import com.blog.analytics.redis.RedisKeyLayout;
+import com.blog.analytics.service.RollupService;
+import com.blog.analytics.utils.DateUtil;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * BackfillServiceImpl测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class BackfillServiceImplTest {
+
+    private VisitRecordMapper visitRecordMapper;
+    private DailyStatsMapper dailyStatsMapper;
+    private PageStatsMapper pageStatsMapper;
+    private HourlyStatsMapper hourlyStatsMapper;
+    private SetOperations<String, Long> setOperations;
+    private BackfillServiceImpl backfillService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        visitRecordMapper = mock(VisitRecordMapper.class);
+        dailyStatsMapper = mock(DailyStatsMapper.class);
+        pageStatsMapper = mock(PageStatsMapper.class);
+        hourlyStatsMapper = mock(HourlyStatsMapper.class);
+        RedisTemplate<String, Long> counterRedisTemplate = mock(RedisTemplate.class);
+        setOperations = mock(SetOperations.class);
+        when(counterRedisTemplate.opsForSet()).thenReturn(setOperations);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        backfillService = new BackfillServiceImpl(visitRecordMapper, dailyStatsMapper, pageStatsMapper,
+            hourlyStatsMapper, counterRedisTemplate,
+            new RedisKeyLayout("blog:analytics:", RedisKeyLayout.Phase.LEGACY), transactionManager,
+            mock(RollupService.class));
+        ReflectionTestUtils.setField(backfillService, "parallelism", 2);
+        ReflectionTestUtils.setField(backfillService, "maxDays", 366);
+        ReflectionTestUtils.setField(backfillService, "checkpointTtlDays", 7);
+    }
+
+    /**
+     * 测试按游标汇总一天的原始记录
+     * 预期结果：每日、小时、页面的访问次数和独立IP数正确，24个小时全部写入
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRebuildDayAggregatesCursor() {
+        when(visitRecordMapper.streamByDateKey(20261001)).thenReturn(cursorOf(Arrays.asList(
+            record("/a", "1.1.1.1", 2026100110),
+            record("/a", "2.2.2.2", 2026100110),
+            record("/b", "1.1.1.1", 2026100111))));
+
+        assertEquals(3, backfillService.rebuildDay(20261001));
+
+        ArgumentCaptor<DailyStats> daily = ArgumentCaptor.forClass(DailyStats.class);
+        verify(dailyStatsMapper).upsertVisitStats(daily.capture());
+        assertEquals(Long.valueOf(3), daily.getValue().getTotalVisits());
+        assertEquals(Long.valueOf(2), daily.getValue().getUniqueIps());
+
+        ArgumentCaptor<List<HourlyStats>> hours = ArgumentCaptor.forClass(List.class);
+        verify(hourlyStatsMapper).batchReplaceVisitStats(hours.capture());
+        assertEquals(24, hours.getValue().size());
+        HourlyStats tenOClock = hours.getValue().get(10);
+        assertEquals("2026-10-01 10", tenOClock.getHourStr());
+        assertEquals(Integer.valueOf(2), tenOClock.getVisitCount());
+        assertEquals(Integer.valueOf(2), tenOClock.getUniqueIpCount());
+        assertEquals(Integer.valueOf(0), hours.getValue().get(0).getVisitCount());
+
+        ArgumentCaptor<List<PageStats>> pages = ArgumentCaptor.forClass(List.class);
+        verify(pageStatsMapper).resetVisitStats(20261001);
+        verify(pageStatsMapper).batchReplaceVisitStats(pages.capture());
+        PageStats pageA = pages.getValue().stream().filter(p -> "/a".equals(p.getPageUrl())).findFirst().orElse(null);
+        assertNotNull(pageA);
+        assertEquals(Integer.valueOf(2), pageA.getVisitCount());
+        assertEquals(Integer.valueOf(2), pageA.getUniqueIpCount());
+    }
+
+    /**
+     * 测试写入前守卫失败（如已失去租约）
+     * 预期结果：异常抛给调用方，不写入任何统计
+     */
+    @Test
+    void testRebuildDayGuardFailureSkipsWrites() {
+        when(visitRecordMapper.streamByDateKey(20261001)).thenReturn(cursorOf(Collections.singletonList(
+            record("/a", "1.1.1.1", 2026100110))));
+
+        assertThrows(IllegalStateException.class, () -> backfillService.rebuildDay(20261001, () -> {
+            throw new IllegalStateException("租约已失效");
+        }));
+
+        verify(dailyStatsMapper, never()).upsertVisitStats(any());
+        verify(hourlyStatsMapper, never()).batchReplaceVisitStats(any());
+        verify(pageStatsMapper, never()).resetVisitStats(any());
+    }
+
+    /**
+     * 测试从检查点继续重建
+     * 预期结果：检查点中已完成的日期被跳过，其余日期重建后写入检查点
+     * @throws Exception
+     */
+    @Test
+    void testResumeFromCheckpoint() throws Exception {
+        LocalDate start = LocalDate.now().minusDays(5);
+        LocalDate end = start.plusDays(2);
+        Integer skippedKey = DateUtil.getDateKey(start.plusDays(1));
+        when(setOperations.members(anyString())).thenReturn(new HashSet<>(Collections.singletonList(skippedKey.longValue())));
+        when(visitRecordMapper.streamByDateKey(anyInt())).thenAnswer(invocation -> cursorOf(Collections.singletonList(
+            record("/a", "1.1.1.1", (Integer) invocation.getArgument(0) * 100))));
+
+        backfillService.start(start, end, false);
+        BackfillProgressDTO progress = backfillService.getProgress();
+        for (int i = 0; i < 100 && "RUNNING".equals(progress.getStatus()); i++) {
+            Thread.sleep(50);
+            progress = backfillService.getProgress();
+        }
+
+        assertEquals("COMPLETED", progress.getStatus());
+        assertEquals(Integer.valueOf(2), progress.getCompletedDays());
+        assertEquals(Integer.valueOf(1), progress.getSkippedDays());
+        assertEquals(Long.valueOf(2), progress.getRowsProcessed());
+        verify(visitRecordMapper, never()).streamByDateKey(skippedKey);
+        verify(setOperations, times(2)).add(anyString(), any());
+    }
+
+    private static VisitRecord record(String pageUrl, String ip, Integer hourKey) {
+        VisitRecord record = new VisitRecord();
+        record.setPageUrl(pageUrl);
+        record.setIpAddress(ip);
+        record.setHourKey(hourKey);
+        return record;
+    }
+
+    private static Cursor<VisitRecord> cursorOf(List<VisitRecord> records) {
+        return new Cursor<VisitRecord>() {
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public boolean isConsumed() {
+                return false;
+            }
+
+            @Override
+            public int getCurrentIndex() {
+                return -1;
+            }
+
+            @Override
+            public Iterator<VisitRecord> iterator() {
+                return records.iterator();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,137 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.entity.PageDurationBucket;
+import com.blog.analytics.entity.PageStats;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.utils.DateUtil;
+import com.blog.analytics.utils.DurationHistogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * PageDurationServiceImpl测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class PageDurationServiceImplTest {
+
+    private PageStatsMapper pageStatsMapper;
+    private PageDurationServiceImpl pageDurationService;
+
+    @BeforeEach
+    void setUp() {
+        pageStatsMapper = mock(PageStatsMapper.class);
+        pageDurationService = new PageDurationServiceImpl(pageStatsMapper);
+    }
+
+    /**
+     * 测试按页面汇总后批量写入
+     * 预期结果：每个页面一行次数与总时长，每个非空桶一行计数；刷新后汇总表清空，不重复写入
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushUpsertsStatsAndBuckets() {
+        pageDurationService.recordDuration("/a", 500);
+        pageDurationService.recordDuration("/a", 700);
+        pageDurationService.recordDuration("/a", 3000);
+        pageDurationService.recordDuration("/b", 60_000);
+
+        pageDurationService.flushDurationStats();
+
+        ArgumentCaptor<List<PageStats>> statsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(pageStatsMapper).batchUpsertDurationStats(statsCaptor.capture());
+        Map<String, PageStats> stats = statsCaptor.getValue().stream()
+            .collect(Collectors.toMap(PageStats::getPageUrl, Function.identity()));
+        assertEquals(3L, stats.get("/a").getDurationCount());
+        assertEquals(4200L, stats.get("/a").getDurationSumMs());
+        assertEquals(DateUtil.getCurrentDateKey(), stats.get("/a").getDateKey());
+        assertEquals(1L, stats.get("/b").getDurationCount());
+
+        ArgumentCaptor<List<PageDurationBucket>> bucketCaptor = ArgumentCaptor.forClass(List.class);
+        verify(pageStatsMapper).batchUpsertDurationBuckets(bucketCaptor.capture());
+        List<PageDurationBucket> buckets = bucketCaptor.getValue();
+        assertEquals(3, buckets.size());
+        assertEquals(2L, bucketCount(buckets, "/a", 0));
+        assertEquals(1L, bucketCount(buckets, "/a", DurationHistogram.bucketOf(3000)));
+        assertEquals(1L, bucketCount(buckets, "/b", DurationHistogram.bucketOf(60_000)));
+
+        pageDurationService.flushDurationStats();
+        verifyNoMoreInteractions(pageStatsMapper);
+    }
+
+    /**
+     * 测试直方图桶写入失败后重试
+     * 预期结果：已写入的次数与总时长不重复写入；失败的桶计数与新上报的数据合并，下次刷新一并写入
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedBucketUpsertIsMergedBack() {
+        List<List<PageDurationBucket>> bucketWrites = new ArrayList<>();
+        when(pageStatsMapper.batchUpsertDurationBuckets(anyList())).thenAnswer(invocation -> {
+            bucketWrites.add(new ArrayList<>(invocation.getArgument(0)));
+            if (bucketWrites.size() == 1) {
+                throw new RuntimeException("db down");
+            }
+            return 1;
+        });
+
+        pageDurationService.recordDuration("/a", 500);
+        pageDurationService.flushDurationStats();
+        pageDurationService.recordDuration("/a", 800);
+        pageDurationService.flushDurationStats();
+
+        ArgumentCaptor<List<PageStats>> statsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(pageStatsMapper, times(2)).batchUpsertDurationStats(statsCaptor.capture());
+        assertEquals(1L, statsCaptor.getAllValues().get(0).get(0).getDurationCount());
+        assertEquals(1L, statsCaptor.getAllValues().get(1).get(0).getDurationCount());
+        assertEquals(800L, statsCaptor.getAllValues().get(1).get(0).getDurationSumMs());
+
+        assertEquals(2, bucketWrites.size());
+        assertEquals(2L, bucketCount(bucketWrites.get(1), "/a", 0));
+    }
+
+    /**
+     * 测试次数与总时长写入失败后重试
+     * 预期结果：失败时桶计数尚未写入，次数、总时长和桶计数全部在下次刷新时写入
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedStatsUpsertIsMergedBack() {
+        when(pageStatsMapper.batchUpsertDurationStats(anyList()))
+            .thenThrow(new RuntimeException("db down"))
+            .thenReturn(1);
+
+        pageDurationService.recordDuration("/a", 2000);
+        pageDurationService.flushDurationStats();
+        verify(pageStatsMapper, never()).batchUpsertDurationBuckets(anyList());
+
+        pageDurationService.flushDurationStats();
+        ArgumentCaptor<List<PageStats>> statsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(pageStatsMapper, times(2)).batchUpsertDurationStats(statsCaptor.capture());
+        assertEquals(1L, statsCaptor.getValue().get(0).getDurationCount());
+        assertEquals(2000L, statsCaptor.getValue().get(0).getDurationSumMs());
+
+        ArgumentCaptor<List<PageDurationBucket>> bucketCaptor = ArgumentCaptor.forClass(List.class);
+        verify(pageStatsMapper).batchUpsertDurationBuckets(bucketCaptor.capture());
+        assertEquals(1L, bucketCount(bucketCaptor.getValue(), "/a", DurationHistogram.bucketOf(2000)));
+    }
+
+    private static long bucketCount(List<PageDurationBucket> buckets, String pageUrl, int bucket) {
+        return buckets.stream()
+            .filter(b -> b.getPageUrl().equals(pageUrl) && b.getBucket() == bucket)
+            .mapToLong(PageDurationBucket::getBucketCount)
+            .sum();
+    }
+}
@@ -0,0 +1,299 @@
+package com.blog.analytics.service.impl;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.blog.analytics.config.ProxyProperties;
+import com.blog.analytics.dto.HoppinResponse;
+import com.blog.analytics.proxy.ProxyHttpClients;
+import com.blog.analytics.proxy.ProxyPayload;
+import com.blog.analytics.proxy.ProxyRoute;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProxyServiceImpl熔断与并发隔离测试类
+ * 使用本地MockWebServer模拟上游接口
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class ProxyServiceImplTest {
+
+    private MockWebServer server;
+    private ProxyProperties properties;
+    private ProxyHttpClients clients;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+
+        properties = new ProxyProperties();
+        ProxyProperties.Route route = new ProxyProperties.Route();
+        route.setUrl(server.url("/api/GetAssistData").toString());
+        properties.getRoutes().put(ProxyRoute.WEATHER.getId(), route);
+        properties.getBreaker().setWindowSize(4);
+        properties.getBreaker().setMinimumCalls(4);
+        properties.getBreaker().setOpenDuration(Duration.ofMillis(300));
+        properties.getBreaker().setHalfOpenPermits(1);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (clients != null) {
+            clients.shutdown();
+        }
+        server.shutdown();
+    }
+
+    private ProxyServiceImpl createService() {
+        clients = ProxyHttpClients.create(new OkHttpClient(), properties, ProxyHttpClients.newExecutor());
+        ProxyServiceImpl proxyService = new ProxyServiceImpl(clients, properties, new SimpleMeterRegistry());
+        proxyService.init();
+        return proxyService;
+    }
+
+    private HoppinResponse<Object> fetchWeather(ProxyServiceImpl proxyService) throws Exception {
+        return proxyService.fetch(ProxyRoute.WEATHER, null).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 测试上游持续失败后熔断打开，熔断期间不再请求上游，熔断时长结束后探测成功恢复
+     * 预期结果：熔断期间快速失败且上游请求数不变，恢复后请求成功
+     * @throws Exception
+     */
+    @Test
+    void testCircuitOpensAndRecovers() throws Exception {
+        properties.getCache().setEnabled(false);
+        ProxyServiceImpl proxyService = createService();
+
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+            assertFalse(fetchWeather(proxyService).getSuccess());
+        }
+
+        HoppinResponse<Object> rejected = fetchWeather(proxyService);
+        assertFalse(rejected.getSuccess());
+        assertTrue(rejected.getMessage().contains("获取天气失败"));
+        assertEquals(4, server.getRequestCount());
+
+        // 熔断时长结束后放行一个探测请求，成功后关闭熔断
+        Thread.sleep(350);
+        server.enqueue(new MockResponse().setBody("{\"city\":\"shenzhen\"}"));
+        server.enqueue(new MockResponse().setBody("{\"city\":\"shenzhen\"}"));
+        assertTrue(fetchWeather(proxyService).getSuccess());
+        assertTrue(fetchWeather(proxyService).getSuccess());
+        assertEquals(6, server.getRequestCount());
+    }
+
+    /**
+     * 测试熔断打开后返回缓存中的旧数据
+     * 预期结果：上游失败及熔断期间均返回最近一次成功的数据
+     * @throws Exception
+     */
+    @Test
+    void testCircuitOpenServesCachedValue() throws Exception {
+        properties.getCache().setTtl(Duration.ZERO);
+        properties.getCache().setStaleWhileRevalidate(Duration.ZERO);
+        ProxyServiceImpl proxyService = createService();
+
+        server.enqueue(new MockResponse().setBody("{\"city\":\"shenzhen\"}"));
+        HoppinResponse<Object> first = fetchWeather(proxyService);
+        assertTrue(first.getSuccess());
+
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(503));
+            HoppinResponse<Object> response = fetchWeather(proxyService);
+            assertTrue(response.getSuccess());
+            assertEquals(first.getData(), response.getData());
+        }
+
+        HoppinResponse<Object> shortCircuited = fetchWeather(proxyService);
+        assertTrue(shortCircuited.getSuccess());
+        assertEquals(first.getData(), shortCircuited.getData());
+        assertEquals(4, server.getRequestCount());
+    }
+
+    /**
+     * 测试并发隔离：在途请求达到上限后新的请求直接失败，不再排队
+     * 预期结果：第二个请求立即失败，第一个请求正常完成
+     * @throws Exception
+     */
+    @Test
+    void testBulkheadRejectsExcessConcurrentCalls() throws Exception {
+        properties.getCache().setEnabled(false);
+        properties.getRoutes().get(ProxyRoute.WEATHER.getId()).setMaxConcurrent(1);
+        ProxyServiceImpl proxyService = createService();
+
+        server.enqueue(new MockResponse().setBody("{\"city\":\"shenzhen\"}").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        CompletableFuture<HoppinResponse<Object>> slow = proxyService.fetch(ProxyRoute.WEATHER, null);
+
+        // 参数不同，不会与在途请求合并
+        HoppinResponse<Object> rejected = proxyService.fetch(ProxyRoute.WEATHER, Collections.singletonMap("city", "beijing"))
+                .get(5, TimeUnit.SECONDS);
+        assertFalse(rejected.getSuccess());
+        assertTrue(rejected.getMessage().contains("上游请求过多"));
+
+        assertTrue(slow.get(5, TimeUnit.SECONDS).getSuccess());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    /**
+     * 测试对冲请求：首个请求超过P95延迟仍未返回时发出第二个请求，先返回者胜出
+     * 预期结果：无需等待慢请求即返回成功
+     * @throws Exception
+     */
+    @Test
+    void testSlowCallIsHedged() throws Exception {
+        properties.getCache().setEnabled(false);
+        properties.getLatency().setMinSamples(5);
+        properties.getLatency().setMaxHedgeRatio(0.5);
+        ProxyServiceImpl proxyService = createService();
+
+        // 先积累一批快速响应的延迟样本
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse().setBody("{\"city\":\"shenzhen\"}"));
+            assertTrue(fetchWeather(proxyService).getSuccess());
+        }
+
+        server.enqueue(new MockResponse().setBody("{\"city\":\"slow\"}").setHeadersDelay(3, TimeUnit.SECONDS));
+        server.enqueue(new MockResponse().setBody("{\"city\":\"fast\"}"));
+        long startedAt = System.currentTimeMillis();
+        HoppinResponse<Object> response = fetchWeather(proxyService);
+
+        assertTrue(response.getSuccess());
+        assertTrue(response.getData().toString().contains("fast"));
+        assertTrue(System.currentTimeMillis() - startedAt < 2000);
+        assertEquals(7, server.getRequestCount());
+    }
+
+    /**
+     * 测试相同参数的并发请求合并为一次上游调用
+     * 预期结果：所有请求成功，上游只收到一次请求
+     * @throws Exception
+     */
+    @Test
+    void testConcurrentIdenticalRequestsAreCoalesced() throws Exception {
+        properties.getCache().setEnabled(false);
+        ProxyServiceImpl proxyService = createService();
+
+        server.enqueue(new MockResponse().setBody("{\"city\":\"shenzhen\"}").setHeadersDelay(300, TimeUnit.MILLISECONDS));
+        List<CompletableFuture<HoppinResponse<Object>>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(proxyService.fetch(ProxyRoute.WEATHER, Collections.singletonMap("city", "shenzhen")));
+        }
+
+        for (CompletableFuture<HoppinResponse<Object>> future : futures) {
+            assertTrue(future.get(5, TimeUnit.SECONDS).getSuccess());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    /**
+     * 测试缓存过期后以条件请求重新验证，上游返回304时沿用旧数据
+     * 预期结果：第二次请求携带If-None-Match，返回与首次相同的数据
+     * @throws Exception
+     */
+    @Test
+    void testExpiredEntryIsRevalidatedWithConditionalRequest() throws Exception {
+        properties.getCache().setTtl(Duration.ZERO);
+        properties.getCache().setStaleWhileRevalidate(Duration.ZERO);
+        ProxyServiceImpl proxyService = createService();
+
+        server.enqueue(new MockResponse().setBody("{\"city\":\"shenzhen\"}").setHeader("ETag", "\"v1\""));
+        HoppinResponse<Object> first = fetchWeather(proxyService);
+        assertTrue(first.getSuccess());
+
+        server.enqueue(new MockResponse().setResponseCode(304));
+        HoppinResponse<Object> second = fetchWeather(proxyService);
+        assertTrue(second.getSuccess());
+        assertSame(first.getData(), second.getData());
+
+        server.takeRequest();
+        assertEquals("\"v1\"", server.takeRequest().getHeader("If-None-Match"));
+    }
+
+    /**
+     * 测试字段投影：只保留配置的字段路径，数组中的每个元素按相同路径裁剪
+     * 预期结果：返回数据只包含投影字段
+     * @throws Exception
+     */
+    @Test
+    void testFieldProjection() throws Exception {
+        properties.getCache().setEnabled(false);
+        properties.getRoutes().get(ProxyRoute.WEATHER.getId()).setFields(Arrays.asList("pageProps.data.name", "pageProps.total"));
+        ProxyServiceImpl proxyService = createService();
+
+        server.enqueue(new MockResponse().setBody("{\"pageProps\":{\"total\":2,\"desc\":\"x\",\"data\":"
+                + "[{\"name\":\"a\",\"score\":1},{\"name\":\"b\",\"score\":2}]},\"__N_SSG\":true}"));
+        HoppinResponse<Object> response = fetchWeather(proxyService);
+
+        assertTrue(response.getSuccess());
+        JSONObject data = (JSONObject) ((ProxyPayload) response.getData()).getData();
+        assertEquals(1, data.size());
+        JSONObject pageProps = data.getJSONObject("pageProps");
+        assertEquals(2, pageProps.size());
+        assertEquals(2, pageProps.getIntValue("total"));
+        JSONArray items = pageProps.getJSONArray("data");
+        assertEquals(2, items.size());
+        assertEquals(Collections.singletonMap("name", "a"), items.getJSONObject(0).getInnerMap());
+        assertEquals(Collections.singletonMap("name", "b"), items.getJSONObject(1).getInnerMap());
+    }
+
+    /**
+     * 测试默认配置中大模型排名和编程排名路由的字段投影
+     * 预期结果：application.yml为两个路由配置了投影；Next.js数据接口中的多语言词条等页面数据被裁掉，只保留榜单数据
+     * @throws Exception
+     */
+    @Test
+    void testShippedRankProjectionReducesPayload() throws Exception {
+        List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load("application", new ClassPathResource("application.yml"));
+        properties = new Binder(ConfigurationPropertySources.from(sources))
+                .bind("blog.proxy", ProxyProperties.class).get();
+        assertNotNull(properties.fieldsOf(ProxyRoute.LM_RANK));
+        assertNotNull(properties.fieldsOf(ProxyRoute.TIOBE));
+        properties.getCache().setEnabled(false);
+        properties.getRoutes().get(ProxyRoute.LM_RANK.getId()).setUrl(server.url("/zh/report/lm-rank.json").toString());
+        ProxyServiceImpl proxyService = createService();
+
+        StringBuilder i18n = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            i18n.append(i == 0 ? "" : ",").append("\"key").append(i).append("\":\"翻译词条").append(i).append('"');
+        }
+        String ranking = "[{\"name\":\"a\",\"score\":1.5,\"rank\":1},{\"name\":\"b\",\"score\":1.2,\"rank\":2}]";
+        String upstream = "{\"pageProps\":{\"data\":" + ranking + ",\"_nextI18Next\":{\"initialI18nStore\":{\"zh\":{\"common\":{"
+                + i18n + "}}},\"initialLocale\":\"zh\"}},\"__N_SSG\":true}";
+        server.enqueue(new MockResponse().setBody(upstream));
+
+        HoppinResponse<Object> response = proxyService.fetch(ProxyRoute.LM_RANK, null).get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.getSuccess());
+        JSONObject data = (JSONObject) ((ProxyPayload) response.getData()).getData();
+        assertEquals(Collections.singleton("pageProps"), data.keySet());
+        assertEquals(Collections.singleton("data"), data.getJSONObject("pageProps").keySet());
+        assertEquals(JSONArray.parseArray(ranking), data.getJSONObject("pageProps").getJSONArray("data"));
+        assertTrue(data.toJSONString().length() * 10 < upstream.length());
+    }
+}
@@ -0,0 +1,146 @@
+package com.blog.analytics.service.impl;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.blog.analytics.dto.PreSerializedJson;
+import com.blog.analytics.dto.ReportSnapshotDTO;
+import com.blog.analytics.entity.DailyStats;
+import com.blog.analytics.entity.ReportSnapshot;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.HourlyStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.mapper.RefererStatsMapper;
+import com.blog.analytics.mapper.ReportSnapshotMapper;
+import com.blog.analytics.mapper.UserAgentStatsMapper;
+import com.blog.analytics.service.ReportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ReportServiceImpl测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class ReportServiceImplTest {
+
+    private DailyStatsMapper dailyStatsMapper;
+    private HourlyStatsMapper hourlyStatsMapper;
+    private PageStatsMapper pageStatsMapper;
+    private RefererStatsMapper refererStatsMapper;
+    private UserAgentStatsMapper userAgentStatsMapper;
+    private ReportSnapshotMapper reportSnapshotMapper;
+    private ReportServiceImpl reportService;
+
+    @BeforeEach
+    void setUp() {
+        dailyStatsMapper = mock(DailyStatsMapper.class);
+        hourlyStatsMapper = mock(HourlyStatsMapper.class);
+        pageStatsMapper = mock(PageStatsMapper.class);
+        refererStatsMapper = mock(RefererStatsMapper.class);
+        userAgentStatsMapper = mock(UserAgentStatsMapper.class);
+        reportSnapshotMapper = mock(ReportSnapshotMapper.class);
+        reportService = new ReportServiceImpl(dailyStatsMapper, hourlyStatsMapper, pageStatsMapper,
+            refererStatsMapper, userAgentStatsMapper, reportSnapshotMapper, Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(reportService, "topN", 10);
+    }
+
+    /**
+     * 测试生成周报
+     * 预期结果：周期为周一至周日，总计按天汇总、跳出率按会话数加权，小时分布补齐24小时，快照整行写入
+     */
+    @Test
+    void testGenerateWeekly() {
+        when(dailyStatsMapper.selectList(any())).thenReturn(Arrays.asList(
+            day(20261012, 100, 40, 20, 10, 1200),
+            day(20261013, 50, 30, 20, 0, 2800)));
+        when(hourlyStatsMapper.getVisitsByHourOfDay(2026101200, 2026101823)).thenReturn(Arrays.asList(
+            row("hour", 9, "visits", 120L), row("hour", 23, "visits", 30L)));
+        when(pageStatsMapper.getTopPages(20261012, 20261018, 10)).thenReturn(Collections.singletonList(
+            rank("/post/1", 90L, 40L)));
+        when(refererStatsMapper.getTopReferers(anyInt(), anyInt(), anyInt())).thenReturn(Collections.emptyList());
+        when(userAgentStatsMapper.getTopBrowsers(anyInt(), anyInt(), anyInt())).thenReturn(Collections.singletonList(
+            rank("Chrome", 150L, 70L)));
+
+        ReportSnapshotDTO report = reportService.generate(ReportService.ReportType.WEEKLY, LocalDate.of(2026, 10, 15));
+
+        assertEquals(LocalDate.of(2026, 10, 12), report.getPeriodStart());
+        assertEquals(LocalDate.of(2026, 10, 18), report.getPeriodEnd());
+        assertEquals(150L, report.getTotal().getVisits());
+        assertEquals(70L, report.getTotal().getUniqueIps());
+        assertEquals(25.0, report.getTotal().getAvgBounceRate());
+        assertEquals(100, report.getTotal().getAvgSessionDuration());
+        assertEquals(24, report.getHourlyVisits().size());
+        assertEquals(120L, report.getHourlyVisits().get(9));
+        assertEquals(0L, report.getHourlyVisits().get(10));
+        assertEquals("/post/1", report.getTopPages().get(0).getName());
+
+        ArgumentCaptor<ReportSnapshot> captor = ArgumentCaptor.forClass(ReportSnapshot.class);
+        verify(reportSnapshotMapper).upsert(captor.capture());
+        ReportSnapshot snapshot = captor.getValue();
+        assertEquals("WEEKLY:20261012", snapshot.getReportKey());
+        assertEquals(20261018, snapshot.getPeriodEnd());
+        assertTrue(snapshot.getEtag().startsWith("\"") && snapshot.getEtag().length() == 34);
+        JSONObject payload = JSONObject.parseObject(snapshot.getPayload());
+        assertEquals("2026-10-12", payload.getString("periodStart"));
+        JSONArray browsers = payload.getJSONArray("topBrowsers");
+        assertEquals("Chrome", browsers.getJSONObject(0).getString("name"));
+    }
+
+    /**
+     * 测试读取快照
+     * 预期结果：按周期开始日期的主键读取，原样返回保存的内容和ETag，不存在时返回null
+     */
+    @Test
+    void testGetSnapshot() {
+        ReportSnapshot snapshot = new ReportSnapshot();
+        snapshot.setPayload("{\"reportType\":\"MONTHLY\"}");
+        snapshot.setEtag("\"abc\"");
+        when(reportSnapshotMapper.selectById("MONTHLY:20261001")).thenReturn(snapshot);
+
+        PreSerializedJson json = reportService.getSnapshot(ReportService.ReportType.MONTHLY, LocalDate.of(2026, 10, 31));
+
+        assertNotNull(json);
+        assertEquals("{\"reportType\":\"MONTHLY\"}", json.getJson());
+        assertEquals("\"abc\"", json.getEtag());
+        assertNull(reportService.getSnapshot(ReportService.ReportType.DAILY, LocalDate.of(2026, 10, 31)));
+    }
+
+    private static DailyStats day(int dateKey, long visits, long uniqueIps, long sessions, long bounces, long duration) {
+        DailyStats stats = new DailyStats();
+        stats.setDateKey(dateKey);
+        stats.setTotalVisits(visits);
+        stats.setUniqueIps(uniqueIps);
+        stats.setPageViews(visits);
+        stats.setSessionCount(sessions);
+        stats.setBounceSessions(bounces);
+        stats.setTotalSessionDuration(duration);
+        return stats;
+    }
+
+    private static Map<String, Object> rank(String name, long visits, long uniqueIps) {
+        Map<String, Object> row = row("name", name, "visits", visits);
+        row.put("uniqueIps", uniqueIps);
+        return row;
+    }
+
+    private static Map<String, Object> row(String k1, Object v1, String k2, Object v2) {
+        Map<String, Object> row = new HashMap<>();
+        row.put(k1, v1);
+        row.put(k2, v2);
+        return row;
+    }
+}
@@ -0,0 +1,169 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.dto.SeriesStatsDTO;
+import com.blog.analytics.entity.DailyStats;
+import com.blog.analytics.entity.PeriodStats;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.HourlyStatsMapper;
+import com.blog.analytics.mapper.PagePeriodStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.mapper.PeriodStatsMapper;
+import com.blog.analytics.service.RollupService.Granularity;
+import com.blog.analytics.utils.HyperLogLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * RollupServiceImpl测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class RollupServiceImplTest {
+
+    private DailyStatsMapper dailyStatsMapper;
+    private PeriodStatsMapper periodStatsMapper;
+    private RollupServiceImpl rollupService;
+
+    @BeforeEach
+    void setUp() {
+        dailyStatsMapper = mock(DailyStatsMapper.class);
+        periodStatsMapper = mock(PeriodStatsMapper.class);
+        rollupService = new RollupServiceImpl(dailyStatsMapper, mock(HourlyStatsMapper.class),
+            mock(PageStatsMapper.class), periodStatsMapper, mock(PagePeriodStatsMapper.class),
+            mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(rollupService, "maxPoints", 1000);
+    }
+
+    /**
+     * 测试周期拆分
+     * 预期结果：完整月优先，其次从周一开始的完整周，首尾零散日期按天；未结束的周期不使用汇总
+     */
+    @Test
+    void testPlan() {
+        LocalDate today = LocalDate.of(2026, 10, 19);
+
+        List<RollupServiceImpl.Segment> month = RollupServiceImpl.plan(
+            LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 31), Granularity.MONTH, today);
+        assertEquals(1, month.size());
+        assertEquals(Granularity.MONTH, month.get(0).level);
+
+        // 11-01是周六：2天 + 2个完整周 + 4天
+        List<RollupServiceImpl.Segment> partial = RollupServiceImpl.plan(
+            LocalDate.of(2025, 11, 1), LocalDate.of(2025, 11, 20), Granularity.MONTH, today);
+        assertEquals(8, partial.size());
+        assertEquals(Granularity.WEEK, partial.get(2).level);
+        assertEquals(LocalDate.of(2025, 11, 3), partial.get(2).start);
+        assertEquals(LocalDate.of(2025, 11, 16), partial.get(3).end);
+
+        // 按周分组时不使用月汇总
+        assertTrue(RollupServiceImpl.plan(LocalDate.of(2025, 9, 29), LocalDate.of(2025, 10, 5), Granularity.WEEK, today)
+            .stream().allMatch(s -> s.level == Granularity.WEEK));
+
+        // 当前月：只有今天之前已结束的周使用汇总
+        List<RollupServiceImpl.Segment> current = RollupServiceImpl.plan(
+            LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 31), Granularity.MONTH, today);
+        assertEquals(2, current.stream().filter(s -> s.level == Granularity.WEEK).count());
+        assertTrue(current.stream().noneMatch(s -> s.level == Granularity.MONTH));
+    }
+
+    /**
+     * 测试按月查询的拼接
+     * 预期结果：完整月读取一行汇总，首个不完整的月按天读取，总计为两部分之和
+     */
+    @Test
+    void testMonthlySeriesStitching() {
+        when(periodStatsMapper.selectList(any())).thenReturn(Collections.singletonList(
+            period(20251001, 20251031, 3000, 900, LocalDateTime.of(2025, 11, 1, 0, 30))));
+        when(dailyStatsMapper.selectList(any())).thenReturn(Collections.singletonList(day(20250930, 100, 40)));
+
+        SeriesStatsDTO series = rollupService.getSeries(
+            LocalDate.of(2025, 9, 30), LocalDate.of(2025, 10, 31), Granularity.MONTH, null);
+
+        assertEquals(2, series.getData().size());
+        assertEquals(100L, series.getData().get(0).getVisits());
+        assertEquals(LocalDate.of(2025, 10, 1).atStartOfDay(), series.getData().get(0).getEnd());
+        assertEquals(3000L, series.getData().get(1).getVisits());
+        assertEquals(3100L, series.getTotal().getVisits());
+        assertEquals(940L, series.getTotal().getUniqueIps());
+        verify(periodStatsMapper, times(1)).selectList(any());
+        verify(dailyStatsMapper, times(1)).selectList(any());
+    }
+
+    /**
+     * 测试周期结束前刷新的汇总
+     * 预期结果：汇总视为不完整，该月改为按天拼接
+     */
+    @Test
+    void testStaleRollupFallsBackToDays() {
+        when(periodStatsMapper.selectList(any())).thenReturn(Collections.singletonList(
+            period(20251001, 20251031, 2900, 870, LocalDateTime.of(2025, 10, 31, 0, 30))));
+        when(dailyStatsMapper.selectList(any())).thenReturn(Arrays.asList(
+            day(20251030, 2900, 870), day(20251031, 100, 30)));
+
+        SeriesStatsDTO series = rollupService.getSeries(
+            LocalDate.of(2025, 10, 1), LocalDate.of(2025, 10, 31), Granularity.MONTH, null);
+
+        assertEquals(3000L, series.getData().get(0).getVisits());
+        assertEquals(900L, series.getTotal().getUniqueIps());
+    }
+
+    /**
+     * 测试独立IP合并
+     * 预期结果：两天是同一批IP时，有草图按并集估计（约100），没有草图的天仍累加当天的独立IP数
+     */
+    @Test
+    void testUniquesMergeSketches() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            sketch.offer("10.0.0." + i);
+        }
+        DailyStats monday = day(20250929, 300, 100);
+        monday.setIpSketch(sketch.toBytes());
+        DailyStats tuesday = day(20250930, 300, 100);
+        tuesday.setIpSketch(sketch.toBytes());
+        DailyStats wednesday = day(20251001, 50, 20);
+        when(dailyStatsMapper.selectList(any())).thenReturn(Arrays.asList(monday, tuesday, wednesday));
+
+        SeriesStatsDTO series = rollupService.getSeries(
+            LocalDate.of(2025, 9, 29), LocalDate.of(2025, 10, 1), Granularity.WEEK, null);
+
+        assertEquals(1, series.getData().size());
+        assertEquals(650L, series.getTotal().getVisits());
+        assertEquals(120L, series.getTotal().getUniqueIps(), 2);
+        assertEquals(series.getTotal().getUniqueIps(), series.getData().get(0).getUniqueIps());
+    }
+
+    private static PeriodStats period(int periodKey, int periodEnd, long visits, long uniqueIps, LocalDateTime updatedAt) {
+        PeriodStats stats = new PeriodStats();
+        stats.setPeriodType(Granularity.MONTH.name());
+        stats.setPeriodKey(periodKey);
+        stats.setPeriodEnd(periodEnd);
+        stats.setTotalVisits(visits);
+        stats.setUniqueIps(uniqueIps);
+        stats.setPageViews(visits);
+        stats.setUpdatedAt(updatedAt);
+        return stats;
+    }
+
+    private static DailyStats day(int dateKey, long visits, long uniqueIps) {
+        DailyStats stats = new DailyStats();
+        stats.setDateKey(dateKey);
+        stats.setTotalVisits(visits);
+        stats.setUniqueIps(uniqueIps);
+        stats.setPageViews(visits);
+        return stats;
+    }
+}
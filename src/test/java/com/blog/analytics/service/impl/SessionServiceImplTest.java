@@ -0,0 +1,136 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.dto.VisitRecordDTO;
+import com.blog.analytics.entity.PageStats;
+import com.blog.analytics.mapper.DailyStatsMapper;
+import com.blog.analytics.mapper.PageStatsMapper;
+import com.blog.analytics.utils.DateUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SessionServiceImpl测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class SessionServiceImplTest {
+
+    private DailyStatsMapper dailyStatsMapper;
+    private PageStatsMapper pageStatsMapper;
+    private SessionServiceImpl sessionService;
+
+    @BeforeEach
+    void setUp() {
+        dailyStatsMapper = mock(DailyStatsMapper.class);
+        pageStatsMapper = mock(PageStatsMapper.class);
+        sessionService = new SessionServiceImpl(dailyStatsMapper, pageStatsMapper);
+        ReflectionTestUtils.setField(sessionService, "timeoutMinutes", 30);
+        ReflectionTestUtils.setField(sessionService, "tickMillis", 10000L);
+        ReflectionTestUtils.setField(sessionService, "maxSessions", 100);
+        sessionService.init();
+    }
+
+    private static VisitRecordDTO visit(String ip, String pageUrl) {
+        VisitRecordDTO dto = new VisitRecordDTO();
+        dto.setIpAddress(ip);
+        dto.setUserAgent("Mozilla/5.0");
+        dto.setPageUrl(pageUrl);
+        return dto;
+    }
+
+    /**
+     * 测试跳出与非跳出会话的汇总
+     * 预期结果：两个会话中一个跳出；跳出计入入口页，多页会话的入口页无跳出、退出计入最后一页
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBounceAccounting() {
+        sessionService.onVisit(visit("1.1.1.1", "/a"));
+        sessionService.onVisit(visit("2.2.2.2", "/a"));
+        sessionService.onVisit(visit("2.2.2.2", "/b"));
+
+        sessionService.shutdown();
+
+        Integer today = DateUtil.getCurrentDateKey();
+        verify(dailyStatsMapper).upsertSessionStats(eq(today), eq(DateUtil.dateKeyToString(today)),
+            eq(2L), eq(1L), anyLong());
+        ArgumentCaptor<List<PageStats>> captor = ArgumentCaptor.forClass(List.class);
+        verify(pageStatsMapper).batchUpsertSessionStats(captor.capture());
+        Map<String, PageStats> pages = captor.getValue().stream()
+            .collect(Collectors.toMap(PageStats::getPageUrl, Function.identity()));
+        assertEquals(2, pages.get("/a").getEntryCount());
+        assertEquals(1, pages.get("/a").getBounceCount());
+        assertEquals(1, pages.get("/a").getExitCount());
+        assertEquals(0, pages.get("/b").getEntryCount());
+        assertEquals(0, pages.get("/b").getBounceCount());
+        assertEquals(1, pages.get("/b").getExitCount());
+    }
+
+    /**
+     * 测试写入失败后重试
+     * 预期结果：第一次写入失败的汇总合并回待写入数据，下次刷新时以相同数值写入
+     */
+    @Test
+    void testFailedFlushIsRetried() {
+        when(dailyStatsMapper.upsertSessionStats(anyInt(), anyString(), anyLong(), anyLong(), anyLong()))
+            .thenThrow(new RuntimeException("db down"))
+            .thenReturn(1);
+        sessionService.onVisit(visit("1.1.1.1", "/a"));
+        sessionService.shutdown();
+        sessionService.flushSessionStats();
+
+        verify(dailyStatsMapper, times(2)).upsertSessionStats(anyInt(), anyString(), eq(1L), eq(1L), anyLong());
+    }
+
+    /**
+     * 测试页面统计第二批写入失败后重试
+     * 预期结果：第一批已写入的页面不重复累加；只有失败批次的页面在下次刷新时重新写入，每个页面的入口数恰好累加一次
+     */
+    @Test
+    void testFailedPageBatchRetriesOnlyUnwrittenPages() {
+        ReflectionTestUtils.setField(sessionService, "maxSessions", 1000);
+        sessionService.init();
+        for (int i = 0; i < 600; i++) {
+            sessionService.onVisit(visit("10.0." + (i / 250) + "." + (i % 250), "/p" + i));
+        }
+        List<List<PageStats>> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            written.add(new ArrayList<>(invocation.getArgument(0)));
+            return 500;
+        }).doThrow(new RuntimeException("db down"))
+            .doAnswer(invocation -> {
+                written.add(new ArrayList<>(invocation.getArgument(0)));
+                return 100;
+            })
+            .when(pageStatsMapper).batchUpsertSessionStats(anyList());
+
+        sessionService.shutdown();
+        sessionService.flushSessionStats();
+
+        verify(pageStatsMapper, times(3)).batchUpsertSessionStats(anyList());
+        assertEquals(500, written.get(0).size());
+        assertEquals(100, written.get(1).size());
+        Map<String, Integer> entries = new HashMap<>();
+        for (List<PageStats> batch : written) {
+            for (PageStats stats : batch) {
+                entries.merge(stats.getPageUrl(), stats.getEntryCount(), Integer::sum);
+            }
+        }
+        assertEquals(600, entries.size());
+        assertTrue(entries.values().stream().allMatch(count -> count == 1));
+    }
+}
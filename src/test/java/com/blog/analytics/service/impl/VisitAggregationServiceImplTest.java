@@ -0,0 +1,150 @@
+package com.blog.analytics.service.impl;
+
+import com.blog.analytics.dto.VisitRecordDTO;
+import com.blog.analytics.entity.RefererStats;
+import com.blog.analytics.mapper.HourlyStatsMapper;
+import com.blog.analytics.mapper.RefererStatsMapper;
+import com.blog.analytics.mapper.UserAgentStatsMapper;
+import com.blog.analytics.redis.RedisCommandBatcher;
+import com.blog.analytics.redis.RedisKeyLayout;
+import com.blog.analytics.utils.DateUtil;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * VisitAggregationServiceImpl测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class VisitAggregationServiceImplTest {
+
+    private RedisTemplate<String, Long> counterRedisTemplate;
+    private RefererStatsMapper refererStatsMapper;
+    private VisitAggregationServiceImpl aggregationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        counterRedisTemplate = mock(RedisTemplate.class);
+        refererStatsMapper = mock(RefererStatsMapper.class);
+        ObjectProvider<RedisCommandBatcher> batcherProvider = mock(ObjectProvider.class);
+        aggregationService = new VisitAggregationServiceImpl(mock(RedisTemplate.class), counterRedisTemplate,
+            batcherProvider, new RedisKeyLayout("blog:analytics:", RedisKeyLayout.Phase.LEGACY),
+            mock(HourlyStatsMapper.class), refererStatsMapper, mock(UserAgentStatsMapper.class),
+            new SimpleMeterRegistry());
+        aggregationService.init();
+        ReflectionTestUtils.setField(aggregationService, "realtimeExpireHours", 2);
+        ReflectionTestUtils.setField(aggregationService, "redisTimeoutMillis", 1000L);
+    }
+
+    /**
+     * 测试Redis部分命令失败后重发
+     * 预期结果：成功的INCRBY不重复发送；失败的HINCRBY在下次刷新时以原增量重发一次
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedRedisCommandIsRetriedAlone() {
+        RedisClusterAsyncCommands<byte[], byte[]> commands = mock(RedisClusterAsyncCommands.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.getNativeConnection()).thenReturn(commands);
+        when(counterRedisTemplate.execute(any(RedisCallback.class)))
+            .thenAnswer(invocation -> ((RedisCallback<Object>) invocation.getArgument(0)).doInRedis(connection));
+        RedisFuture<Long> incr = reply(CompletableFuture.completedFuture(1L));
+        RedisFuture<Boolean> expire = reply(CompletableFuture.completedFuture(true));
+        CompletableFuture<Long> lost = new CompletableFuture<>();
+        lost.completeExceptionally(new RuntimeException("连接中断"));
+        RedisFuture<Long> failedHIncr = reply(lost);
+        RedisFuture<Long> hIncr = reply(CompletableFuture.completedFuture(1L));
+        when(commands.incrby(any(), anyLong())).thenReturn(incr);
+        when(commands.expire(any(), anyLong())).thenReturn(expire);
+        when(commands.hincrby(any(), any(), anyLong())).thenReturn(failedHIncr, hIncr);
+
+        aggregationService.record(visit(null), null);
+        aggregationService.flushToRedis();
+        // 日访问数和页面访问数各一条INCRBY，实时统计一条HINCRBY
+        verify(commands, times(2)).incrby(any(), eq(1L));
+        verify(commands, times(1)).hincrby(any(), any(), eq(1L));
+
+        aggregationService.flushToRedis();
+        verify(commands, times(2)).incrby(any(), anyLong());
+        verify(commands, times(2)).hincrby(any(), any(), eq(1L));
+
+        aggregationService.flushToRedis();
+        verify(commands, times(2)).hincrby(any(), any(), anyLong());
+    }
+
+    /**
+     * 测试来源统计第二批写入失败后重试
+     * 预期结果：第一批已写入的来源不会重复累加；只有失败批次的来源在下次刷新时重新写入，每个来源恰好写入一次
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedSubBatchRetriesOnlyUnwrittenRows() {
+        for (int i = 0; i < 600; i++) {
+            aggregationService.record(visit("https://site" + i + ".example.com/"), null);
+        }
+        List<List<RefererStats>> written = new ArrayList<>();
+        doAnswer(invocation -> {
+            written.add(new ArrayList<>(invocation.getArgument(0)));
+            return 500;
+        }).doThrow(new RuntimeException("连接中断"))
+            .doAnswer(invocation -> {
+                written.add(new ArrayList<>(invocation.getArgument(0)));
+                return 100;
+            })
+            .when(refererStatsMapper).batchUpsertVisitCounts(anyList());
+
+        aggregationService.flushToDatabase();
+        aggregationService.flushToDatabase();
+
+        verify(refererStatsMapper, times(3)).batchUpsertVisitCounts(anyList());
+        assertEquals(500, written.get(0).size());
+        assertEquals(100, written.get(1).size());
+        Map<String, Long> totals = new HashMap<>();
+        for (List<RefererStats> batch : written) {
+            for (RefererStats stats : batch) {
+                totals.merge(stats.getRefererDomain(), stats.getVisitCount(), Long::sum);
+            }
+        }
+        assertEquals(600, totals.size());
+        assertTrue(totals.values().stream().allMatch(count -> count == 1L));
+
+        aggregationService.flushToDatabase();
+        verify(refererStatsMapper, times(3)).batchUpsertVisitCounts(anyList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> RedisFuture<T> reply(CompletableFuture<T> result) {
+        RedisFuture<T> future = mock(RedisFuture.class);
+        when(future.toCompletableFuture()).thenReturn(result);
+        return future;
+    }
+
+    private static VisitRecordDTO visit(String referer) {
+        VisitRecordDTO dto = new VisitRecordDTO();
+        dto.setPageUrl("/");
+        dto.setReferer(referer);
+        dto.setDateKey(DateUtil.getCurrentDateKey());
+        dto.setHourKey(DateUtil.getCurrentHourKey());
+        return dto;
+    }
+}
@@ -0,0 +1,125 @@
+package com.blog.analytics.service.impl;
+
+import com.alibaba.fastjson.JSONObject;
+import com.blog.analytics.entity.VisitRecord;
+import com.blog.analytics.mapper.VisitRecordMapper;
+import com.blog.analytics.service.VisitExportService;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * VisitExportServiceImpl测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class VisitExportServiceImplTest {
+
+    private VisitRecordMapper visitRecordMapper;
+    private VisitExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        visitRecordMapper = mock(VisitRecordMapper.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        exportService = new VisitExportServiceImpl(visitRecordMapper, transactionManager);
+        when(visitRecordMapper.streamForExport(eq(20261001), eq(20261002), isNull())).thenAnswer(invocation -> cursorOf(Arrays.asList(
+            record(1L, "/a", "Mozilla/5.0 (X11, Linux)", null),
+            record(2L, "/b?q=\"x\"", "curl", "https://example.com/"))));
+    }
+
+    /**
+     * 测试CSV导出
+     * 预期结果：首行为列名，含逗号或引号的字段加引号并转义
+     * @throws Exception
+     */
+    @Test
+    void testCsvEscaping() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exportService.export(LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 2), null,
+            VisitExportService.Format.CSV, out);
+
+        assertEquals(2, rows);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals("id,visit_time,date_key,hour_key,page_url,ip_address,referer,user_agent", lines[0]);
+        assertEquals("1,2026-10-01 10:30:00,20261001,2026100110,/a,1.1.1.1,,\"Mozilla/5.0 (X11, Linux)\"", lines[1]);
+        assertEquals("2,2026-10-01 10:30:00,20261001,2026100110,\"/b?q=\"\"x\"\"\",1.1.1.1,https://example.com/,curl", lines[2]);
+    }
+
+    /**
+     * 测试NDJSON导出
+     * 预期结果：每行一个完整的JSON对象，行首没有分隔空格
+     * @throws Exception
+     */
+    @Test
+    void testNdjsonLines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(LocalDate.of(2026, 10, 1), LocalDate.of(2026, 10, 2), null,
+            VisitExportService.Format.NDJSON, out);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("{"));
+        JSONObject second = JSONObject.parseObject(lines[1]);
+        assertEquals(2L, second.getLongValue("id"));
+        assertEquals("/b?q=\"x\"", second.getString("pageUrl"));
+        assertEquals("https://example.com/", second.getString("referer"));
+    }
+
+    private static VisitRecord record(Long id, String pageUrl, String userAgent, String referer) {
+        VisitRecord record = new VisitRecord();
+        record.setId(id);
+        record.setPageUrl(pageUrl);
+        record.setIpAddress("1.1.1.1");
+        record.setUserAgent(userAgent);
+        record.setReferer(referer);
+        record.setVisitTime(LocalDateTime.of(2026, 10, 1, 10, 30));
+        record.setDateKey(20261001);
+        record.setHourKey(2026100110);
+        return record;
+    }
+
+    private static Cursor<VisitRecord> cursorOf(List<VisitRecord> records) {
+        return new Cursor<VisitRecord>() {
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public boolean isConsumed() {
+                return false;
+            }
+
+            @Override
+            public int getCurrentIndex() {
+                return -1;
+            }
+
+            @Override
+            public Iterator<VisitRecord> iterator() {
+                return records.iterator();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
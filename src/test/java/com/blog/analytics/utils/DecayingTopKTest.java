@@ -0,0 +1,110 @@
+package com.blog.analytics.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DecayingTopK测试类
+ * 时间戳均相对于创建后的固定基准给出，结果与运行时刻无关
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class DecayingTopKTest {
+
+    private static final long FAST_HALF_LIFE = TimeUnit.MINUTES.toMillis(1);
+    private static final long SLOW_HALF_LIFE = TimeUnit.MINUTES.toMillis(60);
+    private static final double DELTA = 1e-9;
+
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        base = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(1);
+    }
+
+    private DecayingTopK topK(int capacity) {
+        return new DecayingTopK(capacity, FAST_HALF_LIFE, SLOW_HALF_LIFE);
+    }
+
+    private static void offer(DecayingTopK topK, String key, int times, long timestamp) {
+        for (int i = 0; i < times; i++) {
+            topK.offer(key, timestamp);
+        }
+    }
+
+    private static DecayingTopK.Item find(List<DecayingTopK.Item> items, String key) {
+        return items.stream().filter(item -> item.getKey().equals(key)).findFirst().orElse(null);
+    }
+
+    /**
+     * 测试Top-K排序
+     * 预期结果：同一时刻访问次数越多趋势分越高，当前速率 = 次数 × ln2 / 快半衰期（分钟），limit截断结果
+     */
+    @Test
+    void testTopOrdering() {
+        DecayingTopK topK = topK(10);
+        offer(topK, "/a", 10, base);
+        offer(topK, "/b", 5, base);
+        offer(topK, "/c", 1, base);
+
+        List<DecayingTopK.Item> items = topK.top(10, base);
+        assertEquals(3, items.size());
+        assertEquals("/a", items.get(0).getKey());
+        assertEquals("/b", items.get(1).getKey());
+        assertEquals("/c", items.get(2).getKey());
+        assertEquals(10 * Math.log(2), items.get(0).getCurrentRate(), DELTA);
+        assertEquals(10 * Math.log(2) / 60, items.get(0).getBaselineRate(), DELTA);
+        assertEquals(0, items.get(0).getErrorRate(), DELTA);
+
+        assertEquals(2, topK.top(2, base).size());
+    }
+
+    /**
+     * 测试时间衰减
+     * 预期结果：经过一个快半衰期当前速率减半、基线几乎不变；持续访问的旧页面被突增的新页面超过
+     */
+    @Test
+    void testDecay() {
+        DecayingTopK topK = topK(10);
+        offer(topK, "/old", 8, base);
+
+        DecayingTopK.Item before = topK.top(1, base).get(0);
+        DecayingTopK.Item after = topK.top(1, base + FAST_HALF_LIFE).get(0);
+        assertEquals(before.getCurrentRate() / 2, after.getCurrentRate(), DELTA);
+        assertEquals(before.getBaselineRate() * Math.pow(0.5, 1.0 / 60), after.getBaselineRate(), DELTA);
+
+        long later = base + 10 * FAST_HALF_LIFE;
+        offer(topK, "/new", 3, later);
+        List<DecayingTopK.Item> items = topK.top(10, later);
+        assertEquals("/new", items.get(0).getKey());
+        assertTrue(find(items, "/old").getCurrentRate() < 8 * Math.log(2) / 1000);
+    }
+
+    /**
+     * 测试容量满时的淘汰
+     * 预期结果：淘汰快计数最小的元素；新元素继承其快计数并记为误差上界，基线只包含新元素自己的访问
+     */
+    @Test
+    void testEvictionKeepsErrorButResetsBaseline() {
+        DecayingTopK topK = topK(2);
+        offer(topK, "/a", 5, base);
+        offer(topK, "/b", 3, base);
+        offer(topK, "/c", 1, base);
+
+        List<DecayingTopK.Item> items = topK.top(10, base);
+        assertEquals(2, topK.size());
+        assertNull(find(items, "/b"));
+        DecayingTopK.Item c = find(items, "/c");
+        assertNotNull(c);
+        assertEquals(4 * Math.log(2), c.getCurrentRate(), DELTA);
+        assertEquals(3 * Math.log(2), c.getErrorRate(), DELTA);
+        assertEquals(Math.log(2) / 60, c.getBaselineRate(), DELTA);
+        assertEquals("/a", items.get(0).getKey());
+    }
+}
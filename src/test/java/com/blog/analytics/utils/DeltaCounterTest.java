@@ -0,0 +1,45 @@
+package com.blog.analytics.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DeltaCounter测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class DeltaCounterTest {
+
+    /**
+     * 测试增量取出、失败归还与退役键清理
+     * 预期结果：每次只取出上次刷新以来的增量；归还后下次重新取出；退役且无新增量的键被移除
+     */
+    @Test
+    void testDrainRollbackAndRetire() {
+        DeltaCounter<Integer> counter = new DeltaCounter<>();
+        counter.add(20261018, 2);
+        counter.add(20261019, 1);
+        counter.add(20261019, 4);
+
+        Map<Integer, Long> first = counter.drain(date -> date < 20261019);
+        assertEquals(Long.valueOf(2), first.get(20261018));
+        assertEquals(Long.valueOf(5), first.get(20261019));
+
+        counter.add(20261019, 3);
+        Map<Integer, Long> second = counter.drain(date -> date < 20261019);
+        assertEquals(1, second.size());
+        assertEquals(Long.valueOf(3), second.get(20261019));
+        // 20261018已退役且没有新增量
+        assertEquals(1, counter.size());
+
+        counter.rollback(second);
+        counter.add(20261019, 1);
+        Map<Integer, Long> retried = counter.drain(date -> date < 20261019);
+        assertEquals(Long.valueOf(4), retried.get(20261019));
+        assertTrue(counter.drain(date -> date < 20261019).isEmpty());
+    }
+}
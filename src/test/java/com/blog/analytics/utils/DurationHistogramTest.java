@@ -0,0 +1,59 @@
+package com.blog.analytics.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DurationHistogram测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class DurationHistogramTest {
+
+    /**
+     * 测试桶边界
+     * 预期结果：1秒以内落入桶0；每个桶上界以下的时长落入本桶，超过上界落入下一个桶；约68分钟以上落入溢出桶
+     */
+    @Test
+    void testBucketBoundaries() {
+        assertEquals(0, DurationHistogram.bucketOf(0));
+        assertEquals(0, DurationHistogram.bucketOf(999));
+        assertEquals(1, DurationHistogram.bucketOf(1000));
+        assertEquals(1, DurationHistogram.bucketOf(1414));
+        assertEquals(2, DurationHistogram.bucketOf(1415));
+        assertEquals(3, DurationHistogram.bucketOf(2000));
+
+        for (int bucket = 0; bucket < DurationHistogram.BUCKETS - 2; bucket++) {
+            long upper = DurationHistogram.upperBoundMs(bucket);
+            assertEquals(bucket, DurationHistogram.bucketOf(upper - 1), "桶" + bucket + "上界以下");
+            assertEquals(bucket + 1, DurationHistogram.bucketOf(upper + 1), "桶" + bucket + "上界以上");
+        }
+
+        assertEquals(24, DurationHistogram.bucketOf(4_095_999));
+        assertEquals(DurationHistogram.BUCKETS - 1, DurationHistogram.bucketOf(4_096_000));
+        assertEquals(DurationHistogram.BUCKETS - 1, DurationHistogram.bucketOf(14_400_000));
+    }
+
+    /**
+     * 测试分位数估算
+     * 预期结果：返回累计计数首次达到分位排名的桶上界；无数据时返回0
+     */
+    @Test
+    void testQuantile() {
+        long[] counts = new long[DurationHistogram.BUCKETS];
+        assertEquals(0L, DurationHistogram.quantileMs(counts, 0.5));
+
+        // 50个1秒以内，40个2-2.8秒，10个约1分钟
+        counts[0] = 50;
+        counts[3] = 40;
+        counts[DurationHistogram.bucketOf(60_000)] = 10;
+
+        assertEquals(1000L, DurationHistogram.quantileMs(counts, 0.50));
+        assertEquals(DurationHistogram.upperBoundMs(3), DurationHistogram.quantileMs(counts, 0.51));
+        assertEquals(DurationHistogram.upperBoundMs(3), DurationHistogram.quantileMs(counts, 0.90));
+        long p99 = DurationHistogram.quantileMs(counts, 0.99);
+        assertTrue(p99 > 60_000 && p99 <= 60_000 * 1.415, "p99=" + p99);
+    }
+}
@@ -0,0 +1,44 @@
+package com.blog.analytics.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HyperLogLog测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class HyperLogLogTest {
+
+    /**
+     * 测试合并与序列化
+     * 预期结果：两天各5万个IP、重叠2万个，合并后估计值在8万的2%以内；稀疏和密集编码往返后估计值不变
+     */
+    @Test
+    void testMergeAndSerialize() {
+        HyperLogLog day1 = new HyperLogLog();
+        HyperLogLog day2 = new HyperLogLog();
+        for (int i = 0; i < 50000; i++) {
+            day1.offer("10.0." + i);
+            day2.offer("10.0." + (i + 30000));
+        }
+
+        HyperLogLog range = HyperLogLog.fromBytes(day1.toBytes());
+        range.merge(day2.toBytes());
+        assertEquals(80000, range.cardinality(), 80000 * 0.02);
+        assertEquals(range.cardinality(), HyperLogLog.fromBytes(range.toBytes()).cardinality());
+        assertEquals(12289, range.toBytes().length);
+
+        HyperLogLog small = new HyperLogLog();
+        for (int i = 0; i < 100; i++) {
+            small.offer("192.168.1." + i);
+            small.offer("192.168.1." + i);
+        }
+        assertEquals(100, small.cardinality(), 2);
+        assertTrue(small.toBytes().length <= 301);
+        assertEquals(small.cardinality(), HyperLogLog.fromBytes(small.toBytes()).cardinality());
+        assertEquals(0, new HyperLogLog().cardinality());
+    }
+}
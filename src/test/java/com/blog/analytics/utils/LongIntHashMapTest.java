@@ -0,0 +1,100 @@
+package com.blog.analytics.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LongIntHashMap测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class LongIntHashMapTest {
+
+    /**
+     * 查找理想槽位为指定值的键（容量为8时）
+     */
+    private static List<Long> keysInSlot(int slot, int count, long from) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = from; keys.size() < count; key++) {
+            if (((int) HashUtil.mix64(key) & 7) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 测试探测链跨越数组末尾时的删除
+     * 预期结果：三个键都落在最后一个槽位，探测链绕回0、1号槽；理想槽位为0的键被挤到2号槽。
+     * 删除链首后后续元素前移，所有剩余键仍能查到，被删除的键查不到，再次插入后可查到
+     */
+    @Test
+    void testRemoveAcrossWraparound() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        List<Long> last = keysInSlot(7, 3, 0);
+        long first = keysInSlot(0, 1, 0).get(0);
+        for (int i = 0; i < last.size(); i++) {
+            map.put(last.get(i), i);
+        }
+        map.put(first, 100);
+        assertEquals(4, map.size());
+
+        assertEquals(0, map.remove(last.get(0)));
+        assertEquals(LongIntHashMap.NO_VALUE, map.get(last.get(0)));
+        assertEquals(1, map.get(last.get(1)));
+        assertEquals(2, map.get(last.get(2)));
+        assertEquals(100, map.get(first));
+        assertEquals(3, map.size());
+
+        assertEquals(1, map.remove(last.get(1)));
+        assertEquals(2, map.get(last.get(2)));
+        assertEquals(100, map.get(first));
+
+        map.put(last.get(0), 7);
+        assertEquals(7, map.get(last.get(0)));
+        assertEquals(LongIntHashMap.NO_VALUE, map.remove(last.get(1)));
+    }
+
+    /**
+     * 测试扩容以及与HashMap的随机操作对照
+     * 预期结果：从很小的初始容量插入上万个键后全部可查；随机插入、覆盖、删除后与HashMap内容一致
+     */
+    @Test
+    void testResizeAndRandomOperations() {
+        LongIntHashMap map = new LongIntHashMap(2);
+        for (int i = 0; i < 10000; i++) {
+            map.put(i * 31L, i);
+        }
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, map.get(i * 31L));
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 50000; i++) {
+            long key = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? LongIntHashMap.NO_VALUE : removed, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 2000; key++) {
+            assertEquals(expected.getOrDefault(key, LongIntHashMap.NO_VALUE), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.blog.analytics.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sessionizer测试类
+ * 时间戳以刻度对齐的未来时刻为基准，截止时间恰好落在时间轮槽位边界上
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class SessionizerTest {
+
+    private static final long TIMEOUT = 1000;
+    private static final long TICK = 100;
+
+    private final List<long[]> closed = new ArrayList<>();
+    private final List<String> exits = new ArrayList<>();
+    private Sessionizer sessionizer;
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        sessionizer = new Sessionizer(TIMEOUT, TICK, 4, 100, (start, lastSeen, pageViews, entryPage, exitPage) -> {
+            closed.add(new long[]{start, lastSeen, pageViews});
+            exits.add(exitPage);
+        });
+        base = (System.currentTimeMillis() / TICK + 10) * TICK;
+    }
+
+    /**
+     * 测试截止时间恰好在槽位边界的会话
+     * 预期结果：推进到截止时间前1毫秒不关闭，推进到截止时间时关闭
+     */
+    @Test
+    void testExpiresExactlyOnSlotBoundary() {
+        sessionizer.onVisit(1L, "/a", base);
+
+        assertEquals(0, sessionizer.advance(base + TIMEOUT - 1));
+        assertEquals(1, sessionizer.activeSessions());
+        assertEquals(1, sessionizer.advance(base + TIMEOUT));
+        assertEquals(0, sessionizer.activeSessions());
+        assertArrayEquals(new long[]{base, base, 1}, closed.get(0));
+    }
+
+    /**
+     * 测试会话期间再次访问后的惰性重排
+     * 预期结果：原截止时间到达时会话未超时，按新截止时间重新挂载，到新截止时间才关闭
+     */
+    @Test
+    void testRescheduleAfterLaterVisit() {
+        sessionizer.onVisit(1L, "/a", base);
+        sessionizer.onVisit(1L, "/b", base + 500);
+
+        assertEquals(0, sessionizer.advance(base + TIMEOUT));
+        assertEquals(0, sessionizer.advance(base + 500 + TIMEOUT - 1));
+        assertEquals(1, sessionizer.advance(base + 500 + TIMEOUT));
+        assertArrayEquals(new long[]{base, base + 500, 2}, closed.get(0));
+        assertEquals("/b", exits.get(0));
+    }
+
+    /**
+     * 测试跳出与非跳出会话
+     * 预期结果：单页会话浏览数为1，多页会话浏览数为页数；超时后再次访问的访客结算旧会话并开启新会话
+     */
+    @Test
+    void testBounceAndReturningVisitor() {
+        sessionizer.onVisit(1L, "/a", base);
+        sessionizer.onVisit(2L, "/a", base);
+        sessionizer.onVisit(2L, "/b", base + 100);
+        sessionizer.onVisit(2L, "/c", base + 200);
+        // 时间轮尚未推进，但访客1已超时
+        sessionizer.onVisit(1L, "/d", base + TIMEOUT + 50);
+        assertEquals(1, closed.size());
+        assertEquals(1, closed.get(0)[2]);
+
+        assertEquals(2, sessionizer.closeAll());
+        assertEquals(3, closed.size());
+        assertTrue(closed.stream().anyMatch(session -> session[2] == 3 && session[1] - session[0] == 200));
+        assertTrue(closed.stream().anyMatch(session -> session[0] == base + TIMEOUT + 50 && session[2] == 1));
+        assertEquals(0, sessionizer.activeSessions());
+    }
+
+    /**
+     * 测试容量上限和槽位复用
+     * 预期结果：活跃会话达到上限后新访客被拒绝计数，会话关闭后槽位可复用
+     */
+    @Test
+    void testCapacityAndSlotReuse() {
+        Sessionizer small = new Sessionizer(TIMEOUT, TICK, 2, 2, (start, lastSeen, pageViews, entry, exit) -> { });
+        small.onVisit(1L, "/a", base);
+        small.onVisit(2L, "/a", base);
+        small.onVisit(3L, "/a", base);
+        assertEquals(2, small.activeSessions());
+        assertEquals(1, small.rejectedVisits());
+
+        assertEquals(2, small.advance(base + TIMEOUT));
+        small.onVisit(3L, "/a", base + TIMEOUT);
+        assertEquals(1, small.activeSessions());
+        assertEquals(1, small.rejectedVisits());
+    }
+}
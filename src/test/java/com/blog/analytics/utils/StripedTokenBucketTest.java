@@ -0,0 +1,74 @@
+package com.blog.analytics.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StripedTokenBucket测试类
+ *
+ * @author hoppinzq
+ * @since 2026-10-19
+ */
+class StripedTokenBucketTest {
+
+    /**
+     * 测试突发容量
+     * 预期结果：新键可连续获取容量个令牌，之后被拒绝并返回距下一个令牌的等待时间；不同键互不影响
+     */
+    @Test
+    void testBurstUpToCapacity() {
+        StripedTokenBucket bucket = new StripedTokenBucket(64, 5, 60);
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, bucket.tryAcquire(1L, now), "第" + (i + 1) + "个请求");
+        }
+        long wait = bucket.tryAcquire(1L, now);
+        assertTrue(wait > 0 && wait <= 1000, "wait=" + wait);
+
+        assertEquals(0L, bucket.tryAcquire(2L, now));
+    }
+
+    /**
+     * 测试按速率补充
+     * 预期结果：每分钟60个令牌即每秒补充1个，不足1个时仍被拒绝；长时间空闲后最多回满到容量
+     */
+    @Test
+    void testRefillRateAndCap() {
+        StripedTokenBucket bucket = new StripedTokenBucket(64, 5, 60);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            bucket.tryAcquire(1L, now);
+        }
+
+        assertTrue(bucket.tryAcquire(1L, now + 900) > 0);
+        assertEquals(0L, bucket.tryAcquire(1L, now + 1000));
+        assertTrue(bucket.tryAcquire(1L, now + 1000) > 0);
+        assertEquals(0L, bucket.tryAcquire(1L, now + 2000));
+
+        long later = now + 60_000;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, bucket.tryAcquire(1L, later), "空闲后第" + (i + 1) + "个请求");
+        }
+        assertTrue(bucket.tryAcquire(1L, later) > 0);
+    }
+
+    /**
+     * 测试槽位耗尽
+     * 预期结果：所有探测位置都被活跃键占用时，新键与首选槽位的键共享令牌桶，不会获得额外的令牌
+     */
+    @Test
+    void testSharesBucketWhenSlotsExhausted() {
+        // 最小表为2个槽位
+        StripedTokenBucket bucket = new StripedTokenBucket(1, 2, 60);
+        long now = System.currentTimeMillis();
+
+        for (long key = 1; key <= 2; key++) {
+            assertEquals(0L, bucket.tryAcquire(key, now));
+            assertEquals(0L, bucket.tryAcquire(key, now));
+            assertTrue(bucket.tryAcquire(key, now) > 0);
+        }
+        assertTrue(bucket.tryAcquire(3L, now) > 0);
+    }
+}